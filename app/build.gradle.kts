@@ -59,6 +59,18 @@ android {
         viewBinding = true
     }
 
+    sourceSets {
+        // Exported Room schemas are needed by MigrationTestHelper
+        getByName("androidTest").assets.srcDir("$projectDir/schemas")
+    }
+
+    testOptions {
+        unitTests.all {
+            // Benchmarks only run with ./gradlew test -Dbenchmark=true
+            it.systemProperty("benchmark", System.getProperty("benchmark", "false"))
+        }
+    }
+
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_17
         targetCompatibility = JavaVersion.VERSION_17
@@ -97,6 +109,7 @@ dependencies {
     implementation("androidx.room:room-runtime:$roomVersion")
     annotationProcessor("androidx.room:room-compiler:$roomVersion")
     testImplementation("androidx.room:room-testing:$roomVersion")
+    androidTestImplementation("androidx.room:room-testing:$roomVersion")
 
     // Camera
     implementation("androidx.camera:camera-core:$cameraxVersion")
@@ -29,6 +29,7 @@ import org.mockito.ArgumentCaptor;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class contains unit tests to verify the functionality of the {@link com.example.socialfood.controller.Navigation.NavigationController},
@@ -78,7 +79,8 @@ public class NavigationControllerTest {
         User mockUser = new User();
         List<Post> mockPosts = new ArrayList<>();
 
-        when(mockUserController.getUserById(userId)).thenReturn(mockUser);
+        when(mockUserController.getUserByIdAsync(userId))
+                .thenReturn(CompletableFuture.completedFuture(mockUser));
         when(mockPostController.getPostsFromUser(userId)).thenReturn(mockPosts);
 
         navigationController.showProfile(userId);
@@ -107,11 +109,9 @@ public class NavigationControllerTest {
      */
     @Test
     public void testShowMap() {
-        List<Post> mockPosts = new ArrayList<>();
-        when(mockPostController.getAllPosts()).thenReturn(mockPosts);
-
         navigationController.showMap();
 
+        verify(mockPostController, never()).getAllPosts();
         verify(mockFragmentManager.beginTransaction()).replace(eq(R.id.fragment_container), any(MapFragment.class));
         verify(mockTransaction).commit();
     }
@@ -161,7 +161,8 @@ public class NavigationControllerTest {
     @Test
     public void testShowPostDetail() {
         Post mockPost = new Post();
-        when(mockPostController.getPostById(anyInt(), anyInt())).thenReturn(mockPost);
+        when(mockPostController.getPostAsync(anyLong()))
+                .thenReturn(CompletableFuture.completedFuture(mockPost));
 
         navigationController.showPostDetail(mockPost);
 
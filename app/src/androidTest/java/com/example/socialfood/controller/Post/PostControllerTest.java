@@ -11,8 +11,10 @@ import com.example.socialfood.controller.User.UserController;
 import com.example.socialfood.model.entities.User;
 import com.example.socialfood.model.handler.CommentHandler;
 import com.example.socialfood.model.handler.LikeHandler;
+import com.example.socialfood.model.handler.Page;
 import com.example.socialfood.model.handler.PostHandler;
 import com.example.socialfood.model.entities.Comment;
+import com.example.socialfood.model.entities.FeedItem;
 import com.example.socialfood.model.entities.Post;
 
 import org.junit.Before;
@@ -20,6 +22,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * test class for {@link com.example.socialfood.controller.Post.PostController}.
@@ -68,29 +71,83 @@ public class PostControllerTest {
         double latitude = 12.34;
         double longitude = 56.78;
 
+        when(mockPostHandler.nextPostId()).thenReturn(42L);
         when(mockPostHandler.insert(any(Post.class))).thenReturn(true);
 
-        boolean result = postController.createPost(photoPath, description, recipe, ingredients, latitude, longitude);
-        assertTrue(result);
+        long postId = postController.createPost(photoPath, description, recipe, ingredients, latitude, longitude);
+        assertEquals(42L, postId);
 
-        verify(mockPostHandler).insert(any(Post.class));
+        verify(mockPostHandler).insert(argThat(post -> post.getPostId() == 42));
+        verify(mockPostHandler, never()).getPostByUser(anyInt());
     }
 
     /**
-     * Tests the {@link com.example.socialfood.controller.Post.PostController#getPost(int)} method.
+     * Tests that no post is inserted if no post ID could be allocated.
+     */
+    @Test
+    public void testCreatePostWithoutId() {
+        when(mockPostHandler.nextPostId()).thenReturn(-1L);
+
+        assertEquals(-1L, postController.createPost("/path/to/photo.jpg", "Delicious meal!", null,
+                null, 0, 0));
+
+        verify(mockPostHandler, never()).insert(any(Post.class));
+    }
+
+    /**
+     * Tests the {@link com.example.socialfood.controller.Post.PostController#getPost(long)} method.
      * <p>
-     * Verifies that the correct post is retrieved using {@link PostHandler#getPostById(int, int)}.
+     * Verifies that the correct post is retrieved by its ID alone using
+     * {@link PostHandler#getPostById(long)}.
      */
     @Test
     public void testGetPost() {
-        int postId = 123;
+        long postId = 123;
         Post mockPost = new Post();
-        when(mockPostHandler.getPostById(1, postId)).thenReturn(mockPost);
+        mockPost.setUid(2);
+        when(mockPostHandler.getPostById(postId)).thenReturn(mockPost);
 
         Post result = postController.getPost(postId);
         assertEquals(mockPost, result);
 
-        verify(mockPostHandler).getPostById(1, postId);
+        verify(mockPostHandler).getPostById(postId);
+    }
+
+    /**
+     * Tests the {@link com.example.socialfood.controller.Post.PostController#getPostAsync(long)} method.
+     * <p>
+     * Verifies that the future completes with the post on the callback executor.
+     */
+    @Test
+    public void testGetPostAsync() throws Exception {
+        long postId = 123;
+        Post mockPost = new Post();
+        when(mockPostHandler.getPostById(postId)).thenReturn(mockPost);
+        postController.setExecutors(Runnable::run, Runnable::run);
+
+        CompletableFuture<Post> result = postController.getPostAsync(postId);
+
+        assertTrue(result.isDone());
+        assertEquals(mockPost, result.get());
+    }
+
+    /**
+     * Tests the {@link com.example.socialfood.controller.Post.PostController#getPostsPageAsync(String)} method.
+     * <p>
+     * Verifies that only the requested page is loaded and that the future completes with it on
+     * the callback executor.
+     */
+    @Test
+    public void testGetPostsPageAsync() throws Exception {
+        Page<Post> page = new Page<>(new ArrayList<>(), "next");
+        when(mockPostHandler.getPostsPage(null)).thenReturn(page);
+        postController.setExecutors(Runnable::run, Runnable::run);
+
+        CompletableFuture<Page<Post>> result = postController.getPostsPageAsync(null);
+
+        assertTrue(result.isDone());
+        assertEquals(page, result.get());
+        verify(mockPostHandler, times(1)).getPostsPage(any());
     }
 
     /**
@@ -111,19 +168,20 @@ public class PostControllerTest {
     }
 
     /**
-     * Tests the {@link com.example.socialfood.controller.Post.PostController#getLikeCount(int)} method.
+     * Tests the {@link com.example.socialfood.controller.Post.PostController#getLikeCount(long)} method.
      * <p>
-     * Verifies that the correct like count for a post is retrieved.
+     * Verifies that the like count is read from the post's counter instead of counting the likes.
      */
     @Test
     public void testGetLikeCount() {
-        int postId = 123;
-        when(mockLikeHandler.getLikeCount(postId)).thenReturn(10);
+        long postId = 123;
+        when(mockPostHandler.getLikeCount(postId)).thenReturn(10);
 
         int result = postController.getLikeCount(postId);
         assertEquals(10, result);
 
-        verify(mockLikeHandler).getLikeCount(postId);
+        verify(mockPostHandler).getLikeCount(postId);
+        verify(mockLikeHandler, never()).getLikeCount(anyLong());
     }
 
     /**
@@ -159,19 +217,19 @@ public class PostControllerTest {
     }
 
     /**
-     * Tests the {@link com.example.socialfood.controller.Post.PostController#isPostLikedByUser(int)} method.
+     * Tests the {@link com.example.socialfood.controller.Post.PostController#isPostLikedByUser(long)} method.
      * <p>
      * Verifies that the correct like status for a post is determined.
      */
     @Test
     public void testIsPostLikedByUser() {
-        int postId = 123;
+        long postId = 123;
 
         Post mockPost = new Post();
         User mockUser = new User();
         mockUser.setUid(1);
 
-        when(mockPostHandler.getPostById(1, postId)).thenReturn(mockPost);
+        when(mockPostHandler.getPostById(postId)).thenReturn(mockPost);
         doReturn(mockUser).when(postController).getCurrentUser();
         when(mockPostHandler.isLikedByUser(mockPost, mockUser)).thenReturn(true);
 
@@ -179,34 +237,51 @@ public class PostControllerTest {
 
         assertTrue(result);
 
-        verify(mockPostHandler).getPostById(1, postId);
+        verify(mockPostHandler).getPostById(postId);
         verify(mockPostHandler).isLikedByUser(mockPost, mockUser);
     }
 
     /**
-     * Tests the {@link com.example.socialfood.controller.Post.PostController#onLikePost(int)} method.
+     * Tests the {@link com.example.socialfood.controller.Post.PostController#onLikePost(long)} method.
      * <p>
-     * Verifies that a post like is toggled using {@link LikeHandler#toggleLike(int, int)}.
+     * Verifies that the like is toggled using {@link LikeHandler#toggleLike(int, long)} without
+     * reading the post first.
      */
     @Test
     public void testOnLikePost() {
-        int postId = 123;
-        Post mockPost = new Post();
-        when(mockPostHandler.getPostById(1, postId)).thenReturn(mockPost);
+        long postId = 123;
 
         postController.onLikePost(postId);
 
         verify(mockLikeHandler).toggleLike(1, postId);
+        verify(mockPostHandler, never()).getPostById(anyLong());
+    }
+
+    /**
+     * Tests the {@link com.example.socialfood.controller.Post.PostController#getFeedItem(long)} method.
+     * <p>
+     * Verifies that the summary is requested for the current user as viewer.
+     */
+    @Test
+    public void testGetFeedItem() {
+        FeedItem mockItem = new FeedItem();
+        when(mockPostHandler.getFeedItem(123, 1)).thenReturn(mockItem);
+
+        FeedItem result = postController.getFeedItem(123);
+        assertEquals(mockItem, result);
+
+        verify(mockPostHandler).getFeedItem(123, 1);
     }
 
     /**
-     * Tests the {@link com.example.socialfood.controller.Post.PostController#onCommentPost(int, String)} method.
+     * Tests the {@link com.example.socialfood.controller.Post.PostController#onCommentPost(long, String)} method.
      * <p>
-     * Verifies that a comment is added to a post and the post is updated.
+     * Verifies that a comment is added to a post and that the post itself is not rewritten, as its
+     * comment count is maintained by the database.
      */
     @Test
     public void testOnCommentPost() {
-        int postId = 123;
+        long postId = 123;
         String commentText = "Great post!";
 
         Post mockPost = new Post();
@@ -214,25 +289,24 @@ public class PostControllerTest {
         mockPost.setPostId(postId);
         mockPost.setCommentCount(0);
 
-        when(mockPostHandler.getPostById(1, postId)).thenReturn(mockPost);
+        when(mockPostHandler.getPostById(postId)).thenReturn(mockPost);
+        when(mockCommentHandler.nextCommentId()).thenReturn(7L);
         when(mockCommentHandler.insert(any(Comment.class))).thenReturn(true);
 
         postController.onCommentPost(postId, commentText);
 
-        verify(mockCommentHandler).insert(any(Comment.class));
-
-        mockPost.setCommentCount(1);
-        verify(mockPostHandler).update(mockPost);
+        verify(mockCommentHandler).insert(argThat(comment -> comment.getCommentId() == 7));
+        verify(mockPostHandler, never()).update(any(Post.class));
     }
 
     /**
-     * Tests the {@link com.example.socialfood.controller.Post.PostController#getCommentsForPost(int)} method.
+     * Tests the {@link com.example.socialfood.controller.Post.PostController#getCommentsForPost(long)} method.
      * <p>
      * Verifies that all comments for a post are retrieved.
      */
     @Test
     public void testGetCommentsForPost() {
-        int postId = 123;
+        long postId = 123;
         List<Comment> mockComments = new ArrayList<>();
         when(mockCommentHandler.getCommentsByPostId(postId)).thenReturn(mockComments);
 
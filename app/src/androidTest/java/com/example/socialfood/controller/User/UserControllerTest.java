@@ -139,7 +139,6 @@ public class UserControllerTest {
             when(mockUserManager.getCurrentUser()).thenReturn(currentUser);
             when(mockUserHandler.getUserById(2)).thenReturn(userToFollow);
             when(mockFollowHandler.insert(any(Follow.class))).thenReturn(true);
-            when(mockUserHandler.update(userToFollow)).thenReturn(true);
 
             boolean result = userController.followUser(2);
 
@@ -147,7 +146,7 @@ public class UserControllerTest {
             verify(mockUserManager).getCurrentUser();
             verify(mockUserHandler).getUserById(2);
             verify(mockFollowHandler).insert(any(Follow.class));
-            verify(mockUserHandler).update(userToFollow);
+            verify(mockUserHandler, never()).update(any(User.class));
         }
 
     @Test
@@ -165,7 +164,6 @@ public class UserControllerTest {
         when(mockUserManager.getCurrentUser()).thenReturn(currentUser);
         when(mockUserHandler.getUserById(2)).thenReturn(userToUnfollow);
         when(mockFollowHandler.delete(currentUser.getUid(), userToUnfollow.getUid())).thenReturn(true);
-        when(mockUserHandler.update(userToUnfollow)).thenReturn(true);
 
         boolean result = userController.unfollowUser(2);
 
@@ -173,6 +171,6 @@ public class UserControllerTest {
         verify(mockUserManager).getCurrentUser();
         verify(mockUserHandler).getUserById(2);
         verify(mockFollowHandler).delete(currentUser.getUid(), userToUnfollow.getUid());
-        verify(mockUserHandler).update(userToUnfollow);
+        verify(mockUserHandler, never()).update(any(User.class));
         }
     }
\ No newline at end of file
@@ -30,6 +30,8 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Integration test class for LoginActivity. Tests all login-related functionality including:
  */
@@ -59,12 +61,13 @@ public class LoginActivityTest {
         Intents.init();
         activityRule.getScenario().onActivity(activity -> {
             activity.setAuthController(mockAuthController);
-            when(mockAuthController.validateAndLogin("testuser", "password"))
-                    .thenReturn(LoginResult.SUCCESS);
-            when(mockAuthController.validateAndLogin("", ""))
-                    .thenReturn(LoginResult.EMPTY_FIELDS);
-            when(mockAuthController.validateAndLogin("wrong", "wrong"))
-                    .thenReturn(LoginResult.INVALID_CREDENTIALS);
+            when(mockAuthController.validateAndLoginAsync("testuser", "password"))
+                    .thenReturn(CompletableFuture.completedFuture(LoginResult.SUCCESS));
+            when(mockAuthController.validateAndLoginAsync("", ""))
+                    .thenReturn(CompletableFuture.completedFuture(LoginResult.EMPTY_FIELDS));
+            when(mockAuthController.validateAndLoginAsync("wrong", "wrong"))
+                    .thenReturn(CompletableFuture.completedFuture(
+                            LoginResult.INVALID_CREDENTIALS));
         });
     }
 
@@ -10,12 +10,17 @@ import static androidx.test.espresso.matcher.ViewMatchers.withText;
 import android.content.Intent;
 
 import androidx.test.core.app.ApplicationProvider;
+import androidx.test.espresso.IdlingRegistry;
 import androidx.test.ext.junit.rules.ActivityScenarioRule;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 import androidx.test.rule.GrantPermissionRule;
 
 import com.example.socialfood.R;
+import com.example.socialfood.model.database.DatabaseClient;
+import com.example.socialfood.model.database.DatabaseIdlingResource;
 
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -26,6 +31,8 @@ import org.junit.runner.RunWith;
 @RunWith(AndroidJUnit4.class)
 public class MainActivityTest {
 
+    private DatabaseIdlingResource idlingResource;
+
     @Rule
     public ActivityScenarioRule<com.example.socialfood.gui.activities.MainActivity> activityRule = new ActivityScenarioRule<>(
             new Intent(ApplicationProvider.getApplicationContext(), com.example.socialfood.gui.activities.MainActivity.class)
@@ -70,4 +77,19 @@ public class MainActivityTest {
         onView(withText("Push-Benachrichtigungen"))
                 .check(matches(isDisplayed()));
     }
-}
\ No newline at end of file
+
+    /**
+     * Lets Espresso wait for the asynchronous database calls of the screens under test
+     */
+    @Before
+    public void setup() {
+        idlingResource = new DatabaseIdlingResource(
+                DatabaseClient.getInstance(ApplicationProvider.getApplicationContext()));
+        IdlingRegistry.getInstance().register(idlingResource);
+    }
+
+    @After
+    public void unregisterIdlingResource() {
+        IdlingRegistry.getInstance().unregister(idlingResource);
+    }
+}
@@ -26,6 +26,8 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.concurrent.CompletableFuture;
+
 @RunWith(AndroidJUnit4.class)
 /**
  * Integration test class for UserCreationActivity. Tests all registration-related functionality
@@ -55,12 +57,13 @@ public class UserCreationActivityTest {
 
         activityRule.getScenario().onActivity(activity -> {
             activity.setAuthController(mockAuthController);
-            when(mockAuthController.validateAndRegister("newuser", "password"))
-                    .thenReturn(RegisterResult.SUCCESS);
-            when(mockAuthController.validateAndRegister("", ""))
-                    .thenReturn(RegisterResult.EMPTY_FIELDS);
-            when(mockAuthController.validateAndRegister("existinguser", "password"))
-                    .thenReturn(RegisterResult.USERNAME_TAKEN);
+            when(mockAuthController.validateAndRegisterAsync("newuser", "password"))
+                    .thenReturn(CompletableFuture.completedFuture(RegisterResult.SUCCESS));
+            when(mockAuthController.validateAndRegisterAsync("", ""))
+                    .thenReturn(CompletableFuture.completedFuture(RegisterResult.EMPTY_FIELDS));
+            when(mockAuthController.validateAndRegisterAsync("existinguser", "password"))
+                    .thenReturn(CompletableFuture.completedFuture(
+                            RegisterResult.USERNAME_TAKEN));
         });
     }
 
@@ -23,6 +23,7 @@ import org.junit.runner.RunWith;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Test class for CommentsAdapter. Tests adapter functionality with mock data.
@@ -50,8 +51,10 @@ public class CommentsAdapterTest {
 
         User testUser = new User();
         testUser.setUsername("TestUser");
-        when(mockUserController.getUserById(1)).thenReturn(testUser);
-        when(mockUserController.getUserById(2)).thenReturn(testUser);
+        when(mockUserController.getUserByIdAsync(1))
+                .thenReturn(CompletableFuture.completedFuture(testUser));
+        when(mockUserController.getUserByIdAsync(2))
+                .thenReturn(CompletableFuture.completedFuture(testUser));
 
         adapter = new com.example.socialfood.gui.adapters.CommentsAdapter(testComments, mockUserController);
     }
@@ -95,7 +98,7 @@ public class CommentsAdapterTest {
     /**
      * Helper method to create test comments
      */
-    private Comment createTestComment(int uid, int postId, int commentId) {
+    private Comment createTestComment(int uid, long postId, int commentId) {
         Comment comment = new Comment();
         comment.setUid(uid);
         comment.setPostId(postId);
@@ -132,7 +132,7 @@ public class PostAdapterTest {
     /**
      * Helper method to create test posts with specified parameters.
      */
-    private Post createTestPost(int uid, int postId) {
+    private Post createTestPost(int uid, long postId) {
         Post post = new Post();
         post.setUid(uid);
         post.setPostId(postId);
@@ -13,6 +13,7 @@ import android.content.Context;
 import android.content.Intent;
 
 import androidx.test.core.app.ApplicationProvider;
+import androidx.test.espresso.IdlingRegistry;
 import androidx.test.espresso.contrib.RecyclerViewActions;
 import androidx.test.ext.junit.rules.ActivityScenarioRule;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
@@ -23,7 +24,10 @@ import com.example.socialfood.controller.Post.PostController;
 import com.example.socialfood.controller.User.UserController;
 import com.example.socialfood.gui.activities.MainActivity;
 import com.example.socialfood.utils.ExampleData;
+import com.example.socialfood.model.database.DatabaseClient;
+import com.example.socialfood.model.database.DatabaseIdlingResource;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -35,6 +39,8 @@ import org.junit.runner.RunWith;
 @RunWith(AndroidJUnit4.class)
 public class PostDetailFragmentTest {
 
+    private DatabaseIdlingResource idlingResource;
+
     @Rule
     public ActivityScenarioRule<MainActivity> activityRule = new ActivityScenarioRule<>(
             new Intent(ApplicationProvider.getApplicationContext(), MainActivity.class)
@@ -50,6 +56,7 @@ public class PostDetailFragmentTest {
      */
     @Before
     public void setup() {
+        registerIdlingResource();
         createTestUser();
         navigateToPostDetail();
     }
@@ -101,4 +108,17 @@ public class PostDetailFragmentTest {
                 .check(matches(isDisplayed()));
     }
 
-}
\ No newline at end of file
+    /**
+     * Lets Espresso wait for the asynchronous database calls of the screens under test
+     */
+    private void registerIdlingResource() {
+        idlingResource = new DatabaseIdlingResource(
+                DatabaseClient.getInstance(ApplicationProvider.getApplicationContext()));
+        IdlingRegistry.getInstance().register(idlingResource);
+    }
+
+    @After
+    public void unregisterIdlingResource() {
+        IdlingRegistry.getInstance().unregister(idlingResource);
+    }
+}
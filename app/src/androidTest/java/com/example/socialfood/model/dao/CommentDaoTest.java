@@ -1,6 +1,7 @@
 package com.example.socialfood.model.dao;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -21,6 +22,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
@@ -208,6 +210,43 @@ public class CommentDaoTest {
         commentDao.deleteComment(comment);
     }
 
+    /**
+     * Tests inserting several comments in one batch, where a duplicate is skipped
+     */
+    @Test
+    public void testInsertComments() {
+        List<Long> rowIds = commentDao.insertComments(Arrays.asList(
+                createTestComment(1, 1, 1),
+                createTestComment(1, 1, 2),
+                createTestComment(1, 1, 1)));
+
+        assertEquals("Should return one row ID per comment", 3, rowIds.size());
+        assertEquals("Duplicate comment should be skipped", -1L, (long) rowIds.get(2));
+        assertEquals("Should have 2 comments", 2, commentDao.getAll().size());
+    }
+
+    /**
+     * Tests updating and deleting several comments in one batch
+     */
+    @Test
+    public void testUpdateAndDeleteComments() {
+        Comment stored = createTestComment(1, 1, 1);
+        Comment missing = createTestComment(1, 1, 2);
+        commentDao.insertComment(stored);
+
+        stored.setContent("Updated content");
+        boolean[] updated = commentDao.updateComments(Arrays.asList(stored, missing));
+        assertTrue("Stored comment should be updated", updated[0]);
+        assertFalse("Missing comment should not be updated", updated[1]);
+        assertEquals("Content should be updated", "Updated content",
+                commentDao.getCommentById(1, 1, 1).getContent());
+
+        boolean[] deleted = commentDao.deleteComments(Arrays.asList(stored, missing));
+        assertTrue("Stored comment should be deleted", deleted[0]);
+        assertFalse("Missing comment should not be deleted", deleted[1]);
+        assertTrue("No comments should remain", commentDao.getAll().isEmpty());
+    }
+
     /**
      * Helper method to create a test comment with specified parameters.
      *
@@ -216,7 +255,7 @@ public class CommentDaoTest {
      * @param commentId The unique identifier for the comment
      * @return A Comment entity initialized with test data
      */
-    private Comment createTestComment(int uid, int postId, int commentId) {
+    private Comment createTestComment(int uid, long postId, int commentId) {
         Comment comment = new Comment();
         comment.setUid(uid);
         comment.setPostId(postId);
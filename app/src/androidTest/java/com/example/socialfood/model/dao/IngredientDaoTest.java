@@ -0,0 +1,156 @@
+package com.example.socialfood.model.dao;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.socialfood.model.database.AppDatabase;
+import com.example.socialfood.model.entities.Ingredient;
+import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.entities.User;
+import com.example.socialfood.model.search.IngredientFilter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test class for the IngredientDao interface and the ingredient links written by PostDao. Uses
+ * Room's in-memory database for testing.
+ */
+public class IngredientDaoTest {
+    private AppDatabase database;
+    private IngredientDao ingredientDao;
+    private PostDao postDao;
+
+    /**
+     * Sets up the test environment before each test. Creates an in-memory database with a user
+     * and three posts: bread (Mehl, Hefe, Salz), cake (Mehl, Zucker, Eier) and pancakes (Mehl,
+     * Milch, Eier).
+     */
+    @Before
+    public void setup() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        ingredientDao = database.ingredientDao();
+        postDao = database.postDao();
+
+        User user = new User();
+        user.setUid(1);
+        user.setUsername("testuser");
+        user.setPassword("password");
+        user.setProfilImage("default.png");
+        database.userDao().insertUser(user);
+
+        postDao.insertPost(createTestPost(1, "Mehl, Hefe, Salz"));
+        postDao.insertPost(createTestPost(2, "Mehl, Zucker, Eier"));
+        postDao.insertPost(createTestPost(3, "Mehl, Milch, Eier"));
+    }
+
+    /**
+     * Cleans up the test environment after each test. Closes the in-memory database.
+     */
+    @After
+    public void teardown() {
+        database.close();
+    }
+
+    /**
+     * Tests that inserting posts creates each ingredient once
+     */
+    @Test
+    public void testIngredientsAreShared() {
+        List<Ingredient> ingredients = ingredientDao.getAllIngredients();
+        assertEquals(6, ingredients.size());
+        assertEquals("eier", ingredients.get(0).getName());
+
+        List<Ingredient> bread = ingredientDao.getIngredientsForPost(1);
+        assertEquals(3, bread.size());
+        assertEquals(3, ingredientDao.getPostingCount(ingredients.get(2).getIngredientId()));
+    }
+
+    /**
+     * Tests filters with required, alternative and excluded ingredients
+     */
+    @Test
+    public void testFindPostIds() {
+        assertArrayEquals(new long[] { 2, 3 }, ingredientDao.findPostIds(
+                IngredientFilter.allOf(Arrays.asList("Mehl", "Eier"))));
+        assertArrayEquals(new long[] { 1, 2 }, ingredientDao.findPostIds(
+                IngredientFilter.anyOf(Arrays.asList("hefe", "zucker"))));
+        assertArrayEquals(new long[] { 3 }, ingredientDao.findPostIds(new IngredientFilter(
+                Collections.singletonList("eier"), null, Collections.singletonList("zucker"))));
+        assertArrayEquals(new long[] { 2 }, ingredientDao.findPostIds(new IngredientFilter(
+                Collections.singletonList("mehl"), Arrays.asList("zucker", "safran"), null)));
+    }
+
+    /**
+     * Tests that unknown required ingredients and filters without positive terms match nothing
+     */
+    @Test
+    public void testFindPostIdsWithoutMatch() {
+        assertEquals(0, ingredientDao.findPostIds(
+                IngredientFilter.allOf(Arrays.asList("mehl", "safran"))).length);
+        assertEquals(0, ingredientDao.findPostIds(new IngredientFilter(null, null,
+                Collections.singletonList("mehl"))).length);
+    }
+
+    /**
+     * Tests paging through the matching posts in descending post ID order
+     */
+    @Test
+    public void testGetPostsByIngredients() {
+        IngredientFilter filter = IngredientFilter.allOf(Collections.singletonList("mehl"));
+
+        List<Post> first = ingredientDao.getPostsByIngredients(filter, Long.MAX_VALUE, 2);
+        assertEquals(2, first.size());
+        assertEquals(3, first.get(0).getPostId());
+        assertEquals(2, first.get(1).getPostId());
+
+        List<Post> second = ingredientDao.getPostsByIngredients(filter, 2, 2);
+        assertEquals(1, second.size());
+        assertEquals(1, second.get(0).getPostId());
+    }
+
+    /**
+     * Tests that updating and deleting a post keeps its ingredient links in sync
+     */
+    @Test
+    public void testLinksFollowPosts() {
+        Post cake = createTestPost(2, "Mehl, Honig");
+        postDao.updatePost(cake);
+        assertEquals(0, ingredientDao.findPostIds(
+                IngredientFilter.allOf(Collections.singletonList("zucker"))).length);
+        assertArrayEquals(new long[] { 2 }, ingredientDao.findPostIds(
+                IngredientFilter.allOf(Collections.singletonList("honig"))));
+
+        postDao.deletePost(cake);
+        assertTrue(ingredientDao.getIngredientsForPost(2).isEmpty());
+        assertArrayEquals(new long[] { 1, 3 }, ingredientDao.findPostIds(
+                IngredientFilter.allOf(Collections.singletonList("mehl"))));
+    }
+
+    private Post createTestPost(long postId, String ingredients) {
+        Post post = new Post();
+        post.setUid(1);
+        post.setPostId(postId);
+        post.setImageUrl("default.png");
+        post.setDescription("Test post");
+        post.setIngredients(ingredients);
+        post.setTimestamp(1000L + postId);
+        post.setLatitude(0.0);
+        post.setLongitude(0.0);
+        return post;
+    }
+}
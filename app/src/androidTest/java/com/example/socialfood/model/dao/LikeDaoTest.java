@@ -21,6 +21,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -124,6 +125,20 @@ public class LikeDaoTest {
         assertTrue("Post should be liked by user", isLiked);
     }
 
+    /**
+     * Tests that a user can like a post of another user
+     */
+    @Test
+    public void testLikePostOfOtherUser() {
+        userDao.insertUser(createTestUser(2, "otheruser"));
+        postDao.insertPost(createTestPost(2, 2));
+
+        likeDao.insert(createTestLike(1, 2));
+
+        assertTrue("Post should be liked by user", likeDao.isLikedByUser(1, 2));
+        assertEquals(1, likeDao.getLikeCount(2));
+    }
+
     /**
      * Tests deleting a like
      */
@@ -168,6 +183,24 @@ public class LikeDaoTest {
         likeDao.insert(like);
     }
 
+    /**
+     * Tests that a batch of deferred likes is applied in one transaction and that likes of
+     * missing posts are skipped instead of failing the batch
+     */
+    @Test
+    public void testApplyLikes() {
+        postDao.insertPost(createTestPost(1, 2));
+        likeDao.insert(createTestLike(1, 2));
+
+        likeDao.applyLikes(Arrays.asList(createTestLike(1, 1), createTestLike(1, 999)),
+                Arrays.asList(createTestLike(1, 2)));
+
+        assertTrue("Post 1 should be liked", likeDao.isLikedByUser(1, 1));
+        assertFalse("Post 2 should be unliked", likeDao.isLikedByUser(1, 2));
+        assertFalse("Missing post should be skipped", likeDao.isLikedByUser(1, 999));
+        assertEquals(1, likeDao.getAll().size());
+    }
+
     /**
      * Helper method to create a test user
      */
@@ -183,7 +216,7 @@ public class LikeDaoTest {
     /**
      * Helper method to create a test post
      */
-    private Post createTestPost(int uid, int postId) {
+    private Post createTestPost(int uid, long postId) {
         Post post = new Post();
         post.setUid(uid);
         post.setPostId(postId);
@@ -199,7 +232,7 @@ public class LikeDaoTest {
     /**
      * Helper method to create a test like
      */
-    private Like createTestLike(int userId, int postId) {
+    private Like createTestLike(int userId, long postId) {
         Like like = new Like();
         like.setUserId(userId);
         like.setPostId(postId);
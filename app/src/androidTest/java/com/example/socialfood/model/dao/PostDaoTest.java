@@ -1,6 +1,7 @@
 package com.example.socialfood.model.dao;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -12,7 +13,13 @@ import androidx.room.Room;
 import androidx.test.core.app.ApplicationProvider;
 
 import com.example.socialfood.model.database.AppDatabase;
+import com.example.socialfood.model.database.CounterTriggers;
+import com.example.socialfood.model.database.SearchIndex;
+import com.example.socialfood.model.database.SpatialIndex;
+import com.example.socialfood.model.entities.FeedItem;
+import com.example.socialfood.model.entities.Like;
 import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.entities.SearchResult;
 import com.example.socialfood.model.entities.User;
 
 import org.junit.After;
@@ -39,6 +46,9 @@ public class PostDaoTest {
     public void setup() {
         Context context = ApplicationProvider.getApplicationContext();
         database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(CounterTriggers.CALLBACK)
+                .addCallback(SearchIndex.CALLBACK)
+                .addCallback(SpatialIndex.CALLBACK)
                 .allowMainThreadQueries()
                 .build();
         postDao = database.postDao();
@@ -68,7 +78,7 @@ public class PostDaoTest {
         Post post = createTestPost(1, 1);
         postDao.insertPost(post);
 
-        Post retrieved = postDao.getPostById(1, 1);
+        Post retrieved = postDao.getPostById(1);
         assertNotNull("Retrieved post should not be null", retrieved);
         assertEquals("Post IDs should match", post.getPostId(), retrieved.getPostId());
     }
@@ -88,6 +98,171 @@ public class PostDaoTest {
         assertEquals("Should have 2 posts", 2, posts.size());
     }
 
+    /**
+     * Tests that feed pages are newest first and continue after the given position without gaps
+     * or duplicates, also across equal timestamps
+     */
+    @Test
+    public void testGetPostsPage() {
+        for (int postId = 1; postId <= 5; postId++) {
+            Post post = createTestPost(1, postId);
+            post.setTimestamp(postId <= 2 ? 1000 : 1000 + postId);
+            postDao.insertPost(post);
+        }
+
+        List<Post> first = postDao.getPostsPage(3);
+        assertEquals("First page should be full", 3, first.size());
+        assertEquals("Newest post should come first", 5, first.get(0).getPostId());
+
+        Post last = first.get(2);
+        List<Post> second = postDao.getPostsPageAfter(last.getTimestamp(), last.getPostId(), 3);
+        assertEquals("Second page should hold the rest", 2, second.size());
+        assertEquals("Ties should be ordered by post ID descending", 2,
+                second.get(0).getPostId());
+        assertEquals(1, second.get(1).getPostId());
+    }
+
+    /**
+     * Tests that a feed item carries author, counters and liked flag in one row
+     */
+    @Test
+    public void testGetFeedItem() {
+        postDao.insertPost(createTestPost(1, 1));
+        Like like = new Like();
+        like.setUserId(1);
+        like.setPostId(1);
+        like.setTimestamp(1000);
+        database.likeDao().insert(like);
+        database.getOpenHelper().getWritableDatabase()
+                .execSQL("UPDATE post SET likeCount = 1, commentCount = 2");
+
+        FeedItem item = postDao.getFeedItem(1, 1);
+        assertNotNull("Feed item should not be null", item);
+        assertEquals("testuser", item.getUsername());
+        assertEquals(1, item.getLikeCount());
+        assertEquals(2, item.getCommentCount());
+        assertTrue("Post should be liked by the viewer", item.isLikedByCurrentUser());
+
+        FeedItem otherViewer = postDao.getFeedItem(1, 2);
+        assertFalse("Post should not be liked by another viewer",
+                otherViewer.isLikedByCurrentUser());
+        assertNull("Missing post should return null", postDao.getFeedItem(2, 1));
+    }
+
+    /**
+     * Tests paging through feed items in the same order as the post pages
+     */
+    @Test
+    public void testGetFeedPage() {
+        for (int postId = 1; postId <= 5; postId++) {
+            Post post = createTestPost(1, postId);
+            post.setTimestamp(postId <= 2 ? 1000 : 1000 + postId);
+            postDao.insertPost(post);
+        }
+
+        List<FeedItem> first = postDao.getFeedPage(1, 3);
+        assertEquals("First page should be full", 3, first.size());
+        assertEquals("Newest post should come first", 5, first.get(0).getPostId());
+
+        FeedItem last = first.get(2);
+        List<FeedItem> second = postDao.getFeedPageAfter(last.getTimestamp(), last.getPostId(),
+                1, 3);
+        assertEquals("Second page should hold the rest", 2, second.size());
+        assertEquals(2, second.get(0).getPostId());
+        assertEquals(5, postDao.getFeedItemsByUser(1, 1).size());
+    }
+
+    /**
+     * Tests that search matches word prefixes, ranks description matches first and highlights
+     * the matched words
+     */
+    @Test
+    public void testSearchPosts() {
+        Post inRecipe = createTestPost(1, 1);
+        inRecipe.setDescription("Sunday dinner");
+        inRecipe.setRecipe("Bake the pizza for ten minutes");
+        postDao.insertPost(inRecipe);
+        Post inDescription = createTestPost(1, 2);
+        inDescription.setDescription("Pizza Margherita");
+        postDao.insertPost(inDescription);
+        postDao.insertPost(createTestPost(1, 3));
+
+        List<SearchResult> results = postDao.searchPosts("pizz*", 10);
+        assertEquals("Only matching posts should be found", 2, results.size());
+        assertEquals("Description match should rank first", 2,
+                results.get(0).getPost().getPostId());
+        assertTrue("Snippet should highlight the match",
+                results.get(0).getSnippet().contains("[Pizza]"));
+        assertTrue(results.get(0).getScore() >= results.get(1).getScore());
+
+        SearchResult first = results.get(0);
+        List<SearchResult> rest = postDao.searchPosts("pizz*", first.getScore(),
+                first.getPost().getPostId(), 10);
+        assertEquals("Paging should continue after the first result", 1, rest.size());
+        assertEquals(1, rest.get(0).getPost().getPostId());
+        SearchResult last = results.get(1);
+        assertTrue(postDao.searchPosts("pizz*", last.getScore(), last.getPost().getPostId(), 10)
+                .isEmpty());
+    }
+
+    /**
+     * Tests that the search index follows updates and deletes of posts
+     */
+    @Test
+    public void testSearchIndexFollowsPosts() {
+        Post post = createTestPost(1, 1);
+        post.setIngredients("Mehl, Hefe");
+        postDao.insertPost(post);
+        assertEquals(1, postDao.searchPosts("hefe*", 10).size());
+
+        post.setIngredients("Mehl, Zucker");
+        postDao.updatePost(post);
+        assertTrue(postDao.searchPosts("hefe*", 10).isEmpty());
+        assertEquals(1, postDao.searchPosts("zucker*", 10).size());
+
+        postDao.deletePost(post);
+        assertTrue(postDao.searchPosts("zucker*", 10).isEmpty());
+    }
+
+    /**
+     * Tests that only posts inside the viewport are returned and that moved and deleted posts
+     * leave it
+     */
+    @Test
+    public void testGetPostsInBounds() {
+        postDao.insertPost(createLocatedPost(1, 48.137, 11.575));
+        postDao.insertPost(createLocatedPost(2, 48.150, 11.560));
+        postDao.insertPost(createLocatedPost(3, 52.520, 13.405));
+        postDao.insertPost(createLocatedPost(4, -33.870, 151.210));
+
+        List<Post> munich = postDao.getPostsInBounds(48.0, 48.3, 11.4, 11.7, 10);
+        assertEquals("Only the two posts in Munich should be found", 2, munich.size());
+        assertEquals(1, postDao.getPostsInBounds(48.0, 48.3, 11.4, 11.7, 1).size());
+        assertEquals("Large viewports should find all posts in range", 3,
+                postDao.getPostsInBounds(-10.0, 80.0, -20.0, 40.0, 10).size());
+
+        Post moved = createLocatedPost(2, 52.510, 13.390);
+        postDao.updatePost(moved);
+        assertEquals(1, postDao.getPostsInBounds(48.0, 48.3, 11.4, 11.7, 10).size());
+        assertEquals(2, postDao.getPostsInBounds(52.4, 52.6, 13.3, 13.5, 10).size());
+
+        postDao.deletePost(moved);
+        assertEquals(1, postDao.getPostsInBounds(52.4, 52.6, 13.3, 13.5, 10).size());
+    }
+
+    /**
+     * Tests a viewport that crosses the antimeridian
+     */
+    @Test
+    public void testGetPostsInBoundsAcrossAntimeridian() {
+        postDao.insertPost(createLocatedPost(1, -17.7, 178.0));
+        postDao.insertPost(createLocatedPost(2, -14.3, -170.7));
+        postDao.insertPost(createLocatedPost(3, -15.0, 0.0));
+
+        List<Post> posts = postDao.getPostsInBounds(-20.0, -10.0, 170.0, -160.0, 10);
+        assertEquals(2, posts.size());
+    }
+
     /**
      * Tests retrieving a post by ID
      */
@@ -96,12 +271,30 @@ public class PostDaoTest {
         Post post = createTestPost(1, 1);
         postDao.insertPost(post);
 
-        Post retrieved = postDao.getPostById(1, 1);
+        Post retrieved = postDao.getPostById(1);
         assertNotNull("Retrieved post should not be null", retrieved);
         assertEquals("UIDs should match", post.getUid(), retrieved.getUid());
         assertEquals("Post IDs should match", post.getPostId(), retrieved.getPostId());
     }
 
+    /**
+     * Tests that the highest post ID is found across all users and is 0 without posts
+     */
+    @Test
+    public void testGetMaxPostId() {
+        assertEquals(0, postDao.getMaxPostId());
+
+        User other = new User();
+        other.setUsername("otheruser");
+        other.setPassword("password");
+        other.setProfilImage("default.png");
+        userDao.insertUser(other);
+        postDao.insertPost(createTestPost(1, 1L << 40));
+        postDao.insertPost(createTestPost(2, 7));
+
+        assertEquals(1L << 40, postDao.getMaxPostId());
+    }
+
     /**
      * Tests updating a post
      */
@@ -114,7 +307,7 @@ public class PostDaoTest {
         post.setDescription("Updated description");
         postDao.updatePost(post);
 
-        Post updated = postDao.getPostById(1, 1);
+        Post updated = postDao.getPostById(1);
         assertEquals("Description should be updated", "Updated description",
                 updated.getDescription());
     }
@@ -129,7 +322,7 @@ public class PostDaoTest {
 
         postDao.deletePost(post);
 
-        Post deleted = postDao.getPostById(1, 1);
+        Post deleted = postDao.getPostById(1);
         assertNull("Post should be deleted", deleted);
         List<Post> posts = postDao.getAllPosts();
         assertTrue("Posts list should be empty", posts.isEmpty());
@@ -179,7 +372,14 @@ public class PostDaoTest {
      * @param postId The unique identifier for the post
      * @return A Post entity initialized with test data
      */
-    private Post createTestPost(int uid, int postId) {
+    private Post createLocatedPost(long postId, double latitude, double longitude) {
+        Post post = createTestPost(1, postId);
+        post.setLatitude(latitude);
+        post.setLongitude(longitude);
+        return post;
+    }
+
+    private Post createTestPost(int uid, long postId) {
         Post post = new Post();
         post.setUid(uid);
         post.setPostId(postId);
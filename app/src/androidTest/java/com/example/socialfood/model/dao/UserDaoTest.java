@@ -137,6 +137,15 @@ public class UserDaoTest {
         userDao.deleteUser(user);
     }
 
+    /**
+     * Tests that the unique index on username rejects a second user with the same name
+     */
+    @Test(expected = SQLiteConstraintException.class)
+    public void testInsertDuplicateUsername() {
+        userDao.insertUser(createTestUser("testuser"));
+        userDao.insertUser(createTestUser("testuser"));
+    }
+
     /**
      * Helper method to create a test user with specified username
      *
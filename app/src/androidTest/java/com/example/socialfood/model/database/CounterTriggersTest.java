@@ -0,0 +1,204 @@
+package com.example.socialfood.model.database;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.socialfood.model.entities.Comment;
+import com.example.socialfood.model.entities.Follow;
+import com.example.socialfood.model.entities.Like;
+import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.entities.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the counter triggers and the reconciliation queries in {@link CounterTriggers}. Uses
+ * Room's in-memory database with the same callback as {@link DatabaseClient}.
+ */
+public class CounterTriggersTest {
+    private AppDatabase database;
+
+    /**
+     * Sets up the test environment before each test. Creates an in-memory database with the
+     * counter triggers and two users, each with one post.
+     */
+    @Before
+    public void setup() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(CounterTriggers.CALLBACK)
+                .allowMainThreadQueries()
+                .build();
+
+        database.userDao().insertUser(createTestUser(1, "alice"));
+        database.userDao().insertUser(createTestUser(2, "bob"));
+        database.postDao().insertPost(createTestPost(1, 1));
+        database.postDao().insertPost(createTestPost(2, 2));
+    }
+
+    /**
+     * Cleans up the test environment after each test. Closes the in-memory database.
+     */
+    @After
+    public void teardown() {
+        database.close();
+    }
+
+    /**
+     * Tests that inserting and deleting posts keeps postsCount exact
+     */
+    @Test
+    public void testPostsCount() {
+        database.postDao().insertPost(createTestPost(1, 3));
+        assertEquals(2, database.userDao().getUserbyId(1).getPostsCount());
+
+        database.postDao().deletePost(createTestPost(1, 3));
+        assertEquals(1, database.userDao().getUserbyId(1).getPostsCount());
+    }
+
+    /**
+     * Tests that replacing an existing post does not count it twice
+     */
+    @Test
+    public void testPostsCountOnReplace() {
+        database.postDao().insertPost(createTestPost(1, 1));
+        assertEquals(1, database.userDao().getUserbyId(1).getPostsCount());
+    }
+
+    /**
+     * Tests that likes and comments are counted on their post
+     */
+    @Test
+    public void testLikeAndCommentCount() {
+        database.likeDao().insert(createTestLike(1, 1));
+        database.commentDao().insertComment(createTestComment(1, 1, 1));
+        database.commentDao().insertComment(createTestComment(1, 1, 2));
+
+        Post post = database.postDao().getPostById(1);
+        assertEquals(1, post.getLikeCount());
+        assertEquals(2, post.getCommentCount());
+        assertEquals(1, database.postDao().getLikeCount(1));
+
+        database.likeDao().delete(createTestLike(1, 1));
+        database.commentDao().deleteComment(createTestComment(1, 1, 1));
+
+        post = database.postDao().getPostById(1);
+        assertEquals(0, post.getLikeCount());
+        assertEquals(1, post.getCommentCount());
+    }
+
+    /**
+     * Tests that following and unfollowing updates both users
+     */
+    @Test
+    public void testFollowCounts() {
+        database.followDao().insert(createTestFollow(1, 2));
+        assertEquals(1, database.userDao().getUserbyId(1).getFollowingCount());
+        assertEquals(1, database.userDao().getUserbyId(2).getFollowersCount());
+
+        database.followDao().delete(createTestFollow(1, 2));
+        assertEquals(0, database.userDao().getUserbyId(1).getFollowingCount());
+        assertEquals(0, database.userDao().getUserbyId(2).getFollowersCount());
+    }
+
+    /**
+     * Tests that updating a user or post with stale counters does not overwrite them
+     */
+    @Test
+    public void testUpdateKeepsCounters() {
+        database.followDao().insert(createTestFollow(1, 2));
+        database.likeDao().insert(createTestLike(1, 2));
+
+        User stale = createTestUser(2, "bob");
+        stale.setBio("Updated bio");
+        database.userDao().updateUsers(stale);
+        Post stalePost = createTestPost(2, 2);
+        stalePost.setDescription("Updated");
+        database.postDao().updatePost(stalePost);
+
+        User user = database.userDao().getUserbyId(2);
+        assertEquals("Updated bio", user.getBio());
+        assertEquals(1, user.getFollowersCount());
+        Post post = database.postDao().getPostById(2);
+        assertEquals("Updated", post.getDescription());
+        assertEquals(1, post.getLikeCount());
+    }
+
+    /**
+     * Tests that the reconciliation queries rebuild drifted counters from the base tables
+     */
+    @Test
+    public void testReconcileCounters() {
+        database.followDao().insert(createTestFollow(2, 1));
+        database.likeDao().insert(createTestLike(1, 1));
+        database.getOpenHelper().getWritableDatabase().execSQL(
+                "UPDATE user SET followersCount = 7, followingCount = 7, postsCount = 7");
+        database.getOpenHelper().getWritableDatabase().execSQL(
+                "UPDATE post SET likeCount = 7, commentCount = 7");
+
+        assertEquals(2, database.userDao().reconcileCounters());
+        assertEquals(2, database.postDao().reconcileCounters());
+
+        User user = database.userDao().getUserbyId(1);
+        assertEquals(1, user.getFollowersCount());
+        assertEquals(0, user.getFollowingCount());
+        assertEquals(1, user.getPostsCount());
+        Post post = database.postDao().getPostById(1);
+        assertEquals(1, post.getLikeCount());
+        assertEquals(0, post.getCommentCount());
+    }
+
+    private User createTestUser(int uid, String username) {
+        User user = new User();
+        user.setUid(uid);
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setProfilImage("default.png");
+        user.setBio("Test bio");
+        return user;
+    }
+
+    private Post createTestPost(int uid, long postId) {
+        Post post = new Post();
+        post.setUid(uid);
+        post.setPostId(postId);
+        post.setImageUrl("default.png");
+        post.setDescription("Test post");
+        post.setTimestamp(1000L);
+        post.setLatitude(0.0);
+        post.setLongitude(0.0);
+        return post;
+    }
+
+    private Like createTestLike(int userId, long postId) {
+        Like like = new Like();
+        like.setUserId(userId);
+        like.setPostId(postId);
+        like.setTimestamp(1000L);
+        return like;
+    }
+
+    private Comment createTestComment(int uid, long postId, int commentId) {
+        Comment comment = new Comment();
+        comment.setUid(uid);
+        comment.setPostId(postId);
+        comment.setCommentId(commentId);
+        comment.setContent("Lecker");
+        comment.setTimestamp(1000L);
+        return comment;
+    }
+
+    private Follow createTestFollow(int followerId, int followedId) {
+        Follow follow = new Follow();
+        follow.setFollowerId(followerId);
+        follow.setFollowedId(followedId);
+        follow.setTimestamp(1000L);
+        return follow;
+    }
+}
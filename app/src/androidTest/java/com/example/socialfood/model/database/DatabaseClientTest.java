@@ -1,7 +1,9 @@
 package com.example.socialfood.model.database;
 
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -92,11 +94,25 @@ public class DatabaseClientTest {
     }
 
     /**
-     * Cleans up test environment after each test. Resets singleton instance to ensure tests are
-     * isolated.
+     * Tests that shutdown stops the shared executors and that the next getInstance() opens a new
+     * client
+     */
+    @Test
+    public void testShutdown() {
+        DatabaseClient.shutdown();
+
+        assertTrue(databaseClient.getExecutors().isShutdown());
+        assertTrue(databaseClient.getReadExecutor().isShutdown());
+        assertTrue(databaseClient.getWriteExecutor().isShutdown());
+        assertNotSame(databaseClient, DatabaseClient.getInstance(mockContext));
+    }
+
+    /**
+     * Cleans up test environment after each test. Shuts the singleton instance down to ensure
+     * tests are isolated and no executor threads are left behind.
      */
     @After
     public void tearDown() {
-        DatabaseClient.clearInstance();
+        DatabaseClient.shutdown();
     }
 }
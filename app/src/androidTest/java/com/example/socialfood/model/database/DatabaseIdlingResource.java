@@ -0,0 +1,59 @@
+package com.example.socialfood.model.database;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.test.espresso.IdlingResource;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lets Espresso wait for the database executors, so that UI tests see the results of the
+ * asynchronous controller methods. Register it with
+ * {@link androidx.test.espresso.IdlingRegistry} before the first UI action.
+ */
+public class DatabaseIdlingResource implements IdlingResource {
+    private static final long POLL_INTERVAL_MS = 10;
+
+    private final DatabaseExecutors executors;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean polling = new AtomicBoolean();
+    private volatile ResourceCallback callback;
+
+    /**
+     * Creates the idling resource
+     *
+     * @param databaseClient The client whose executors to wait for
+     */
+    public DatabaseIdlingResource(DatabaseClient databaseClient) {
+        this.executors = databaseClient.getExecutors();
+    }
+
+    @Override
+    public String getName() {
+        return "DatabaseExecutors";
+    }
+
+    @Override
+    public boolean isIdleNow() {
+        boolean idle = executors.isIdle();
+        if (idle) {
+            if (callback != null) {
+                callback.onTransitionToIdle();
+            }
+        } else if (polling.compareAndSet(false, true)) {
+            handler.postDelayed(this::poll, POLL_INTERVAL_MS);
+        }
+        return idle;
+    }
+
+    private void poll() {
+        polling.set(false);
+        isIdleNow();
+    }
+
+    @Override
+    public void registerIdleTransitionCallback(ResourceCallback resourceCallback) {
+        this.callback = resourceCallback;
+    }
+}
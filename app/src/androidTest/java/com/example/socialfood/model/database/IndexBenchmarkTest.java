@@ -0,0 +1,176 @@
+package com.example.socialfood.model.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.filters.LargeTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Benchmark for the lookup indices added in schema version 10. Fills an in-memory database with
+ * 10k, 100k and 1M rows per table, times the hot DAO queries with the indices in place and again
+ * after dropping them, and logs both timings under the tag "IndexBenchmark".
+ */
+@LargeTest
+public class IndexBenchmarkTest {
+    private static final String TAG = "IndexBenchmark";
+    private static final int[] ROW_COUNTS = { 10_000, 100_000, 1_000_000 };
+    private static final int USERS = 1_000;
+    private static final int ITERATIONS = 50;
+
+    private static final String[] INDICES = {
+            "index_post_timestamp_postId", "index_comment_postId_commentId",
+            "index_like_table_postId", "index_follows_followedId" };
+
+    private AppDatabase database;
+
+    @Before
+    public void setup() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+    }
+
+    @After
+    public void teardown() {
+        database.close();
+    }
+
+    /**
+     * Runs the indexed and unindexed measurements for every row count
+     */
+    @Test
+    public void benchmarkIndexedLookups() {
+        for (int rows : ROW_COUNTS) {
+            SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+            clear(db);
+            populate(db, rows);
+
+            long[] indexed = measure();
+            for (String index : INDICES) {
+                db.execSQL("DROP INDEX IF EXISTS `" + index + "`");
+            }
+            long[] scanned = measure();
+            recreateIndices(db);
+
+            Log.i(TAG, rows + " rows: getLikeCount " + indexed[0] + "us vs " + scanned[0]
+                    + "us, getFollowersByUser " + indexed[1] + "us vs " + scanned[1]
+                    + "us, getCommentsByPostId " + indexed[2] + "us vs " + scanned[2]
+                    + "us, getAllPosts (first 50) " + indexed[3] + "us vs " + scanned[3] + "us");
+        }
+    }
+
+    /**
+     * Times each hot query and returns the average duration per call in microseconds
+     */
+    private long[] measure() {
+        long[] result = new long[4];
+        long start = System.nanoTime();
+        for (int i = 1; i <= ITERATIONS; i++) {
+            database.likeDao().getLikeCount(i);
+        }
+        result[0] = (System.nanoTime() - start) / ITERATIONS / 1000;
+
+        start = System.nanoTime();
+        for (int i = 1; i <= ITERATIONS; i++) {
+            database.followDao().getFollowersByUser(i);
+        }
+        result[1] = (System.nanoTime() - start) / ITERATIONS / 1000;
+
+        start = System.nanoTime();
+        for (int i = 1; i <= ITERATIONS; i++) {
+            database.commentDao().getCommentsByPostId(i);
+        }
+        result[2] = (System.nanoTime() - start) / ITERATIONS / 1000;
+
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            db.query("SELECT * FROM post ORDER BY timestamp DESC LIMIT 50").close();
+        }
+        result[3] = (System.nanoTime() - start) / ITERATIONS / 1000;
+        return result;
+    }
+
+    private void clear(SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM follows");
+        db.execSQL("DELETE FROM like_table");
+        db.execSQL("DELETE FROM comment");
+        db.execSQL("DELETE FROM post");
+        db.execSQL("DELETE FROM user");
+    }
+
+    /**
+     * Inserts the given number of posts, comments, likes and follows spread over a fixed set of
+     * users
+     */
+    private void populate(SupportSQLiteDatabase db, int rows) {
+        db.beginTransaction();
+        try {
+            SupportSQLiteStatement user = db.compileStatement("INSERT INTO user (uid, username, "
+                    + "profilImage, bio, followersCount, postsCount, password) "
+                    + "VALUES (?, ?, 'default.png', NULL, 0, 0, 'password')");
+            for (int uid = 1; uid <= USERS; uid++) {
+                user.bindLong(1, uid);
+                user.bindString(2, "user" + uid);
+                user.executeInsert();
+            }
+
+            SupportSQLiteStatement post = db.compileStatement("INSERT INTO post (uid, postId, "
+                    + "imageUrl, description, timestamp, commentCount, recipe, ingredients, "
+                    + "latitude, longitude) VALUES (?, ?, 'default.png', 'Post', ?, 0, NULL, NULL, "
+                    + "0, 0)");
+            SupportSQLiteStatement comment = db.compileStatement("INSERT INTO comment (uid, "
+                    + "postId, commentId, timestamp, content) VALUES (?, ?, 1, ?, 'Lecker')");
+            SupportSQLiteStatement like = db.compileStatement("INSERT INTO like_table (userId, "
+                    + "postId, timestamp) VALUES (?, ?, ?)");
+            for (int i = 0; i < rows; i++) {
+                int uid = i % USERS + 1;
+                int postId = i + 1;
+                long timestamp = 1_000_000L + i;
+                post.bindLong(1, uid);
+                post.bindLong(2, postId);
+                post.bindLong(3, timestamp);
+                post.executeInsert();
+                comment.bindLong(1, uid);
+                comment.bindLong(2, postId);
+                comment.bindLong(3, timestamp);
+                comment.executeInsert();
+                like.bindLong(1, uid);
+                like.bindLong(2, postId);
+                like.bindLong(3, timestamp);
+                like.executeInsert();
+            }
+
+            SupportSQLiteStatement follow = db.compileStatement("INSERT INTO follows "
+                    + "(followerId, followedId, timestamp) VALUES (?, ?, 1000)");
+            for (int i = 0; i < rows && i < USERS * USERS; i++) {
+                follow.bindLong(1, i / USERS + 1);
+                follow.bindLong(2, i % USERS + 1);
+                follow.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private void recreateIndices(SupportSQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_post_timestamp_postId` "
+                + "ON `post` (`timestamp`, `postId`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_comment_postId_commentId` "
+                + "ON `comment` (`postId`, `commentId`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_like_table_postId` "
+                + "ON `like_table` (`postId`)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS `index_follows_followedId` "
+                + "ON `follows` (`followedId`)");
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.socialfood.model.database;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.filters.LargeTest;
+
+import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.entities.User;
+import com.example.socialfood.model.search.IngredientFilter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Benchmark for ingredient filters. Fills an in-memory database with 100k posts of five
+ * ingredients each, evaluates AND, OR and NOT filters on the posting lists of post_ingredient and
+ * compares them to LIKE scans over the comma-separated post.ingredients column. Timings are
+ * logged under the tag "IngredientBenchmark".
+ */
+@LargeTest
+public class IngredientBenchmarkTest {
+    private static final String TAG = "IngredientBenchmark";
+    private static final int POSTS = 100_000;
+    private static final int USERS = 1_000;
+    private static final int BATCH = 1_000;
+    private static final int ITERATIONS = 20;
+
+    private static final String[] INGREDIENTS = {
+            "Mehl", "Zucker", "Eier", "Milch", "Butter", "Salz", "Hefe", "Öl", "Tomaten",
+            "Zwiebeln", "Knoblauch", "Basilikum", "Käse", "Sahne", "Reis", "Nudeln", "Spinat",
+            "Pilze", "Paprika", "Karotten", "Kartoffeln", "Linsen", "Curry", "Ingwer", "Zitrone",
+            "Honig", "Vanille", "Zimt", "Schokolade", "Lachs", "Hähnchen", "Tofu", "Avocado",
+            "Kürbis", "Brokkoli", "Bohnen", "Petersilie", "Joghurt", "Quark", "Safran" };
+
+    private AppDatabase database;
+
+    @Before
+    public void setup() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        populate();
+    }
+
+    @After
+    public void teardown() {
+        database.close();
+    }
+
+    /**
+     * Times each filter on the posting lists and as LIKE scan, checking that both agree
+     */
+    @Test
+    public void benchmarkIngredientFilters() {
+        measure("Mehl AND Eier", IngredientFilter.allOf(Arrays.asList("Mehl", "Eier")),
+                "ingredients LIKE '%Mehl%' AND ingredients LIKE '%Eier%'");
+        measure("Mehl AND Eier AND Safran",
+                IngredientFilter.allOf(Arrays.asList("Mehl", "Eier", "Safran")),
+                "ingredients LIKE '%Mehl%' AND ingredients LIKE '%Eier%' "
+                        + "AND ingredients LIKE '%Safran%'");
+        measure("Hefe OR Quark", IngredientFilter.anyOf(Arrays.asList("Hefe", "Quark")),
+                "ingredients LIKE '%Hefe%' OR ingredients LIKE '%Quark%'");
+        measure("Mehl AND NOT Zucker", new IngredientFilter(Collections.singletonList("Mehl"),
+                null, Collections.singletonList("Zucker")),
+                "ingredients LIKE '%Mehl%' AND ingredients NOT LIKE '%Zucker%'");
+    }
+
+    private void measure(String label, IngredientFilter filter, String where) {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        int matches = database.ingredientDao().findPostIds(filter).length;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            database.ingredientDao().findPostIds(filter);
+        }
+        long postings = (System.nanoTime() - start) / ITERATIONS / 1000;
+
+        int scanned = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            try (Cursor cursor = db.query("SELECT postId FROM post WHERE " + where)) {
+                scanned = cursor.getCount();
+            }
+        }
+        long scan = (System.nanoTime() - start) / ITERATIONS / 1000;
+
+        assertEquals(label, scanned, matches);
+        Log.i(TAG, POSTS + " posts, " + label + " (" + matches + " matches): posting lists "
+                + postings + "us vs LIKE scan " + scan + "us");
+    }
+
+    /**
+     * Inserts users and posts through PostDao, so that the ingredient links are written the same
+     * way as in the app
+     */
+    private void populate() {
+        List<User> users = new ArrayList<>(USERS);
+        for (int uid = 1; uid <= USERS; uid++) {
+            User user = new User();
+            user.setUid(uid);
+            user.setUsername("user" + uid);
+            user.setPassword("password");
+            user.setProfilImage("default.png");
+            users.add(user);
+        }
+        database.userDao().insertUsers(users);
+
+        List<Post> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < POSTS; i++) {
+            Post post = new Post();
+            post.setUid(i % USERS + 1);
+            post.setPostId(i + 1);
+            post.setImageUrl("default.png");
+            post.setDescription("Post");
+            post.setIngredients(ingredients(i));
+            post.setTimestamp(1_000_000L + i);
+            post.setLatitude(0.0);
+            post.setLongitude(0.0);
+            batch.add(post);
+            if (batch.size() == BATCH) {
+                database.postDao().insertPosts(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Picks five distinct ingredients per post. The first ingredients of the list are picked
+     * far more often than the last ones, like staples and rare spices in real recipes.
+     */
+    private String ingredients(int seed) {
+        List<String> picked = new ArrayList<>(5);
+        int state = seed;
+        while (picked.size() < 5) {
+            state = state * 1_103_515_245 + 12_345;
+            double skew = ((state >>> 8) & 0xFFFF) / 65_536.0;
+            String ingredient = INGREDIENTS[(int) (skew * skew * INGREDIENTS.length)];
+            if (!picked.contains(ingredient)) {
+                picked.add(ingredient);
+            }
+        }
+        return String.join(", ", picked);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.socialfood.model.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.socialfood.model.entities.Comment;
+import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.entities.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link LiveQuery}. Observes the comments of a post in Room's in-memory database and
+ * checks which writes lead to a new result. Results are delivered on the query thread instead of
+ * the main thread.
+ */
+public class LiveQueryTest {
+    private static final long TIMEOUT_MS = 2_000;
+    private static final long QUIET_MS = 300;
+
+    private AppDatabase database;
+    private ExecutorService queryExecutor;
+    private final BlockingQueue<List<Comment>> results = new LinkedBlockingQueue<>();
+
+    /**
+     * Sets up the test environment before each test. Creates an in-memory database with one user
+     * and two posts.
+     */
+    @Before
+    public void setup() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        queryExecutor = Executors.newSingleThreadExecutor();
+
+        User user = new User();
+        user.setUid(1);
+        user.setUsername("alice");
+        user.setPassword("password");
+        user.setProfilImage("default.png");
+        database.userDao().insertUser(user);
+        database.postDao().insertPost(createTestPost(1));
+        database.postDao().insertPost(createTestPost(2));
+    }
+
+    /**
+     * Cleans up the test environment after each test
+     */
+    @After
+    public void teardown() {
+        queryExecutor.shutdown();
+        database.close();
+    }
+
+    /**
+     * Tests that the first result is delivered at once and a new one after a matching write
+     */
+    @Test
+    public void testDeliversOnChange() throws InterruptedException {
+        Subscription subscription = observeComments(1);
+        assertEquals(0, next().size());
+
+        database.commentDao().insertComment(createTestComment(1, 1));
+
+        assertEquals(1, next().size());
+        subscription.close();
+    }
+
+    /**
+     * Tests that a write to the watched table that does not change the result is not delivered
+     */
+    @Test
+    public void testSkipsUnchangedResult() throws InterruptedException {
+        Subscription subscription = observeComments(1);
+        next();
+
+        database.commentDao().insertComment(createTestComment(2, 1));
+
+        assertNull(results.poll(QUIET_MS, TimeUnit.MILLISECONDS));
+        subscription.close();
+    }
+
+    /**
+     * Tests that nothing is delivered after the subscription is closed
+     */
+    @Test
+    public void testClose() throws InterruptedException {
+        Subscription subscription = observeComments(1);
+        next();
+        subscription.close();
+
+        database.commentDao().insertComment(createTestComment(1, 1));
+
+        assertNull(results.poll(QUIET_MS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Tests that a subscription closed before its observer was registered on the query executor
+     * is never registered
+     */
+    @Test
+    public void testCloseBeforeRegistration() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        queryExecutor.execute(() -> {
+            try {
+                release.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Subscription subscription = observeComments(1);
+        subscription.close();
+        release.countDown();
+        awaitQueryExecutor();
+
+        database.commentDao().insertComment(createTestComment(1, 1));
+
+        assertNull(results.poll(QUIET_MS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Tests that table observers are called for writes to their tables only
+     */
+    @Test
+    public void testObserveTables() throws Exception {
+        BlockingQueue<Boolean> changes = new LinkedBlockingQueue<>();
+        Subscription subscription = LiveQuery.observeTables(database.getInvalidationTracker(),
+                queryExecutor, Runnable::run, () -> changes.add(true), "post");
+        awaitQueryExecutor();
+
+        database.commentDao().insertComment(createTestComment(1, 1));
+        database.postDao().insertPost(createTestPost(3));
+
+        assertNotNull(changes.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        subscription.close();
+    }
+
+    private Subscription observeComments(int postId) {
+        return new LiveQuery<>(database.getInvalidationTracker(), queryExecutor, Runnable::run,
+                new String[] { "comment" },
+                () -> database.commentDao().getCommentsByPostId(postId))
+                .observe(results::add);
+    }
+
+    /**
+     * Waits until the query executor has run everything queued so far, such as registrations
+     */
+    private void awaitQueryExecutor() throws Exception {
+        queryExecutor.submit(() -> { }).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private List<Comment> next() throws InterruptedException {
+        List<Comment> result = results.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull("No result delivered", result);
+        return result;
+    }
+
+    private Post createTestPost(int postId) {
+        Post post = new Post();
+        post.setUid(1);
+        post.setPostId(postId);
+        post.setImageUrl("default.png");
+        post.setDescription("Test post");
+        post.setTimestamp(1000L);
+        post.setLatitude(0.0);
+        post.setLongitude(0.0);
+        return post;
+    }
+
+    private Comment createTestComment(int postId, int commentId) {
+        Comment comment = new Comment();
+        comment.setUid(1);
+        comment.setPostId(postId);
+        comment.setCommentId(commentId);
+        comment.setContent("Lecker");
+        comment.setTimestamp(1000L);
+        return comment;
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.socialfood.model.database;
+
+import static org.junit.Assert.assertEquals;
+
+import android.database.Cursor;
+
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.socialfood.model.entities.PostLocation;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+
+/**
+ * Tests for the schema migrations in {@link Migrations}. Each test creates a database at the old
+ * version from the exported schema, runs the migration and lets Room validate the result against
+ * the current entities.
+ */
+public class MigrationTest {
+    private static final String TEST_DB = "migration-test";
+
+    @Rule
+    public MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), AppDatabase.class);
+
+    /**
+     * Tests that migrating from version 9 to 10 keeps existing rows and creates the indices
+     */
+    @Test
+    public void testMigrate9To10KeepsData() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 9);
+        insertUser(db, 1, "alice");
+        insertPost(db, 1, 1);
+        db.execSQL("INSERT INTO `comment` (uid, postId, commentId, timestamp, content) "
+                + "VALUES (1, 1, 1, 1000, 'Lecker')");
+        db.execSQL("INSERT INTO `like_table` (userId, postId, timestamp) VALUES (1, 1, 1000)");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 10, true, Migrations.MIGRATION_9_10);
+
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM `user`"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM `post`"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM `comment`"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM `like_table`"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM sqlite_master "
+                + "WHERE type = 'index' AND name = 'index_like_table_postId'"));
+    }
+
+    /**
+     * Tests that duplicate usernames are renamed rather than removed so that the unique index can
+     * be created without losing the duplicates' posts and follows
+     */
+    @Test
+    public void testMigrate9To10RenamesDuplicateUsernames() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 9);
+        insertUser(db, 1, "TestUser1");
+        insertUser(db, 2, "TestUser1");
+        insertUser(db, 3, "TestUser1_2");
+        insertUser(db, 4, "TestUser1");
+        insertPost(db, 1, 1);
+        insertPost(db, 2, 1);
+        insertPost(db, 2, 2);
+        db.execSQL("INSERT INTO `follows` (followerId, followedId, timestamp) VALUES (1, 2, 1000)");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 10, true, Migrations.MIGRATION_9_10);
+
+        assertEquals(4, count(db, "SELECT COUNT(*) FROM `user`"));
+        assertEquals(1, count(db, "SELECT uid FROM `user` WHERE username = 'TestUser1'"));
+        assertEquals(4, count(db, "SELECT uid FROM `user` WHERE username = 'TestUser1_4'"));
+        assertEquals(4, count(db, "SELECT COUNT(DISTINCT username) FROM `user`"));
+        assertEquals(2, count(db, "SELECT COUNT(*) FROM `post` WHERE uid = 2"));
+        assertEquals(3, count(db, "SELECT COUNT(*) FROM `post`"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM `follows`"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM sqlite_master "
+                + "WHERE type = 'index' AND name = 'index_user_username'"));
+    }
+
+    /**
+     * Tests that migrating from version 10 to 11 rebuilds the counters and installs the triggers
+     */
+    @Test
+    public void testMigrate10To11RebuildsCounters() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 10);
+        insertUser(db, 1, "alice");
+        insertUser(db, 2, "bob");
+        insertPost(db, 1, 1);
+        db.execSQL("INSERT INTO `like_table` (userId, postId, timestamp) VALUES (1, 1, 1000)");
+        db.execSQL("INSERT INTO `follows` (followerId, followedId, timestamp) VALUES (2, 1, 1000)");
+        db.execSQL("UPDATE `user` SET followersCount = 5, postsCount = 5");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 11, true, Migrations.MIGRATION_10_11);
+
+        assertEquals(1, count(db, "SELECT likeCount FROM `post` WHERE uid = 1 AND postId = 1"));
+        assertEquals(1, count(db, "SELECT followersCount FROM `user` WHERE uid = 1"));
+        assertEquals(1, count(db, "SELECT postsCount FROM `user` WHERE uid = 1"));
+        assertEquals(1, count(db, "SELECT followingCount FROM `user` WHERE uid = 2"));
+        assertEquals(0, count(db, "SELECT postsCount FROM `user` WHERE uid = 2"));
+
+        db.execSQL("INSERT INTO `comment` (uid, postId, commentId, timestamp, content) "
+                + "VALUES (1, 1, 1, 1000, 'Lecker')");
+        assertEquals(1, count(db, "SELECT commentCount FROM `post` WHERE uid = 1 AND postId = 1"));
+    }
+
+    /**
+     * Tests that the migration to version 12 indexes existing posts and keeps the index in sync
+     */
+    @Test
+    public void testMigrate11To12IndexesPosts() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 11);
+        insertUser(db, 1, "alice");
+        insertPost(db, 1, 1);
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 12, true, Migrations.MIGRATION_11_12);
+
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM post_fts WHERE post_fts MATCH 'test*'"));
+        db.execSQL("UPDATE `post` SET description = 'Pizza' WHERE uid = 1 AND postId = 1");
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM post_fts WHERE post_fts MATCH 'test*'"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM post_fts WHERE post_fts MATCH 'pizza'"));
+        db.execSQL("DELETE FROM `post` WHERE uid = 1 AND postId = 1");
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM post_fts"));
+    }
+
+    /**
+     * Tests that the migration to version 13 links existing posts to their parsed ingredients
+     */
+    @Test
+    public void testMigrate12To13BackfillsIngredients() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 12);
+        insertUser(db, 1, "alice");
+        insertPost(db, 1, 1);
+        insertPost(db, 1, 2);
+        db.execSQL("UPDATE `post` SET ingredients = 'Mehl, Zucker' WHERE postId = 1");
+        db.execSQL("UPDATE `post` SET ingredients = 'mehl, Eier, ' WHERE postId = 2");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 13, true, Migrations.MIGRATION_12_13);
+
+        assertEquals(3, count(db, "SELECT COUNT(*) FROM `ingredient`"));
+        assertEquals(4, count(db, "SELECT COUNT(*) FROM `post_ingredient`"));
+        assertEquals(2, count(db, "SELECT COUNT(*) FROM `post_ingredient` INNER JOIN `ingredient` "
+                + "ON ingredient.ingredientId = post_ingredient.ingredientId "
+                + "WHERE ingredient.name = 'mehl'"));
+    }
+
+    /**
+     * Tests that the migration to version 14 indexes the location of existing posts
+     */
+    @Test
+    public void testMigrate13To14IndexesLocations() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 13);
+        insertUser(db, 1, "alice");
+        insertPost(db, 1, 1);
+        db.execSQL("UPDATE `post` SET latitude = -33.87, longitude = 151.21");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 14, true, Migrations.MIGRATION_13_14);
+
+        assertEquals(PostLocation.latitudeCell(-33.87),
+                count(db, "SELECT latitudeCell FROM `post_location` WHERE uid = 1 AND postId = 1"));
+        db.execSQL("UPDATE `post` SET latitude = 48.14 WHERE uid = 1 AND postId = 1");
+        assertEquals(PostLocation.latitudeCell(48.14),
+                count(db, "SELECT latitudeCell FROM `post_location` WHERE uid = 1 AND postId = 1"));
+        db.execSQL("DELETE FROM `post`");
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM `post_location`"));
+    }
+
+    /**
+     * Tests that the migration to version 15 starts the ID sequences after the highest IDs in use
+     */
+    @Test
+    public void testMigrate14To15SeedsSequences() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 14);
+        insertUser(db, 1, "alice");
+        insertPost(db, 1, 3);
+        insertPost(db, 1, 7);
+        db.execSQL("INSERT INTO `comment` (commentId, uid, postId, content, timestamp) "
+                + "VALUES (123456, 1, 7, 'Nice', 1000)");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 15, true, Migrations.MIGRATION_14_15);
+
+        assertEquals(8, count(db, "SELECT nextValue FROM `id_sequence` WHERE name = 'post'"));
+        assertEquals(123457,
+                count(db, "SELECT nextValue FROM `id_sequence` WHERE name = 'comment'"));
+    }
+
+    /**
+     * Tests that posts of different users with the same per-user ID get distinct global IDs and
+     * that likes and comments stay with their post
+     */
+    @Test
+    public void testMigrate15To16AssignsGlobalPostIds() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 15);
+        insertUser(db, 1, "alice");
+        insertUser(db, 2, "bob");
+        insertPost(db, 1, 1);
+        insertPost(db, 2, 1);
+        db.execSQL("UPDATE `post` SET timestamp = 2000, description = 'Bobs post' WHERE uid = 2");
+        db.execSQL("INSERT INTO `like_table` (userId, postId, timestamp) VALUES (2, 1, 1000)");
+        db.execSQL("INSERT INTO `comment` (commentId, uid, postId, content, timestamp) "
+                + "VALUES (1, 1, 1, 'Nice', 1000)");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 16, true, Migrations.MIGRATION_15_16);
+
+        assertEquals(2, count(db, "SELECT COUNT(DISTINCT postId) FROM `post`"));
+        assertEquals("Older posts should get smaller IDs", 1, count(db, "SELECT uid FROM `post` "
+                + "ORDER BY postId LIMIT 1"));
+        assertEquals(2, count(db, "SELECT post.uid FROM `like_table` INNER JOIN `post` "
+                + "ON post.postId = like_table.postId"));
+        assertEquals(1, count(db, "SELECT post.uid FROM `comment` INNER JOIN `post` "
+                + "ON post.postId = comment.postId"));
+        assertEquals(1, count(db, "SELECT likeCount FROM `post` WHERE uid = 2"));
+        assertEquals(1, count(db, "SELECT commentCount FROM `post` WHERE uid = 1"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM `post_fts` "
+                + "INNER JOIN `post` ON post.postId = post_fts.docid WHERE uid = 2 "
+                + "AND post_fts MATCH 'bobs'"));
+        assertEquals(2, count(db, "SELECT COUNT(*) FROM `post_location`"));
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM `id_sequence` WHERE name = 'post'"));
+    }
+
+    /**
+     * Tests that comments keep their IDs and that IDs beyond the int range can be stored and
+     * read after the migration to version 17
+     */
+    @Test
+    public void testMigrate16To17KeepsCommentIds() throws IOException {
+        SupportSQLiteDatabase db = helper.createDatabase(TEST_DB, 16);
+        insertUser(db, 1, "alice");
+        insertPost(db, 1, 1);
+        db.execSQL("INSERT INTO `comment` (commentId, uid, postId, content, timestamp) "
+                + "VALUES (123456, 1, 1, 'Nice', 1000)");
+        db.close();
+
+        db = helper.runMigrationsAndValidate(TEST_DB, 17, true, Migrations.MIGRATION_16_17);
+        db.execSQL("INSERT INTO `comment` (commentId, uid, postId, content, timestamp) "
+                + "VALUES (" + (Integer.MAX_VALUE + 1L) + ", 1, 1, 'Again', 2000)");
+
+        assertEquals(123456, count(db, "SELECT MIN(commentId) FROM `comment`"));
+        try (Cursor cursor = db.query("SELECT MAX(commentId) FROM `comment`")) {
+            cursor.moveToFirst();
+            assertEquals(Integer.MAX_VALUE + 1L, cursor.getLong(0));
+        }
+    }
+
+    private void insertUser(SupportSQLiteDatabase db, int uid, String username) {
+        db.execSQL("INSERT INTO `user` (uid, username, profilImage, bio, followersCount, "
+                + "postsCount, password) VALUES (" + uid + ", '" + username
+                + "', 'default.png', NULL, 0, 0, 'password')");
+    }
+
+    private void insertPost(SupportSQLiteDatabase db, int uid, int postId) {
+        db.execSQL("INSERT INTO `post` (uid, postId, imageUrl, description, timestamp, "
+                + "commentCount, recipe, ingredients, latitude, longitude) VALUES (" + uid + ", "
+                + postId + ", 'default.png', 'Test post', 1000, 0, NULL, NULL, 0, 0)");
+    }
+
+    private int count(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.socialfood.model.database;
+
+import static org.junit.Assert.assertFalse;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.filters.LargeTest;
+
+import com.example.socialfood.model.search.SearchQuery;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Benchmark for the full-text search over post_fts. Fills an in-memory database with 100k posts
+ * built from a small cooking vocabulary, times ranked searches for the first page through
+ * {@link com.example.socialfood.model.dao.PostDao#searchPosts(String, int)} and compares
+ * them to a LIKE scan over the post table. Timings are logged under the tag "SearchBenchmark".
+ */
+@LargeTest
+public class SearchBenchmarkTest {
+    private static final String TAG = "SearchBenchmark";
+    private static final int POSTS = 100_000;
+    private static final int USERS = 1_000;
+    private static final int ITERATIONS = 20;
+    private static final int PAGE = 20;
+
+    private static final String[] WORDS = {
+            "pizza", "pasta", "tomate", "basilikum", "knoblauch", "zwiebel", "käse", "mehl",
+            "hefe", "zucker", "butter", "sahne", "spinat", "pilze", "curry", "reis", "linsen",
+            "kartoffel", "paprika", "zitrone", "ingwer", "honig", "schokolade", "vanille",
+            "lachs", "hähnchen", "tofu", "avocado", "kürbis", "karotte", "brokkoli", "bohnen" };
+
+    private static final String[] QUERIES = { "pizza", "knobl", "käse spinat", "vanille zucker" };
+
+    private AppDatabase database;
+
+    @Before
+    public void setup() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(SearchIndex.CALLBACK)
+                .allowMainThreadQueries()
+                .build();
+        populate(database.getOpenHelper().getWritableDatabase());
+    }
+
+    @After
+    public void teardown() {
+        database.close();
+    }
+
+    /**
+     * Times the full-text search and the LIKE scan for every query
+     */
+    @Test
+    public void benchmarkSearch() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        for (String query : QUERIES) {
+            String match = SearchQuery.toMatchExpression(query);
+            assertFalse(database.postDao().searchPosts(match, PAGE).isEmpty());
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                database.postDao().searchPosts(match, PAGE);
+            }
+            long fts = (System.nanoTime() - start) / ITERATIONS / 1000;
+
+            String like = "%" + query.split(" ")[0] + "%";
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                db.query("SELECT * FROM post WHERE description LIKE ? OR recipe LIKE ? "
+                        + "OR ingredients LIKE ? LIMIT " + PAGE,
+                        new Object[] { like, like, like }).close();
+            }
+            long scan = (System.nanoTime() - start) / ITERATIONS / 1000;
+
+            Log.i(TAG, POSTS + " posts, '" + query + "': ranked full-text " + fts
+                    + "us vs LIKE scan (unranked) " + scan + "us");
+        }
+    }
+
+    /**
+     * Inserts users and posts whose texts are drawn deterministically from the vocabulary
+     */
+    private void populate(SupportSQLiteDatabase db) {
+        db.beginTransaction();
+        try {
+            SupportSQLiteStatement user = db.compileStatement("INSERT INTO user (uid, username, "
+                    + "profilImage, bio, followersCount, postsCount, password) "
+                    + "VALUES (?, ?, 'default.png', NULL, 0, 0, 'password')");
+            for (int uid = 1; uid <= USERS; uid++) {
+                user.bindLong(1, uid);
+                user.bindString(2, "user" + uid);
+                user.executeInsert();
+            }
+
+            SupportSQLiteStatement post = db.compileStatement("INSERT INTO post (uid, postId, "
+                    + "imageUrl, description, timestamp, commentCount, recipe, ingredients, "
+                    + "latitude, longitude) VALUES (?, ?, 'default.png', ?, ?, 0, ?, ?, 0, 0)");
+            for (int i = 0; i < POSTS; i++) {
+                post.bindLong(1, i % USERS + 1);
+                post.bindLong(2, i + 1);
+                post.bindString(3, text(i, 3));
+                post.bindLong(4, 1_000_000L + i);
+                post.bindString(5, text(i * 7 + 1, 25));
+                post.bindString(6, text(i * 13 + 2, 6));
+                post.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private String text(int seed, int words) {
+        StringBuilder text = new StringBuilder();
+        int state = seed;
+        for (int i = 0; i < words; i++) {
+            state = state * 1_103_515_245 + 12_345;
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[(state >>> 16) % WORDS.length]);
+        }
+        return text.toString();
+    }
+}
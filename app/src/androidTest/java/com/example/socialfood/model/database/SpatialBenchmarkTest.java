@@ -0,0 +1,130 @@
+package com.example.socialfood.model.database;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.filters.LargeTest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Benchmark for viewport queries on the spatial index post_location. Fills an in-memory database
+ * with 10k, 100k and 1M posts spread over Europe, times
+ * {@link com.example.socialfood.model.dao.PostDao#getPostsInBounds} for a city-sized and a
+ * country-sized viewport and compares it to filtering the post table by latitude and longitude.
+ * Timings are logged under the tag "SpatialBenchmark".
+ */
+@LargeTest
+public class SpatialBenchmarkTest {
+    private static final String TAG = "SpatialBenchmark";
+    private static final int[] POST_COUNTS = { 10_000, 100_000, 1_000_000 };
+    private static final int USERS = 1_000;
+    private static final int ITERATIONS = 20;
+    private static final int LIMIT = 500;
+
+    /** Viewports as south, north, west, east */
+    private static final double[][] VIEWPORTS = {
+            { 48.06, 48.22, 11.36, 11.72 },
+            { 47.0, 55.0, 5.5, 15.5 } };
+
+    private AppDatabase database;
+
+    @Before
+    public void setup() {
+        Context context = ApplicationProvider.getApplicationContext();
+        database = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .addCallback(SpatialIndex.CALLBACK)
+                .allowMainThreadQueries()
+                .build();
+    }
+
+    @After
+    public void teardown() {
+        database.close();
+    }
+
+    /**
+     * Runs the indexed and the table filter measurement for every post count and viewport
+     */
+    @Test
+    public void benchmarkViewportQueries() {
+        SupportSQLiteDatabase db = database.getOpenHelper().getWritableDatabase();
+        for (int posts : POST_COUNTS) {
+            db.execSQL("DELETE FROM post");
+            db.execSQL("DELETE FROM user");
+            populate(db, posts);
+
+            for (double[] box : VIEWPORTS) {
+                int found = database.postDao()
+                        .getPostsInBounds(box[0], box[1], box[2], box[3], LIMIT).size();
+
+                long start = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    database.postDao().getPostsInBounds(box[0], box[1], box[2], box[3], LIMIT);
+                }
+                long indexed = (System.nanoTime() - start) / ITERATIONS / 1000;
+
+                int scanned = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    try (Cursor cursor = db.query("SELECT * FROM post WHERE latitude BETWEEN ? "
+                            + "AND ? AND longitude BETWEEN ? AND ? LIMIT " + LIMIT,
+                            new Object[] { box[0], box[1], box[2], box[3] })) {
+                        scanned = cursor.getCount();
+                    }
+                }
+                long scan = (System.nanoTime() - start) / ITERATIONS / 1000;
+
+                assertEquals(scanned, found);
+                Log.i(TAG, posts + " posts, viewport " + (box[1] - box[0]) + "x"
+                        + (box[3] - box[2]) + " deg (" + found + " posts): post_location "
+                        + indexed + "us vs post table " + scan + "us");
+            }
+        }
+    }
+
+    /**
+     * Inserts the given number of posts at random locations between 35N and 70N, 10W and 40E
+     */
+    private void populate(SupportSQLiteDatabase db, int posts) {
+        Random random = new Random(42);
+        db.beginTransaction();
+        try {
+            SupportSQLiteStatement user = db.compileStatement("INSERT INTO user (uid, username, "
+                    + "profilImage, bio, followersCount, postsCount, password) "
+                    + "VALUES (?, ?, 'default.png', NULL, 0, 0, 'password')");
+            for (int uid = 1; uid <= USERS; uid++) {
+                user.bindLong(1, uid);
+                user.bindString(2, "user" + uid);
+                user.executeInsert();
+            }
+
+            SupportSQLiteStatement post = db.compileStatement("INSERT INTO post (uid, postId, "
+                    + "imageUrl, description, timestamp, commentCount, recipe, ingredients, "
+                    + "latitude, longitude) VALUES (?, ?, 'default.png', 'Post', ?, 0, NULL, "
+                    + "NULL, ?, ?)");
+            for (int i = 0; i < posts; i++) {
+                post.bindLong(1, i % USERS + 1);
+                post.bindLong(2, i + 1);
+                post.bindLong(3, 1_000_000L + i);
+                post.bindDouble(4, 35.0 + random.nextDouble() * 35.0);
+                post.bindDouble(5, -10.0 + random.nextDouble() * 50.0);
+                post.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.socialfood.model.handler;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.filters.LargeTest;
+
+import com.example.socialfood.model.database.AppDatabase;
+import com.example.socialfood.model.database.DatabaseClient;
+import com.example.socialfood.model.entities.Comment;
+import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.entities.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark for the batch methods of {@link EntityHandlerInterface}. Writes the same comments once
+ * through a loop of single inserts, updates and deletes and once through insertAll, updateAll and
+ * deleteAll, and logs both timings under the tag "BatchWriteBenchmark". Uses a file backed
+ * database so that the cost of committing every single write is included.
+ */
+@LargeTest
+public class BatchWriteBenchmarkTest {
+    private static final String TAG = "BatchWriteBenchmark";
+    private static final String DATABASE_NAME = "batch-benchmark";
+    private static final int[] BATCH_SIZES = { 100, 1_000 };
+
+    private Context context;
+    private DatabaseClient client;
+    private CommentHandler commentHandler;
+
+    @Before
+    public void setup() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        client = new DatabaseClient(
+                Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME).build());
+        commentHandler = new CommentHandler(client);
+
+        UserHandler userHandler = new UserHandler(client);
+        User user = new User();
+        user.setUid(1);
+        user.setUsername("benchmark");
+        user.setPassword("password");
+        user.setProfilImage("default.png");
+        userHandler.insert(user);
+
+        PostHandler postHandler = new PostHandler(client);
+        Post post = new Post();
+        post.setUid(1);
+        post.setPostId(1);
+        post.setImageUrl("default.png");
+        post.setTimestamp(System.currentTimeMillis());
+        postHandler.insert(post);
+    }
+
+    @After
+    public void teardown() {
+        client.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    /**
+     * Runs the single-item loop and the batch call for every batch size
+     */
+    @Test
+    public void benchmarkCommentWrites() {
+        for (int size : BATCH_SIZES) {
+            List<Comment> comments = createComments(size);
+
+            long start = System.nanoTime();
+            for (Comment comment : comments) {
+                commentHandler.insert(comment);
+            }
+            long loopInsert = elapsedMillis(start);
+            start = System.nanoTime();
+            for (Comment comment : comments) {
+                comment.setContent("Updated");
+                commentHandler.update(comment);
+            }
+            long loopUpdate = elapsedMillis(start);
+            start = System.nanoTime();
+            for (Comment comment : comments) {
+                commentHandler.delete(comment);
+            }
+            long loopDelete = elapsedMillis(start);
+
+            start = System.nanoTime();
+            boolean[] inserted = commentHandler.insertAll(comments);
+            long batchInsert = elapsedMillis(start);
+            start = System.nanoTime();
+            commentHandler.updateAll(comments);
+            long batchUpdate = elapsedMillis(start);
+            start = System.nanoTime();
+            commentHandler.deleteAll(comments);
+            long batchDelete = elapsedMillis(start);
+
+            assertEquals(size, count(inserted));
+            Log.i(TAG, size + " comments: insert " + loopInsert + "ms vs " + batchInsert
+                    + "ms, update " + loopUpdate + "ms vs " + batchUpdate + "ms, delete "
+                    + loopDelete + "ms vs " + batchDelete + "ms (loop vs batch)");
+        }
+    }
+
+    private List<Comment> createComments(int size) {
+        List<Comment> comments = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Comment comment = new Comment();
+            comment.setUid(1);
+            comment.setPostId(1);
+            comment.setCommentId(i);
+            comment.setContent("Lecker");
+            comment.setTimestamp(System.currentTimeMillis());
+            comments.add(comment);
+        }
+        return comments;
+    }
+
+    private long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private int count(boolean[] results) {
+        int count = 0;
+        for (boolean result : results) {
+            if (result) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -9,9 +9,12 @@ import static org.mockito.Mockito.*;
 import android.content.Context;
 
 import com.example.socialfood.model.dao.CommentDao;
+import com.example.socialfood.model.dao.SequenceDao;
 import com.example.socialfood.model.database.AppDatabase;
 import com.example.socialfood.model.database.DatabaseClient;
 import com.example.socialfood.model.entities.Comment;
+import com.example.socialfood.model.entities.IdSequence;
+import com.example.socialfood.model.metrics.MetricsRegistry;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -20,6 +23,7 @@ import org.mockito.MockitoAnnotations;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executors;
 
 /**
  * Unit test for CommentHandler using Mockito to mock dependencies.
@@ -32,7 +36,10 @@ public class CommentHandlerTest {
     private AppDatabase mockDatabase;
     @Mock
     private CommentDao mockCommentDao;
+    @Mock
+    private SequenceDao mockSequenceDao;
 
+    private DatabaseClient mockDatabaseClient;
     private CommentHandler commentHandler;
 
     /**
@@ -46,12 +53,45 @@ public class CommentHandlerTest {
         when(mockDatabase.commentDao()).thenReturn(mockCommentDao);
         when(mockContext.getApplicationContext()).thenReturn(mockContext);
 
-        DatabaseClient mockDatabaseClient = mock(DatabaseClient.class);
+        mockDatabaseClient = mock(DatabaseClient.class);
         when(mockDatabaseClient.getDatabase()).thenReturn(mockDatabase);
+        when(mockDatabaseClient.getReadExecutor()).thenReturn(Executors.newFixedThreadPool(2));
+        when(mockDatabaseClient.getWriteExecutor()).thenReturn(Executors.newSingleThreadExecutor());
+        when(mockDatabaseClient.getMetrics()).thenReturn(new MetricsRegistry());
+        when(mockDatabaseClient.getSingleFlight()).thenReturn(new SingleFlight(() -> 0));
+        when(mockDatabaseClient.getCommentIdAllocator()).thenReturn(new IdAllocator(
+                count -> mockSequenceDao.reserveBlock(IdSequence.COMMENTS, count), 2));
 
         commentHandler = new CommentHandler(mockDatabaseClient);
     }
 
+    /**
+     * Tests that comment IDs continue the persistent sequence beyond the int range
+     */
+    @Test
+    public void testNextCommentId() {
+        long first = Integer.MAX_VALUE - 1L;
+        when(mockSequenceDao.reserveBlock(eq(IdSequence.COMMENTS), anyInt()))
+                .thenReturn(first, first + 2);
+
+        assertEquals(Integer.MAX_VALUE - 1L, commentHandler.nextCommentId());
+        assertEquals(Integer.MAX_VALUE, commentHandler.nextCommentId());
+        assertEquals(Integer.MAX_VALUE + 1L, commentHandler.nextCommentId());
+    }
+
+    /**
+     * Tests that handlers of the same database take their IDs from one block of the sequence
+     */
+    @Test
+    public void testHandlersShareCommentIds() {
+        when(mockSequenceDao.reserveBlock(eq(IdSequence.COMMENTS), anyInt())).thenReturn(1L);
+        CommentHandler otherHandler = new CommentHandler(mockDatabaseClient);
+
+        assertEquals(1, commentHandler.nextCommentId());
+        assertEquals(2, otherHandler.nextCommentId());
+        verify(mockSequenceDao, times(1)).reserveBlock(eq(IdSequence.COMMENTS), anyInt());
+    }
+
     @Test
     public void testInsertComment() {
         Comment mockComment = createTestComment(1, 1, 1);
@@ -181,6 +221,37 @@ public class CommentHandlerTest {
         verify(mockCommentDao, times(1)).getCommentsByPostId(1);
     }
 
+    /**
+     * Tests inserting several comments in one batch
+     */
+    @Test
+    public void testInsertAllComments() {
+        List<Comment> comments = Arrays.asList(
+                createTestComment(1, 1, 1),
+                createTestComment(1, 1, 2));
+        when(mockCommentDao.insertComments(comments)).thenReturn(Arrays.asList(1L, -1L));
+
+        boolean[] results = commentHandler.insertAll(comments);
+
+        assertTrue("First comment should be inserted", results[0]);
+        assertFalse("Skipped comment should be reported as failed", results[1]);
+        verify(mockCommentDao, times(1)).insertComments(comments);
+    }
+
+    /**
+     * Tests that a batch containing a null comment is rejected before reaching the DAO
+     */
+    @Test
+    public void testInsertAllWithNullComment() {
+        List<Comment> comments = Arrays.asList(createTestComment(1, 1, 1), null);
+
+        boolean[] results = commentHandler.insertAll(comments);
+
+        assertEquals("Should return one result per comment", 2, results.length);
+        assertFalse("Batch should fail", results[0]);
+        verify(mockCommentDao, never()).insertComments(any());
+    }
+
     /**
      * Helper method to create a mock Comment object for testing purposes.
      *
@@ -189,7 +260,7 @@ public class CommentHandlerTest {
      * @param commentId The unique ID of the comment
      * @return A Comment object populated with test data
      */
-    private Comment createTestComment(int uid, int postId, int commentId) {
+    private Comment createTestComment(int uid, long postId, int commentId) {
         Comment comment = new Comment();
         comment.setUid(uid);
         comment.setPostId(postId);
@@ -1,10 +1,13 @@
 package com.example.socialfood.model.handler;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -20,6 +23,8 @@ import com.example.socialfood.model.dao.FollowDao;
 import com.example.socialfood.model.database.AppDatabase;
 import com.example.socialfood.model.database.DatabaseClient;
 import com.example.socialfood.model.entities.Follow;
+import com.example.socialfood.model.graph.FollowGraph;
+import com.example.socialfood.model.metrics.MetricsRegistry;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -30,6 +35,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executors;
 
 /**
  * Test class for the FollowHandler class. Tests all CRUD operations and special queries. Uses
@@ -48,6 +54,8 @@ public class FollowHandlerTest {
 
     private FollowHandler followHandler;
 
+    private FollowGraph followGraph;
+
     /**
      * Sets up the test environment before each test. Initializes mocks and creates the
      * FollowHandler instance with mocked dependencies.
@@ -59,20 +67,48 @@ public class FollowHandlerTest {
 
         DatabaseClient mockDatabaseClient = mock(DatabaseClient.class);
         when(mockDatabaseClient.getDatabase()).thenReturn(mockDatabase);
+        when(mockDatabaseClient.getReadExecutor()).thenReturn(Executors.newFixedThreadPool(2));
+        when(mockDatabaseClient.getWriteExecutor()).thenReturn(Executors.newSingleThreadExecutor());
+        when(mockDatabaseClient.getMetrics()).thenReturn(new MetricsRegistry());
+        followGraph = new FollowGraph();
+        when(mockDatabaseClient.getFollowGraph()).thenReturn(followGraph);
         followHandler = new FollowHandler(mockDatabaseClient);
     }
 
     /**
-     * Tests if a follow relationship exists between users
+     * Tests if a follow relationship exists between users, answered from the graph loaded once
      */
     @Test
     public void testExists() {
-        when(mockFollowDao.isFollowing(1, 2)).thenReturn(true);
+        when(mockFollowDao.getFollowPage(eq(0), eq(0), anyInt())).thenReturn(Arrays.asList(
+                createTestFollow(1, 2),
+                createTestFollow(3, 1)));
+
+        assertTrue("Follow relationship should exist", followHandler.exists(1, 2));
+        assertFalse("Follow relationship should be directed", followHandler.exists(2, 1));
+
+        verify(mockFollowDao, times(1)).getFollowPage(eq(0), eq(0), anyInt());
+        verify(mockFollowDao, never()).isFollowing(anyInt(), anyInt());
+    }
+
+    /**
+     * Tests that follows and unfollows update the loaded graph
+     */
+    @Test
+    public void testWritesUpdateGraph() {
+        when(mockFollowDao.getFollowPage(eq(0), eq(0), anyInt())).thenReturn(Arrays.asList(
+                createTestFollow(1, 2)));
+        Follow follow = createTestFollow(1, 3);
+        doNothing().when(mockFollowDao).insert(follow);
+        when(mockFollowDao.getFollow(1, 2)).thenReturn(createTestFollow(1, 2));
 
-        boolean exists = followHandler.exists(1, 2);
+        assertTrue(followHandler.exists(1, 2));
+        assertTrue(followHandler.insert(follow));
+        assertTrue(followHandler.delete(1, 2));
 
-        assertTrue("Follow relationship should exist", exists);
-        verify(mockFollowDao, times(1)).isFollowing(1, 2);
+        assertArrayEquals(new int[] {3}, followHandler.getFollowingIds(1));
+        assertArrayEquals(new int[] {1}, followHandler.getFollowerIds(3));
+        assertFalse(followHandler.exists(1, 2));
     }
 
     /**
@@ -183,6 +219,25 @@ public class FollowHandlerTest {
         assertFalse("Insert with invalid foreign key should fail", success);
     }
 
+    /**
+     * Tests that failed follows and unfollows leave the loaded graph unchanged
+     */
+    @Test
+    public void testFailedWritesLeaveGraph() {
+        when(mockFollowDao.getFollowPage(eq(0), eq(0), anyInt())).thenReturn(Arrays.asList(
+                createTestFollow(1, 2)));
+        Follow follow = createTestFollow(1, 3);
+        Follow unfollow = createTestFollow(1, 2);
+        doThrow(new SQLiteConstraintException()).when(mockFollowDao).insert(follow);
+        doThrow(new SQLiteConstraintException()).when(mockFollowDao).delete(unfollow);
+
+        assertTrue(followHandler.exists(1, 2));
+        assertFalse(followHandler.insert(follow));
+        assertFalse(followHandler.delete(unfollow));
+
+        assertArrayEquals(new int[] {2}, followHandler.getFollowingIds(1));
+    }
+
     /**
      * Helper method to create a test follow relationship with specified parameters.
      *
@@ -0,0 +1,144 @@
+package com.example.socialfood.model.handler;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.filters.LargeTest;
+
+import com.example.socialfood.model.dao.CommentDao;
+import com.example.socialfood.model.database.AppDatabase;
+import com.example.socialfood.model.database.DatabaseExecutors;
+import com.example.socialfood.model.database.GroupCommitWriter;
+import com.example.socialfood.model.entities.Comment;
+import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.entities.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark for {@link GroupCommitWriter}. Several threads insert single comments, each waiting
+ * for its write like a handler does, once through the plain writer thread and once through group
+ * commit with a window of 0 and {@link GroupCommitWriter#DEFAULT_WINDOW_MS}. Logs writes per
+ * second under the tag "GroupCommitBenchmark". Uses a file backed WAL database so that the
+ * journal sync of every commit is included.
+ */
+@LargeTest
+public class GroupCommitBenchmarkTest {
+    private static final String TAG = "GroupCommitBenchmark";
+    private static final String DATABASE_NAME = "group-commit-benchmark";
+    private static final int THREADS = 4;
+    private static final int WRITES_PER_THREAD = 250;
+
+    private Context context;
+    private AppDatabase database;
+    private DatabaseExecutors executors;
+    private final AtomicInteger nextCommentId = new AtomicInteger(1);
+
+    @Before
+    public void setup() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DATABASE_NAME);
+        database = Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME)
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .build();
+        executors = new DatabaseExecutors();
+
+        User user = new User();
+        user.setUid(1);
+        user.setUsername("benchmark");
+        user.setPassword("password");
+        user.setProfilImage("default.png");
+        database.userDao().insertUser(user);
+        Post post = new Post();
+        post.setUid(1);
+        post.setPostId(1);
+        post.setImageUrl("default.png");
+        post.setTimestamp(System.currentTimeMillis());
+        database.postDao().insertPost(post);
+    }
+
+    @After
+    public void teardown() throws InterruptedException {
+        executors.shutdown(5, TimeUnit.SECONDS);
+        database.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    /**
+     * Runs the same concurrent inserts through every write path
+     */
+    @Test
+    public void benchmarkConcurrentSingleWrites() throws Exception {
+        double plain = run(executors.writes());
+        GroupCommitWriter natural = new GroupCommitWriter(executors.writes(), executors.timer(),
+                database::runInTransaction, 0, GroupCommitWriter.DEFAULT_MAX_OPS);
+        double grouped = run(natural);
+        GroupCommitWriter windowed = new GroupCommitWriter(executors.writes(), executors.timer(),
+                database::runInTransaction);
+        double windowedGrouped = run(windowed);
+
+        assertEquals(3 * THREADS * WRITES_PER_THREAD, database.commentDao().getAll().size());
+        Log.i(TAG, THREADS + " threads x " + WRITES_PER_THREAD + " inserts: plain writer "
+                + Math.round(plain) + "/s, group commit without window " + Math.round(grouped)
+                + "/s " + natural + ", with " + GroupCommitWriter.DEFAULT_WINDOW_MS
+                + "ms window " + Math.round(windowedGrouped) + "/s " + windowed);
+    }
+
+    /**
+     * Inserts comments from {@link #THREADS} threads, each waiting for its write
+     *
+     * @return The writes per second
+     */
+    private double run(ExecutorService writeExecutor) throws Exception {
+        CommentDao commentDao = database.commentDao();
+        List<Thread> threads = new ArrayList<>(THREADS);
+        AtomicInteger failures = new AtomicInteger();
+        for (int t = 0; t < THREADS; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                    Comment comment = createComment(nextCommentId.getAndIncrement());
+                    try {
+                        writeExecutor.submit(() -> commentDao.insertComment(comment))
+                                .get(30, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        Log.e(TAG, "Write failed", e);
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals(0, failures.get());
+        return THREADS * WRITES_PER_THREAD * 1e9 / elapsed;
+    }
+
+    private Comment createComment(int commentId) {
+        Comment comment = new Comment();
+        comment.setUid(1);
+        comment.setPostId(1);
+        comment.setCommentId(commentId);
+        comment.setContent("Lecker");
+        comment.setTimestamp(System.currentTimeMillis());
+        return comment;
+    }
+}
@@ -4,10 +4,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -18,7 +21,9 @@ import android.database.sqlite.SQLiteConstraintException;
 import com.example.socialfood.model.dao.LikeDao;
 import com.example.socialfood.model.database.AppDatabase;
 import com.example.socialfood.model.database.DatabaseClient;
+import com.example.socialfood.model.database.GroupCommitWriter;
 import com.example.socialfood.model.entities.Like;
+import com.example.socialfood.model.metrics.MetricsRegistry;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -28,7 +33,10 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Test class for the LikeHandler class. Tests all CRUD operations and special queries. Uses Mockito
@@ -47,6 +55,8 @@ public class LikeHandlerTest {
 
     private LikeHandler likeHandler;
 
+    private LikeWriteBehind likeWriteBehind;
+
     /**
      * Sets up the test environment before each test. Initializes mocks and creates the LikeHandler
      * instance with mocked dependencies.
@@ -56,8 +66,19 @@ public class LikeHandlerTest {
         MockitoAnnotations.openMocks(this);
         when(mockDatabase.likeDao()).thenReturn(mockLikeDao);
 
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        GroupCommitWriter groupCommitWriter = new GroupCommitWriter(
+                Executors.newSingleThreadExecutor(), timer, Runnable::run);
+        // Flushed explicitly by the tests
+        likeWriteBehind = new LikeWriteBehind(new LikeHandler.TableStore(mockLikeDao),
+                groupCommitWriter::write, timer, 60_000, LikeWriteBehind.DEFAULT_MAX_PENDING);
+
         DatabaseClient mockDatabaseClient = mock(DatabaseClient.class);
         when(mockDatabaseClient.getDatabase()).thenReturn(mockDatabase);
+        when(mockDatabaseClient.getReadExecutor()).thenReturn(Executors.newFixedThreadPool(2));
+        when(mockDatabaseClient.getWriteExecutor()).thenReturn(groupCommitWriter);
+        when(mockDatabaseClient.getMetrics()).thenReturn(new MetricsRegistry());
+        when(mockDatabaseClient.getLikeWriteBehind()).thenReturn(likeWriteBehind);
         likeHandler = new LikeHandler(mockDatabaseClient);
     }
 
@@ -111,13 +132,14 @@ public class LikeHandlerTest {
     @Test
     public void testToggleLikeAdd() {
         when(mockLikeDao.isLikedByUser(1, 1)).thenReturn(false);
-        doNothing().when(mockLikeDao).insert(any(Like.class));
 
         boolean result = likeHandler.toggleLike(1, 1);
+        likeWriteBehind.flush();
 
         assertTrue("Toggle should result in like being added", result);
         verify(mockLikeDao, times(1)).isLikedByUser(1, 1);
-        verify(mockLikeDao, times(1)).insert(any(Like.class));
+        verify(mockLikeDao, timeout(1000)).applyLikes(argThat(likes -> likes.size() == 1),
+                eq(Collections.emptyList()));
     }
 
     /**
@@ -126,13 +148,35 @@ public class LikeHandlerTest {
     @Test
     public void testToggleLikeRemove() {
         when(mockLikeDao.isLikedByUser(1, 1)).thenReturn(true);
-        doNothing().when(mockLikeDao).delete(any(Like.class));
 
         boolean result = likeHandler.toggleLike(1, 1);
+        likeWriteBehind.flush();
 
         assertFalse("Toggle should result in like being removed", result);
         verify(mockLikeDao, times(1)).isLikedByUser(1, 1);
-        verify(mockLikeDao, times(1)).delete(any(Like.class));
+        verify(mockLikeDao, timeout(1000)).applyLikes(eq(Collections.emptyList()),
+                argThat(likes -> likes.size() == 1));
+    }
+
+    /**
+     * Tests that repeated toggles are answered from memory and written as their net effect.
+     */
+    @Test
+    public void testToggleLikeCoalesces() {
+        when(mockLikeDao.isLikedByUser(1, 1)).thenReturn(false);
+        when(mockLikeDao.getLikeCount(1)).thenReturn(3);
+
+        assertTrue(likeHandler.toggleLike(1, 1));
+        assertFalse(likeHandler.toggleLike(1, 1));
+        assertTrue(likeHandler.toggleLike(1, 1));
+
+        assertTrue("Pending like should be visible", likeHandler.isLikedByUser(1, 1));
+        assertEquals("Pending like should be counted", 4, likeHandler.getLikeCount(1));
+        likeWriteBehind.flush();
+        verify(mockLikeDao, timeout(1000).times(1)).applyLikes(
+                argThat(likes -> likes.size() == 1), eq(Collections.emptyList()));
+        verify(mockLikeDao, times(2)).isLikedByUser(1, 1);
+        verify(mockLikeDao, never()).insert(any(Like.class));
     }
 
     /**
@@ -148,6 +192,46 @@ public class LikeHandlerTest {
         verify(mockLikeDao, times(1)).isLikedByUser(1, 1);
     }
 
+    /**
+     * Tests that the loaded likes of a user are answered from memory and follow toggles.
+     */
+    @Test
+    public void testLoadedLikedPostsAnswerFromMemory() {
+        when(mockLikeDao.getLikedPostIds(1)).thenReturn(Arrays.asList(2L, 5L));
+
+        assertTrue(likeHandler.loadLikedPosts(1));
+        assertTrue(likeHandler.isLikedByUser(1, 5));
+        assertFalse(likeHandler.isLikedByUser(1, 3));
+        assertFalse("Toggle should unlike", likeHandler.toggleLike(1, 5));
+        assertFalse("Toggle should be visible", likeHandler.isLikedByUser(1, 5));
+
+        verify(mockLikeDao, never()).isLikedByUser(any(Integer.class), any(Long.class));
+    }
+
+    /**
+     * Tests that likes written directly are recorded in the loaded likes once they committed,
+     * and failed ones are not
+     */
+    @Test
+    public void testDirectWritesUpdateLoadedLikedPosts() {
+        when(mockLikeDao.getLikedPostIds(1)).thenReturn(Arrays.asList(2L));
+        Like like = createTestLike(1, 3);
+        Like failing = createTestLike(1, 4);
+        List<Like> unlikes = Arrays.asList(createTestLike(1, 2));
+        doNothing().when(mockLikeDao).insert(like);
+        doThrow(new SQLiteConstraintException()).when(mockLikeDao).insert(failing);
+        when(mockLikeDao.deleteLikes(unlikes)).thenReturn(new boolean[] { true });
+
+        assertTrue(likeHandler.loadLikedPosts(1));
+        assertTrue(likeHandler.insert(like));
+        assertFalse(likeHandler.insert(failing));
+        likeHandler.deleteAll(unlikes);
+
+        assertTrue(likeHandler.isLikedByUser(1, 3));
+        assertFalse(likeHandler.isLikedByUser(1, 4));
+        assertFalse(likeHandler.isLikedByUser(1, 2));
+    }
+
     /**
      * Tests getting like count for a post.
      */
@@ -213,6 +297,35 @@ public class LikeHandlerTest {
         assertFalse("Insert with invalid foreign key should fail", success);
     }
 
+    /**
+     * Tests deleting several likes in one batch.
+     */
+    @Test
+    public void testDeleteAllLikes() {
+        List<Like> likes = Arrays.asList(createTestLike(1, 1), createTestLike(2, 1));
+        when(mockLikeDao.deleteLikes(likes)).thenReturn(new boolean[] { true, false });
+
+        boolean[] results = likeHandler.deleteAll(likes);
+
+        assertTrue("First like should be deleted", results[0]);
+        assertFalse("Missing like should be reported as failed", results[1]);
+        verify(mockLikeDao, times(1)).deleteLikes(likes);
+    }
+
+    /**
+     * Tests that a batch insert failing on a foreign key reports every like as failed.
+     */
+    @Test
+    public void testInsertAllLikesWithInvalidForeignKey() {
+        List<Like> likes = Arrays.asList(createTestLike(1, 1), createTestLike(999, 888));
+        when(mockLikeDao.insertLikes(likes)).thenThrow(new SQLiteConstraintException());
+
+        boolean[] results = likeHandler.insertAll(likes);
+
+        assertFalse("First like should be rolled back", results[0]);
+        assertFalse("Invalid like should fail", results[1]);
+    }
+
     /**
      * Helper method to create a test like with specified parameters.
      *
@@ -220,7 +333,7 @@ public class LikeHandlerTest {
      * @param postId The ID of the post
      * @return A Like entity initialized with test data
      */
-    private Like createTestLike(int userId, int postId) {
+    private Like createTestLike(int userId, long postId) {
         Like like = new Like();
         like.setUserId(userId);
         like.setPostId(postId);
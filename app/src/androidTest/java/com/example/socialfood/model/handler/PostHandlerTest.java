@@ -5,6 +5,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -16,13 +19,22 @@ import static org.mockito.Mockito.when;
 import android.content.Context;
 import android.database.sqlite.SQLiteConstraintException;
 
+import com.example.socialfood.model.dao.IngredientDao;
 import com.example.socialfood.model.dao.LikeDao;
 import com.example.socialfood.model.dao.PostDao;
 import com.example.socialfood.model.database.AppDatabase;
 import com.example.socialfood.model.database.DatabaseClient;
+import com.example.socialfood.model.database.GroupCommitWriter;
+import com.example.socialfood.model.entities.FeedItem;
 import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.entities.PostLocation;
+import com.example.socialfood.model.entities.SearchResult;
 import com.example.socialfood.model.entities.User;
 
+import com.example.socialfood.model.metrics.MetricsRegistry;
+import com.example.socialfood.model.search.IngredientFilter;
+import com.example.socialfood.model.spatial.PostGrid;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -30,8 +42,12 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Test class for the PostHandler class. Tests all CRUD operations and special queries. Uses Mockito
@@ -51,6 +67,9 @@ public class PostHandlerTest {
     @Mock
     private LikeDao mockLikeDao;
 
+    @Mock
+    private IngredientDao mockIngredientDao;
+
     private PostHandler postHandler;
 
     /**
@@ -61,14 +80,44 @@ public class PostHandlerTest {
     public void setup() {
         MockitoAnnotations.openMocks(this);
         when(mockDatabase.postDao()).thenReturn(mockPostDao);
+        when(mockDatabase.ingredientDao()).thenReturn(mockIngredientDao);
 
 
         DatabaseClient mockDatabaseClient = mock(DatabaseClient.class);
         when(mockDatabaseClient.getDatabase()).thenReturn(mockDatabase);
+        when(mockDatabaseClient.getReadExecutor()).thenReturn(Executors.newFixedThreadPool(2));
+        when(mockDatabaseClient.getWriteExecutor()).thenReturn(Executors.newSingleThreadExecutor());
+        when(mockDatabaseClient.getMetrics()).thenReturn(new MetricsRegistry());
+        when(mockDatabaseClient.getSingleFlight()).thenReturn(new SingleFlight(() -> 0));
+        when(mockDatabaseClient.getPostGrid()).thenReturn(new PostGrid());
+        when(mockDatabaseClient.getPostIdGenerator()).thenReturn(new PostIdGenerator(0));
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        GroupCommitWriter groupCommitWriter = new GroupCommitWriter(
+                Executors.newSingleThreadExecutor(), timer, Runnable::run);
+        when(mockDatabaseClient.getLikeWriteBehind()).thenReturn(new LikeWriteBehind(
+                new LikeHandler.TableStore(mockLikeDao), groupCommitWriter::write, timer));
 
         postHandler = new PostHandler(mockDatabaseClient);
     }
 
+    /**
+     * Tests that post IDs follow the highest stored ID, even one from the future, and that the
+     * stored IDs are only read once.
+     */
+    @Test
+    public void testNextPostIdFollowsStoredIds() {
+        long stored = new PostIdGenerator(0,
+                () -> System.currentTimeMillis() + 3_600_000).nextId();
+        when(mockPostDao.getMaxPostId()).thenReturn(stored);
+
+        long first = postHandler.nextPostId();
+        long second = postHandler.nextPostId();
+
+        assertTrue("New ID should follow the stored ID", first > stored);
+        assertTrue("IDs should increase", second > first);
+        verify(mockPostDao, times(1)).getMaxPostId();
+    }
+
     /**
      * Tests inserting a new post into the database.
      */
@@ -105,12 +154,12 @@ public class PostHandlerTest {
     @Test
     public void testUpdatePost() {
         Post post = createTestPost(1, 1);
-        doNothing().when(mockPostDao).updatePost(post);
+        when(mockPostDao.updatePostRow(post)).thenReturn(1);
 
         boolean success = postHandler.update(post);
 
         assertTrue("Update should be successful", success);
-        verify(mockPostDao, times(1)).updatePost(post);
+        verify(mockPostDao, times(1)).updatePostRow(post);
     }
 
     /**
@@ -133,13 +182,13 @@ public class PostHandlerTest {
     @Test
     public void testGetPostById() {
         Post post = createTestPost(1, 1);
-        when(mockPostDao.getPostById(1, 1)).thenReturn(post);
+        when(mockPostDao.getPostById(1)).thenReturn(post);
 
-        Post result = postHandler.getPostById(1, 1);
+        Post result = postHandler.getPostById(1);
 
         assertNotNull("Post should not be null", result);
         assertEquals("Post IDs should match", post.getPostId(), result.getPostId());
-        verify(mockPostDao, times(1)).getPostById(1, 1);
+        verify(mockPostDao, times(1)).getPostById(1);
     }
 
     /**
@@ -175,6 +224,242 @@ public class PostHandlerTest {
         verify(mockPostDao, times(1)).getAllPosts();
     }
 
+    /**
+     * Tests that a full feed page carries a cursor which continues after its last post.
+     */
+    @Test
+    public void testGetPostsPage() {
+        List<Post> postList = new ArrayList<>();
+        for (int postId = PostHandler.PAGE_SIZE + 1; postId >= 1; postId--) {
+            Post post = createTestPost(1, postId);
+            post.setTimestamp(1000 + postId);
+            postList.add(post);
+        }
+        when(mockPostDao.getPostsPage(PostHandler.PAGE_SIZE + 1)).thenReturn(postList);
+
+        Page<Post> page = postHandler.getPostsPage(null);
+        assertEquals(PostHandler.PAGE_SIZE, page.getItems().size());
+        assertTrue("Page should have a next cursor", page.hasMore());
+
+        Post last = page.getItems().get(PostHandler.PAGE_SIZE - 1);
+        when(mockPostDao.getPostsPageAfter(last.getTimestamp(), last.getPostId(),
+                PostHandler.PAGE_SIZE + 1)).thenReturn(postList.subList(PostHandler.PAGE_SIZE,
+                        postList.size()));
+
+        Page<Post> next = postHandler.getPostsPage(page.getNextCursor());
+        assertEquals(1, next.getItems().size());
+        assertFalse("Last page should not have a next cursor", next.hasMore());
+    }
+
+    /**
+     * Tests that a malformed cursor yields an empty page without querying the database.
+     */
+    @Test
+    public void testGetPostsPageWithInvalidCursor() {
+        Page<Post> page = postHandler.getPostsPage("not-a-cursor");
+        assertTrue(page.getItems().isEmpty());
+        verify(mockPostDao, never()).getPostsPage(anyInt());
+    }
+
+    /**
+     * Tests retrieving a post summary with a single DAO call.
+     */
+    @Test
+    public void testGetFeedItem() {
+        FeedItem item = new FeedItem();
+        item.setUid(1);
+        item.setPostId(1);
+        item.setUsername("testuser");
+        when(mockPostDao.getFeedItem(1, 2)).thenReturn(item);
+
+        FeedItem result = postHandler.getFeedItem(1, 2);
+
+        assertEquals("testuser", result.getUsername());
+        verify(mockPostDao, times(1)).getFeedItem(1, 2);
+        verify(mockLikeDao, never()).isLikedByUser(anyInt(), anyLong());
+    }
+
+    /**
+     * Tests that a full feed page comes with a cursor for the next page.
+     */
+    @Test
+    public void testGetFeedPage() {
+        List<FeedItem> rows = new ArrayList<>();
+        for (int i = PostHandler.PAGE_SIZE + 1; i > 0; i--) {
+            FeedItem item = new FeedItem();
+            item.setUid(1);
+            item.setPostId(i);
+            item.setTimestamp(1000L + i);
+            rows.add(item);
+        }
+        when(mockPostDao.getFeedPage(1, PostHandler.PAGE_SIZE + 1)).thenReturn(rows);
+
+        Page<FeedItem> page = postHandler.getFeedPage(null, 1);
+
+        assertEquals(PostHandler.PAGE_SIZE, page.getItems().size());
+        assertTrue("Page should report more items", page.hasMore());
+    }
+
+    /**
+     * Tests that the summaries of several posts are read with one DAO call, and none for no IDs.
+     */
+    @Test
+    public void testGetFeedItemsByIds() {
+        List<Long> postIds = Arrays.asList(1L, 2L);
+        FeedItem item = new FeedItem();
+        item.setUid(1);
+        item.setPostId(2);
+        when(mockPostDao.getFeedItemsByIds(postIds, 3)).thenReturn(Collections.singletonList(item));
+
+        List<FeedItem> result = postHandler.getFeedItemsByIds(postIds, 3);
+
+        assertEquals(1, result.size());
+        assertTrue(postHandler.getFeedItemsByIds(Collections.emptyList(), 3).isEmpty());
+        verify(mockPostDao, times(1)).getFeedItemsByIds(any(), anyInt());
+    }
+
+    /**
+     * Tests that search turns the query into a prefix expression and continues after the score
+     * and post of the last result.
+     */
+    @Test
+    public void testSearchPosts() {
+        List<SearchResult> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            SearchResult result = new SearchResult();
+            result.setPost(createTestPost(1, i + 1));
+            result.setScore(3 - i);
+            rows.add(result);
+        }
+        when(mockPostDao.searchPosts("pizza* teig*", 3)).thenReturn(rows);
+        when(mockPostDao.searchPosts("pizza* teig*", 2.0, 2L, 3)).thenReturn(rows.subList(2, 3));
+
+        Page<SearchResult> first = postHandler.searchPosts("Pizza, Teig!", 2, null);
+        assertEquals(2, first.getItems().size());
+        assertTrue(first.hasMore());
+
+        Page<SearchResult> second = postHandler.searchPosts("Pizza, Teig!", 2,
+                first.getNextCursor());
+        assertEquals(1, second.getItems().size());
+        assertFalse("Last page should not report more items", second.hasMore());
+    }
+
+    /**
+     * Tests that queries without searchable words and invalid cursors return an empty page.
+     */
+    @Test
+    public void testSearchPostsWithInvalidInput() {
+        assertTrue(postHandler.searchPosts(" \"* ", 10, null).getItems().isEmpty());
+        assertTrue(postHandler.searchPosts("pizza", 10, "abc").getItems().isEmpty());
+        verify(mockPostDao, never()).searchPosts(any(), anyInt());
+        verify(mockPostDao, never()).searchPosts(any(), anyDouble(), anyLong(), anyInt());
+    }
+
+    /**
+     * Tests that viewport queries are passed to the DAO and invalid bounds are rejected.
+     */
+    @Test
+    public void testGetPostsInBounds() {
+        List<Post> posts = Arrays.asList(createTestPost(1, 1), createTestPost(1, 2));
+        when(mockPostDao.getPostsInBounds(48.0, 48.3, 11.4, 11.7, 500)).thenReturn(posts);
+
+        assertEquals(posts, postHandler.getPostsInBounds(48.0, 48.3, 11.4, 11.7, 500));
+        assertTrue(postHandler.getPostsInBounds(Double.NaN, 48.3, 11.4, 11.7, 500).isEmpty());
+        assertTrue(postHandler.getPostsInBounds(48.0, 48.3, 11.4, 11.7, 0).isEmpty());
+        verify(mockPostDao, times(1)).getPostsInBounds(anyDouble(), anyDouble(), anyDouble(),
+                anyDouble(), anyInt());
+    }
+
+    /**
+     * Tests that the nearest posts are looked up by ID, nearest first, after loading the grid
+     * once.
+     */
+    @Test
+    public void testGetNearestPosts() {
+        when(mockPostDao.getAllPostLocations()).thenReturn(Arrays.asList(
+                createTestLocation(1, 52.52, 13.40), createTestLocation(2, 48.14, 11.58)));
+        List<Post> posts = Arrays.asList(createTestPost(1, 2), createTestPost(1, 1));
+        when(mockPostDao.getPostsByIds(new long[] { 2, 1 })).thenReturn(posts);
+
+        assertEquals(posts, postHandler.getNearestPosts(48.13, 11.57, 20));
+        assertEquals(posts, postHandler.getNearestPosts(48.13, 11.57, 20));
+        assertTrue(postHandler.getNearestPosts(Double.NaN, 11.57, 20).isEmpty());
+        assertTrue(postHandler.getNearestPosts(48.13, 11.57, 0).isEmpty());
+        verify(mockPostDao, times(1)).getAllPostLocations();
+    }
+
+    /**
+     * Tests that inserted and deleted posts are applied to the loaded grid without reading all
+     * locations again.
+     */
+    @Test
+    public void testNearestPostsFollowWrites() {
+        when(mockPostDao.getAllPostLocations()).thenReturn(
+                Collections.singletonList(createTestLocation(1, 52.52, 13.40)));
+        Post far = createTestPost(1, 1);
+        Post near = createTestPost(1, 2);
+        near.setLatitude(48.14);
+        near.setLongitude(11.58);
+        when(mockPostDao.getPostsByIds(new long[] { 1 }))
+                .thenReturn(Collections.singletonList(far));
+        when(mockPostDao.getPostsByIds(new long[] { 2, 1 })).thenReturn(Arrays.asList(near, far));
+
+        assertEquals(1, postHandler.getNearestPosts(48.13, 11.57, 20).size());
+        assertTrue(postHandler.insert(near));
+        assertEquals(near, postHandler.getNearestPosts(48.13, 11.57, 20).get(0));
+        assertTrue(postHandler.delete(near));
+        assertEquals(far, postHandler.getNearestPosts(48.13, 11.57, 20).get(0));
+        verify(mockPostDao, times(1)).getAllPostLocations();
+    }
+
+    /**
+     * Tests that a full page of filtered posts comes with the ID of its last post as cursor.
+     */
+    @Test
+    public void testGetPostsByIngredients() {
+        IngredientFilter filter = IngredientFilter.allOf(Collections.singletonList("Mehl"));
+        List<Post> rows = new ArrayList<>();
+        for (int i = PostHandler.PAGE_SIZE + 1; i > 0; i--) {
+            rows.add(createTestPost(1, i));
+        }
+        when(mockIngredientDao.getPostsByIngredients(filter, Long.MAX_VALUE,
+                PostHandler.PAGE_SIZE + 1)).thenReturn(rows);
+
+        Page<Post> page = postHandler.getPostsByIngredients(filter, null);
+
+        assertEquals(PostHandler.PAGE_SIZE, page.getItems().size());
+        assertEquals("2", page.getNextCursor());
+    }
+
+    /**
+     * Tests that filters without positive ingredients and invalid cursors return an empty page.
+     */
+    @Test
+    public void testGetPostsByIngredientsWithInvalidInput() {
+        IngredientFilter onlyExcluded = new IngredientFilter(null, null,
+                Collections.singletonList("Zucker"));
+        IngredientFilter filter = IngredientFilter.allOf(Collections.singletonList("Mehl"));
+
+        assertTrue(postHandler.getPostsByIngredients(onlyExcluded, null).getItems().isEmpty());
+        assertTrue(postHandler.getPostsByIngredients(filter, "abc").getItems().isEmpty());
+        verify(mockIngredientDao, never()).getPostsByIngredients(any(), anyLong(),
+                anyInt());
+    }
+
+    /**
+     * Tests that the like count is read from the post's counter column.
+     */
+    @Test
+    public void testGetLikeCount() {
+        when(mockPostDao.getLikeCount(1)).thenReturn(4);
+
+        int count = postHandler.getLikeCount(1);
+
+        assertEquals("Post should have 4 likes", 4, count);
+        verify(mockPostDao, times(1)).getLikeCount(1);
+        verify(mockLikeDao, never()).getLikeCount(anyLong());
+    }
+
     /**
      * Tests error handling when trying to insert a null post.
      */
@@ -192,7 +477,7 @@ public class PostHandlerTest {
     public void testUpdateNullPost() {
         boolean success = postHandler.update(null);
         assertFalse("Updating null post should fail", success);
-        verify(mockPostDao, never()).updatePost(any());
+        verify(mockPostDao, never()).updatePostRow(any());
     }
 
     /**
@@ -224,7 +509,7 @@ public class PostHandlerTest {
      * @param postId The unique identifier for the post
      * @return A Post entity initialized with test data
      */
-    private Post createTestPost(int uid, int postId) {
+    private Post createTestPost(int uid, long postId) {
         Post post = new Post();
         post.setUid(uid);
         post.setPostId(postId);
@@ -251,4 +536,20 @@ public class PostHandlerTest {
         user.setProfilImage("default.png");
         return user;
     }
-}
\ No newline at end of file
+
+    /**
+     * Helper method to create a post location.
+     *
+     * @param postId The post ID
+     * @param latitude The latitude of the post
+     * @param longitude The longitude of the post
+     * @return A PostLocation initialized with the given values
+     */
+    private PostLocation createTestLocation(long postId, double latitude, double longitude) {
+        PostLocation location = new PostLocation();
+        location.setPostId(postId);
+        location.setLatitude(latitude);
+        location.setLongitude(longitude);
+        return location;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.socialfood.model.handler;
+
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.filters.LargeTest;
+
+import com.example.socialfood.model.dao.PostDao;
+import com.example.socialfood.model.database.AppDatabase;
+import com.example.socialfood.model.database.DatabaseClient;
+import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.entities.User;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Benchmark for mixed reads and writes. A background thread keeps inserting batches of posts
+ * while the test thread looks up single posts, once with the previous layout (rollback journal,
+ * one executor for reads and writes) and once with the layout of {@link DatabaseClient} (WAL,
+ * shared reader pool and a dedicated writer). Logs read throughput and read latencies under the
+ * tag "ReadWriteBenchmark". Uses file backed databases, as WAL needs a file.
+ */
+@LargeTest
+public class ReadWriteBenchmarkTest {
+    private static final String TAG = "ReadWriteBenchmark";
+    private static final String DATABASE_NAME = "read-write-benchmark";
+    private static final int USERS = 100;
+    private static final int SEED_POSTS = 10_000;
+    private static final int WRITE_BATCH = 500;
+    private static final long DURATION_MS = 5_000;
+
+    private Context context;
+    private AppDatabase database;
+
+    @After
+    public void teardown() {
+        if (database != null) {
+            database.close();
+        }
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    /**
+     * Runs the same mixed load against both layouts
+     */
+    @Test
+    public void benchmarkReadsDuringWrites() throws Exception {
+        context = ApplicationProvider.getApplicationContext();
+
+        open(RoomDatabase.JournalMode.TRUNCATE);
+        ExecutorService shared = Executors.newSingleThreadExecutor();
+        long[] before = run(shared, shared);
+        shared.shutdown();
+        database.close();
+
+        open(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING);
+        DatabaseClient client = new DatabaseClient(database);
+        long[] after = run(client.getReadExecutor(), client.getWriteExecutor());
+        Log.i(TAG, client.getExecutors().readStats() + " " + client.getExecutors().writeStats());
+        client.close();
+
+        Log.i(TAG, "Single executor, rollback journal: " + before[0] + " reads, p50 "
+                + before[1] + "us, p99 " + before[2] + "us, max " + before[3] + "us, "
+                + before[4] + " posts written");
+        Log.i(TAG, "WAL, reader pool and writer: " + after[0] + " reads, p50 " + after[1]
+                + "us, p99 " + after[2] + "us, max " + after[3] + "us, " + after[4]
+                + " posts written");
+        assertTrue(after[0] > 0 && before[0] > 0);
+    }
+
+    private void open(RoomDatabase.JournalMode journalMode) {
+        context.deleteDatabase(DATABASE_NAME);
+        database = Room.databaseBuilder(context, AppDatabase.class, DATABASE_NAME)
+                .setJournalMode(journalMode)
+                .build();
+        List<User> users = new ArrayList<>(USERS);
+        for (int uid = 1; uid <= USERS; uid++) {
+            User user = new User();
+            user.setUid(uid);
+            user.setUsername("user" + uid);
+            user.setPassword("password");
+            user.setProfilImage("default.png");
+            users.add(user);
+        }
+        database.userDao().insertUsers(users);
+        List<Post> posts = new ArrayList<>(SEED_POSTS);
+        for (int i = 0; i < SEED_POSTS; i++) {
+            posts.add(createPost(i));
+        }
+        database.postDao().insertPosts(posts);
+    }
+
+    /**
+     * Reads single posts on the calling thread for {@link #DURATION_MS} while a second thread
+     * submits batch inserts to the write executor
+     *
+     * @return Reads done, p50, p99 and max read latency in microseconds, posts written
+     */
+    private long[] run(ExecutorService readExecutor, ExecutorService writeExecutor)
+            throws Exception {
+        PostDao postDao = database.postDao();
+        AtomicBoolean running = new AtomicBoolean(true);
+        long[] written = new long[1];
+        Thread writer = new Thread(() -> {
+            int next = SEED_POSTS;
+            while (running.get()) {
+                List<Post> batch = new ArrayList<>(WRITE_BATCH);
+                for (int i = 0; i < WRITE_BATCH; i++) {
+                    batch.add(createPost(next++));
+                }
+                try {
+                    writeExecutor.submit(() -> postDao.insertPosts(batch))
+                            .get(30, TimeUnit.SECONDS);
+                    written[0] += WRITE_BATCH;
+                } catch (Exception e) {
+                    Log.e(TAG, "Write failed", e);
+                    return;
+                }
+            }
+        });
+        writer.start();
+
+        long[] latencies = new long[1 << 20];
+        int reads = 0;
+        long end = System.currentTimeMillis() + DURATION_MS;
+        while (System.currentTimeMillis() < end && reads < latencies.length) {
+            int i = reads % SEED_POSTS;
+            long start = System.nanoTime();
+            readExecutor.submit(() -> postDao.getPostById(i + 1))
+                    .get(30, TimeUnit.SECONDS);
+            latencies[reads++] = (System.nanoTime() - start) / 1000;
+        }
+        running.set(false);
+        writer.join();
+
+        long[] sorted = Arrays.copyOf(latencies, reads);
+        Arrays.sort(sorted);
+        return new long[] { reads, sorted[reads / 2], sorted[reads * 99 / 100],
+                sorted[reads - 1], written[0] };
+    }
+
+    private Post createPost(int i) {
+        Post post = new Post();
+        post.setUid(i % USERS + 1);
+        post.setPostId(i + 1);
+        post.setImageUrl("default.png");
+        post.setDescription("Post " + i);
+        post.setTimestamp(1_000_000L + i);
+        post.setLatitude(0.0);
+        post.setLongitude(0.0);
+        return post;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.socialfood.model.handler;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
@@ -16,10 +17,14 @@ import static org.mockito.Mockito.when;
 import android.content.Context;
 import android.database.sqlite.SQLiteConstraintException;
 
+import com.example.socialfood.model.dao.PostDao;
 import com.example.socialfood.model.dao.UserDao;
 import com.example.socialfood.model.database.AppDatabase;
 import com.example.socialfood.model.database.DatabaseClient;
 import com.example.socialfood.model.entities.User;
+import com.example.socialfood.model.graph.FollowGraph;
+import com.example.socialfood.model.metrics.MetricsRegistry;
+import com.example.socialfood.model.spatial.PostGrid;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -30,6 +35,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executors;
 
 /**
  * Test class for the UserHandler class. Tests all CRUD operations and special queries. Uses Mockito
@@ -46,7 +52,12 @@ public class UserHandlerTest {
     @Mock
     private UserDao mockUserDao;
 
+    @Mock
+    private PostDao mockPostDao;
+
     private UserHandler userHandler;
+    private UserCache userCache;
+    private PostGrid postGrid;
 
     /**
      * Sets up the test environment before each test. Initializes mocks and creates the UserHandler
@@ -56,9 +67,19 @@ public class UserHandlerTest {
     public void setup() {
         MockitoAnnotations.openMocks(this);
         when(mockDatabase.userDao()).thenReturn(mockUserDao);
+        when(mockDatabase.postDao()).thenReturn(mockPostDao);
 
         DatabaseClient mockDatabaseClient = mock(DatabaseClient.class);
         when(mockDatabaseClient.getDatabase()).thenReturn(mockDatabase);
+        when(mockDatabaseClient.getReadExecutor()).thenReturn(Executors.newFixedThreadPool(2));
+        when(mockDatabaseClient.getWriteExecutor()).thenReturn(Executors.newSingleThreadExecutor());
+        when(mockDatabaseClient.getMetrics()).thenReturn(new MetricsRegistry());
+        when(mockDatabaseClient.getSingleFlight()).thenReturn(new SingleFlight(() -> 0));
+        userCache = new UserCache(UserCache.DEFAULT_CAPACITY);
+        when(mockDatabaseClient.getUserCache()).thenReturn(userCache);
+        when(mockDatabaseClient.getFollowGraph()).thenReturn(new FollowGraph());
+        postGrid = new PostGrid();
+        when(mockDatabaseClient.getPostGrid()).thenReturn(postGrid);
         userHandler = new UserHandler(mockDatabaseClient);
     }
 
@@ -150,6 +171,79 @@ public class UserHandlerTest {
         verify(mockUserDao, times(1)).getUserByUsername("testuser");
     }
 
+    /**
+     * Tests that a user looked up again by ID or username comes from the cache
+     */
+    @Test
+    public void testGetUserUsesCache() {
+        User user = createTestUser(1);
+        when(mockUserDao.getUserbyId(1)).thenReturn(user);
+
+        userHandler.getUserById(1);
+        User byId = userHandler.getUserById(1);
+        User byUsername = userHandler.getUserByUsername("testuser");
+
+        assertEquals(user, byId);
+        assertEquals(user, byUsername);
+        verify(mockUserDao, times(1)).getUserbyId(1);
+        verify(mockUserDao, never()).getUserByUsername(any(String.class));
+        assertEquals(2, userCache.getHitCount());
+        assertEquals(1, userCache.getMissCount());
+    }
+
+    /**
+     * Tests that a deleted user is no longer answered from the cache
+     */
+    @Test
+    public void testDeleteUserRemovesFromCache() {
+        User user = createTestUser(1);
+        when(mockUserDao.getUserbyId(1)).thenReturn(user, (User) null);
+        doNothing().when(mockUserDao).deleteUser(user);
+
+        userHandler.getUserById(1);
+        userHandler.delete(user);
+
+        assertNull(userHandler.getUserById(1));
+        verify(mockUserDao, times(2)).getUserbyId(1);
+    }
+
+    /**
+     * Tests that users updated in a batch are read again instead of being cached with the
+     * counters of the passed entities
+     */
+    @Test
+    public void testUpdateAllEvictsFromCache() {
+        User stale = createTestUser(1);
+        User stored = createTestUser(1);
+        stored.setFollowersCount(5);
+        List<User> users = Arrays.asList(stale);
+        when(mockUserDao.updateUsers(users)).thenReturn(new boolean[] { true });
+        when(mockUserDao.getUserbyId(1)).thenReturn(stored);
+
+        userHandler.updateAll(users);
+
+        assertEquals(5, userHandler.getUserById(1).getFollowersCount());
+        verify(mockUserDao, times(1)).getUserbyId(1);
+    }
+
+    /**
+     * Tests that the posts deleted by the cascade of a deleted user leave the post grid
+     */
+    @Test
+    public void testDeleteUserRemovesPostsFromGrid() {
+        User user = createTestUser(1);
+        postGrid.load(new long[] { 10, 11, 20 }, new double[] { 48.1, 48.2, 52.5 },
+                new double[] { 11.5, 11.6, 13.4 }, 3);
+        when(mockPostDao.getPostIdsByUser(1)).thenReturn(Arrays.asList(10L, 11L));
+        doNothing().when(mockUserDao).deleteUser(user);
+
+        assertTrue(userHandler.delete(user));
+
+        assertEquals(1, postGrid.size());
+        assertTrue("Grid should stay loaded", postGrid.isLoaded());
+        assertEquals(20, postGrid.nearest(48.1, 11.5, 1).postId(0));
+    }
+
     /**
      * Tests error handling when trying to insert a null user.
      */
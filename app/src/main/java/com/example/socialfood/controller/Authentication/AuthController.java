@@ -7,6 +7,8 @@ import com.example.socialfood.model.entities.User;
 import com.example.socialfood.model.handler.UserHandler;
 import com.example.socialfood.utils.UserManager;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Controller class for authentication operations. Handles login, registration and user session
  * management.
@@ -75,6 +77,18 @@ public class AuthController extends BaseController implements AuthControllerInte
         return com.example.socialfood.controller.Authentication.RegisterResult.USERNAME_TAKEN;
     }
 
+    @Override
+    public CompletableFuture<LoginResult> validateAndLoginAsync(String username,
+            String password) {
+        return async(() -> validateAndLogin(username, password));
+    }
+
+    @Override
+    public CompletableFuture<RegisterResult> validateAndRegisterAsync(String username,
+            String password) {
+        return async(() -> validateAndRegister(username, password));
+    }
+
     /**
      * Validates login credentials
      * 
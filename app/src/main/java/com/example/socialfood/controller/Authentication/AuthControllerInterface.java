@@ -2,9 +2,16 @@ package com.example.socialfood.controller.Authentication;
 
 import com.example.socialfood.model.entities.User;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface defining authentication operations for the social food application. Provides methods
  * for user authentication, registration and session management.
+ *
+ * <p>
+ * Login and registration read the database and must not be called on the main thread. Their
+ * asynchronous variants complete on the main thread and are the ones the UI uses.
+ * </p>
  */
 public interface AuthControllerInterface {
 
@@ -63,5 +70,23 @@ public interface AuthControllerInterface {
      */
     RegisterResult validateAndRegister(String username, String password);
 
+    /**
+     * Validates the credentials and logs in the user without blocking the caller, see
+     * {@link #validateAndLogin(String, String)}
+     *
+     * @param username The username of the user
+     * @param password The password of the user
+     * @return A future completed on the main thread with the result of the login attempt
+     */
+    CompletableFuture<LoginResult> validateAndLoginAsync(String username, String password);
 
-    }
+    /**
+     * Validates the credentials and registers the user without blocking the caller, see
+     * {@link #validateAndRegister(String, String)}
+     *
+     * @param username The username for the new user
+     * @param password The password for the new user
+     * @return A future completed on the main thread with the result of the registration attempt
+     */
+    CompletableFuture<RegisterResult> validateAndRegisterAsync(String username, String password);
+}
@@ -2,12 +2,20 @@ package com.example.socialfood.controller;
 
 import android.content.Context;
 
+import com.example.socialfood.model.database.DatabaseClient;
+import com.example.socialfood.model.database.LiveQuery;
 import com.example.socialfood.model.entities.User;
+import com.example.socialfood.model.handler.Async;
 import com.example.socialfood.utils.UserManager;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
 /**
  * Base controller class providing common functionality for all controllers. Manages user context
- * and access to the UserManager.
+ * and access to the UserManager, and runs the blocking controller methods behind the
+ * asynchronous ones.
  */
 public abstract class BaseController {
     /** Application context */
@@ -16,6 +24,12 @@ public abstract class BaseController {
     /** Manager for user-related operations */
     protected UserManager userManager;
 
+    /** Executor running the blocking methods behind the asynchronous ones */
+    private Executor callerExecutor;
+
+    /** Executor completing the futures of the asynchronous methods */
+    private Executor callbackExecutor = LiveQuery.MAIN_THREAD;
+
     /**
      * Constructs a new BaseController
      * 
@@ -24,6 +38,28 @@ public abstract class BaseController {
     public BaseController(Context context) {
         this.context = context;
         this.userManager = UserManager.getInstance(context);
+        this.callerExecutor = DatabaseClient.getInstance(context).getCallerExecutor();
+    }
+
+    /**
+     * Runs a blocking controller method on the caller executor
+     * 
+     * @param call The blocking method
+     * @param <T> The type of the result
+     * @return A future completed on the main thread with the result of the method
+     */
+    protected <T> CompletableFuture<T> async(Supplier<T> call) {
+        return Async.call(callerExecutor, callbackExecutor, call);
+    }
+
+    /**
+     * Runs a blocking controller method without a result on the caller executor
+     * 
+     * @param call The blocking method
+     * @return A future completed on the main thread once the method has returned
+     */
+    protected CompletableFuture<Void> async(Runnable call) {
+        return Async.run(callerExecutor, callbackExecutor, call);
     }
 
     /**
@@ -52,4 +88,15 @@ public abstract class BaseController {
     public void setUserManager(UserManager userManager) {
         this.userManager = userManager;
     }
+
+    /**
+     * Sets the executors of the asynchronous methods (primarily used for testing)
+     * 
+     * @param callerExecutor The executor running the blocking methods
+     * @param callbackExecutor The executor completing the futures
+     */
+    public void setExecutors(Executor callerExecutor, Executor callbackExecutor) {
+        this.callerExecutor = callerExecutor;
+        this.callbackExecutor = callbackExecutor;
+    }
 }
@@ -20,12 +20,12 @@ import com.example.socialfood.gui.fragments.PostDetailFragment;
 import com.example.socialfood.gui.fragments.ProfileFragment;
 import com.example.socialfood.gui.fragments.SettingsFragment;
 import com.example.socialfood.model.entities.Post;
-import com.example.socialfood.model.entities.User;
 
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.Marker;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -92,27 +92,29 @@ public class NavigationController extends BaseController
     }
 
     /**
-     * Shows the profile page for a specific user
+     * Shows the profile page for a specific user once the user is loaded. The profile fragment
+     * observes the user's posts itself, so they are not loaded here.
      * 
      * @param userId The ID of the user whose profile should be shown
      */
     @Override
     public void showProfile(int userId) {
-        User user = userController.getUserById(userId);
-        List<Post> userPosts = postController.getPostsFromUser(userId);
-
-        ProfileFragment profileFragment = ProfileFragment.newInstance(
-                user,
-                userPosts,
-                userController,
-                postController,
-                this);
-
-        fragmentManager.beginTransaction()
-                .replace(R.id.fragment_container, profileFragment)
-                .addToBackStack(null)
-                .commit();
+        userController.getUserByIdAsync(userId).thenAccept(user -> {
+            if (user == null || !canCommit()) {
+                return;
+            }
+            ProfileFragment profileFragment = ProfileFragment.newInstance(
+                    user,
+                    Collections.emptyList(),
+                    userController,
+                    postController,
+                    this);
 
+            fragmentManager.beginTransaction()
+                    .replace(R.id.fragment_container, profileFragment)
+                    .addToBackStack(null)
+                    .commit();
+        });
     }
 
     /**
@@ -125,14 +127,13 @@ public class NavigationController extends BaseController
     }
 
     /**
-     * Shows the map view with all available posts Retrieves all posts from the
-     * database and
-     * displays them on the map
+     * Shows the map view. The map fragment loads the posts inside its viewport
+     * once it is laid out, so nothing is queried here.
      */
     @Override
     public void showMap() {
-        List<Post> allPosts = postController.getAllPosts();
-        MapFragment mapFragment = MapFragment.newInstance(this, postController, allPosts);
+        MapFragment mapFragment = MapFragment.newInstance(this, postController,
+                Collections.emptyList());
         replaceFragment(mapFragment);
     }
 
@@ -156,15 +157,24 @@ public class NavigationController extends BaseController
      */
     @Override
     public void showPostDetail(Post post) {
-        Post fullPost = postController.getPostById(post.getUid(), post.getPostId());
-        if (fullPost != null) {
-            PostDetailFragment detailFragment = PostDetailFragment.newInstance(
-                    fullPost,
-                    this,
-                    postController,
-                    userController);
-            replaceFragment(detailFragment);
+        onClickPost(post.getPostId());
+    }
+
+    /**
+     * Shows a loaded post in PostDetailFragment, unless the activity is already gone
+     *
+     * @param fullPost The post to show, null if it no longer exists
+     */
+    private void showPostDetailFragment(Post fullPost) {
+        if (fullPost == null || !canCommit()) {
+            return;
         }
+        PostDetailFragment detailFragment = PostDetailFragment.newInstance(
+                fullPost,
+                this,
+                postController,
+                userController);
+        replaceFragment(detailFragment);
     }
 
     /**
@@ -182,13 +192,16 @@ public class NavigationController extends BaseController
     }
 
     /**
-     * Shows posts on the map by creating markers for each post location
+     * Shows posts on the map by creating markers for each post location. The
+     * markers of the previous call are removed first, so the map only holds the
+     * markers of the posts passed in.
      *
      * @param posts   List of posts to display on the map
      * @param mapView The MapView to add markers to
      */
     @Override
     public void showPostsOnMap(List<Post> posts, MapView mapView) {
+        mapView.getOverlays().removeIf(overlay -> overlay instanceof Marker);
         for (Post post : posts) {
             Marker marker = new Marker(mapView);
             GeoPoint postPoint = new GeoPoint(post.getLatitude(), post.getLongitude());
@@ -197,8 +210,7 @@ public class NavigationController extends BaseController
             marker.setSnippet("Klicken zum Anzeigen");
 
             marker.setOnMarkerClickListener((marker1, mapView1) -> {
-                Post clickedPost = postController.getPostById(post.getUid(), post.getPostId());
-                showPostDetail(clickedPost);
+                showPostDetail(post);
                 return true;
             });
 
@@ -218,16 +230,24 @@ public class NavigationController extends BaseController
     }
 
     /**
-     * Handles navigation when a post is clicked
+     * Handles navigation when a post is clicked. The post is loaded off the main thread and
+     * shown once it arrives.
      *
      * @param postId ID of the clicked post
      */
     @Override
-    public void onClickPost(int postId) {
-        Post post = postController.getPost(postId);
-        if (post != null) {
-            showPostDetail(post);
-        }
+    public void onClickPost(long postId) {
+        postController.getPostAsync(postId).thenAccept(this::showPostDetailFragment);
+    }
+
+    /**
+     * Checks whether a fragment transaction can still be committed, which is no longer the case
+     * when an asynchronous result arrives after the activity saved its state
+     *
+     * @return true if the fragment manager accepts transactions
+     */
+    private boolean canCommit() {
+        return !fragmentManager.isDestroyed() && !fragmentManager.isStateSaved();
     }
 
     /**
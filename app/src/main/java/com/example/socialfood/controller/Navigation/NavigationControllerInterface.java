@@ -50,7 +50,7 @@ public interface NavigationControllerInterface {
     void showPostCreation(String photoPath);
 
     /**
-     * Displays posts as markers on the map
+     * Displays posts as markers on the map, replacing the post markers shown before
      * 
      * @param posts List of posts to display
      * @param mapView The MapView to add markers to
@@ -69,7 +69,7 @@ public interface NavigationControllerInterface {
      * 
      * @param postId ID of the clicked post
      */
-    void onClickPost(int postId);
+    void onClickPost(long postId);
 
     /**
      * Replaces the current fragment with a new one
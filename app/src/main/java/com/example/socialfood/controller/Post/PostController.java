@@ -7,12 +7,19 @@ import com.example.socialfood.controller.User.UserController;
 import com.example.socialfood.controller.User.UserControllerInterface;
 import com.example.socialfood.model.handler.CommentHandler;
 import com.example.socialfood.model.handler.LikeHandler;
+import com.example.socialfood.model.handler.Page;
 import com.example.socialfood.model.handler.PostHandler;
+import com.example.socialfood.model.database.LiveQuery;
+import com.example.socialfood.model.database.Subscription;
 import com.example.socialfood.model.entities.Comment;
+import com.example.socialfood.model.entities.FeedItem;
+import com.example.socialfood.model.entities.Ingredient;
 import com.example.socialfood.model.entities.Post;
-import com.example.socialfood.model.entities.User;
+import com.example.socialfood.model.entities.SearchResult;
+import com.example.socialfood.model.search.IngredientFilter;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller class for handling post-related operations. Implements
@@ -46,32 +53,30 @@ public class PostController extends BaseController
     }
 
     @Override
-    public boolean createPost(String photoPath, String description, String recipe,
+    public long createPost(String photoPath, String description, String recipe,
             String ingredients, double latitude, double longitude) {
+        long postId = postHandler.nextPostId();
+        if (postId < 0) {
+            return -1;
+        }
         Post post = new Post();
         post.setImageUrl(photoPath);
         post.setDescription(description);
         post.setUid(getCurrentUserId());
-        post.setPostId(generateNextPostId());
+        post.setPostId(postId);
         post.setTimestamp(System.currentTimeMillis());
         post.setLatitude(latitude);
         post.setLongitude(longitude);
         post.setIngredients(ingredients);
         post.setRecipe(recipe);
 
-        boolean success = postHandler.insert(post);
-        if (success) {
-            // Update user's post count
-            User currentUser = getCurrentUser();
-            currentUser.setPostsCount(currentUser.getPostsCount() + 1);
-            userController.updateUser(currentUser);
-        }
-        return success;
+        // The user's post count is maintained by the database
+        return postHandler.insert(post) ? postId : -1;
     }
 
     @Override
-    public Post getPost(int postId) {
-        return postHandler.getPostById(getCurrentUserId(), postId);
+    public Post getPost(long postId) {
+        return postHandler.getPostById(postId);
     }
 
     @Override
@@ -80,8 +85,8 @@ public class PostController extends BaseController
     }
 
     @Override
-    public int getLikeCount(int postId) {
-        return likeHandler.getLikeCount(postId);
+    public int getLikeCount(long postId) {
+        return postHandler.getLikeCount(postId);
     }
 
     @Override
@@ -95,65 +100,208 @@ public class PostController extends BaseController
     }
 
     @Override
-    public boolean isPostLikedByUser(int postId) {
-        Post post = getPostById(getCurrentUserId(), postId);
+    public boolean isPostLikedByUser(long postId) {
+        Post post = getPostById(postId);
         return post != null && postHandler.isLikedByUser(post, getCurrentUser());
     }
 
     @Override
-    public Post getPostById(int uid, int postId) {
-        return postHandler.getPostById(uid, postId);
+    public Post getPostById(long postId) {
+        return postHandler.getPostById(postId);
     }
 
     @Override
-    public void onLikePost(int postId) {
-        Post post = postHandler.getPostById(getCurrentUser().getUid(), postId);
-        if (post != null) {
-            likeHandler.toggleLike(getCurrentUserId(), postId);
-        }
+    public void onLikePost(long postId) {
+        // Recorded in memory and written in batches; likes of deleted posts are skipped then
+        likeHandler.toggleLike(getCurrentUserId(), postId);
     }
 
     @Override
-    public void onCommentPost(int postId, String commentText) {
-        Post post = postHandler.getPostById(getCurrentUser().getUid(), postId);
+    public void onCommentPost(long postId, String commentText) {
+        Post post = postHandler.getPostById(postId);
         if (post != null) {
+            long commentId = commentHandler.nextCommentId();
+            if (commentId < 0) {
+                return;
+            }
             Comment comment = new Comment();
-            comment.setUid(getCurrentUser().getUid());
+            comment.setUid(getCurrentUserId());
             comment.setPostId(postId);
-            long timestamp = System.currentTimeMillis();
-            int commentId = Math.abs((int) (timestamp % Integer.MAX_VALUE)) + 1;
             comment.setCommentId(commentId);
 
             comment.setContent(commentText);
             comment.setTimestamp(System.currentTimeMillis());
 
-            if (commentHandler.insert(comment)) {
-                post.setCommentCount(post.getCommentCount() + 1);
-                postHandler.update(post);
-            }
+            // The post's comment count is maintained by the database
+            commentHandler.insert(comment);
         }
     }
 
     @Override
-    public List<Comment> getCommentsForPost(int postId) {
+    public List<Comment> getCommentsForPost(long postId) {
         return commentHandler.getCommentsByPostId(postId);
     }
 
+    @Override
+    public Subscription observeCommentsForPost(long postId,
+            LiveQuery.Listener<List<Comment>> listener) {
+        return commentHandler.observeCommentsByPostId(postId, listener);
+    }
+
     @Override
     public List<Post> getAllPosts() {
         return postHandler.getAllPosts();
     }
 
-    /**
-     * Generates the next available post ID for the current user
-     * 
-     * @return A new unique post ID calculated as maximum existing ID + 1
-     */
-    private int generateNextPostId() {
-        List<Post> userPosts = postHandler.getPostByUser(getCurrentUserId());
-        return userPosts.stream()
-                .mapToInt(Post::getPostId)
-                .max()
-                .orElse(0) + 1;
+    @Override
+    public Page<Post> getPostsPage(String cursor) {
+        return postHandler.getPostsPage(cursor);
+    }
+
+    @Override
+    public FeedItem getFeedItem(long postId) {
+        return postHandler.getFeedItem(postId, getCurrentUserId());
+    }
+
+    @Override
+    public Subscription observeFeedItem(long postId, LiveQuery.Listener<FeedItem> listener) {
+        return postHandler.observeFeedItem(postId, getCurrentUserId(), listener);
+    }
+
+    @Override
+    public Subscription observePostsFromUser(int uid, LiveQuery.Listener<List<Post>> listener) {
+        return postHandler.observePostsByUser(uid, listener);
+    }
+
+    @Override
+    public Subscription observePostChanges(Runnable onChange) {
+        return postHandler.observePostChanges(onChange);
+    }
+
+    @Override
+    public List<FeedItem> getFeedItemsFromUser(int uid) {
+        return postHandler.getFeedItemsByUser(uid, getCurrentUserId());
+    }
+
+    @Override
+    public Page<FeedItem> getFeedPage(String cursor) {
+        return postHandler.getFeedPage(cursor, getCurrentUserId());
+    }
+
+    @Override
+    public List<FeedItem> getFeedItemsByIds(List<Long> postIds) {
+        return postHandler.getFeedItemsByIds(postIds, getCurrentUserId());
+    }
+
+    @Override
+    public Page<SearchResult> searchPosts(String query, int limit, String cursor) {
+        return postHandler.searchPosts(query, limit, cursor);
+    }
+
+    @Override
+    public List<Post> getPostsInBounds(double minLat, double maxLat, double minLon, double maxLon,
+            int limit) {
+        return postHandler.getPostsInBounds(minLat, maxLat, minLon, maxLon, limit);
+    }
+
+    @Override
+    public List<Post> getNearestPosts(double latitude, double longitude, int count) {
+        return postHandler.getNearestPosts(latitude, longitude, count);
+    }
+
+    @Override
+    public Page<Post> getPostsByIngredients(IngredientFilter filter, String cursor) {
+        return postHandler.getPostsByIngredients(filter, cursor);
+    }
+
+    @Override
+    public List<Ingredient> getAllIngredients() {
+        return postHandler.getAllIngredients();
+    }
+
+    @Override
+    public CompletableFuture<Long> createPostAsync(String photoPath, String description,
+            String recipe, String ingredients, double latitude, double longitude) {
+        return async(() -> createPost(photoPath, description, recipe, ingredients, latitude,
+                longitude));
+    }
+
+    @Override
+    public CompletableFuture<Post> getPostAsync(long postId) {
+        return async(() -> getPost(postId));
+    }
+
+    @Override
+    public CompletableFuture<List<Post>> getPostsFromUserAsync(int uid) {
+        return async(() -> getPostsFromUser(uid));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updatePostAsync(Post post) {
+        return async(() -> updatePost(post));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deletePostAsync(Post post) {
+        return async(() -> deletePost(post));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isPostLikedByUserAsync(long postId) {
+        return async(() -> isPostLikedByUser(postId));
+    }
+
+    @Override
+    public CompletableFuture<Void> onLikePostAsync(long postId) {
+        return async(() -> onLikePost(postId));
+    }
+
+    @Override
+    public CompletableFuture<Void> onCommentPostAsync(long postId, String commentText) {
+        return async(() -> onCommentPost(postId, commentText));
+    }
+
+    @Override
+    public CompletableFuture<FeedItem> getFeedItemAsync(long postId) {
+        return async(() -> getFeedItem(postId));
+    }
+
+    @Override
+    public CompletableFuture<Page<Post>> getPostsPageAsync(String cursor) {
+        return async(() -> getPostsPage(cursor));
+    }
+
+    @Override
+    public CompletableFuture<Page<FeedItem>> getFeedPageAsync(String cursor) {
+        return async(() -> getFeedPage(cursor));
+    }
+
+    @Override
+    public CompletableFuture<Page<SearchResult>> searchPostsAsync(String query, int limit,
+            String cursor) {
+        return async(() -> searchPosts(query, limit, cursor));
+    }
+
+    @Override
+    public CompletableFuture<List<Post>> getPostsInBoundsAsync(double minLat, double maxLat,
+            double minLon, double maxLon, int limit) {
+        return async(() -> getPostsInBounds(minLat, maxLat, minLon, maxLon, limit));
+    }
+
+    @Override
+    public CompletableFuture<List<Post>> getNearestPostsAsync(double latitude, double longitude,
+            int count) {
+        return async(() -> getNearestPosts(latitude, longitude, count));
+    }
+
+    @Override
+    public CompletableFuture<Page<Post>> getPostsByIngredientsAsync(IngredientFilter filter,
+            String cursor) {
+        return async(() -> getPostsByIngredients(filter, cursor));
+    }
+
+    @Override
+    public CompletableFuture<List<Ingredient>> getAllIngredientsAsync() {
+        return async(this::getAllIngredients);
     }
 }
@@ -1,13 +1,27 @@
 package com.example.socialfood.controller.Post;
 
+import com.example.socialfood.model.database.LiveQuery;
+import com.example.socialfood.model.database.Subscription;
 import com.example.socialfood.model.entities.Comment;
+import com.example.socialfood.model.entities.FeedItem;
+import com.example.socialfood.model.entities.Ingredient;
 import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.entities.SearchResult;
+import com.example.socialfood.model.handler.Page;
+import com.example.socialfood.model.search.IngredientFilter;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface defining post-related operations for the social food application. Handles post
  * creation, retrieval, updates, and interactions (likes/comments).
+ *
+ * <p>
+ * The blocking methods wait for the database and must not be called on the main thread. The
+ * asynchronous variants run them on a caller thread and complete their futures on the main
+ * thread, so the UI uses those.
+ * </p>
  */
 public interface PostControllerInterface {
     /**
@@ -19,9 +33,9 @@ public interface PostControllerInterface {
      * @param ingredients List of ingredients
      * @param latitude Geographic latitude of the post
      * @param longitude Geographic longitude of the post
-     * @return true if post creation was successful, false otherwise
+     * @return The generated ID of the new post, or -1 if the post could not be created
      */
-    boolean createPost(String photoPath, String description, String recipe, String ingredients,
+    long createPost(String photoPath, String description, String recipe, String ingredients,
             double latitude, double longitude);
 
     /**
@@ -30,7 +44,7 @@ public interface PostControllerInterface {
      * @param postId The ID of the post to retrieve
      * @return The Post if found, null otherwise
      */
-    Post getPost(int postId);
+    Post getPost(long postId);
 
     /**
      * Gets all posts from a specific user
@@ -46,7 +60,7 @@ public interface PostControllerInterface {
      * @param postId The ID of the post
      * @return Number of likes
      */
-    int getLikeCount(int postId);
+    int getLikeCount(long postId);
 
     /**
      * Updates an existing post
@@ -70,23 +84,23 @@ public interface PostControllerInterface {
      * @param postId The ID of the post to check
      * @return true if user has liked the post, false otherwise
      */
-    boolean isPostLikedByUser(int postId);
+    boolean isPostLikedByUser(long postId);
 
     /**
-     * Retrieves a post by user ID and post ID
+     * Retrieves a post of any user by its globally unique ID
      * 
-     * @param uid The user ID of the post creator
      * @param postId The ID of the post
      * @return The Post if found, null otherwise
      */
-    Post getPostById(int uid, int postId);
+    Post getPostById(long postId);
 
     /**
-     * Handles liking/unliking a post
+     * Handles liking/unliking a post. The new state is visible to reads at once and written to
+     * the database shortly after, together with other likes.
      * 
      * @param postId The ID of the post to like/unlike
      */
-    void onLikePost(int postId);
+    void onLikePost(long postId);
 
     /**
      * Adds a comment to a post
@@ -94,7 +108,7 @@ public interface PostControllerInterface {
      * @param postId The ID of the post to comment on
      * @param commentText The text content of the comment
      */
-    void onCommentPost(int postId, String commentText);
+    void onCommentPost(long postId, String commentText);
 
     /**
      * Gets all comments for a post
@@ -102,7 +116,17 @@ public interface PostControllerInterface {
      * @param postId The ID of the post
      * @return List of comments on the post
      */
-    List<Comment> getCommentsForPost(int postId);
+    List<Comment> getCommentsForPost(long postId);
+
+    /**
+     * Observes the comments of a post. The listener runs on the main thread now and after every
+     * written comment.
+     * 
+     * @param postId The ID of the post
+     * @param listener The listener receiving the comments
+     * @return The subscription to close when the comments are no longer shown
+     */
+    Subscription observeCommentsForPost(long postId, LiveQuery.Listener<List<Comment>> listener);
 
     /**
      * Retrieves all posts in the system
@@ -110,4 +134,283 @@ public interface PostControllerInterface {
      * @return List of all posts
      */
     List<Post> getAllPosts();
+
+    /**
+     * Retrieves one fixed-size page of posts, newest first
+     * 
+     * @param cursor The cursor of the previous page, null for the first page
+     * @return The page of posts with the cursor for the next page
+     */
+    Page<Post> getPostsPage(String cursor);
+
+    /**
+     * Retrieves the summary of a post with author, like count, comment count and whether the
+     * current user has liked it, all from a single query
+     * 
+     * @param postId The ID of the post
+     * @return The post summary if found, null otherwise
+     */
+    FeedItem getFeedItem(long postId);
+
+    /**
+     * Observes the summary of a post. The listener runs on the main thread now and whenever a
+     * counter, the author or the liked state changes.
+     * 
+     * @param postId The ID of the post
+     * @param listener The listener receiving the summary
+     * @return The subscription to close when the post is no longer shown
+     */
+    Subscription observeFeedItem(long postId, LiveQuery.Listener<FeedItem> listener);
+
+    /**
+     * Observes the posts of a user. The listener runs on the main thread now and after every
+     * written post.
+     * 
+     * @param uid The ID of the user
+     * @param listener The listener receiving the posts
+     * @return The subscription to close when the posts are no longer shown
+     */
+    Subscription observePostsFromUser(int uid, LiveQuery.Listener<List<Post>> listener);
+
+    /**
+     * Calls a callback on the main thread whenever any post is inserted, updated or deleted
+     * 
+     * @param onChange The callback
+     * @return The subscription to close when the posts are no longer shown
+     */
+    Subscription observePostChanges(Runnable onChange);
+
+    /**
+     * Retrieves the summaries of all posts of a user, newest first
+     * 
+     * @param uid The user ID whose posts to retrieve
+     * @return List of post summaries by the user
+     */
+    List<FeedItem> getFeedItemsFromUser(int uid);
+
+    /**
+     * Retrieves one fixed-size page of post summaries, newest first, with a single query per page
+     * 
+     * @param cursor The cursor of the previous page, null for the first page
+     * @return The page of post summaries with the cursor for the next page
+     */
+    Page<FeedItem> getFeedPage(String cursor);
+
+    /**
+     * Retrieves the summaries of the given posts with a single query, e.g. to save the posts shown
+     * on the map
+     * 
+     * @param postIds The IDs of the posts
+     * @return The summaries of the posts that exist, in no particular order
+     */
+    List<FeedItem> getFeedItemsByIds(List<Long> postIds);
+
+    /**
+     * Searches description, recipe and ingredients of all posts, most relevant first. Every word
+     * of the query is matched as a prefix.
+     * 
+     * @param query The search text
+     * @param limit The maximum number of results per page
+     * @param cursor The cursor of the previous page, null for the first page
+     * @return The page of results with highlighted snippets and the cursor for the next page
+     */
+    Page<SearchResult> searchPosts(String query, int limit, String cursor);
+
+    /**
+     * Retrieves the posts located inside the visible part of the map
+     * 
+     * @param minLat The southern edge of the viewport
+     * @param maxLat The northern edge of the viewport
+     * @param minLon The western edge of the viewport
+     * @param maxLon The eastern edge of the viewport
+     * @param limit The maximum number of posts
+     * @return Up to limit posts inside the viewport
+     */
+    List<Post> getPostsInBounds(double minLat, double maxLat, double minLon, double maxLon,
+            int limit);
+
+    /**
+     * Retrieves the posts nearest to a point, for example the user's position
+     * 
+     * @param latitude The latitude of the point
+     * @param longitude The longitude of the point
+     * @param count The maximum number of posts
+     * @return Up to count posts, nearest first
+     */
+    List<Post> getNearestPosts(double latitude, double longitude, int count);
+
+    /**
+     * Retrieves the posts matching an ingredient filter, for example all posts with flour and
+     * yeast but without sugar
+     * 
+     * @param filter The ingredients to require, allow or exclude
+     * @param cursor The cursor of the previous page, null for the first page
+     * @return The page of matching posts with the cursor for the next page
+     */
+    Page<Post> getPostsByIngredients(IngredientFilter filter, String cursor);
+
+    /**
+     * Retrieves all ingredients used by any post
+     * 
+     * @return The ingredients ordered by name
+     */
+    List<Ingredient> getAllIngredients();
+
+    /**
+     * Creates a new post without blocking the caller, see
+     * {@link #createPost(String, String, String, String, double, double)}
+     * 
+     * @param photoPath Path to the post's photo
+     * @param description Text description of the post
+     * @param recipe Recipe instructions
+     * @param ingredients List of ingredients
+     * @param latitude Geographic latitude of the post
+     * @param longitude Geographic longitude of the post
+     * @return A future completed on the main thread with the ID of the new post, or -1 if the
+     * post could not be created
+     */
+    CompletableFuture<Long> createPostAsync(String photoPath, String description,
+            String recipe, String ingredients, double latitude, double longitude);
+
+    /**
+     * Retrieves a post without blocking the caller, see {@link #getPost(long)}
+     * 
+     * @param postId The ID of the post to retrieve
+     * @return A future completed on the main thread with the post, null if not found
+     */
+    CompletableFuture<Post> getPostAsync(long postId);
+
+    /**
+     * Retrieves the posts of a user without blocking the caller, see
+     * {@link #getPostsFromUser(int)}
+     * 
+     * @param uid The user ID whose posts to retrieve
+     * @return A future completed on the main thread with the posts of the user
+     */
+    CompletableFuture<List<Post>> getPostsFromUserAsync(int uid);
+
+    /**
+     * Updates a post without blocking the caller, see {@link #updatePost(Post)}
+     * 
+     * @param post The Post entity to update
+     * @return A future completed on the main thread with whether the post was updated
+     */
+    CompletableFuture<Boolean> updatePostAsync(Post post);
+
+    /**
+     * Deletes a post without blocking the caller, see {@link #deletePost(Post)}
+     * 
+     * @param post The Post entity to delete
+     * @return A future completed on the main thread with whether the post was deleted
+     */
+    CompletableFuture<Boolean> deletePostAsync(Post post);
+
+    /**
+     * Checks without blocking the caller if the current user has liked a post, see
+     * {@link #isPostLikedByUser(long)}
+     * 
+     * @param postId The ID of the post to check
+     * @return A future completed on the main thread with whether the user has liked the post
+     */
+    CompletableFuture<Boolean> isPostLikedByUserAsync(long postId);
+
+    /**
+     * Likes or unlikes a post without blocking the caller, see {@link #onLikePost(long)}
+     * 
+     * @param postId The ID of the post to like/unlike
+     * @return A future completed on the main thread once the like was toggled
+     */
+    CompletableFuture<Void> onLikePostAsync(long postId);
+
+    /**
+     * Adds a comment to a post without blocking the caller, see
+     * {@link #onCommentPost(long, String)}
+     * 
+     * @param postId The ID of the post to comment on
+     * @param commentText The text content of the comment
+     * @return A future completed on the main thread once the comment was written
+     */
+    CompletableFuture<Void> onCommentPostAsync(long postId, String commentText);
+
+    /**
+     * Retrieves the summary of a post without blocking the caller, see {@link #getFeedItem(long)}
+     * 
+     * @param postId The ID of the post
+     * @return A future completed on the main thread with the summary, null if not found
+     */
+    CompletableFuture<FeedItem> getFeedItemAsync(long postId);
+
+    /**
+     * Retrieves one fixed-size page of posts without blocking the caller, see
+     * {@link #getPostsPage(String)}. Callers request the next page with the cursor of the
+     * previous one when it is needed, e.g. when the list is scrolled to its end.
+     * 
+     * @param cursor The cursor of the previous page, null for the first page
+     * @return A future completed on the main thread with the page
+     */
+    CompletableFuture<Page<Post>> getPostsPageAsync(String cursor);
+
+    /**
+     * Retrieves a page of post summaries without blocking the caller, see
+     * {@link #getFeedPage(String)}
+     * 
+     * @param cursor The cursor of the previous page, null for the first page
+     * @return A future completed on the main thread with the page
+     */
+    CompletableFuture<Page<FeedItem>> getFeedPageAsync(String cursor);
+
+    /**
+     * Searches the posts without blocking the caller, see {@link #searchPosts(String, int, String)}
+     * 
+     * @param query The search text
+     * @param limit The maximum number of results per page
+     * @param cursor The cursor of the previous page, null for the first page
+     * @return A future completed on the main thread with the page of results
+     */
+    CompletableFuture<Page<SearchResult>> searchPostsAsync(String query, int limit,
+            String cursor);
+
+    /**
+     * Retrieves the posts inside the visible part of the map without blocking the caller, see
+     * {@link #getPostsInBounds(double, double, double, double, int)}
+     * 
+     * @param minLat The southern edge of the viewport
+     * @param maxLat The northern edge of the viewport
+     * @param minLon The western edge of the viewport
+     * @param maxLon The eastern edge of the viewport
+     * @param limit The maximum number of posts
+     * @return A future completed on the main thread with up to limit posts
+     */
+    CompletableFuture<List<Post>> getPostsInBoundsAsync(double minLat, double maxLat,
+            double minLon, double maxLon, int limit);
+
+    /**
+     * Retrieves the posts nearest to a point without blocking the caller, see
+     * {@link #getNearestPosts(double, double, int)}
+     * 
+     * @param latitude The latitude of the point
+     * @param longitude The longitude of the point
+     * @param count The maximum number of posts
+     * @return A future completed on the main thread with up to count posts, nearest first
+     */
+    CompletableFuture<List<Post>> getNearestPostsAsync(double latitude, double longitude,
+            int count);
+
+    /**
+     * Retrieves the posts matching an ingredient filter without blocking the caller, see
+     * {@link #getPostsByIngredients(IngredientFilter, String)}
+     * 
+     * @param filter The ingredients to require, allow or exclude
+     * @param cursor The cursor of the previous page, null for the first page
+     * @return A future completed on the main thread with the page of matching posts
+     */
+    CompletableFuture<Page<Post>> getPostsByIngredientsAsync(IngredientFilter filter,
+            String cursor);
+
+    /**
+     * Retrieves all ingredients without blocking the caller, see {@link #getAllIngredients()}
+     * 
+     * @return A future completed on the main thread with the ingredients ordered by name
+     */
+    CompletableFuture<List<Ingredient>> getAllIngredientsAsync();
 }
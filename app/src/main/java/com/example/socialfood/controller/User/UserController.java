@@ -5,9 +5,13 @@ import android.content.Context;
 import com.example.socialfood.controller.BaseController;
 import com.example.socialfood.model.handler.FollowHandler;
 import com.example.socialfood.model.handler.UserHandler;
+import com.example.socialfood.model.database.LiveQuery;
+import com.example.socialfood.model.database.Subscription;
 import com.example.socialfood.model.entities.Follow;
 import com.example.socialfood.model.entities.User;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Controller class for handling user-related operations. Implements UserControllerInterface and
  * extends BaseController. Manages user creation, updates, deletions and follow relationships.
@@ -58,10 +62,8 @@ public class UserController extends BaseController implements com.example.social
             follow.setFollowedId(userId);
             follow.setTimestamp(System.currentTimeMillis());
 
-            if (followHandler.insert(follow)) {
-                userToFollow.setFollowersCount(userToFollow.getFollowersCount() + 1);
-                return userHandler.update(userToFollow);
-            }
+            // Follower and following counts are maintained by the database
+            return followHandler.insert(follow);
         }
         return false;
     }
@@ -72,14 +74,7 @@ public class UserController extends BaseController implements com.example.social
         User userToUnfollow = userHandler.getUserById(userId);
 
         if (currentUser != null && userToUnfollow != null) {
-            if (followHandler.delete(currentUser.getUid(), userId)) {
-                int newFollowersCount = userToUnfollow.getFollowersCount() - 1;
-                if (newFollowersCount < 0) {
-                    newFollowersCount = 0;
-                }
-                userToUnfollow.setFollowersCount(newFollowersCount);
-                return userHandler.update(userToUnfollow);
-            }
+            return followHandler.delete(currentUser.getUid(), userId);
         }
         return false;
     }
@@ -119,4 +114,59 @@ public class UserController extends BaseController implements com.example.social
     public User getUserById(int userId) {
         return userHandler.getUserById(userId);
     }
+
+    @Override
+    public Subscription observeUser(int userId, LiveQuery.Listener<User> listener) {
+        return userHandler.observeUserById(userId, listener);
+    }
+
+    @Override
+    public User getUserByUsername(String username) {
+        return userHandler.getUserByUsername(username);
+    }
+
+    @Override
+    public CompletableFuture<Integer> createUserAsync(User user) {
+        return async(() -> createUser(user));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateUserAsync(User user) {
+        return async(() -> updateUser(user));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteUserAsync(User user) {
+        return async(() -> deleteUser(user));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> followUserAsync(int userId) {
+        return async(() -> followUser(userId));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> unfollowUserAsync(int userId) {
+        return async(() -> unfollowUser(userId));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> loadCurrentUserAsync(int userId) {
+        return async(() -> loadCurrentUser(userId));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isFollowingAsync(int userId) {
+        return async(() -> isFollowing(userId));
+    }
+
+    @Override
+    public CompletableFuture<User> getUserByIdAsync(int userId) {
+        return async(() -> getUserById(userId));
+    }
+
+    @Override
+    public CompletableFuture<User> getUserByUsernameAsync(String username) {
+        return async(() -> getUserByUsername(username));
+    }
 }
@@ -1,10 +1,20 @@
 package com.example.socialfood.controller.User;
 
+import com.example.socialfood.model.database.LiveQuery;
+import com.example.socialfood.model.database.Subscription;
 import com.example.socialfood.model.entities.User;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface defining user-related operations for the social food application. Manages user
  * creation, updates, deletions and follow relationships.
+ *
+ * <p>
+ * The blocking methods wait for the database and must not be called on the main thread. The
+ * asynchronous variants run them on a caller thread and complete their futures on the main
+ * thread, so the UI uses those.
+ * </p>
  */
 public interface UserControllerInterface {
     /**
@@ -92,4 +102,97 @@ public interface UserControllerInterface {
      * @return The User entity if found, null otherwise
      */
     User getUserById(int userId);
+
+    /**
+     * Observes a user. The listener runs on the main thread now and whenever the user's row
+     * changes, for example its follower count after a follow.
+     * 
+     * @param userId The ID of the user
+     * @param listener The listener receiving the user
+     * @return The subscription to close when the user is no longer shown
+     */
+    Subscription observeUser(int userId, LiveQuery.Listener<User> listener);
+
+    /**
+     * Retrieves a user by their username
+     * 
+     * @param username The username to look up
+     * @return The User entity if found, null otherwise
+     */
+    User getUserByUsername(String username);
+
+    /**
+     * Creates a new user without blocking the caller, see {@link #createUser(User)}
+     * 
+     * @param user The User entity to create
+     * @return A future completed on the main thread with the ID of the user, -1 if creation failed
+     */
+    CompletableFuture<Integer> createUserAsync(User user);
+
+    /**
+     * Updates a user without blocking the caller, see {@link #updateUser(User)}
+     * 
+     * @param user The User entity to update
+     * @return A future completed on the main thread with whether the user was updated
+     */
+    CompletableFuture<Boolean> updateUserAsync(User user);
+
+    /**
+     * Deletes a user without blocking the caller, see {@link #deleteUser(User)}
+     * 
+     * @param user The User entity to delete
+     * @return A future completed on the main thread with whether the user was deleted
+     */
+    CompletableFuture<Boolean> deleteUserAsync(User user);
+
+    /**
+     * Follows a user without blocking the caller, see {@link #followUser(int)}
+     * 
+     * @param userId The ID of the user to follow
+     * @return A future completed on the main thread with whether the follow was written
+     */
+    CompletableFuture<Boolean> followUserAsync(int userId);
+
+    /**
+     * Unfollows a user without blocking the caller, see {@link #unfollowUser(int)}
+     * 
+     * @param userId The ID of the user to unfollow
+     * @return A future completed on the main thread with whether the follow was removed
+     */
+    CompletableFuture<Boolean> unfollowUserAsync(int userId);
+
+    /**
+     * Loads a user into the current session without blocking the caller, see
+     * {@link #loadCurrentUser(int)}
+     * 
+     * @param userId The ID of the user to load
+     * @return A future completed on the main thread with whether the user was loaded
+     */
+    CompletableFuture<Boolean> loadCurrentUserAsync(int userId);
+
+    /**
+     * Checks without blocking the caller if the current user is following another user, see
+     * {@link #isFollowing(int)}
+     * 
+     * @param userId The ID of the user to check
+     * @return A future completed on the main thread with whether the user is followed
+     */
+    CompletableFuture<Boolean> isFollowingAsync(int userId);
+
+    /**
+     * Retrieves a user without blocking the caller, see {@link #getUserById(int)}
+     * 
+     * @param userId The ID of the user to retrieve
+     * @return A future completed on the main thread with the user, null if not found
+     */
+    CompletableFuture<User> getUserByIdAsync(int userId);
+
+    /**
+     * Retrieves a user by username without blocking the caller, see
+     * {@link #getUserByUsername(String)}
+     * 
+     * @param username The username to look up
+     * @return A future completed on the main thread with the user, null if not found
+     */
+    CompletableFuture<User> getUserByUsernameAsync(String username);
 }
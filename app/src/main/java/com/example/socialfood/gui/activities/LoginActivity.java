@@ -50,15 +50,30 @@ public class LoginActivity extends AppCompatActivity {
     }
 
     /**
-     * Handles the login process. Validates user input and processes login attempt. Shows
-     * appropriate error messages for invalid inputs or failed login attempts.
+     * Handles the login process. Validates user input and processes login attempt off the main
+     * thread. Shows appropriate error messages for invalid inputs or failed login attempts. The
+     * login button stays disabled while the attempt runs.
      */
     private void handleLogin() {
         String username = binding.loginUsername.getText().toString().trim();
         String password = binding.loginPassword.getText().toString();
 
-        LoginResult result = authController.validateAndLogin(username, password);
+        binding.loginButton.setEnabled(false);
+        authController.validateAndLoginAsync(username, password)
+                .exceptionally(e -> LoginResult.INVALID_CREDENTIALS)
+                .thenAccept(this::showResult);
+    }
 
+    /**
+     * Continues with the result of a login attempt
+     *
+     * @param result The result of the login attempt
+     */
+    private void showResult(LoginResult result) {
+        if (binding == null) {
+            return;
+        }
+        binding.loginButton.setEnabled(true);
         switch (result) {
         case SUCCESS:
             startActivity(new Intent(this, MainActivity.class));
@@ -1,6 +1,7 @@
 package com.example.socialfood.gui.activities;
 
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 
 import androidx.appcompat.app.AppCompatActivity;
@@ -12,9 +13,14 @@ import com.example.socialfood.controller.Post.PostControllerInterface;
 import com.example.socialfood.controller.User.UserController;
 import com.example.socialfood.controller.User.UserControllerInterface;
 import com.example.socialfood.databinding.ActivityMainBinding;
+import com.example.socialfood.model.database.DatabaseClient;
+import com.example.socialfood.model.database.TaskContext;
+import com.example.socialfood.model.database.TaskPriority;
 import com.example.socialfood.utils.ExampleData;
 import com.example.socialfood.utils.UserManager;
 
+import java.io.File;
+
 /**
  * Main activity class that serves as the entry point of the application. Handles initialization of
  * core components and navigation.
@@ -24,6 +30,9 @@ public class MainActivity extends AppCompatActivity {
     private NavigationControllerInterface navigationController;
     public static final String EXTRA_SKIP_LOGIN = "skip_login";
 
+    /** File in the app's files directory holding the database metrics of debuggable builds */
+    public static final String METRICS_FILE = "database-metrics.txt";
+
     /**
      * Initializes the activity and its components. Checks login status and sets up views and
      * controllers.
@@ -75,7 +84,8 @@ public class MainActivity extends AppCompatActivity {
 
     /**
      * Initializes all required controllers. Sets up PostController, UserController and
-     * NavigationController.
+     * NavigationController. The example data is written on a caller thread; the map shows the
+     * posts as soon as they are committed.
      */
     private void initializeControllers() {
         UserControllerInterface userController = new UserController(this, null, null);
@@ -88,7 +98,10 @@ public class MainActivity extends AppCompatActivity {
                 userController,
                 binding.bottomNavigation);
 
-        ExampleData.populateDatabase(postController, userController);
+        // Seeding waits behind every read and write a visible screen needs
+        TaskContext.of(TaskPriority.BACKGROUND).run(() -> DatabaseClient.getInstance(this)
+                .getCallerExecutor()
+                .execute(() -> ExampleData.populateDatabase(postController, userController)));
 
     }
 
@@ -104,6 +117,23 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    /**
+     * Writes the likes still deferred in memory when the app goes to the background, where the
+     * process may be killed at any time. Debuggable builds also write the database metrics to
+     * {@link #METRICS_FILE}, where they can be pulled from a device.
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        DatabaseClient databaseClient = DatabaseClient.getInstance(this);
+        databaseClient.flushPendingWrites();
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            File file = new File(getFilesDir(), METRICS_FILE);
+            TaskContext.of(TaskPriority.BACKGROUND).run(() -> databaseClient.getCallerExecutor()
+                    .execute(() -> databaseClient.getMetrics().dump(file)));
+        }
+    }
+
     /**
      * Cleans up resources when activity is destroyed.
      */
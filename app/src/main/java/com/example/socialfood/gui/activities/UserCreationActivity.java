@@ -52,8 +52,9 @@ public class UserCreationActivity extends AppCompatActivity {
     }
 
     /**
-     * Handles user creation process. Validates input fields and attempts to create a new user.
-     * Shows appropriate error messages for validation failures.
+     * Handles user creation process. Validates input fields and attempts to create a new user off
+     * the main thread. Shows appropriate error messages for validation failures. The create button
+     * stays disabled while the attempt runs.
      */
     private void createUser() {
         String username = binding.usernameInput.getText().toString().trim();
@@ -65,8 +66,22 @@ public class UserCreationActivity extends AppCompatActivity {
             return;
         }
 
-        RegisterResult result = authController.validateAndRegister(username, password);
+        binding.createUserButton.setEnabled(false);
+        authController.validateAndRegisterAsync(username, password)
+                .exceptionally(e -> RegisterResult.USERNAME_TAKEN)
+                .thenAccept(this::showResult);
+    }
 
+    /**
+     * Continues with the result of a registration attempt
+     *
+     * @param result The result of the registration attempt
+     */
+    private void showResult(RegisterResult result) {
+        if (binding == null) {
+            return;
+        }
+        binding.createUserButton.setEnabled(true);
         switch (result) {
         case SUCCESS:
             Snackbar.make(binding.getRoot(),
@@ -6,20 +6,30 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.socialfood.R;
 import com.example.socialfood.controller.User.UserController;
 import com.example.socialfood.controller.User.UserControllerInterface;
 import com.example.socialfood.model.entities.Comment;
-import com.example.socialfood.model.entities.User;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Shows the comments of a post with the usernames of their authors. Usernames are loaded off the
+ * main thread once per author and the rows of that author are rebound when the name arrives.
+ */
 public class CommentsAdapter extends RecyclerView.Adapter<CommentsAdapter.CommentViewHolder> {
     private List<Comment> comments;
     private UserControllerInterface userController;
+    private final Map<Integer, String> usernames = new HashMap<>();
+    private final Set<Integer> loading = new HashSet<>();
 
     public CommentsAdapter(List<Comment> comments, UserControllerInterface userController) {
         this.comments = comments;
@@ -36,15 +46,74 @@ public class CommentsAdapter extends RecyclerView.Adapter<CommentsAdapter.Commen
     @Override
     public void onBindViewHolder(@NonNull CommentViewHolder holder, int position) {
         Comment comment = comments.get(position);
-        User user = userController.getUserById(comment.getUid());
+        String username = usernames.get(comment.getUid());
+        if (username == null) {
+            loadUsername(comment.getUid());
+        }
 
-        holder.username.setText(user.getUsername());
+        holder.username.setText(username != null ? username : "");
         holder.commentText.setText(comment.getContent());
     }
 
+    /**
+     * Loads the username of an author unless it is already being loaded, then rebinds the rows
+     * of that author
+     *
+     * @param uid The ID of the author
+     */
+    private void loadUsername(int uid) {
+        if (!loading.add(uid)) {
+            return;
+        }
+        userController.getUserByIdAsync(uid).whenComplete((user, error) -> {
+            loading.remove(uid);
+            if (user == null) {
+                return;
+            }
+            usernames.put(uid, user.getUsername());
+            for (int i = 0; i < comments.size(); i++) {
+                if (comments.get(i).getUid() == uid) {
+                    notifyItemChanged(i);
+                }
+            }
+        });
+    }
+
+    /**
+     * Replaces the comments, rebinding only the rows that were added, removed or changed
+     *
+     * @param newComments The current comments
+     */
     public void updateComments(List<Comment> newComments) {
-        this.comments = new ArrayList<>(newComments);
-        notifyDataSetChanged();
+        List<Comment> oldComments = comments;
+        List<Comment> updated = new ArrayList<>(newComments);
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldComments.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return updated.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                Comment oldComment = oldComments.get(oldPosition);
+                Comment newComment = updated.get(newPosition);
+                return oldComment.getUid() == newComment.getUid()
+                        && oldComment.getPostId() == newComment.getPostId()
+                        && oldComment.getCommentId() == newComment.getCommentId();
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return oldComments.get(oldPosition).equals(updated.get(newPosition));
+            }
+        });
+        this.comments = updated;
+        diff.dispatchUpdatesTo(this);
     }
 
     @Override
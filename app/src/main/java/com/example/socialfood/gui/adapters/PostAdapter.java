@@ -7,6 +7,7 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
@@ -15,11 +16,12 @@ import com.example.socialfood.controller.Navigation.NavigationController;
 import com.example.socialfood.controller.Navigation.NavigationControllerInterface;
 import com.example.socialfood.model.entities.Post;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder> {
 
-    private final List<Post> posts;
+    private List<Post> posts;
     private final boolean isDetailView;
     private final NavigationControllerInterface navigationController;
 
@@ -78,6 +80,41 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.PostViewHolder
         }
     }
 
+    /**
+     * Replaces the posts, rebinding only the items that were added, removed or changed
+     *
+     * @param newPosts The current posts
+     */
+    public void updatePosts(List<Post> newPosts) {
+        List<Post> oldPosts = posts;
+        List<Post> updated = new ArrayList<>(newPosts);
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldPosts.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return updated.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                Post oldPost = oldPosts.get(oldPosition);
+                Post newPost = updated.get(newPosition);
+                return oldPost.getPostId() == newPost.getPostId();
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return oldPosts.get(oldPosition).equals(updated.get(newPosition));
+            }
+        });
+        this.posts = updated;
+        diff.dispatchUpdatesTo(this);
+    }
+
     @Override
     public int getItemCount() {
         return posts.size();
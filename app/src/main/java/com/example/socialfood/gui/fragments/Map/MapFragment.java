@@ -1,5 +1,8 @@
 package com.example.socialfood.gui.fragments.Map;
 
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -17,16 +20,40 @@ import com.example.socialfood.controller.Navigation.NavigationControllerInterfac
 import com.example.socialfood.controller.Post.PostController;
 import com.example.socialfood.controller.Post.PostControllerInterface;
 import com.example.socialfood.databinding.FragmentMapBinding;
+import com.example.socialfood.model.database.DatabaseClient;
+import com.example.socialfood.model.database.Subscription;
+import com.example.socialfood.model.database.TaskContext;
+import com.example.socialfood.model.database.TaskPriority;
+import com.example.socialfood.model.database.TaskScope;
+import com.example.socialfood.model.entities.FeedItem;
 import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.snapshot.FeedSnapshot;
 
+import org.osmdroid.api.IGeoPoint;
+import org.osmdroid.events.DelayedMapListener;
+import org.osmdroid.events.MapListener;
+import org.osmdroid.events.ScrollEvent;
+import org.osmdroid.events.ZoomEvent;
+import org.osmdroid.util.BoundingBox;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
  * Fragment for displaying posts on a map using OpenStreetMap. Handles map initialization, location
- * permissions and post markers.
+ * permissions and post markers. Only the posts inside the visible area are loaded, again after
+ * every scroll or zoom and whenever a post is written.
+ *
+ * <p>
+ * The first map of a process starts from the {@link FeedSnapshot} saved when the app last went to
+ * the background, so markers are on screen before the database answers; the first load of the
+ * visible posts then replaces them with the live state. The snapshot is saved when all screens of
+ * the app are hidden, not when only the map is left for another screen.
+ * </p>
  */
 public class MapFragment extends Fragment {
     private FragmentMapBinding binding;
@@ -36,8 +63,27 @@ public class MapFragment extends Fragment {
     private List<Post> posts;
     private com.example.socialfood.gui.fragments.Map.MapManager mapManager;
     private LocationManager locationManager;
+    private Subscription postsSubscription;
+    private TaskScope viewScope;
+    private TaskScope loadScope;
+    private int loadGeneration;
+    private ComponentCallbacks2 backgroundCallbacks;
+    private GeoPoint lastCenter;
+    private double lastZoom;
     private static final String TAG = "MapFragment";
 
+    /** Maximum number of post markers shown at once */
+    private static final int MAX_MARKERS = 500;
+
+    /** Delay after the last scroll or zoom before the visible posts are reloaded */
+    private static final long REFRESH_DELAY_MS = 300;
+
+    /** File in the app's files directory holding the posts last shown on the map */
+    public static final String SNAPSHOT_FILE = "map-snapshot.bin";
+
+    /** Whether a map of this process already started, later maps do not show the snapshot */
+    private static boolean snapshotConsumed;
+
     /**
      * Creates a new instance of MapFragment with the required dependencies.
      *
@@ -69,6 +115,34 @@ public class MapFragment extends Fragment {
         this.locationManager = locationManager;
     }
 
+    /**
+     * Creates the fragment and registers for the memory callbacks of the application, which
+     * report when the app goes to the background.
+     *
+     * @param savedInstanceState State data to restore, if available
+     */
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        backgroundCallbacks = new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+                    saveSnapshot();
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(@NonNull Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+            }
+        };
+        requireContext().getApplicationContext().registerComponentCallbacks(backgroundCallbacks);
+    }
+
     /**
      * Creates and initializes the fragment's view hierarchy. Sets up the map and location services.
      *
@@ -81,6 +155,7 @@ public class MapFragment extends Fragment {
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container,
             Bundle savedInstanceState) {
         binding = FragmentMapBinding.inflate(inflater, container, false);
+        viewScope = new TaskScope();
         mapView = binding.osmMap;
 
         mapManager = new com.example.socialfood.gui.fragments.Map.MapManager(mapView, requireContext());
@@ -88,9 +163,29 @@ public class MapFragment extends Fragment {
 
         locationManager.checkLocationPermission(this, requestPermissionLauncher);
 
+        mapView.addOnFirstLayoutListener(
+                (view, left, top, right, bottom) -> loadAndDisplayPosts());
+        mapView.addMapListener(new DelayedMapListener(new MapListener() {
+            @Override
+            public boolean onScroll(ScrollEvent event) {
+                loadAndDisplayPosts();
+                return false;
+            }
+
+            @Override
+            public boolean onZoom(ZoomEvent event) {
+                loadAndDisplayPosts();
+                return false;
+            }
+        }, REFRESH_DELAY_MS));
+        postsSubscription = postController.observePostChanges(this::loadAndDisplayPosts);
+
         if (savedInstanceState != null) {
             restoreInstanceState(savedInstanceState);
+        } else if (!snapshotConsumed) {
+            showSnapshot();
         }
+        snapshotConsumed = true;
         return binding.getRoot();
     }
 
@@ -106,20 +201,102 @@ public class MapFragment extends Fragment {
             });
 
     /**
-     * Loads and displays all posts on the map. Retrieves posts from controller and shows them as
-     * markers.
+     * Loads the posts inside the visible part of the map off the main thread and displays them.
+     * Does nothing until the map has been laid out, as the viewport is unknown before. A result
+     * arriving after a newer load was started is dropped, so a slow query for an old viewport
+     * never replaces the markers of the current one, and a load still waiting for a database
+     * thread when the next one starts is cancelled.
      */
     private void loadAndDisplayPosts() {
-        try {
-            posts = postController.getAllPosts();
-            if (posts != null && !posts.isEmpty()) {
-                navigationController.showPostsOnMap(posts, mapView);
-            } else {
-                Log.d(TAG, "No posts found to display");
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error loading posts", e);
+        if (binding == null || mapView.getWidth() == 0 || mapView.getHeight() == 0) {
+            return;
+        }
+        int generation = ++loadGeneration;
+        if (loadScope != null) {
+            loadScope.cancel();
+        }
+        loadScope = new TaskScope(viewScope);
+        BoundingBox box = mapView.getBoundingBox();
+        TaskContext.DEFAULT.withScope(loadScope)
+                .call(() -> postController.getPostsInBoundsAsync(box.getLatSouth(),
+                        box.getLatNorth(), box.getLonWest(), box.getLonEast(), MAX_MARKERS))
+                .whenComplete((visible, error) -> {
+                    if (error instanceof CancellationException) {
+                        // Superseded by a newer load or the view is gone
+                        return;
+                    }
+                    if (error != null) {
+                        Log.e(TAG, "Error loading posts", error);
+                        return;
+                    }
+                    if (binding == null || generation != loadGeneration) {
+                        return;
+                    }
+                    if (visible.isEmpty()) {
+                        Log.d(TAG, "No posts found to display");
+                    }
+                    posts = visible;
+                    navigationController.showPostsOnMap(visible, mapView);
+                });
+    }
+
+    /**
+     * Shows the posts and viewport saved when the app last went to the background. The file is
+     * small and read on the main thread with a single memory-mapped read, so the markers are drawn
+     * with the first frame of the map.
+     */
+    private void showSnapshot() {
+        FeedSnapshot snapshot = FeedSnapshot.read(new File(requireContext().getFilesDir(),
+                SNAPSHOT_FILE));
+        if (snapshot == null) {
+            return;
+        }
+        mapManager.moveTo(snapshot.getCenterLatitude(), snapshot.getCenterLongitude(),
+                snapshot.getZoom());
+        posts = snapshot.toPosts();
+        navigationController.showPostsOnMap(posts, mapView);
+    }
+
+    /**
+     * Saves the posts shown last and their viewport to {@link #SNAPSHOT_FILE}. Called once all
+     * screens of the app are hidden, also while another screen replaced the map. Their summaries
+     * are read and written on a caller thread behind all other work. Nothing is saved before any
+     * post was shown, so leaving an empty map early keeps the previous snapshot.
+     */
+    private void saveSnapshot() {
+        if (binding != null) {
+            rememberViewport();
         }
+        if (lastCenter == null || posts == null || posts.isEmpty()) {
+            return;
+        }
+        List<Long> postIds = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            postIds.add(post.getPostId());
+        }
+        double latitude = lastCenter.getLatitude();
+        double longitude = lastCenter.getLongitude();
+        double zoom = lastZoom;
+        Context context = requireContext();
+        File file = new File(context.getFilesDir(), SNAPSHOT_FILE);
+        DatabaseClient databaseClient = DatabaseClient.getInstance(context);
+        TaskContext.of(TaskPriority.BACKGROUND).run(() -> databaseClient.getCallerExecutor()
+                .execute(() -> {
+                    List<FeedItem> items = postController.getFeedItemsByIds(postIds);
+                    if (!items.isEmpty()) {
+                        new FeedSnapshot(System.currentTimeMillis(), latitude, longitude, zoom,
+                                items).write(file);
+                    }
+                }));
+    }
+
+    /**
+     * Remembers the current viewport, so it can be saved after the view is gone
+     */
+    private void rememberViewport() {
+        IGeoPoint center = mapView.getMapCenter();
+        lastCenter = new GeoPoint(center.getLatitude(), center.getLongitude());
+        lastZoom = mapView.getZoomLevelDouble();
     }
 
     /**
@@ -159,13 +336,13 @@ public class MapFragment extends Fragment {
     }
 
     /**
-     * Lifecycle method called when fragment resumes. Resumes the map view and reloads posts.
+     * Lifecycle method called when fragment resumes. Resumes the map view; the posts in view are
+     * already current, as every write to the post table reloads them.
      */
     @Override
     public void onResume() {
         super.onResume();
         mapView.onResume();
-        loadAndDisplayPosts();
     }
 
     /**
@@ -178,15 +355,37 @@ public class MapFragment extends Fragment {
     }
 
     /**
-     * Lifecycle method called when fragment's view is destroyed. Cleans up bindings to prevent
-     * memory leaks.
+     * Lifecycle method called when fragment's view is destroyed. Remembers the viewport for the
+     * snapshot and cleans up bindings to prevent memory leaks.
      */
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (binding != null) {
+            rememberViewport();
+        }
+        if (postsSubscription != null) {
+            postsSubscription.close();
+        }
+        if (viewScope != null) {
+            viewScope.cancel();
+        }
         binding = null;
     }
 
+    /**
+     * Lifecycle method called when the fragment is destroyed. Unregisters from the memory
+     * callbacks of the application.
+     */
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        if (backgroundCallbacks != null) {
+            requireContext().getApplicationContext()
+                    .unregisterComponentCallbacks(backgroundCallbacks);
+        }
+    }
+
     /**
      * Gets the current zoom level of the map
      * 
@@ -46,6 +46,18 @@ public class MapManager {
         mapView.getController().setZoom(DEFAULT_ZOOM);
     }
 
+    /**
+     * Moves the map to a position.
+     *
+     * @param latitude The latitude of the new center
+     * @param longitude The longitude of the new center
+     * @param zoom The new zoom level
+     */
+    public void moveTo(double latitude, double longitude, double zoom) {
+        mapView.getController().setCenter(new GeoPoint(latitude, longitude));
+        mapView.getController().setZoom(zoom);
+    }
+
     /**
      * Saves the current map state to a bundle.
      *
@@ -123,13 +123,11 @@ public class PostCreationFragment extends Fragment {
                 double latitude = lastLocation.getLatitude();
                 double longitude = lastLocation.getLongitude();
 
-                if (postController.createPost(photoPath, description, recipe, ingredients, latitude,
-                        longitude)) {
-                    showSuccessMessage();
-                    navigateBack();
-                } else {
-                    showErrorMessage();
-                }
+                binding.postButton.setEnabled(false);
+                postController.createPostAsync(photoPath, description, recipe, ingredients,
+                        latitude, longitude)
+                        .exceptionally(e -> -1L)
+                        .thenAccept(postId -> onPostCreated(postId >= 0));
             } else {
                 showNoLocationError();
             }
@@ -139,6 +137,24 @@ public class PostCreationFragment extends Fragment {
         }
     }
 
+    /**
+     * Continues after the post was written, unless the fragment is already gone
+     *
+     * @param created Whether the post was created
+     */
+    private void onPostCreated(boolean created) {
+        if (binding == null) {
+            return;
+        }
+        binding.postButton.setEnabled(true);
+        if (created) {
+            showSuccessMessage();
+            navigateBack();
+        } else {
+            showErrorMessage();
+        }
+    }
+
     private void showLocationPermissionError() {
         Snackbar.make(binding.getRoot(),
                 "Standortberechtigung wird benötigt",
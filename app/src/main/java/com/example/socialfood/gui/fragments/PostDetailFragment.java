@@ -12,7 +12,6 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
 import java.util.ArrayList;
-import java.util.List;
 
 import com.bumptech.glide.Glide;
 import com.example.socialfood.R;
@@ -24,9 +23,9 @@ import com.example.socialfood.controller.User.UserController;
 import com.example.socialfood.controller.User.UserControllerInterface;
 import com.example.socialfood.databinding.FragmentPostDetailBinding;
 import com.example.socialfood.gui.adapters.CommentsAdapter;
-import com.example.socialfood.model.entities.Comment;
+import com.example.socialfood.model.database.Subscription;
+import com.example.socialfood.model.entities.FeedItem;
 import com.example.socialfood.model.entities.Post;
-import com.example.socialfood.model.entities.User;
 
 public class PostDetailFragment extends Fragment {
     private Post post;
@@ -35,6 +34,8 @@ public class PostDetailFragment extends Fragment {
     private final UserControllerInterface userController;
     private FragmentPostDetailBinding binding;
     private CommentsAdapter commentsAdapter;
+    private Subscription commentsSubscription;
+    private Subscription summarySubscription;
 
     public static PostDetailFragment newInstance(Post post,
             NavigationControllerInterface navigationController, PostControllerInterface postController,
@@ -73,19 +74,15 @@ public class PostDetailFragment extends Fragment {
         setupUserInfo();
         setupPostContent();
         setupComments();
-        updateLikeStatus();
+        observePostSummary();
 
         binding.sendCommentButton.setOnClickListener(v -> submitComment());
 
     }
 
     private void setupUserInfo() {
-        User postUser = userController.getUserById(post.getUid());
-        if (postUser != null) {
-            binding.postUsername.setText(postUser.getUsername());
-            binding.userProfileContainer.setOnClickListener(v ->
-                    navigationController.showProfile(postUser.getUid()));
-        }
+        binding.userProfileContainer.setOnClickListener(v ->
+                navigationController.showProfile(post.getUid()));
     }
 
     private void setupPostContent() { // Detail-Ansicht
@@ -96,52 +93,59 @@ public class PostDetailFragment extends Fragment {
         loadImage();
     }
 
+    /**
+     * Shows the comments and keeps them up to date. The list is refreshed by the database when a
+     * comment is written, so submitting a comment does not reload it.
+     */
     private void setupComments() {
+        LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
+        binding.commentsRecyclerView.setLayoutManager(layoutManager);
+        commentsAdapter = new CommentsAdapter(new ArrayList<>(), userController);
+        binding.commentsRecyclerView.setAdapter(commentsAdapter);
         try {
-            LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
-            binding.commentsRecyclerView.setLayoutManager(layoutManager);
-            List<Comment> comments = postController.getCommentsForPost(post.getPostId());
-            if (comments != null) {
-                commentsAdapter = new CommentsAdapter(comments, userController);
-                binding.commentsRecyclerView.setAdapter(commentsAdapter);
-                updateCommentCount();
-            }
+            commentsSubscription = postController.observeCommentsForPost(post.getPostId(),
+                    comments -> commentsAdapter.updateComments(comments));
         } catch (Exception e) {
             Log.e("PostDetailFragment", "Error setting up comments", e);
-            // Zeige leere Kommentarliste
-            commentsAdapter = new CommentsAdapter(new ArrayList<>(), userController);
-            binding.commentsRecyclerView.setAdapter(commentsAdapter);
         }
     }
 
     private void setupInteractions() {
-        binding.likeButton.setOnClickListener(v -> {
-            postController.onLikePost(post.getPostId());
-            updateLikeStatus();
-        });
+        binding.likeButton
+                .setOnClickListener(v -> postController.onLikePostAsync(post.getPostId()));
 
         binding.commentButton.setOnClickListener(v -> submitComment());
     }
 
+    /**
+     * Writes the comment off the main thread. The comment list and count are refreshed by their
+     * observers once it is committed.
+     */
     private void submitComment() {
         String commentText = binding.commentInput.getText().toString().trim();
         if (!commentText.isEmpty()) {
-            postController.onCommentPost(post.getPostId(), commentText);
+            postController.onCommentPostAsync(post.getPostId(), commentText);
             binding.commentInput.setText("");
-            commentsAdapter.updateComments(postController.getCommentsForPost(post.getPostId()));
-            commentsAdapter.notifyDataSetChanged();
-            updateCommentCount();
         }
     }
 
-    private void updateLikeStatus() {
-        binding.likeCount.setText(String.valueOf(postController.getLikeCount(post.getPostId())));
-        binding.likeButton.setSelected(postController.isPostLikedByUser(post.getPostId()));
+    /**
+     * Shows author, like count, comment count and liked state, all read with a single query that
+     * runs again whenever one of them changes
+     */
+    private void observePostSummary() {
+        summarySubscription = postController.observeFeedItem(post.getPostId(),
+                this::showPostSummary);
     }
 
-    private void updateCommentCount() {
-        int commentCount = postController.getCommentsForPost(post.getPostId()).size();
-        binding.commentCount.setText(String.valueOf(commentCount));
+    private void showPostSummary(FeedItem item) {
+        if (item == null || binding == null) {
+            return;
+        }
+        binding.postUsername.setText(item.getUsername());
+        binding.likeCount.setText(String.valueOf(item.getLikeCount()));
+        binding.likeButton.setSelected(item.isLikedByCurrentUser());
+        binding.commentCount.setText(String.valueOf(item.getCommentCount()));
     }
 
     private void loadImage() {
@@ -163,6 +167,12 @@ public class PostDetailFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (commentsSubscription != null) {
+            commentsSubscription.close();
+        }
+        if (summarySubscription != null) {
+            summarySubscription.close();
+        }
         binding = null;
     }
 }
\ No newline at end of file
@@ -21,10 +21,14 @@ import com.example.socialfood.controller.User.UserController;
 import com.example.socialfood.controller.User.UserControllerInterface;
 import com.example.socialfood.databinding.FragmentProfileBinding;
 import com.example.socialfood.gui.adapters.PostAdapter;
+import com.example.socialfood.model.database.Subscription;
+import com.example.socialfood.model.database.TaskContext;
+import com.example.socialfood.model.database.TaskScope;
 import com.example.socialfood.model.entities.Post;
 import com.example.socialfood.model.entities.User;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class ProfileFragment extends Fragment {
     private FragmentProfileBinding binding;
@@ -34,6 +38,10 @@ public class ProfileFragment extends Fragment {
     private UserControllerInterface userController;
     private PostControllerInterface postController;
     private PostAdapter postAdapter;
+    private Subscription userSubscription;
+    private Subscription postsSubscription;
+    private TaskContext viewTasks;
+    private boolean following;
 
     public static ProfileFragment newInstance(User user, List<Post> posts,
             UserControllerInterface userController, PostControllerInterface postController,
@@ -57,9 +65,10 @@ public class ProfileFragment extends Fragment {
     @Override
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        viewTasks = TaskContext.DEFAULT.withScope(TaskScope.of(getViewLifecycleOwner()));
         setupRecyclerView();
         setupFollowButton();
-        loadProfileData();
+        observeProfileData();
     }
 
     private void setupRecyclerView() {
@@ -78,13 +87,11 @@ public class ProfileFragment extends Fragment {
             updateFollowButtonState();
 
             binding.followButton.setOnClickListener(v -> {
-                if (userController.isFollowing(currentUser.getUid())) {
-                    userController.unfollowUser(currentUser.getUid());
-                } else {
-                    userController.followUser(currentUser.getUid());
-                }
-                updateFollowButtonState();
-                loadProfileData();
+                binding.followButton.setEnabled(false);
+                CompletableFuture<Boolean> change = following
+                        ? userController.unfollowUserAsync(currentUser.getUid())
+                        : userController.followUserAsync(currentUser.getUid());
+                change.whenComplete((changed, error) -> updateFollowButtonState());
             });
         } else {
             // Verstecke Button beim eigenen Profil
@@ -92,24 +99,44 @@ public class ProfileFragment extends Fragment {
         }
     }
 
+    /**
+     * Reads whether the current user follows the shown user and labels the button accordingly.
+     * The button is disabled until the answer arrives. The read is dropped if the view is
+     * destroyed before it starts.
+     */
     private void updateFollowButtonState() {
-        boolean isFollowing = userController.isFollowing(currentUser.getUid());
-        binding.followButton.setText(isFollowing ? R.string.unfollow : R.string.follow);
+        if (binding == null) {
+            return;
+        }
+        binding.followButton.setEnabled(false);
+        viewTasks.call(() -> userController.isFollowingAsync(currentUser.getUid()))
+                .thenAccept(isFollowing -> {
+                    if (binding == null) {
+                        return;
+                    }
+                    following = isFollowing;
+                    binding.followButton.setText(
+                            isFollowing ? R.string.unfollow : R.string.follow);
+                    binding.followButton.setEnabled(true);
+                });
     }
 
-    private void loadProfileData() {
-        // Model: Daten abrufen
-        currentUser = userController.getUserById(currentUser.getUid());
-        List<Post> userPosts = postController.getPostsFromUser(currentUser.getUid());
-        int actualPostCount = userPosts.size();
+    /**
+     * Shows the user and their posts. Both are pushed again by the database when they change,
+     * for example the follower count after a follow, so nothing is reloaded after a click.
+     */
+    private void observeProfileData() {
+        showUser(currentUser);
+        userSubscription = userController.observeUser(currentUser.getUid(), this::showUser);
+        postsSubscription = postController.observePostsFromUser(currentUser.getUid(),
+                posts -> postAdapter.updatePosts(posts));
+    }
 
-        // Controller: Business Logic
-        if (currentUser.getPostsCount() != actualPostCount) {
-            currentUser.setPostsCount(actualPostCount);
-            userController.updateUser(currentUser);
+    private void showUser(User user) {
+        if (user == null || binding == null) {
+            return;
         }
-
-        // View: UI Aktualisierung
+        currentUser = user;
         binding.profileUsername.setText(currentUser.getUsername());
         binding.profileBio.setText(currentUser.getBio());
         binding.profilePostsCount
@@ -125,6 +152,12 @@ public class ProfileFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (userSubscription != null) {
+            userSubscription.close();
+        }
+        if (postsSubscription != null) {
+            postsSubscription.close();
+        }
         binding = null;
     }
 
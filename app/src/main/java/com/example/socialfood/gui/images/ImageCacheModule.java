@@ -0,0 +1,54 @@
+package com.example.socialfood.gui.images;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.example.socialfood.model.cache.BudgetedCache;
+import com.example.socialfood.model.cache.CacheBudgetManager;
+import com.example.socialfood.model.cache.CachePriority;
+
+/**
+ * Configures Glide with a memory cache of the default size that is governed by the
+ * {@link CacheBudgetManager}, so decoded images are the first cache given up when the app holds
+ * more than its cache budget. Glide still trims its caches on its own for memory pressure.
+ */
+@GlideModule
+public class ImageCacheModule extends AppGlideModule {
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        LruResourceCache memoryCache = new LruResourceCache(
+                new MemorySizeCalculator.Builder(context).build().getMemoryCacheSize());
+        builder.setMemoryCache(memoryCache);
+        CacheBudgetManager.getInstance(context).register("Glide.memoryCache", CachePriority.LOW,
+                new BudgetedCache() {
+                    @Override
+                    public long getEstimatedBytes() {
+                        return memoryCache.getCurrentSize();
+                    }
+
+                    @Override
+                    public void trimTo(long targetBytes) {
+                        if (targetBytes <= 0) {
+                            memoryCache.clearMemory();
+                            return;
+                        }
+                        // Shrinking the maximum evicts down to it, restoring it keeps the rest
+                        memoryCache.setSizeMultiplier(
+                                Math.min(1f, (float) targetBytes / memoryCache.getMaxSize()));
+                        memoryCache.setSizeMultiplier(1f);
+                    }
+                });
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
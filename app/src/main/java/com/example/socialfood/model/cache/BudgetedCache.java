@@ -0,0 +1,23 @@
+package com.example.socialfood.model.cache;
+
+/**
+ * An in-process cache whose memory is governed by a {@link CacheBudgetManager}
+ */
+public interface BudgetedCache {
+
+    /**
+     * Estimates the heap held by the cache. Called on every budget check, so it must be cheap.
+     *
+     * @return The approximate size in bytes
+     */
+    long getEstimatedBytes();
+
+    /**
+     * Frees memory until the cache holds at most about the given size. A cache that cannot shrink
+     * partially drops everything it can when the target is below its size. Must not wait for
+     * database work.
+     *
+     * @param targetBytes The size to shrink to, 0 to free as much as possible
+     */
+    void trimTo(long targetBytes);
+}
@@ -0,0 +1,444 @@
+package com.example.socialfood.model.cache;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.socialfood.model.database.Subscription;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single place that keeps the in-process caches of the model and GUI layers within a total
+ * byte budget. Every cache registers itself with a {@link CachePriority} and reports its estimated
+ * size; when the caches together exceed the budget, the manager trims them in priority order,
+ * lowest first, until the total fits again.
+ *
+ * <p>
+ * The budget is checked periodically, see {@link #startChecks}, and whenever the system reports
+ * memory pressure through {@link ComponentCallbacks2#onTrimMemory}: the more severe the level,
+ * the smaller the share of the budget the caches may keep, down to nothing once the process is
+ * about to be killed. Caches that were trimmed refill on demand.
+ * </p>
+ *
+ * <p>
+ * Checks are serialized; caches are trimmed while the manager's monitor is held, so a cache must
+ * never call back into the manager from {@link BudgetedCache#trimTo}. The system reports memory
+ * pressure on the main thread; the manager hands these reports to the timer running the periodic
+ * checks, so the main thread never waits for a cache or a check in progress.
+ * </p>
+ */
+public class CacheBudgetManager {
+    private static final String TAG = "CacheBudgetManager";
+
+    /** The default budget is this fraction of the heap the process may use */
+    public static final int DEFAULT_HEAP_FRACTION = 8;
+
+    /** Default time between two periodic budget checks */
+    public static final long DEFAULT_CHECK_INTERVAL_MS = 10_000;
+
+    private static CacheBudgetManager instance;
+
+    private final long budgetBytes;
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private long checks;
+    private long overBudgetChecks;
+    private long trims;
+    private long evictedBytes;
+    private long peakBytes;
+    private int lastTrimLevel;
+    private volatile ScheduledExecutorService timer;
+
+    /**
+     * Creates a manager
+     *
+     * @param budgetBytes The total size all registered caches may hold
+     * @throws IllegalArgumentException if the budget is negative
+     */
+    public CacheBudgetManager(long budgetBytes) {
+        if (budgetBytes < 0) {
+            throw new IllegalArgumentException("Budget must not be negative");
+        }
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Gets the manager of the process. The first call creates it with a budget of
+     * 1/{@link #DEFAULT_HEAP_FRACTION} of the heap limit and registers it for the memory pressure
+     * callbacks of the application.
+     *
+     * @param context Any context of the application
+     * @return The singleton CacheBudgetManager
+     */
+    public static synchronized CacheBudgetManager getInstance(Context context) {
+        if (instance == null) {
+            CacheBudgetManager manager = new CacheBudgetManager(
+                    Runtime.getRuntime().maxMemory() / DEFAULT_HEAP_FRACTION);
+            context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2() {
+                @Override
+                public void onTrimMemory(int level) {
+                    Log.i(TAG, "Trimming caches for level " + level);
+                    manager.dispatchTrimMemory(level);
+                }
+
+                @Override
+                public void onConfigurationChanged(@NonNull Configuration newConfig) {
+                }
+
+                @Override
+                public void onLowMemory() {
+                    onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+                }
+            });
+            instance = manager;
+        }
+        return instance;
+    }
+
+    /**
+     * Registers a cache
+     *
+     * @param name The name shown in snapshots, e.g. "UserCache"
+     * @param priority How much the cache is worth keeping
+     * @param cache The cache
+     * @return The registration, closed when the cache is discarded
+     */
+    public Subscription register(String name, CachePriority priority, BudgetedCache cache) {
+        Registration registration = new Registration(name, priority, cache);
+        registrations.add(registration);
+        return () -> registrations.remove(registration);
+    }
+
+    /**
+     * Trims the caches if they hold more than the budget
+     *
+     * @return The total size of the caches after the check
+     */
+    public long check() {
+        return trimToTotal(budgetBytes);
+    }
+
+    /**
+     * Trims the caches for a memory pressure level reported by the system
+     *
+     * @param level The level passed to {@link ComponentCallbacks2#onTrimMemory}
+     * @return The total size of the caches after trimming
+     */
+    public long onTrimMemory(int level) {
+        synchronized (this) {
+            lastTrimLevel = level;
+        }
+        return trimToTotal(targetFor(level, budgetBytes));
+    }
+
+    /**
+     * Trims the caches for a memory pressure level on the timer passed to {@link #startChecks}.
+     * Without a running timer the caches are trimmed on the calling thread.
+     *
+     * @param level The level passed to {@link ComponentCallbacks2#onTrimMemory}
+     * @return The future total size of the caches after trimming
+     */
+    public Future<Long> dispatchTrimMemory(int level) {
+        ScheduledExecutorService executor = timer;
+        if (executor != null) {
+            try {
+                return executor.submit(() -> onTrimMemory(level));
+            } catch (RejectedExecutionException e) {
+                Log.e(TAG, "Cannot trim caches on the timer", e);
+            }
+        }
+        return CompletableFuture.completedFuture(onTrimMemory(level));
+    }
+
+    /**
+     * Gets the size the caches may keep at a memory pressure level
+     *
+     * @param level The level passed to {@link ComponentCallbacks2#onTrimMemory}
+     * @param budgetBytes The budget without memory pressure
+     * @return The share of the budget to keep
+     */
+    static long targetFor(int level, long budgetBytes) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return 0;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return budgetBytes / 4;
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            return budgetBytes / 2;
+        }
+        if (level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            return budgetBytes * 3 / 4;
+        }
+        return budgetBytes;
+    }
+
+    /**
+     * Trims the caches, lowest priority first, until they hold at most the target in total
+     *
+     * @param targetBytes The total size to shrink to
+     * @return The total size after trimming
+     */
+    private synchronized long trimToTotal(long targetBytes) {
+        List<Registration> ordered = new ArrayList<>(registrations);
+        Collections.sort(ordered, Comparator.comparing(registration -> registration.priority));
+        long total = 0;
+        for (Registration registration : ordered) {
+            registration.bytes = registration.cache.getEstimatedBytes();
+            total += registration.bytes;
+        }
+        checks++;
+        peakBytes = Math.max(peakBytes, total);
+        if (total > budgetBytes) {
+            overBudgetChecks++;
+        }
+        for (Registration registration : ordered) {
+            if (total <= targetBytes) {
+                break;
+            }
+            if (registration.bytes == 0) {
+                continue;
+            }
+            long keep = Math.max(0, registration.bytes - (total - targetBytes));
+            registration.cache.trimTo(keep);
+            long after = registration.cache.getEstimatedBytes();
+            long freed = Math.max(0, registration.bytes - after);
+            registration.bytes = after;
+            registration.trims++;
+            total -= freed;
+            evictedBytes += freed;
+            trims++;
+        }
+        return total;
+    }
+
+    /**
+     * Checks the budget at a fixed interval. The timer also trims the caches for memory pressure
+     * until the checks are stopped.
+     *
+     * @param timer The timer running the checks
+     * @param intervalMillis The time between two checks
+     * @return The subscription stopping the checks
+     */
+    public Subscription startChecks(ScheduledExecutorService timer, long intervalMillis) {
+        try {
+            ScheduledFuture<?> future = timer.scheduleWithFixedDelay(this::check, intervalMillis,
+                    intervalMillis, TimeUnit.MILLISECONDS);
+            this.timer = timer;
+            return () -> {
+                future.cancel(false);
+                if (this.timer == timer) {
+                    this.timer = null;
+                }
+            };
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Cannot schedule cache budget checks", e);
+            return () -> {
+            };
+        }
+    }
+
+    /**
+     * Gets the budget without memory pressure
+     *
+     * @return The total size all caches may hold in bytes
+     */
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * Copies the sizes of the caches as of the last check and the trim counters
+     *
+     * @return The snapshot
+     */
+    public synchronized Snapshot snapshot() {
+        List<CacheSize> caches = new ArrayList<>(registrations.size());
+        for (Registration registration : registrations) {
+            caches.add(new CacheSize(registration.name, registration.priority, registration.bytes,
+                    registration.trims));
+        }
+        return new Snapshot(budgetBytes, peakBytes, checks, overBudgetChecks, trims,
+                evictedBytes, lastTrimLevel, caches);
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    private static final class Registration {
+        private final String name;
+        private final CachePriority priority;
+        private final BudgetedCache cache;
+        private long bytes;
+        private long trims;
+
+        Registration(String name, CachePriority priority, BudgetedCache cache) {
+            this.name = name;
+            this.priority = priority;
+            this.cache = cache;
+        }
+    }
+
+    /**
+     * The size of one cache as of the last check
+     */
+    public static final class CacheSize {
+        private final String name;
+        private final CachePriority priority;
+        private final long bytes;
+        private final long trims;
+
+        CacheSize(String name, CachePriority priority, long bytes, long trims) {
+            this.name = name;
+            this.priority = priority;
+            this.bytes = bytes;
+            this.trims = trims;
+        }
+
+        /** @return The name the cache was registered with */
+        public String getName() {
+            return name;
+        }
+
+        /** @return The priority the cache was registered with */
+        public CachePriority getPriority() {
+            return priority;
+        }
+
+        /** @return The estimated size in bytes */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /** @return The number of times the cache was trimmed */
+        public long getTrims() {
+            return trims;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{priority=" + priority + ", bytes=" + bytes + ", trims=" + trims + "}";
+        }
+    }
+
+    /**
+     * The sizes of all caches and the counters of the manager at one point in time
+     */
+    public static final class Snapshot {
+        private final long budgetBytes;
+        private final long peakBytes;
+        private final long checks;
+        private final long overBudgetChecks;
+        private final long trims;
+        private final long evictedBytes;
+        private final int lastTrimLevel;
+        private final List<CacheSize> caches;
+
+        Snapshot(long budgetBytes, long peakBytes, long checks, long overBudgetChecks, long trims,
+                long evictedBytes, int lastTrimLevel, List<CacheSize> caches) {
+            this.budgetBytes = budgetBytes;
+            this.peakBytes = peakBytes;
+            this.checks = checks;
+            this.overBudgetChecks = overBudgetChecks;
+            this.trims = trims;
+            this.evictedBytes = evictedBytes;
+            this.lastTrimLevel = lastTrimLevel;
+            this.caches = Collections.unmodifiableList(caches);
+        }
+
+        /** @return The total size all caches may hold without memory pressure */
+        public long getBudgetBytes() {
+            return budgetBytes;
+        }
+
+        /** @return The total size of all caches as of the last check */
+        public long getTotalBytes() {
+            long total = 0;
+            for (CacheSize cache : caches) {
+                total += cache.getBytes();
+            }
+            return total;
+        }
+
+        /** @return The largest total size seen by a check, before trimming */
+        public long getPeakBytes() {
+            return peakBytes;
+        }
+
+        /** @return The number of checks, periodic or for memory pressure */
+        public long getChecks() {
+            return checks;
+        }
+
+        /** @return The number of checks that found the caches over the budget */
+        public long getOverBudgetChecks() {
+            return overBudgetChecks;
+        }
+
+        /** @return The number of times a cache was trimmed */
+        public long getTrims() {
+            return trims;
+        }
+
+        /** @return The number of bytes freed by all trims */
+        public long getEvictedBytes() {
+            return evictedBytes;
+        }
+
+        /** @return The last memory pressure level reported, 0 if none */
+        public int getLastTrimLevel() {
+            return lastTrimLevel;
+        }
+
+        /** @return The sizes of the registered caches, in registration order */
+        public List<CacheSize> getCaches() {
+            return caches;
+        }
+
+        /**
+         * Gets the size of a cache
+         *
+         * @param name The name the cache was registered with
+         * @return The size, null if no such cache is registered
+         */
+        public CacheSize getCache(String name) {
+            for (CacheSize cache : caches) {
+                if (cache.getName().equals(name)) {
+                    return cache;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder("Caches ").append(getTotalBytes())
+                    .append(" of ").append(budgetBytes).append(" bytes, peak=").append(peakBytes)
+                    .append(", checks=").append(checks).append(", overBudget=")
+                    .append(overBudgetChecks).append(", trims=").append(trims)
+                    .append(", evicted=").append(evictedBytes).append(", lastTrimLevel=")
+                    .append(lastTrimLevel);
+            for (CacheSize cache : caches) {
+                report.append("\n  ").append(cache);
+            }
+            return report.toString();
+        }
+    }
+}
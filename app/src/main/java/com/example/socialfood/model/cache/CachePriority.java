@@ -0,0 +1,18 @@
+package com.example.socialfood.model.cache;
+
+/**
+ * How much an in-process cache is worth keeping when memory runs low. The
+ * {@link CacheBudgetManager} trims caches of a lower class before those of a higher class; caches
+ * of the same class are trimmed in the order they were registered.
+ */
+public enum CachePriority {
+
+    /** Caches refilled cheaply, such as decoded images; trimmed first */
+    LOW,
+
+    /** Caches of rows refilled by single queries, such as looked-up users */
+    NORMAL,
+
+    /** Indices rebuilt only by reading a whole table, such as the post grid; trimmed last */
+    HIGH
+}
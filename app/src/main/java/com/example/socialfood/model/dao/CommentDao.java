@@ -3,7 +3,9 @@ package com.example.socialfood.model.dao;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.example.socialfood.model.entities.Comment;
@@ -56,7 +58,7 @@ public interface CommentDao {
      * @return List of comments associated with the post
      */
     @Query("SELECT * FROM comment WHERE postId = :postId ORDER BY commentId")
-    List<Comment> getCommentsByPostId(int postId);
+    List<Comment> getCommentsByPostId(long postId);
 
     /**
      * Retrieves a specific comment by its composite key
@@ -67,6 +69,63 @@ public interface CommentDao {
      * @return The Comment if found, null otherwise
      */
     @Query("SELECT * FROM comment WHERE uid = :uid AND postId = :postId AND commentId = :commentId")
-    Comment getCommentById(int uid, int postId, int commentId);
+    Comment getCommentById(int uid, long postId, long commentId);
 
+    /**
+     * Inserts several comments in a single transaction. Rows that conflict with an existing
+     * primary key or unique index are skipped instead of failing the whole batch.
+     * 
+     * @param comments The Comment entities to insert
+     * @return The row ID of each inserted comment, -1 for every skipped one
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    List<Long> insertComments(List<Comment> comments);
+
+    /**
+     * Updates a single comment and reports whether a row was changed
+     * 
+     * @param comment The Comment entity to update
+     * @return The number of updated rows
+     */
+    @Update
+    int updateCommentRow(Comment comment);
+
+    /**
+     * Updates several comments in a single transaction
+     * 
+     * @param comments The Comment entities to update
+     * @return For each comment, whether a matching row was updated
+     */
+    @Transaction
+    default boolean[] updateComments(List<Comment> comments) {
+        boolean[] results = new boolean[comments.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = updateCommentRow(comments.get(i)) > 0;
+        }
+        return results;
+    }
+
+    /**
+     * Deletes a single comment and reports whether a row was removed
+     * 
+     * @param comment The Comment entity to delete
+     * @return The number of deleted rows
+     */
+    @Delete
+    int deleteCommentRow(Comment comment);
+
+    /**
+     * Deletes several comments in a single transaction
+     * 
+     * @param comments The Comment entities to delete
+     * @return For each comment, whether a matching row was deleted
+     */
+    @Transaction
+    default boolean[] deleteComments(List<Comment> comments) {
+        boolean[] results = new boolean[comments.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = deleteCommentRow(comments.get(i)) > 0;
+        }
+        return results;
+    }
 }
@@ -3,7 +3,9 @@ package com.example.socialfood.model.dao;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
 import com.example.socialfood.model.entities.Follow;
 
@@ -78,4 +80,53 @@ public interface FollowDao {
     @Query("SELECT * FROM follows")
     List<Follow> getAll();
 
+    /**
+     * Gets one page of all follow relationships in primary key order, starting after a given
+     * relationship. Used to load the follow graph without reading the whole table at once.
+     * 
+     * @param afterFollowerId The follower ID of the last relationship of the previous page, 0 for
+     *        the first page
+     * @param afterFollowedId The followed ID of the last relationship of the previous page, 0 for
+     *        the first page
+     * @param limit The maximum number of relationships
+     * @return Up to limit Follow entities
+     */
+    @Query("SELECT * FROM follows WHERE followerId > :afterFollowerId "
+            + "OR (followerId = :afterFollowerId AND followedId > :afterFollowedId) "
+            + "ORDER BY followerId, followedId LIMIT :limit")
+    List<Follow> getFollowPage(int afterFollowerId, int afterFollowedId, int limit);
+
+    /**
+     * Inserts several follows in a single transaction. Rows that conflict with an existing
+     * primary key or unique index are skipped instead of failing the whole batch.
+     * 
+     * @param follows The Follow entities to insert
+     * @return The row ID of each inserted follow, -1 for every skipped one
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    List<Long> insertFollows(List<Follow> follows);
+
+    /**
+     * Deletes a single follow and reports whether a row was removed
+     * 
+     * @param follow The Follow entity to delete
+     * @return The number of deleted rows
+     */
+    @Delete
+    int deleteFollowRow(Follow follow);
+
+    /**
+     * Deletes several follows in a single transaction
+     * 
+     * @param follows The Follow entities to delete
+     * @return For each follow, whether a matching row was deleted
+     */
+    @Transaction
+    default boolean[] deleteFollows(List<Follow> follows) {
+        boolean[] results = new boolean[follows.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = deleteFollowRow(follows.get(i)) > 0;
+        }
+        return results;
+    }
 }
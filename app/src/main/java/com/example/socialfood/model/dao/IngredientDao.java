@@ -0,0 +1,182 @@
+package com.example.socialfood.model.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.socialfood.model.entities.Ingredient;
+import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.search.IngredientFilter;
+import com.example.socialfood.model.search.Postings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Data Access Object (DAO) interface for Ingredient entity. Provides lookups of ingredients and
+ * ingredient filters over posts. The links between posts and ingredients are written by
+ * {@link PostDao} together with the post.
+ *
+ * <p>
+ * Filters are evaluated on posting lists: the sorted postIds of the posts containing an
+ * ingredient, read from the primary key of post_ingredient. As post IDs are time-ordered, a
+ * posting list is also ordered by creation time.
+ * </p>
+ */
+@Dao
+public interface IngredientDao {
+
+    /**
+     * Gets all known ingredients
+     * 
+     * @return List of all ingredients ordered by name
+     */
+    @Query("SELECT * FROM ingredient ORDER BY name")
+    List<Ingredient> getAllIngredients();
+
+    /**
+     * Gets the ingredients with the given normalized names
+     * 
+     * @param names The normalized names
+     * @return The ingredients that exist, in no particular order
+     */
+    @Query("SELECT * FROM ingredient WHERE name IN (:names)")
+    List<Ingredient> getIngredientsByName(List<String> names);
+
+    /**
+     * Gets the ingredients of a post
+     * 
+     * @param postId The post ID
+     * @return The ingredients of the post ordered by name
+     */
+    @Query("SELECT ingredient.* FROM ingredient INNER JOIN post_ingredient "
+            + "ON post_ingredient.ingredientId = ingredient.ingredientId "
+            + "WHERE post_ingredient.postId = :postId ORDER BY ingredient.name")
+    List<Ingredient> getIngredientsForPost(long postId);
+
+    /**
+     * Gets the number of posts containing an ingredient
+     * 
+     * @param ingredientId The ingredient ID
+     * @return The length of the ingredient's posting list
+     */
+    @Query("SELECT COUNT(*) FROM post_ingredient WHERE ingredientId = :ingredientId")
+    int getPostingCount(int ingredientId);
+
+    /**
+     * Gets the posting list of an ingredient
+     * 
+     * @param ingredientId The ingredient ID
+     * @return The IDs of all posts containing the ingredient in ascending order
+     */
+    @Query("SELECT postId FROM post_ingredient WHERE ingredientId = :ingredientId "
+            + "ORDER BY postId")
+    List<Long> getPostingList(int ingredientId);
+
+    /**
+     * Gets the posts with the given IDs
+     * 
+     * @param postIds The IDs of the posts
+     * @return The posts in no particular order
+     */
+    @Query("SELECT * FROM post WHERE postId IN (:postIds)")
+    List<Post> getPostsByIds(List<Long> postIds);
+
+    /**
+     * Evaluates an ingredient filter. Required ingredients are intersected starting with the
+     * shortest posting list, so the work is bounded by the rarest ingredient; alternatives are
+     * merged and excluded ingredients subtracted afterwards.
+     * 
+     * @param filter The filter to evaluate
+     * @return The IDs of all matching posts in ascending order
+     */
+    @Transaction
+    default long[] findPostIds(IngredientFilter filter) {
+        if (filter == null || !filter.isValid()) {
+            return Postings.EMPTY;
+        }
+        Set<String> names = new LinkedHashSet<>(filter.getAllOf());
+        names.addAll(filter.getAnyOf());
+        names.addAll(filter.getNoneOf());
+        Map<String, Integer> ids = new HashMap<>();
+        for (Ingredient ingredient : getIngredientsByName(new ArrayList<>(names))) {
+            ids.put(ingredient.getName(), ingredient.getIngredientId());
+        }
+
+        long[] result = null;
+        if (!filter.getAllOf().isEmpty()) {
+            int[] required = new int[filter.getAllOf().size()];
+            long[] counts = new long[required.length];
+            for (int i = 0; i < required.length; i++) {
+                Integer id = ids.get(filter.getAllOf().get(i));
+                if (id == null) {
+                    return Postings.EMPTY;
+                }
+                // Count in the high bits, index in the low bits: sorting orders by count
+                counts[i] = ((long) getPostingCount(id) << 32) | i;
+                required[i] = id;
+            }
+            Arrays.sort(counts);
+            for (long count : counts) {
+                long[] postings = Postings.of(getPostingList(required[(int) count]));
+                result = result == null ? postings : Postings.intersect(result, postings);
+                if (result.length == 0) {
+                    return result;
+                }
+            }
+        }
+        if (!filter.getAnyOf().isEmpty()) {
+            long[] alternatives = Postings.EMPTY;
+            for (String name : filter.getAnyOf()) {
+                Integer id = ids.get(name);
+                if (id != null) {
+                    alternatives = Postings.union(alternatives,
+                            Postings.of(getPostingList(id)));
+                }
+            }
+            result = result == null ? alternatives : Postings.intersect(result, alternatives);
+        }
+        for (String name : filter.getNoneOf()) {
+            Integer id = ids.get(name);
+            if (id != null && result.length > 0) {
+                result = Postings.difference(result, Postings.of(getPostingList(id)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets one page of the posts matching an ingredient filter, in descending postId order
+     * (newest post first)
+     * 
+     * @param filter The filter to evaluate
+     * @param beforePostId Only posts with a smaller postId are returned, use Long.MAX_VALUE for
+     *            the first page
+     * @param limit The maximum number of posts
+     * @return The matching posts in descending postId order
+     */
+    @Transaction
+    default List<Post> getPostsByIngredients(IngredientFilter filter, long beforePostId,
+            int limit) {
+        long[] postIds = findPostIds(filter);
+        int end = Arrays.binarySearch(postIds, beforePostId);
+        end = end >= 0 ? end : -end - 1;
+        int start = Math.max(0, end - limit);
+        if (start >= end) {
+            return new ArrayList<>();
+        }
+        List<Long> page = new ArrayList<>(end - start);
+        for (int i = end - 1; i >= start; i--) {
+            page.add(postIds[i]);
+        }
+
+        List<Post> posts = getPostsByIds(page);
+        posts.sort((a, b) -> Long.compare(b.getPostId(), a.getPostId()));
+        return posts;
+    }
+}
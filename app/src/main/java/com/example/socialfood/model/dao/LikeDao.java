@@ -3,7 +3,9 @@ package com.example.socialfood.model.dao;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
 import com.example.socialfood.model.entities.Like;
 
@@ -38,7 +40,7 @@ public interface LikeDao {
      * @return List of likes associated with the post
      */
     @Query("SELECT * FROM `like_table` WHERE postId = :postId")
-    List<Like> getLikesForPost(int postId);
+    List<Like> getLikesForPost(long postId);
 
     /**
      * Gets the total number of likes for a post
@@ -47,7 +49,7 @@ public interface LikeDao {
      * @return The number of likes
      */
     @Query("SELECT COUNT(*) FROM `like_table` WHERE postId = :postId")
-    int getLikeCount(int postId);
+    int getLikeCount(long postId);
 
     /**
      * Checks if a user has liked a specific post
@@ -57,7 +59,17 @@ public interface LikeDao {
      * @return true if the user has liked the post, false otherwise
      */
     @Query("SELECT EXISTS(SELECT 1 FROM `like_table` WHERE userId = :userId AND postId = :postId)")
-    boolean isLikedByUser(int userId, int postId);
+    boolean isLikedByUser(int userId, long postId);
+
+    /**
+     * Gets the IDs of all posts liked by a user. Read from the primary key, so the result is
+     * sorted without a sort step.
+     *
+     * @param userId The ID of the user
+     * @return The IDs of the liked posts in ascending order
+     */
+    @Query("SELECT postId FROM `like_table` WHERE userId = :userId ORDER BY postId")
+    List<Long> getLikedPostIds(int userId);
 
     /**
      * Retrieves all likes from the database
@@ -66,4 +78,78 @@ public interface LikeDao {
      */
     @Query("SELECT * FROM like_table")
     List<Like> getAll();
-}
\ No newline at end of file
+
+    /**
+     * Inserts several likes in a single transaction. Rows that conflict with an existing
+     * primary key or unique index are skipped instead of failing the whole batch.
+     * 
+     * @param likes The Like entities to insert
+     * @return The row ID of each inserted like, -1 for every skipped one
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    List<Long> insertLikes(List<Like> likes);
+
+    /**
+     * Deletes a single like and reports whether a row was removed
+     * 
+     * @param like The Like entity to delete
+     * @return The number of deleted rows
+     */
+    @Delete
+    int deleteLikeRow(Like like);
+
+    /**
+     * Deletes several likes in a single transaction
+     * 
+     * @param likes The Like entities to delete
+     * @return For each like, whether a matching row was deleted
+     */
+    @Transaction
+    default boolean[] deleteLikes(List<Like> likes) {
+        boolean[] results = new boolean[likes.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = deleteLikeRow(likes.get(i)) > 0;
+        }
+        return results;
+    }
+
+    /**
+     * Inserts a like unless it exists or its user or post has been deleted in the meantime
+     * 
+     * @param userId The ID of the user
+     * @param postId The ID of the post
+     * @param timestamp The time of the like
+     */
+    @Query("INSERT OR IGNORE INTO `like_table` (userId, postId, timestamp) "
+            + "SELECT :userId, :postId, :timestamp "
+            + "WHERE EXISTS(SELECT 1 FROM post WHERE postId = :postId) "
+            + "AND EXISTS(SELECT 1 FROM user WHERE uid = :userId)")
+    void insertIfPresent(int userId, long postId, long timestamp);
+
+    /**
+     * Deletes the like of a user on a post, if any
+     * 
+     * @param userId The ID of the user
+     * @param postId The ID of the post
+     */
+    @Query("DELETE FROM `like_table` WHERE userId = :userId AND postId = :postId")
+    void deleteByIds(int userId, long postId);
+
+    /**
+     * Inserts and deletes several likes in a single transaction, e.g. the deferred toggles of
+     * {@link com.example.socialfood.model.handler.LikeWriteBehind}. Likes of deleted users or
+     * posts are skipped instead of failing the transaction.
+     * 
+     * @param liked The likes to insert
+     * @param unliked The likes to delete
+     */
+    @Transaction
+    default void applyLikes(List<Like> liked, List<Like> unliked) {
+        for (Like like : liked) {
+            insertIfPresent(like.getUserId(), like.getPostId(), like.getTimestamp());
+        }
+        for (Like like : unliked) {
+            deleteByIds(like.getUserId(), like.getPostId());
+        }
+    }
+}
@@ -5,11 +5,25 @@ import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
-import androidx.room.Update;
+import androidx.room.RawQuery;
+import androidx.room.Transaction;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
 
+import com.example.socialfood.model.database.CounterTriggers;
+import com.example.socialfood.model.entities.FeedItem;
+import com.example.socialfood.model.entities.Ingredient;
 import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.entities.PostLocation;
+import com.example.socialfood.model.entities.SearchResult;
+import com.example.socialfood.model.search.Bm25;
+import com.example.socialfood.model.search.SearchMatch;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object (DAO) interface for Post entity. Provides methods to perform database
@@ -19,20 +33,64 @@ import java.util.List;
 public interface PostDao {
 
     /**
-     * Inserts a new post into the database
+     * Column list and joins shared by the {@link FeedItem} queries. Counters are read from the
+     * trigger-maintained columns, the author from the joined user row and the liked flag from the
+     * like primary key, so each item costs a single row lookup per table.
+     */
+    String FEED_ITEM_SELECT = "SELECT post.uid, post.postId, post.imageUrl, post.description, "
+            + "post.timestamp, post.latitude, post.longitude, post.likeCount, post.commentCount, "
+            + "user.username, EXISTS(SELECT 1 FROM like_table WHERE like_table.userId = :viewerId "
+            + "AND like_table.postId = post.postId) AS likedByCurrentUser "
+            + "FROM post INNER JOIN user ON user.uid = post.uid ";
+
+    /**
+     * The full-text matches scored by {@link #searchPosts}: the docid and the hex encoded
+     * per-row matchinfo of every match, see {@link Bm25#scoredMatchesSql}
+     */
+    String SEARCH_MATCHES_SELECT = "SELECT docid, hex(matchinfo(post_fts, 'ly')) AS h "
+            + "FROM post_fts WHERE post_fts MATCH ?";
+
+    /**
+     * Column list and join shared by the viewport queries. Candidates are read from the
+     * post_location index, the posts themselves by primary key.
+     */
+    String IN_BOUNDS_SELECT = "SELECT post.* FROM post_location INNER JOIN post "
+            + "ON post.postId = post_location.postId ";
+
+    /**
+     * Maximum number of latitude bands that are looked up one by one. Taller viewports scan the
+     * bands as a single range instead.
+     */
+    int MAX_LATITUDE_CELLS = 180;
+
+    /**
+     * Inserts a new post into the database and links it to its ingredients
+     * 
+     * @param post The Post entity to insert
+     */
+    @Transaction
+    default void insertPost(Post post) {
+        insertPostContent(post);
+        indexIngredients(post);
+    }
+
+    /**
+     * Inserts a post row without touching its ingredient links
      * 
      * @param post The Post entity to insert
      */
     @Insert(onConflict = OnConflictStrategy.REPLACE)
-    void insertPost(Post post);
+    void insertPostContent(Post post);
 
     /**
-     * Updates an existing post in the database
+     * Updates an existing post in the database. The counters commentCount and likeCount are left
+     * untouched, they are maintained by the database triggers.
      * 
      * @param post The Post entity to update
      */
-    @Update
-    void updatePost(Post post);
+    default void updatePost(Post post) {
+        updatePostRow(post);
+    }
 
     /**
      * Deletes a post from the database
@@ -43,14 +101,13 @@ public interface PostDao {
     void deletePost(Post post);
 
     /**
-     * Gets a specific post by user ID and post ID
+     * Gets a specific post by its ID
      * 
-     * @param uid The user ID
      * @param postId The post ID
      * @return The requested Post entity or null if not found
      */
-    @Query("SELECT * FROM post WHERE uid = :uid AND postId = :postId")
-    Post getPostById(int uid, int postId);
+    @Query("SELECT * FROM post WHERE postId = :postId")
+    Post getPostById(long postId);
 
     /**
      * Gets all posts from a specific user
@@ -61,6 +118,24 @@ public interface PostDao {
     @Query("SELECT * FROM post WHERE uid = :uid")
     List<Post> getPostByUser(int uid);
 
+    /**
+     * Gets the IDs of all posts of a user, which are deleted by cascade together with the user
+     *
+     * @param uid The user ID
+     * @return The post IDs of the user
+     */
+    @Query("SELECT postId FROM post WHERE uid = :uid")
+    List<Long> getPostIdsByUser(int uid);
+
+    /**
+     * Gets the highest post ID in use, so that new IDs can be generated after it even if the
+     * clock was set back
+     * 
+     * @return The highest post ID, 0 if there are no posts
+     */
+    @Query("SELECT IFNULL(MAX(postId), 0) FROM post")
+    long getMaxPostId();
+
     /**
      * Gets all posts from the database ordered by timestamp (newest first)
      * 
@@ -68,4 +143,436 @@ public interface PostDao {
      */
     @Query("SELECT * FROM post ORDER BY timestamp DESC")
     List<Post> getAllPosts();
+
+    /**
+     * Gets the first page of the feed, newest first. Ties on timestamp are broken by postId
+     * (descending) so that the order is total and the feed index can be read backwards.
+     * 
+     * @param limit The maximum number of posts to return
+     * @return The newest posts
+     */
+    @Query("SELECT * FROM post ORDER BY timestamp DESC, postId DESC LIMIT :limit")
+    List<Post> getPostsPage(int limit);
+
+    /**
+     * Gets the page of the feed that follows the given position, in the same order as
+     * {@link #getPostsPage(int)}
+     * 
+     * @param timestamp The timestamp of the last post of the previous page
+     * @param postId The post ID of the last post of the previous page
+     * @param limit The maximum number of posts to return
+     * @return The posts following the given position
+     */
+    @Query("SELECT * FROM post WHERE timestamp <= :timestamp "
+            + "AND (timestamp < :timestamp OR postId < :postId) "
+            + "ORDER BY timestamp DESC, postId DESC LIMIT :limit")
+    List<Post> getPostsPageAfter(long timestamp, long postId, int limit);
+
+    /**
+     * Gets the summary of a single post
+     * 
+     * @param postId The post ID
+     * @param viewerId The ID of the viewing user, used for the liked flag
+     * @return The post summary or null if not found
+     */
+    @Query(FEED_ITEM_SELECT + "WHERE post.postId = :postId")
+    FeedItem getFeedItem(long postId, int viewerId);
+
+    /**
+     * Gets the summaries of all posts of a user, newest first
+     * 
+     * @param uid The user ID of the post creator
+     * @param viewerId The ID of the viewing user, used for the liked flag
+     * @return The post summaries of the user
+     */
+    @Query(FEED_ITEM_SELECT + "WHERE post.uid = :uid ORDER BY post.timestamp DESC")
+    List<FeedItem> getFeedItemsByUser(int uid, int viewerId);
+
+    /**
+     * Gets the first page of post summaries, in the same order as {@link #getPostsPage(int)}
+     * 
+     * @param viewerId The ID of the viewing user, used for the liked flag
+     * @param limit The maximum number of items to return
+     * @return The newest post summaries
+     */
+    @Query(FEED_ITEM_SELECT + "ORDER BY post.timestamp DESC, post.postId DESC LIMIT :limit")
+    List<FeedItem> getFeedPage(int viewerId, int limit);
+
+    /**
+     * Gets the page of post summaries that follows the given position, in the same order as
+     * {@link #getPostsPageAfter(long, long, int)}
+     * 
+     * @param timestamp The timestamp of the last item of the previous page
+     * @param postId The post ID of the last item of the previous page
+     * @param viewerId The ID of the viewing user, used for the liked flag
+     * @param limit The maximum number of items to return
+     * @return The post summaries following the given position
+     */
+    @Query(FEED_ITEM_SELECT + "WHERE post.timestamp <= :timestamp "
+            + "AND (post.timestamp < :timestamp OR post.postId < :postId) "
+            + "ORDER BY post.timestamp DESC, post.postId DESC LIMIT :limit")
+    List<FeedItem> getFeedPageAfter(long timestamp, long postId, int viewerId, int limit);
+
+    /**
+     * Gets the summaries of the given posts, e.g. the posts currently shown on the map
+     *
+     * @param postIds The IDs of the posts, at most 999
+     * @param viewerId The ID of the viewing user, used for the liked flag
+     * @return The summaries of the posts that exist, in no particular order
+     */
+    @Query(FEED_ITEM_SELECT + "WHERE post.postId IN (:postIds)")
+    List<FeedItem> getFeedItemsByIds(List<Long> postIds, int viewerId);
+
+    /**
+     * Inserts several posts in a single transaction, replacing existing rows with the same key,
+     * and links them to their ingredients
+     * 
+     * @param posts The Post entities to insert
+     * @return The row ID of each inserted post
+     */
+    @Transaction
+    default List<Long> insertPosts(List<Post> posts) {
+        List<Long> rowIds = insertPostsContent(posts);
+        for (Post post : posts) {
+            indexIngredients(post);
+        }
+        return rowIds;
+    }
+
+    /**
+     * Inserts several post rows without touching their ingredient links
+     * 
+     * @param posts The Post entities to insert
+     * @return The row ID of each inserted post
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    List<Long> insertPostsContent(List<Post> posts);
+
+    /**
+     * Replaces the ingredient links of a post with the ingredients parsed from
+     * {@link Post#getIngredients()}, creating unknown ingredients on the way
+     * 
+     * @param post The post whose ingredients are indexed
+     */
+    @Transaction
+    default void indexIngredients(Post post) {
+        List<String> names = Ingredient.parse(post.getIngredients());
+        clearPostIngredients(post.getPostId());
+        if (names.isEmpty()) {
+            return;
+        }
+        List<Ingredient> ingredients = new ArrayList<>(names.size());
+        for (String name : names) {
+            ingredients.add(new Ingredient(name));
+        }
+        insertIngredients(ingredients);
+        linkPostIngredients(post.getPostId(), names);
+    }
+
+    /**
+     * Inserts ingredients, skipping names that already exist
+     * 
+     * @param ingredients The Ingredient entities to insert
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertIngredients(List<Ingredient> ingredients);
+
+    /**
+     * Removes all ingredient links of a post
+     * 
+     * @param postId The post ID
+     */
+    @Query("DELETE FROM post_ingredient WHERE postId = :postId")
+    void clearPostIngredients(long postId);
+
+    /**
+     * Links a post to the ingredients with the given normalized names
+     * 
+     * @param postId The post ID
+     * @param names The normalized ingredient names
+     */
+    @Query("INSERT OR IGNORE INTO post_ingredient (ingredientId, postId) "
+            + "SELECT ingredientId, :postId FROM ingredient WHERE name IN (:names)")
+    void linkPostIngredients(long postId, List<String> names);
+
+    /**
+     * Updates a single post and its ingredient links and reports whether a row was changed. The
+     * counters are left untouched.
+     * 
+     * @param post The Post entity to update
+     * @return The number of updated rows
+     */
+    @Transaction
+    default int updatePostRow(Post post) {
+        int updated = updatePostContent(post.getPostId(), post.getImageUrl(),
+                post.getDescription(), post.getTimestamp(), post.getRecipe(),
+                post.getIngredients(), post.getLatitude(), post.getLongitude());
+        if (updated > 0) {
+            indexIngredients(post);
+        }
+        return updated;
+    }
+
+    /**
+     * Updates every column of a post except the trigger-maintained counters
+     * 
+     * @return The number of updated rows
+     */
+    @Query("UPDATE post SET imageUrl = :imageUrl, description = :description, "
+            + "timestamp = :timestamp, recipe = :recipe, ingredients = :ingredients, "
+            + "latitude = :latitude, longitude = :longitude WHERE postId = :postId")
+    int updatePostContent(long postId, String imageUrl, String description, long timestamp,
+            String recipe, String ingredients, double latitude, double longitude);
+
+    /**
+     * Gets the like count of a post from its trigger-maintained counter
+     * 
+     * @param postId The post ID
+     * @return The number of likes, 0 if the post does not exist
+     */
+    @Query("SELECT IFNULL((SELECT likeCount FROM post WHERE postId = :postId), 0)")
+    int getLikeCount(long postId);
+
+    /**
+     * Rebuilds likeCount and commentCount of every post from the like and comment tables
+     * 
+     * @return The number of posts that were reconciled
+     */
+    @Query(CounterTriggers.RECONCILE_POSTS)
+    int reconcileCounters();
+
+    /**
+     * Updates several posts in a single transaction
+     * 
+     * @param posts The Post entities to update
+     * @return For each post, whether a matching row was updated
+     */
+    @Transaction
+    default boolean[] updatePosts(List<Post> posts) {
+        boolean[] results = new boolean[posts.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = updatePostRow(posts.get(i)) > 0;
+        }
+        return results;
+    }
+
+    /**
+     * Deletes a single post and reports whether a row was removed
+     * 
+     * @param post The Post entity to delete
+     * @return The number of deleted rows
+     */
+    @Delete
+    int deletePostRow(Post post);
+
+    /**
+     * Deletes several posts in a single transaction
+     * 
+     * @param posts The Post entities to delete
+     * @return For each post, whether a matching row was deleted
+     */
+    @Transaction
+    default boolean[] deletePosts(List<Post> posts) {
+        boolean[] results = new boolean[posts.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = deletePostRow(posts.get(i)) > 0;
+        }
+        return results;
+    }
+
+    /**
+     * Gets the statistics of a full-text query that are equal for all of its matches: row count,
+     * average column lengths and the hits of every term in all rows
+     * 
+     * @param match The FTS4 MATCH expression, see
+     *            {@link com.example.socialfood.model.search.SearchQuery}
+     * @return The matchinfo blob of one match in 'pcnax' format, null if nothing matches
+     */
+    @Query("SELECT matchinfo(post_fts, 'pcnax') FROM post_fts WHERE post_fts MATCH :match "
+            + "LIMIT 1")
+    byte[] getSearchStatistics(String match);
+
+    /**
+     * Runs a ranking query built by {@link #searchPosts}
+     * 
+     * @param query The query selecting docid and score of the matches
+     * @return The ranked matches
+     */
+    @RawQuery
+    List<SearchMatch> getRankedMatches(SupportSQLiteQuery query);
+
+    /**
+     * Gets the posts for the given index entries together with a snippet of the matching text
+     * 
+     * @param match The FTS4 MATCH expression used for highlighting
+     * @param docids The docids of the index entries, equal to the IDs of their posts
+     * @return The matching posts in no particular order
+     */
+    @Query("SELECT post.*, snippet(post_fts, '[', ']', '…', -1, 10) AS snippet FROM post_fts "
+            + "INNER JOIN post ON post.postId = post_fts.docid "
+            + "WHERE post_fts MATCH :match AND post_fts.docid IN (:docids)")
+    List<SearchResult> getSearchResults(String match, List<Long> docids);
+
+    /**
+     * Gets the first page of a search, see {@link #searchPosts(String, double, long, int)}
+     * 
+     * @param match The FTS4 MATCH expression
+     * @param limit The maximum number of results
+     * @return The results ordered by descending relevance
+     */
+    default List<SearchResult> searchPosts(String match, int limit) {
+        return searchPosts(match, Double.MAX_VALUE, Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * Searches the description, recipe and ingredients of all posts. Every match is scored with
+     * {@link Bm25} inside SQLite, which orders them and returns only the requested page, so the
+     * ranking covers all matches however many there are. Pages continue after the (score, post
+     * ID) of the last result, ties in score being ordered by descending post ID.
+     * 
+     * @param match The FTS4 MATCH expression
+     * @param afterScore The score of the last result of the previous page
+     * @param afterPostId The post ID of the last result of the previous page
+     * @param limit The maximum number of results
+     * @return The results ordered by descending relevance
+     */
+    @Transaction
+    default List<SearchResult> searchPosts(String match, double afterScore, long afterPostId,
+            int limit) {
+        String scored = Bm25.scoredMatchesSql(getSearchStatistics(match), Bm25.POST_WEIGHTS,
+                SEARCH_MATCHES_SELECT);
+        if (scored == null) {
+            return Collections.emptyList();
+        }
+        List<SearchMatch> slice = getRankedMatches(new SimpleSQLiteQuery("SELECT docid, score "
+                + "FROM (" + scored + ") WHERE score < ? OR (score = ? AND docid < ?) "
+                + "ORDER BY score DESC, docid DESC LIMIT ?",
+                new Object[] { match, afterScore, afterScore, afterPostId, limit }));
+        if (slice.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> docids = new ArrayList<>(slice.size());
+        Map<Long, Integer> positions = new HashMap<>();
+        for (SearchMatch candidate : slice) {
+            positions.put(candidate.getDocid(), docids.size());
+            docids.add(candidate.getDocid());
+        }
+
+        // The join returns rows in index order, put them back into ranked order
+        SearchResult[] ordered = new SearchResult[slice.size()];
+        for (SearchResult result : getSearchResults(match, docids)) {
+            Integer position = positions.get(result.getPost().getPostId());
+            if (position != null) {
+                result.setScore(slice.get(position).getScore());
+                ordered[position] = result;
+            }
+        }
+        List<SearchResult> results = new ArrayList<>(ordered.length);
+        for (SearchResult result : ordered) {
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gets the posts in the given latitude bands and bounds, looking up every band separately
+     * 
+     * @param cells The latitude bands crossed by the bounds
+     * @param minLat The southern edge
+     * @param maxLat The northern edge
+     * @param minLon The western edge
+     * @param maxLon The eastern edge
+     * @param limit The maximum number of posts
+     * @return The posts inside the bounds in no particular order
+     */
+    @Query(IN_BOUNDS_SELECT + "WHERE post_location.latitudeCell IN (:cells) "
+            + "AND post_location.longitude BETWEEN :minLon AND :maxLon "
+            + "AND post_location.latitude BETWEEN :minLat AND :maxLat LIMIT :limit")
+    List<Post> getPostsInCells(List<Integer> cells, double minLat, double maxLat, double minLon,
+            double maxLon, int limit);
+
+    /**
+     * Gets the posts in the given range of latitude bands and bounds
+     * 
+     * @param minCell The southernmost latitude band
+     * @param maxCell The northernmost latitude band
+     * @param minLat The southern edge
+     * @param maxLat The northern edge
+     * @param minLon The western edge
+     * @param maxLon The eastern edge
+     * @param limit The maximum number of posts
+     * @return The posts inside the bounds in no particular order
+     */
+    @Query(IN_BOUNDS_SELECT + "WHERE post_location.latitudeCell BETWEEN :minCell AND :maxCell "
+            + "AND post_location.longitude BETWEEN :minLon AND :maxLon "
+            + "AND post_location.latitude BETWEEN :minLat AND :maxLat LIMIT :limit")
+    List<Post> getPostsInCellRange(int minCell, int maxCell, double minLat, double maxLat,
+            double minLon, double maxLon, int limit);
+
+    /**
+     * Gets the posts located inside a map viewport. The work done depends on the size of the
+     * viewport and the number of posts inside it, not on the total number of posts. A viewport
+     * crossing the antimeridian is given with minLon greater than maxLon.
+     * 
+     * @param minLat The southern edge
+     * @param maxLat The northern edge
+     * @param minLon The western edge
+     * @param maxLon The eastern edge
+     * @param limit The maximum number of posts
+     * @return Up to limit posts inside the bounds in no particular order
+     */
+    @Transaction
+    default List<Post> getPostsInBounds(double minLat, double maxLat, double minLon,
+            double maxLon, int limit) {
+        if (minLon > maxLon) {
+            List<Post> posts = new ArrayList<>(getPostsInBounds(minLat, maxLat, minLon, 180.0,
+                    limit));
+            if (posts.size() < limit) {
+                posts.addAll(getPostsInBounds(minLat, maxLat, -180.0, maxLon,
+                        limit - posts.size()));
+            }
+            return posts;
+        }
+        int minCell = PostLocation.latitudeCell(minLat);
+        int maxCell = PostLocation.latitudeCell(maxLat);
+        if (minCell > maxCell) {
+            return new ArrayList<>();
+        }
+        if (maxCell - minCell >= MAX_LATITUDE_CELLS) {
+            return getPostsInCellRange(minCell, maxCell, minLat, maxLat, minLon, maxLon, limit);
+        }
+        List<Integer> cells = new ArrayList<>(maxCell - minCell + 1);
+        for (int cell = minCell; cell <= maxCell; cell++) {
+            cells.add(cell);
+        }
+        return getPostsInCells(cells, minLat, maxLat, minLon, maxLon, limit);
+    }
+
+    /**
+     * Gets the locations of all posts, used to load the in-memory nearest-post grid
+     * 
+     * @return One location per post
+     */
+    @Query("SELECT * FROM post_location")
+    List<PostLocation> getAllPostLocations();
+
+    /**
+     * Gets posts by their IDs, keeping the order of the IDs. IDs of deleted posts are skipped.
+     * 
+     * @param postIds The post IDs
+     * @return The existing posts in the order of the IDs
+     */
+    @Transaction
+    default List<Post> getPostsByIds(long[] postIds) {
+        List<Post> posts = new ArrayList<>(postIds.length);
+        for (long postId : postIds) {
+            Post post = getPostById(postId);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
+    }
 }
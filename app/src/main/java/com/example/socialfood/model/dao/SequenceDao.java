@@ -0,0 +1,72 @@
+package com.example.socialfood.model.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.socialfood.model.entities.IdSequence;
+
+/**
+ * Data Access Object (DAO) interface for the persistent ID sequences. Hands out blocks of IDs so
+ * that new comments get unique keys without scanning existing rows. Post IDs are not taken from a
+ * sequence, see {@link com.example.socialfood.model.handler.PostIdGenerator}.
+ */
+@Dao
+public interface SequenceDao {
+
+    /**
+     * Retrieves the next value of a sequence that has not been handed out yet
+     *
+     * @param name The name of the sequence
+     * @return The next value, null if the sequence does not exist
+     */
+    @Query("SELECT nextValue FROM id_sequence WHERE name = :name")
+    Long getNextValue(String name);
+
+    /**
+     * Creates a sequence unless it already exists
+     *
+     * @param sequence The sequence with its start value
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertSequence(IdSequence sequence);
+
+    /**
+     * Advances a sequence, marking the skipped values as handed out
+     *
+     * @param name  The name of the sequence
+     * @param count The number of values to skip
+     */
+    @Query("UPDATE id_sequence SET nextValue = nextValue + :count WHERE name = :name")
+    void advance(String name, int count);
+
+    /**
+     * Gets the highest comment ID in use, to start the comment sequence after it
+     *
+     * @return The highest comment ID, 0 if there are no comments
+     */
+    @Query("SELECT COALESCE(MAX(commentId), 0) FROM comment")
+    long getMaxCommentId();
+
+    /**
+     * Reserves a block of consecutive values of a sequence. A missing sequence is created first,
+     * starting after the highest ID already in use for the comments it names. Values of a block
+     * are never handed out twice, even if the caller does not use all of them.
+     *
+     * @param name  The name of the sequence, for example {@link IdSequence#COMMENTS}
+     * @param count The number of values to reserve
+     * @return The first value of the block, the block ends before first + count
+     */
+    @Transaction
+    default long reserveBlock(String name, int count) {
+        Long first = getNextValue(name);
+        if (first == null) {
+            first = (IdSequence.COMMENTS.equals(name) ? getMaxCommentId() : 0) + 1;
+            insertSequence(new IdSequence(name, first));
+        }
+        advance(name, count);
+        return first;
+    }
+}
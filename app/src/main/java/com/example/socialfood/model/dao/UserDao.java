@@ -3,9 +3,11 @@ package com.example.socialfood.model.dao;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
-import androidx.room.Update;
+import androidx.room.Transaction;
 
+import com.example.socialfood.model.database.CounterTriggers;
 import com.example.socialfood.model.entities.User;
 
 import java.util.List;
@@ -34,12 +36,14 @@ public interface UserDao {
     void insertUser(User users);
 
     /**
-     * Updates an existing user in the database
+     * Updates an existing user in the database. The counters followersCount, followingCount and
+     * postsCount are left untouched, they are maintained by the database triggers.
      * 
      * @param user The User entity to update
      */
-    @Update
-    void updateUsers(User user);
+    default void updateUsers(User user) {
+        updateUserRow(user);
+    }
 
     /**
      * Deletes a user from the database
@@ -67,4 +71,83 @@ public interface UserDao {
     @Query("SELECT * FROM user where uid = :uid")
     User getUserbyId(int uid);
 
+    /**
+     * Inserts several users in a single transaction. Rows that conflict with an existing
+     * primary key or unique index are skipped instead of failing the whole batch.
+     * 
+     * @param users The User entities to insert
+     * @return The row ID of each inserted user, -1 for every skipped one
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    List<Long> insertUsers(List<User> users);
+
+    /**
+     * Updates a single user and reports whether a row was changed. The counters are left
+     * untouched.
+     * 
+     * @param user The User entity to update
+     * @return The number of updated rows
+     */
+    default int updateUserRow(User user) {
+        return updateUserProfile(user.getUid(), user.getUsername(), user.getProfilImage(),
+                user.getBio(), user.getPassword());
+    }
+
+    /**
+     * Updates every column of a user except the trigger-maintained counters
+     * 
+     * @return The number of updated rows
+     */
+    @Query("UPDATE user SET username = :username, profilImage = :profilImage, bio = :bio, "
+            + "password = :password WHERE uid = :uid")
+    int updateUserProfile(int uid, String username, String profilImage, String bio,
+            String password);
+
+    /**
+     * Rebuilds followersCount, followingCount and postsCount of every user from the follow and
+     * post tables
+     * 
+     * @return The number of users that were reconciled
+     */
+    @Query(CounterTriggers.RECONCILE_USERS)
+    int reconcileCounters();
+
+    /**
+     * Updates several users in a single transaction
+     * 
+     * @param users The User entities to update
+     * @return For each user, whether a matching row was updated
+     */
+    @Transaction
+    default boolean[] updateUsers(List<User> users) {
+        boolean[] results = new boolean[users.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = updateUserRow(users.get(i)) > 0;
+        }
+        return results;
+    }
+
+    /**
+     * Deletes a single user and reports whether a row was removed
+     * 
+     * @param user The User entity to delete
+     * @return The number of deleted rows
+     */
+    @Delete
+    int deleteUserRow(User user);
+
+    /**
+     * Deletes several users in a single transaction
+     * 
+     * @param users The User entities to delete
+     * @return For each user, whether a matching row was deleted
+     */
+    @Transaction
+    default boolean[] deleteUsers(List<User> users) {
+        boolean[] results = new boolean[users.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = deleteUserRow(users.get(i)) > 0;
+        }
+        return results;
+    }
 }
@@ -5,13 +5,20 @@ import androidx.room.RoomDatabase;
 
 import com.example.socialfood.model.dao.CommentDao;
 import com.example.socialfood.model.dao.FollowDao;
+import com.example.socialfood.model.dao.IngredientDao;
 import com.example.socialfood.model.dao.LikeDao;
 import com.example.socialfood.model.dao.PostDao;
+import com.example.socialfood.model.dao.SequenceDao;
 import com.example.socialfood.model.dao.UserDao;
 import com.example.socialfood.model.entities.Comment;
 import com.example.socialfood.model.entities.Follow;
+import com.example.socialfood.model.entities.IdSequence;
+import com.example.socialfood.model.entities.Ingredient;
 import com.example.socialfood.model.entities.Like;
 import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.entities.PostFts;
+import com.example.socialfood.model.entities.PostIngredient;
+import com.example.socialfood.model.entities.PostLocation;
 import com.example.socialfood.model.entities.User;
 
 /**
@@ -19,7 +26,8 @@ import com.example.socialfood.model.entities.User;
  * different entities.
  */
 @Database(entities = { User.class, Post.class, Comment.class, Like.class,
-        Follow.class }, version = 9)
+        Follow.class, PostFts.class, Ingredient.class, PostIngredient.class,
+        PostLocation.class, IdSequence.class }, version = 17)
 public abstract class AppDatabase extends RoomDatabase {
     /**
      * Gets the DAO for User operations
@@ -55,4 +63,18 @@ public abstract class AppDatabase extends RoomDatabase {
      * @return FollowDao instance for handling follow relationship database operations
      */
     public abstract FollowDao followDao();
+
+    /**
+     * Gets the DAO for Ingredient operations
+     * 
+     * @return IngredientDao instance for ingredient lookups and ingredient filters over posts
+     */
+    public abstract IngredientDao ingredientDao();
+
+    /**
+     * Gets the DAO for the ID sequences
+     * 
+     * @return SequenceDao instance for reserving blocks of comment IDs
+     */
+    public abstract SequenceDao sequenceDao();
 }
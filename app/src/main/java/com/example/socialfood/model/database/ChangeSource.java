@@ -0,0 +1,18 @@
+package com.example.socialfood.model.database;
+
+/**
+ * A source of changes that Room's invalidation tracker does not see, for example state kept in
+ * memory until it is written. A {@link LiveQuery} observing such a source runs again when it
+ * changes, just as after a write to one of its tables.
+ */
+public interface ChangeSource {
+
+    /**
+     * Registers a listener called after every change. The listener may be called on any thread
+     * and must return quickly.
+     *
+     * @param listener The listener
+     * @return The subscription to close when the notifications are no longer needed
+     */
+    Subscription addChangeListener(Runnable listener);
+}
@@ -0,0 +1,102 @@
+package com.example.socialfood.model.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * SQLite triggers that keep the denormalized counters exact: post.likeCount, post.commentCount,
+ * user.followersCount, user.followingCount and user.postsCount. Every insert into or delete from
+ * like_table, comment, follows and post adjusts the affected counter in the same statement, so
+ * the counters can neither race nor drift as long as all writes go through SQLite.
+ *
+ * <p>
+ * The RECONCILE statements rebuild every counter from the base tables. They are run by the
+ * migration that introduced the triggers and can be run again through the DAOs at any time.
+ * </p>
+ */
+public final class CounterTriggers {
+
+    /**
+     * Recomputes post.likeCount and post.commentCount from like_table and comment
+     */
+    public static final String RECONCILE_POSTS = "UPDATE post SET "
+            + "likeCount = (SELECT COUNT(*) FROM like_table "
+            + "WHERE like_table.postId = post.postId), "
+            + "commentCount = (SELECT COUNT(*) FROM comment WHERE comment.postId = post.postId)";
+
+    /**
+     * Recomputes user.followersCount, user.followingCount and user.postsCount from follows and
+     * post
+     */
+    public static final String RECONCILE_USERS = "UPDATE user SET "
+            + "followersCount = (SELECT COUNT(*) FROM follows WHERE follows.followedId = user.uid), "
+            + "followingCount = (SELECT COUNT(*) FROM follows WHERE follows.followerId = user.uid), "
+            + "postsCount = (SELECT COUNT(*) FROM post WHERE post.uid = user.uid)";
+
+    private static final String[] CREATE_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS `like_count_insert` AFTER INSERT ON `like_table` BEGIN "
+                    + "UPDATE post SET likeCount = likeCount + 1 WHERE postId = NEW.postId; END",
+            "CREATE TRIGGER IF NOT EXISTS `like_count_delete` AFTER DELETE ON `like_table` BEGIN "
+                    + "UPDATE post SET likeCount = MAX(likeCount - 1, 0) "
+                    + "WHERE postId = OLD.postId; END",
+            "CREATE TRIGGER IF NOT EXISTS `comment_count_insert` AFTER INSERT ON `comment` BEGIN "
+                    + "UPDATE post SET commentCount = commentCount + 1 "
+                    + "WHERE postId = NEW.postId; END",
+            "CREATE TRIGGER IF NOT EXISTS `comment_count_delete` AFTER DELETE ON `comment` BEGIN "
+                    + "UPDATE post SET commentCount = MAX(commentCount - 1, 0) "
+                    + "WHERE postId = OLD.postId; END",
+            "CREATE TRIGGER IF NOT EXISTS `follow_count_insert` AFTER INSERT ON `follows` BEGIN "
+                    + "UPDATE user SET followersCount = followersCount + 1 "
+                    + "WHERE uid = NEW.followedId; "
+                    + "UPDATE user SET followingCount = followingCount + 1 "
+                    + "WHERE uid = NEW.followerId; END",
+            "CREATE TRIGGER IF NOT EXISTS `follow_count_delete` AFTER DELETE ON `follows` BEGIN "
+                    + "UPDATE user SET followersCount = MAX(followersCount - 1, 0) "
+                    + "WHERE uid = OLD.followedId; "
+                    + "UPDATE user SET followingCount = MAX(followingCount - 1, 0) "
+                    + "WHERE uid = OLD.followerId; END",
+            "CREATE TRIGGER IF NOT EXISTS `post_count_insert` AFTER INSERT ON `post` BEGIN "
+                    + "UPDATE user SET postsCount = postsCount + 1 WHERE uid = NEW.uid; END",
+            "CREATE TRIGGER IF NOT EXISTS `post_count_delete` AFTER DELETE ON `post` BEGIN "
+                    + "UPDATE user SET postsCount = MAX(postsCount - 1, 0) WHERE uid = OLD.uid; END"
+    };
+
+    /**
+     * Installs the triggers whenever the database is opened. Creating them on open rather than
+     * only in onCreate also covers databases rebuilt by a destructive migration. Recursive
+     * triggers are switched on so that rows removed by INSERT OR REPLACE (PostDao.insertPost)
+     * fire the delete triggers as well.
+     */
+    public static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("PRAGMA recursive_triggers = ON");
+            create(db);
+        }
+    };
+
+    private CounterTriggers() {
+    }
+
+    /**
+     * Creates all counter triggers that do not exist yet
+     *
+     * @param db The database to create the triggers in
+     */
+    public static void create(@NonNull SupportSQLiteDatabase db) {
+        for (String sql : CREATE_TRIGGERS) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Rebuilds every counter from the base tables
+     *
+     * @param db The database to reconcile
+     */
+    public static void reconcile(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL(RECONCILE_POSTS);
+        db.execSQL(RECONCILE_USERS);
+    }
+}
@@ -4,20 +4,82 @@ import android.content.Context;
 import android.util.Log;
 
 import androidx.room.Room;
+import androidx.room.RoomDatabase;
+
+import com.example.socialfood.model.cache.BudgetedCache;
+import com.example.socialfood.model.cache.CacheBudgetManager;
+import com.example.socialfood.model.cache.CachePriority;
+import com.example.socialfood.model.dao.SequenceDao;
+import com.example.socialfood.model.entities.IdSequence;
+import com.example.socialfood.model.graph.FollowGraph;
+import com.example.socialfood.model.handler.IdAllocator;
+import com.example.socialfood.model.handler.LikeHandler;
+import com.example.socialfood.model.handler.LikeWriteBehind;
+import com.example.socialfood.model.handler.SingleFlight;
+import com.example.socialfood.model.handler.PostIdGenerator;
+import com.example.socialfood.model.handler.UserCache;
+import com.example.socialfood.model.metrics.MetricsRegistry;
+import com.example.socialfood.model.spatial.PostGrid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Singleton class for managing database access. Provides centralized access to Room database
  * instance and handles database migrations.
+ *
+ * <p>
+ * The database runs in write-ahead logging mode, so readers never wait for a writer. All handlers
+ * share the {@link DatabaseExecutors} of their DatabaseClient: reads run on a pool of
+ * {@link #READER_THREADS} threads and writes on a single writer thread. A long write therefore no
+ * longer blocks short reads, and writes do not contend for the SQLite write lock. Writes arriving
+ * close together are committed in one transaction by a {@link GroupCommitWriter}.
+ * </p>
+ *
+ * <p>
+ * The in-memory indices and caches of the database register with the {@link CacheBudgetManager}
+ * of the process, which checks their total size on the timer thread and trims them when memory
+ * runs low.
+ * </p>
+ *
+ * <p>
+ * The singleton lives as long as the process. {@link #shutdown()} lets the queued writes finish,
+ * stops the threads and closes the database; handlers created before must not be used after it.
+ * </p>
  */
 public class DatabaseClient {
     private static DatabaseClient instance;
+    private static DatabaseTuning tuning = DatabaseTuning.DEFAULT;
     private final AppDatabase database;
+    private PostGrid postGrid;
+    private final FollowGraph followGraph = new FollowGraph();
+    private final PostIdGenerator postIdGenerator = new PostIdGenerator(0);
+    private IdAllocator commentIdAllocator;
+    private final DatabaseExecutors executors = new DatabaseExecutors();
+    private final SingleFlight singleFlight = new SingleFlight(executors::writeSequence);
+    private final GroupCommitWriter groupCommitWriter;
+    private final MetricsRegistry metrics = new MetricsRegistry(executors);
+    private LikeWriteBehind likeWriteBehind;
+    private UserCache userCache;
+    private final CacheBudgetManager cacheBudget;
+    private final List<Subscription> budgetSubscriptions = new ArrayList<>();
     private static final String DATABASE_NAME = "social_food_database";
     private static final String TAG = "DatabaseClient";
+    private static final int ID_BLOCK_TIMEOUT_SECONDS = 5;
+
+    /** Number of reader threads, matching the size of Android's WAL connection pool */
+    public static final int READER_THREADS = DatabaseExecutors.READER_THREADS;
+
+    /** Maximum time {@link #close()} waits for the queued database work */
+    public static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
 
     /**
      * Private constructor to initialize the database. Sets up the Room database with migration
-     * strategies.
+     * strategies, the counter triggers, the triggers of the search and spatial indices and the
+     * current {@link DatabaseTuning}. Versions covered by {@link Migrations} keep their data, older
+     * versions are recreated.
      *
      * @param context Application context used to create the database
      */
@@ -26,7 +88,24 @@ public class DatabaseClient {
         database = Room.databaseBuilder(
                 context.getApplicationContext(),
                 AppDatabase.class,
-                "social_food_database").fallbackToDestructiveMigration().build();
+                "social_food_database")
+                .addMigrations(Migrations.ALL)
+                .addCallback(CounterTriggers.CALLBACK)
+                .addCallback(SearchIndex.CALLBACK)
+                .addCallback(SpatialIndex.CALLBACK)
+                .addCallback(tuning.callback())
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .setQueryExecutor(executors.reads())
+                .setTransactionExecutor(executors.writes())
+                .fallbackToDestructiveMigration()
+                .build();
+        groupCommitWriter = new GroupCommitWriter(executors.writes(), executors.timer(),
+                database::runInTransaction);
+        cacheBudget = CacheBudgetManager.getInstance(context);
+        budgetSubscriptions.add(
+                cacheBudget.register("FollowGraph", CachePriority.HIGH, followGraph));
+        budgetSubscriptions.add(cacheBudget.startChecks(executors.timer(),
+                CacheBudgetManager.DEFAULT_CHECK_INTERVAL_MS));
 
         Log.d(TAG, "Database initialized: " + database.isOpen());
 
@@ -49,8 +128,28 @@ public class DatabaseClient {
         return instance;
     }
 
+    /**
+     * Sets the SQLite tunables. Only takes effect if called before the first
+     * {@link #getInstance(Context)}.
+     *
+     * @param databaseTuning The page cache and mmap sizes to apply
+     * @throws IllegalArgumentException if databaseTuning is null
+     */
+    public static synchronized void setTuning(DatabaseTuning databaseTuning) {
+        if (databaseTuning == null) {
+            throw new IllegalArgumentException("Tuning cannot be null");
+        }
+        if (instance != null) {
+            Log.w(TAG, "Database already open, " + databaseTuning + " applies from next start");
+        }
+        tuning = databaseTuning;
+    }
+
     public DatabaseClient(AppDatabase appDatabase) {
         this.database = appDatabase;
+        this.groupCommitWriter = new GroupCommitWriter(executors.writes(), executors.timer(),
+                database::runInTransaction);
+        this.cacheBudget = null;
     }
 
     /**
@@ -62,6 +161,229 @@ public class DatabaseClient {
         return database;
     }
 
+    /**
+     * Gets the in-memory grid of post locations used for nearest-post queries. The grid belongs
+     * to the database, so all handlers of the same database see the same grid. The post and user
+     * handlers apply every post they insert, move or delete, also the posts deleted by the
+     * cascade of a deleted user, as soon as the write has committed.
+     *
+     * @return The PostGrid of this database, empty until it is first loaded
+     */
+    public synchronized PostGrid getPostGrid() {
+        if (postGrid == null) {
+            PostGrid grid = new PostGrid();
+            registerCache("PostGrid", CachePriority.HIGH, grid);
+            postGrid = grid;
+        }
+        return postGrid;
+    }
+
+    /**
+     * Gets the in-memory index of follow relationships used for follow checks and ID lists. The
+     * graph belongs to the database, so all handlers of the same database see the same graph.
+     *
+     * @return The FollowGraph of this database, empty until it is first loaded
+     */
+    public FollowGraph getFollowGraph() {
+        return followGraph;
+    }
+
+    /**
+     * Gets the generator of post IDs. There must be exactly one generator per database and node,
+     * so all handlers of the same database share this one.
+     *
+     * @return The PostIdGenerator of this database, not yet advanced past the stored posts
+     */
+    public PostIdGenerator getPostIdGenerator() {
+        return postIdGenerator;
+    }
+
+    /**
+     * Gets the allocator of comment IDs. All handlers of the same database must share it, so that
+     * the process reserves one block of the comment sequence at a time instead of one per handler.
+     *
+     * @return The IdAllocator of this database, reserving blocks of {@link IdSequence#COMMENTS}
+     * through the write executor
+     */
+    public synchronized IdAllocator getCommentIdAllocator() {
+        if (commentIdAllocator == null) {
+            SequenceDao sequenceDao = database.sequenceDao();
+            commentIdAllocator = new IdAllocator(count -> metrics.submit(groupCommitWriter,
+                    "SequenceDao.reserveBlock",
+                    () -> sequenceDao.reserveBlock(IdSequence.COMMENTS, count))
+                    .get(ID_BLOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        return commentIdAllocator;
+    }
+
+    /**
+     * Gets the buffer of like toggles not yet written. All handlers of the same database must
+     * share it, so that every read sees the same pending likes.
+     *
+     * @return The LikeWriteBehind of this database, flushing to the like table through the
+     * group commit writer, in order with the other writes
+     */
+    public synchronized LikeWriteBehind getLikeWriteBehind() {
+        if (likeWriteBehind == null) {
+            likeWriteBehind = new LikeWriteBehind(
+                    new LikeHandler.TableStore(database.likeDao()), groupCommitWriter::write,
+                    executors.timer());
+            registerCache("LikedPostSet", CachePriority.HIGH, likeWriteBehind.getLikedPosts());
+        }
+        return likeWriteBehind;
+    }
+
+    /**
+     * Gets the cache of users looked up by ID or username. All handlers of the same database share
+     * it; it is cleared whenever the user table changes, including the counters kept by triggers.
+     *
+     * @return The UserCache of this database, holding {@link UserCache#DEFAULT_CAPACITY} users
+     */
+    public synchronized UserCache getUserCache() {
+        if (userCache == null) {
+            UserCache cache = new UserCache(UserCache.DEFAULT_CAPACITY);
+            LiveQuery.observeTables(database.getInvalidationTracker(), executors.reads(),
+                    Runnable::run, cache::invalidateAll, "user");
+            registerCache("UserCache", CachePriority.NORMAL, cache);
+            userCache = cache;
+        }
+        return userCache;
+    }
+
+    /**
+     * Lets the cache budget govern a cache created on demand. Databases created for tests have no
+     * budget.
+     */
+    private void registerCache(String name, CachePriority priority, BudgetedCache cache) {
+        if (cacheBudget != null) {
+            budgetSubscriptions.add(cacheBudget.register(name, priority, cache));
+        }
+    }
+
+    /**
+     * Gets the layer through which handlers let concurrent identical reads share one query. All
+     * handlers of the same database must share it, so that reads of different handlers coalesce.
+     *
+     * @return The SingleFlight of this database, ordered against its write executor
+     */
+    public SingleFlight getSingleFlight() {
+        return singleFlight;
+    }
+
+    /**
+     * Gets the metrics recorded by all handlers of this database: latency, exceptions, timeouts and
+     * rows per DAO method, together with the queue statistics of the executors
+     *
+     * @return The MetricsRegistry of this database
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the executor shared by all handlers for reads
+     *
+     * @return A pool of {@link #READER_THREADS} threads
+     */
+    public ExecutorService getReadExecutor() {
+        return executors.reads();
+    }
+
+    /**
+     * Gets the executor shared by all handlers for writes. Writes run one at a time, by priority
+     * class and within a class in the order they were submitted, and writes submitted close
+     * together commit in one transaction.
+     *
+     * @return The GroupCommitWriter in front of the single writer thread
+     */
+    public ExecutorService getWriteExecutor() {
+        return groupCommitWriter;
+    }
+
+    /**
+     * Gets the executor shared by all handlers and controllers for the blocking calls behind their
+     * asynchronous methods
+     *
+     * @return The caller pool of {@link DatabaseExecutors}
+     */
+    public ExecutorService getCallerExecutor() {
+        return executors.calls();
+    }
+
+    /**
+     * Gets the executors shared by all handlers, e.g. to read their queue depths and counters
+     *
+     * @return The DatabaseExecutors of this database
+     */
+    public DatabaseExecutors getExecutors() {
+        return executors;
+    }
+
+    /**
+     * Stops accepting database work, flushes the pending likes, waits up to
+     * {@link #SHUTDOWN_TIMEOUT_SECONDS} for the queued writes and reads, and closes the database.
+     * Handlers of this client fail every call after it.
+     *
+     * @return true if all queued work finished before the database was closed
+     */
+    public boolean close() {
+        boolean drained = false;
+        try {
+            drained = executors.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                    this::flushPendingWrites);
+            if (!drained) {
+                Log.w(TAG, "Database work still queued after " + SHUTDOWN_TIMEOUT_SECONDS
+                        + "s, cancelled");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.e(TAG, "Interrupted while waiting for database work", e);
+        }
+        Log.d(TAG, "Closing database: " + executors.readStats() + " " + executors.writeStats()
+                + " " + executors.callStats() + " " + singleFlight + " " + groupCommitWriter);
+        if (likeWriteBehind != null) {
+            Log.d(TAG, "Deferred likes: " + likeWriteBehind);
+        }
+        if (userCache != null) {
+            Log.d(TAG, "Cached users: " + userCache);
+        }
+        Log.d(TAG, metrics.snapshot().toString());
+        synchronized (this) {
+            for (Subscription subscription : budgetSubscriptions) {
+                subscription.close();
+            }
+            budgetSubscriptions.clear();
+        }
+        if (cacheBudget != null) {
+            Log.d(TAG, cacheBudget.snapshot().toString());
+        }
+        database.close();
+        return drained;
+    }
+
+    /**
+     * Starts writing the writes deferred in memory, without waiting for them. Called when the app
+     * goes to the background, as deferred writes are lost if the process is killed. The like
+     * toggles are queued first, so that they join the group committed right away.
+     */
+    public synchronized void flushPendingWrites() {
+        if (likeWriteBehind != null) {
+            likeWriteBehind.flush();
+        }
+        groupCommitWriter.flush();
+    }
+
+    /**
+     * Closes the singleton instance, if any, see {@link #close()}. The next
+     * {@link #getInstance(Context)} opens the database again.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
     /**
      * Clears the singleton instance (for testing purposes)
      */
@@ -0,0 +1,587 @@
+package com.example.socialfood.model.database;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The threads that run the database work of all handlers of one database: a pool of reader
+ * threads and a single writer thread, so writes run one at a time in the order they were
+ * submitted within their priority class. A third pool of caller threads runs the blocking
+ * handler and controller methods behind the asynchronous APIs, so that the waiting happens there
+ * and never on the main thread.
+ * Callers wait for readers and the writer, never the other way round. A timer thread hands
+ * delayed tasks, such as deferred flushes, to the other executors; it never touches the database
+ * itself.
+ *
+ * <p>
+ * Threads are named {@code db-read-N}, {@code db-write-1}, {@code db-call-N} and
+ * {@code db-timer-1} so they can be told apart in traces. All queues are bounded. A task
+ * submitted to a full queue, or after {@link #shutdown}, is rejected with a
+ * {@link RejectedExecutionException}, which handlers report like any other database error instead
+ * of letting the backlog grow without limit. Every pool counts its submitted, completed, failed
+ * and rejected tasks and the peak queue depth, see {@link Stats}.
+ * </p>
+ *
+ * <p>
+ * Every task runs under the {@link TaskContext} of the thread that submitted it. Waiting tasks
+ * are ordered by their {@link TaskPriority}, so a read for a visible screen overtakes queued
+ * background work, and tasks of the same class keep their submission order. A task submitted
+ * with {@code submit()} is dropped without running if its deadline passes or its scope is
+ * cancelled while it waits. The pools measure the queue wait of every class.
+ * </p>
+ */
+public class DatabaseExecutors {
+
+    /** Default number of reader threads, matching the size of Android's WAL connection pool */
+    public static final int READER_THREADS = 4;
+
+    /** Default number of reads that may wait for a reader thread */
+    public static final int READ_QUEUE_CAPACITY = 1024;
+
+    /** Default number of writes that may wait for the writer thread */
+    public static final int WRITE_QUEUE_CAPACITY = 1024;
+
+    /** Number of caller threads, one more than the readers so a write can wait beside them */
+    public static final int CALLER_THREADS = READER_THREADS + 1;
+
+    /** Number of asynchronous calls that may wait for a caller thread */
+    public static final int CALL_QUEUE_CAPACITY = 1024;
+
+    private final Pool reads;
+    private final Pool writes;
+    private final Pool calls;
+    private final ScheduledThreadPoolExecutor timer;
+
+    /**
+     * Creates the executors with the default thread count and queue capacities
+     */
+    public DatabaseExecutors() {
+        this(READER_THREADS, READ_QUEUE_CAPACITY, WRITE_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates the executors
+     *
+     * @param readerThreads The number of reader threads
+     * @param readQueueCapacity The number of reads that may wait for a reader thread
+     * @param writeQueueCapacity The number of writes that may wait for the writer thread
+     * @throws IllegalArgumentException if a count is not positive
+     */
+    public DatabaseExecutors(int readerThreads, int readQueueCapacity, int writeQueueCapacity) {
+        if (readerThreads <= 0 || readQueueCapacity <= 0 || writeQueueCapacity <= 0) {
+            throw new IllegalArgumentException(
+                    "Thread count and queue capacities must be positive");
+        }
+        this.timer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("db-timer"));
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.reads = new Pool("db-read", readerThreads, readQueueCapacity, timer);
+        this.writes = new Pool("db-write", 1, writeQueueCapacity, timer);
+        this.calls = new Pool("db-call", CALLER_THREADS, CALL_QUEUE_CAPACITY, timer);
+    }
+
+    /**
+     * Gets the executor for reads
+     *
+     * @return The reader pool
+     */
+    public ExecutorService reads() {
+        return reads;
+    }
+
+    /**
+     * Gets the executor for writes. Writes of the same priority class run in the order they were
+     * submitted.
+     *
+     * @return The single writer thread
+     */
+    public ExecutorService writes() {
+        return writes;
+    }
+
+    /**
+     * Gets the executor for the blocking calls behind the asynchronous APIs. Tasks on it may wait
+     * for reads and writes, but reads and writes must never wait for it.
+     *
+     * @return The caller pool
+     */
+    public ExecutorService calls() {
+        return calls;
+    }
+
+    /**
+     * Gets the timer for delayed tasks. Timer tasks must only hand work to the other executors,
+     * never run it themselves, so that one slow task cannot delay the others.
+     *
+     * @return The single timer thread
+     */
+    public ScheduledExecutorService timer() {
+        return timer;
+    }
+
+    /**
+     * Gets the counters of the reader pool
+     *
+     * @return A snapshot of the counters
+     */
+    public Stats readStats() {
+        return reads.stats();
+    }
+
+    /**
+     * Gets the counters of the writer thread
+     *
+     * @return A snapshot of the counters
+     */
+    public Stats writeStats() {
+        return writes.stats();
+    }
+
+    /**
+     * Gets the counters of the caller pool
+     *
+     * @return A snapshot of the counters
+     */
+    public Stats callStats() {
+        return calls.stats();
+    }
+
+    /**
+     * Gets a counter that increases when a write starts and again when it ends, so it is odd while
+     * a write runs. A read that started at an even value and sees the same value later did not
+     * overlap any write; used to decide whether a read result may be shared.
+     *
+     * @return The current value of the counter
+     */
+    public long writeSequence() {
+        return writes.transitions.get();
+    }
+
+    /**
+     * Checks whether no task is running or waiting on any of the executors, for example for UI
+     * tests that must wait for asynchronous calls
+     *
+     * @return true if all executors are idle
+     */
+    public boolean isIdle() {
+        return calls.isIdle() && writes.isIdle() && reads.isIdle();
+    }
+
+    /**
+     * Stops accepting tasks and waits for the queued ones. Queued calls run first, as they may
+     * still submit reads and writes, then the queued writes and reads. Nothing that was accepted
+     * is silently dropped unless the timeout expires; then the remaining tasks are cancelled.
+     *
+     * @param timeout The maximum time to wait for the queued tasks
+     * @param unit The unit of the timeout
+     * @return true if all queued tasks finished in time
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        return shutdown(timeout, unit, () -> { });
+    }
+
+    /**
+     * Stops accepting tasks and waits for the queued ones like {@link #shutdown(long, TimeUnit)},
+     * running a last task once the calls have finished and before writes are refused, for example
+     * to flush writes that were deferred in memory. Delayed timer tasks are dropped.
+     *
+     * @param timeout The maximum time to wait for the queued tasks
+     * @param unit The unit of the timeout
+     * @param afterCalls Runs on the calling thread once no more calls run, may still submit writes
+     * @return true if all queued tasks finished in time
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public boolean shutdown(long timeout, TimeUnit unit, Runnable afterCalls)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        timer.shutdownNow();
+        calls.shutdown();
+        boolean terminated = calls.awaitTermination(timeout, unit);
+        afterCalls.run();
+        reads.shutdown();
+        writes.shutdown();
+        terminated = terminated
+                && writes.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)
+                && reads.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        if (!terminated) {
+            calls.shutdownNow();
+            reads.shutdownNow();
+            writes.shutdownNow();
+        }
+        return terminated;
+    }
+
+    /**
+     * Checks whether {@link #shutdown} was called
+     *
+     * @return true if no more tasks are accepted
+     */
+    public boolean isShutdown() {
+        return reads.isShutdown() && writes.isShutdown() && calls.isShutdown()
+                && timer.isShutdown();
+    }
+
+    /**
+     * Counters of one executor at one point in time
+     */
+    public static final class Stats {
+        private final String name;
+        private final long submitted;
+        private final long completed;
+        private final long failed;
+        private final long rejected;
+        private final long dropped;
+        private final int queued;
+        private final int peakQueued;
+        private final int active;
+        private final Map<TaskPriority, QueueWait> queueWaits;
+
+        Stats(String name, long submitted, long completed, long failed, long rejected,
+                long dropped, int queued, int peakQueued, int active,
+                Map<TaskPriority, QueueWait> queueWaits) {
+            this.name = name;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.failed = failed;
+            this.rejected = rejected;
+            this.dropped = dropped;
+            this.queued = queued;
+            this.peakQueued = peakQueued;
+            this.active = active;
+            this.queueWaits = queueWaits;
+        }
+
+        /** @return The thread name prefix of the executor */
+        public String getName() {
+            return name;
+        }
+
+        /** @return The number of tasks submitted, including rejected ones */
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        /** @return The number of tasks that left the queue, including dropped ones */
+        public long getCompleted() {
+            return completed;
+        }
+
+        /** @return The number of tasks that ended with an exception */
+        public long getFailed() {
+            return failed;
+        }
+
+        /** @return The number of tasks rejected because the queue was full or shut down */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /** @return The number of tasks dropped as their deadline passed or scope was cancelled */
+        public long getDropped() {
+            return dropped;
+        }
+
+        /** @return The number of tasks waiting for a thread */
+        public int getQueued() {
+            return queued;
+        }
+
+        /** @return The highest number of tasks that waited for a thread at the same time */
+        public int getPeakQueued() {
+            return peakQueued;
+        }
+
+        /** @return The number of tasks running right now */
+        public int getActive() {
+            return active;
+        }
+
+        /**
+         * Gets how long the tasks of a priority class waited for a thread
+         *
+         * @param priority The priority class
+         * @return The queue wait of the tasks of the class that started
+         */
+        public QueueWait getQueueWait(TaskPriority priority) {
+            return queueWaits.get(priority);
+        }
+
+        @Override
+        public String toString() {
+            return name + "{submitted=" + submitted + ", completed=" + completed + ", failed="
+                    + failed + ", rejected=" + rejected + ", dropped=" + dropped + ", queued="
+                    + queued + ", peakQueued=" + peakQueued + ", active=" + active + ", wait="
+                    + queueWaits + "}";
+        }
+    }
+
+    /**
+     * The time the tasks of one priority class waited for a thread, at one point in time
+     */
+    public static final class QueueWait {
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        QueueWait(long count, long totalNanos, long maxNanos) {
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /** @return The number of tasks that started */
+        public long getCount() {
+            return count;
+        }
+
+        /** @return The summed wait of all started tasks in nanoseconds */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /** @return The longest wait in nanoseconds */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /** @return The mean wait in milliseconds, 0 if no task started */
+        public double getMeanMillis() {
+            return count == 0 ? 0 : totalNanos / 1e6 / count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.US, "{count=%d, meanMs=%.2f, maxMs=%.2f}",
+                    count, getMeanMillis(), maxNanos / 1e6);
+        }
+    }
+
+    /**
+     * Fixed-size pool with a bounded priority queue, named threads and counters
+     */
+    private static final class Pool extends ThreadPoolExecutor {
+        private final String name;
+        private final ScheduledExecutorService timer;
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicInteger peakQueued = new AtomicInteger();
+        private final AtomicLong transitions = new AtomicLong();
+        private final AtomicLong sequence = new AtomicLong();
+        private final Map<TaskPriority, WaitCounter> waits = new EnumMap<>(TaskPriority.class);
+
+        Pool(String name, int threads, int queueCapacity, ScheduledExecutorService timer) {
+            super(threads, threads, 0, TimeUnit.MILLISECONDS, new TaskQueue(queueCapacity),
+                    new NamedThreadFactory(name));
+            this.name = name;
+            this.timer = timer;
+            for (TaskPriority priority : TaskPriority.values()) {
+                waits.put(priority, new WaitCounter());
+            }
+            setRejectedExecutionHandler((task, executor) -> {
+                rejected.incrementAndGet();
+                throw new RejectedExecutionException(executor.isShutdown()
+                        ? name + " is shut down"
+                        : name + " queue is full (" + queueCapacity + " tasks)");
+            });
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            submitted.incrementAndGet();
+            Task task = new Task(this, command, TaskContext.current(),
+                    sequence.getAndIncrement());
+            super.execute(task);
+            peakQueued.accumulateAndGet(getQueue().size(), Math::max);
+            if (task.future != null && task.context.hasDeadline()) {
+                try {
+                    task.expiry = timer.schedule(task::drop, task.context.remainingNanos(),
+                            TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; the deadline is still checked when the task starts
+                }
+            }
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            super.beforeExecute(thread, task);
+            transitions.incrementAndGet();
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable thrown) {
+            super.afterExecute(task, thrown);
+            transitions.incrementAndGet();
+            completed.incrementAndGet();
+            Future<?> future = task instanceof Task ? ((Task) task).future : null;
+            if (thrown == null && future != null) {
+                // Tasks submitted with submit() keep their exception in the future
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    thrown = e.getCause();
+                } catch (CancellationException e) {
+                    // Cancelled tasks did not fail
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (thrown != null) {
+                failed.incrementAndGet();
+            }
+        }
+
+        boolean isIdle() {
+            return getActiveCount() == 0 && getQueue().isEmpty();
+        }
+
+        Stats stats() {
+            Map<TaskPriority, QueueWait> queueWaits = new EnumMap<>(TaskPriority.class);
+            for (Map.Entry<TaskPriority, WaitCounter> entry : waits.entrySet()) {
+                queueWaits.put(entry.getKey(), entry.getValue().snapshot());
+            }
+            return new Stats(name, submitted.get(), completed.get(), failed.get(), rejected.get(),
+                    dropped.get(), getQueue().size(), peakQueued.get(), getActiveCount(),
+                    queueWaits);
+        }
+    }
+
+    /**
+     * A task waiting in a pool, ordered by priority class and then by submission
+     */
+    private static final class Task implements Runnable, Comparable<Task> {
+        private static final int QUEUED = 0;
+        private static final int STARTED = 1;
+        private static final int DROPPED = 2;
+
+        private final Pool pool;
+        private final Runnable command;
+        private final Future<?> future;
+        private final TaskContext context;
+        private final long sequence;
+        private final long enqueuedNanos = System.nanoTime();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private volatile ScheduledFuture<?> expiry;
+
+        Task(Pool pool, Runnable command, TaskContext context, long sequence) {
+            this.pool = pool;
+            this.command = command;
+            this.future = command instanceof Future<?> ? (Future<?>) command : null;
+            this.context = context;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(QUEUED, STARTED)) {
+                return;
+            }
+            ScheduledFuture<?> scheduledExpiry = expiry;
+            if (scheduledExpiry != null) {
+                scheduledExpiry.cancel(false);
+            }
+            if (future != null && context.isCancelled()) {
+                state.set(DROPPED);
+                future.cancel(false);
+                pool.dropped.incrementAndGet();
+                return;
+            }
+            pool.waits.get(context.getPriority()).record(System.nanoTime() - enqueuedNanos);
+            context.run(command);
+        }
+
+        /**
+         * Cancels the task if it has not started yet, so that its callers stop waiting at once
+         */
+        void drop() {
+            if (state.compareAndSet(QUEUED, DROPPED)) {
+                future.cancel(false);
+                pool.dropped.incrementAndGet();
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byPriority = context.getPriority().compareTo(other.context.getPriority());
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Priority queue holding at most a fixed number of tasks
+     */
+    private static final class TaskQueue extends PriorityBlockingQueue<Runnable> {
+        private final int capacity;
+
+        TaskQueue(int capacity) {
+            super(Math.min(capacity, 64));
+            this.capacity = capacity;
+        }
+
+        @Override
+        public boolean offer(Runnable task) {
+            // Only producers lock, and consumers only shrink the queue, so the check holds
+            synchronized (this) {
+                return size() < capacity && super.offer(task);
+            }
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return Math.max(0, capacity - size());
+        }
+    }
+
+    /**
+     * Sums the queue waits of one priority class
+     */
+    private static final class WaitCounter {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        QueueWait snapshot() {
+            return new QueueWait(count.get(), totalNanos.get(), maxNanos.get());
+        }
+    }
+
+    /**
+     * Creates threads named {@code <prefix>-1}, {@code <prefix>-2}, ...
+     */
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger next = new AtomicInteger(1);
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, prefix + "-" + next.getAndIncrement());
+        }
+    }
+}
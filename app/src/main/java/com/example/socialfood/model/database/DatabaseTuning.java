@@ -0,0 +1,96 @@
+package com.example.socialfood.model.database;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * SQLite tunables applied whenever the database is opened: the size of the page cache and the
+ * size of the memory-mapped region used for reads.
+ *
+ * <p>
+ * Both settings are per connection. They are applied to the connection Room opens first, which
+ * serves all writes and transactions. Additional read connections of the WAL connection pool keep
+ * the platform defaults, as Android offers no hook to configure them.
+ * </p>
+ */
+public final class DatabaseTuning {
+
+    /** Default page cache per connection in KiB */
+    public static final int DEFAULT_PAGE_CACHE_KB = 8 * 1024;
+
+    /** Default size of the memory-mapped region in bytes */
+    public static final long DEFAULT_MMAP_SIZE_BYTES = 64L * 1024 * 1024;
+
+    /** Tuning used unless {@link DatabaseClient#setTuning(DatabaseTuning)} is called */
+    public static final DatabaseTuning DEFAULT = new DatabaseTuning(DEFAULT_PAGE_CACHE_KB,
+            DEFAULT_MMAP_SIZE_BYTES);
+
+    private final int pageCacheKb;
+    private final long mmapSizeBytes;
+
+    /**
+     * Creates a tuning
+     *
+     * @param pageCacheKb The page cache per connection in KiB, 0 keeps the SQLite default
+     * @param mmapSizeBytes The memory-mapped region in bytes, 0 disables memory mapping
+     * @throws IllegalArgumentException if a value is negative
+     */
+    public DatabaseTuning(int pageCacheKb, long mmapSizeBytes) {
+        if (pageCacheKb < 0 || mmapSizeBytes < 0) {
+            throw new IllegalArgumentException("Tuning values cannot be negative");
+        }
+        this.pageCacheKb = pageCacheKb;
+        this.mmapSizeBytes = mmapSizeBytes;
+    }
+
+    public int getPageCacheKb() {
+        return pageCacheKb;
+    }
+
+    public long getMmapSizeBytes() {
+        return mmapSizeBytes;
+    }
+
+    /**
+     * Creates a callback applying this tuning whenever the database is opened
+     *
+     * @return The callback to register with the database builder
+     */
+    public RoomDatabase.Callback callback() {
+        return new RoomDatabase.Callback() {
+            @Override
+            public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                apply(db);
+            }
+        };
+    }
+
+    /**
+     * Applies the tuning to an open connection. PRAGMAs are run as queries, as they return the
+     * new value and execSQL rejects statements with results on some Android versions.
+     *
+     * @param db The connection to configure
+     */
+    public void apply(@NonNull SupportSQLiteDatabase db) {
+        if (pageCacheKb > 0) {
+            // A negative cache_size is read as KiB instead of pages
+            pragma(db, "PRAGMA cache_size = -" + pageCacheKb);
+        }
+        pragma(db, "PRAGMA mmap_size = " + mmapSizeBytes);
+    }
+
+    private static void pragma(SupportSQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.query(sql)) {
+            cursor.moveToFirst();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DatabaseTuning{pageCacheKb=" + pageCacheKb + ", mmapSizeBytes=" + mmapSizeBytes
+                + "}";
+    }
+}
@@ -0,0 +1,516 @@
+package com.example.socialfood.model.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The write executor of the handlers. Writes submitted within a short window, or until a group
+ * of {@code maxOps} writes is full, run on the writer thread inside one transaction, so that a
+ * burst of small writes such as a comment and the post counter it updates costs one journal sync
+ * instead of one per write. Every caller still gets its own future with its own result.
+ *
+ * <p>
+ * Durability: a write's future completes only after the transaction holding it has committed,
+ * with the journal and synchronous mode the database uses for every commit. A caller told that
+ * its write succeeded can therefore rely on it exactly as before. If the process dies before the
+ * commit, no write of the group is applied and none of their callers was told it succeeded. A
+ * group is atomic; other connections see all of its writes or none. The price is latency: a
+ * write waits up to the window for others to join it.
+ * </p>
+ *
+ * <p>
+ * Failures: if a write of a group throws, the whole group is rolled back and its writes run
+ * again one by one, each in its own transaction as without grouping. One failing write therefore
+ * never fails the others. Writes must only touch the database, as they may run twice.
+ * </p>
+ *
+ * <p>
+ * Waiting writes are ordered like the tasks of a {@link DatabaseExecutors} pool: by the priority
+ * class of their {@link TaskContext}, then in the order they were submitted, whether through
+ * {@link #submit} or {@link #write}. A group is handed to the writer thread under the highest
+ * priority waiting, so a visible write is neither queued behind background writes here nor behind
+ * other work on the writer thread. A write whose deadline passes or whose scope is cancelled
+ * before its group runs is dropped, like a queued task of {@link DatabaseExecutors}.
+ * </p>
+ */
+public class GroupCommitWriter extends AbstractExecutorService {
+
+    /**
+     * Runs a body in one database transaction, committing it if the body returns and rolling it
+     * back if it throws
+     */
+    public interface Transactions {
+
+        /**
+         * Runs the body in a transaction
+         *
+         * @param body The writes to commit together
+         */
+        void runInTransaction(Runnable body);
+    }
+
+    /** Default time a write waits for others to join its group */
+    public static final long DEFAULT_WINDOW_MS = 4;
+
+    /** Default largest number of writes committed together */
+    public static final int DEFAULT_MAX_OPS = 32;
+
+    private final ExecutorService writer;
+    private final ScheduledExecutorService timer;
+    private final Transactions transactions;
+    private final long windowMillis;
+    private final int maxOps;
+    private final Object lock = new Object();
+    private PriorityQueue<Op<?>> pending = new PriorityQueue<>();
+    private boolean commitScheduled;
+    private TaskPriority queuedPriority;
+    private long sequence;
+    private final AtomicLong groups = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong rolledBack = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger largestGroup = new AtomicInteger();
+
+    /**
+     * Creates a writer with {@link #DEFAULT_WINDOW_MS} and {@link #DEFAULT_MAX_OPS}
+     *
+     * @param writer The single writer thread
+     * @param timer The timer closing the window
+     * @param transactions Runs a group in a transaction, usually
+     * {@code database::runInTransaction}
+     */
+    public GroupCommitWriter(ExecutorService writer, ScheduledExecutorService timer,
+            Transactions transactions) {
+        this(writer, timer, transactions, DEFAULT_WINDOW_MS, DEFAULT_MAX_OPS);
+    }
+
+    /**
+     * Creates a writer
+     *
+     * @param writer The single writer thread
+     * @param timer The timer closing the window
+     * @param transactions Runs a group in a transaction
+     * @param windowMillis The time a write waits for others, 0 to only group the writes that
+     * arrive while the writer is busy
+     * @param maxOps The largest number of writes committed together
+     * @throws IllegalArgumentException if the window is negative or maxOps not positive
+     */
+    public GroupCommitWriter(ExecutorService writer, ScheduledExecutorService timer,
+            Transactions transactions, long windowMillis, int maxOps) {
+        if (windowMillis < 0 || maxOps <= 0) {
+            throw new IllegalArgumentException("Window must not be negative, group size positive");
+        }
+        this.writer = writer;
+        this.timer = timer;
+        this.transactions = transactions;
+        this.windowMillis = windowMillis;
+        this.maxOps = maxOps;
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        return new Op<>(callable);
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return new Op<>(Executors.callable(runnable, value));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Op<?> op = command instanceof Op<?>
+                ? (Op<?>) command
+                : new Op<>(Executors.callable(command, null));
+        if (writer.isShutdown()) {
+            throw new RejectedExecutionException("Writer is shut down");
+        }
+        boolean commitNow;
+        boolean schedule = false;
+        synchronized (lock) {
+            op.sequence = sequence++;
+            pending.add(op);
+            // A commit queued on the writer under a lower priority would hold this write back
+            commitNow = pending.size() >= maxOps || (queuedPriority != null
+                    && op.context.getPriority().compareTo(queuedPriority) < 0);
+            if (!commitNow && !commitScheduled) {
+                commitScheduled = true;
+                schedule = true;
+            }
+        }
+        if (op.context.hasDeadline()) {
+            try {
+                op.expiry = timer.schedule(() -> drop(op), op.context.remainingNanos(),
+                        TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the deadline is still checked when the group starts
+            }
+        }
+        if (commitNow || (schedule && windowMillis == 0)) {
+            submitCommit();
+        } else if (schedule) {
+            try {
+                timer.schedule(this::submitCommit, windowMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // The timer stops first when shutting down, the writer may still accept
+                submitCommit();
+            }
+        }
+    }
+
+    /**
+     * Queues a write like {@link #submit(Callable)}, for callers that continue once it has
+     * committed instead of waiting for it. Actions chained to the returned future run on the
+     * writer thread right after the commit, before the next group, and must not block.
+     *
+     * @param write The write; it only touches the database and may run more than once
+     * @param <T> The type of the result
+     * @return The future of the write, completed once its group has committed or the write failed
+     * @throws RejectedExecutionException if the writer is shut down
+     */
+    public <T> CompletableFuture<T> write(Callable<T> write) {
+        Op<T> op = new Op<>(write);
+        execute(op);
+        return op.result;
+    }
+
+    /**
+     * Commits the pending writes without waiting for the window to close, for example before
+     * the executors shut down
+     */
+    public void flush() {
+        submitCommit();
+    }
+
+    /**
+     * Hands a commit of the pending writes to the writer thread under the highest priority among
+     * them, failing them if it refuses
+     */
+    private void submitCommit() {
+        TaskPriority priority;
+        synchronized (lock) {
+            Op<?> first = pending.peek();
+            if (first == null) {
+                commitScheduled = false;
+                return;
+            }
+            priority = first.context.getPriority();
+            queuedPriority = priority;
+        }
+        try {
+            TaskContext.of(priority).run(() -> writer.execute(this::commit));
+        } catch (RejectedExecutionException e) {
+            PriorityQueue<Op<?>> rejected;
+            synchronized (lock) {
+                rejected = pending;
+                pending = new PriorityQueue<>();
+                commitScheduled = false;
+                queuedPriority = null;
+            }
+            for (Op<?> op : rejected) {
+                op.fail(e);
+            }
+        }
+    }
+
+    /**
+     * Runs on the writer thread: commits up to maxOps pending writes of the highest priority in
+     * one transaction
+     */
+    private void commit() {
+        List<Op<?>> group;
+        boolean more;
+        synchronized (lock) {
+            queuedPriority = null;
+            int size = Math.min(pending.size(), maxOps);
+            group = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                group.add(pending.poll());
+            }
+            more = !pending.isEmpty();
+            commitScheduled = more;
+        }
+        if (more) {
+            submitCommit();
+        }
+        for (Op<?> op : group) {
+            op.cancelExpiry();
+        }
+        int size = group.size();
+        group.removeIf(Op::dropIfCancelled);
+        dropped.addAndGet(size - group.size());
+        if (group.isEmpty()) {
+            return;
+        }
+        groups.incrementAndGet();
+        writes.addAndGet(group.size());
+        largestGroup.accumulateAndGet(group.size(), Math::max);
+        if (group.size() == 1) {
+            // A single write keeps its own transaction, there is nothing to save
+            runAlone(group);
+            return;
+        }
+        try {
+            transactions.runInTransaction(() -> {
+                for (Op<?> op : group) {
+                    op.runInGroup();
+                    if (op.failed()) {
+                        throw new GroupFailedException();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            rolledBack.incrementAndGet();
+            for (Op<?> op : group) {
+                op.reset();
+            }
+            runAlone(group);
+            return;
+        }
+        for (Op<?> op : group) {
+            op.publish();
+        }
+    }
+
+    /**
+     * Runs on the timer: drops a write whose deadline passed before its group started, so that
+     * its caller stops waiting at once
+     */
+    private void drop(Op<?> op) {
+        synchronized (lock) {
+            if (!pending.remove(op)) {
+                return;
+            }
+        }
+        op.cancel(false);
+        dropped.incrementAndGet();
+    }
+
+    private static void runAlone(List<Op<?>> ops) {
+        for (Op<?> op : ops) {
+            op.runInGroup();
+            op.publish();
+        }
+    }
+
+    /**
+     * Gets the number of groups that were committed, including groups of a single write
+     *
+     * @return The number of groups
+     */
+    public long getGroupCount() {
+        return groups.get();
+    }
+
+    /**
+     * Gets the number of writes that ran in a group
+     *
+     * @return The number of writes
+     */
+    public long getWriteCount() {
+        return writes.get();
+    }
+
+    /**
+     * Gets the number of groups rolled back because one of their writes failed
+     *
+     * @return The number of rolled back groups
+     */
+    public long getRolledBackCount() {
+        return rolledBack.get();
+    }
+
+    /**
+     * Gets the number of writes dropped as their deadline passed or scope was cancelled before
+     * their group started
+     *
+     * @return The number of dropped writes
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Gets the largest number of writes committed together
+     *
+     * @return The size of the largest group
+     */
+    public int getLargestGroup() {
+        return largestGroup.get();
+    }
+
+    @Override
+    public void shutdown() {
+        flush();
+        writer.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        writer.shutdownNow();
+        PriorityQueue<Op<?>> cancelled;
+        synchronized (lock) {
+            cancelled = pending;
+            pending = new PriorityQueue<>();
+        }
+        for (Op<?> op : cancelled) {
+            op.cancel(false);
+        }
+        return Collections.unmodifiableList(new ArrayList<Runnable>(cancelled));
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return writer.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        synchronized (lock) {
+            return writer.isTerminated() && pending.isEmpty();
+        }
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return writer.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return "GroupCommitWriter{groups=" + groups.get() + ", writes=" + writes.get()
+                + ", rolledBack=" + rolledBack.get() + ", dropped=" + dropped.get()
+                + ", largestGroup=" + largestGroup.get() + "}";
+    }
+
+    /**
+     * Thrown inside the group transaction to roll it back
+     */
+    private static final class GroupFailedException extends RuntimeException {
+        GroupFailedException() {
+            super("A write of the group failed", null, false, false);
+        }
+    }
+
+    /**
+     * A write whose outcome is held back until its group has committed. Running it only records
+     * the outcome, so it can run again alone after a rollback; the result future is completed by
+     * {@link #publish()}. Waiting writes are ordered by priority class and then by submission.
+     */
+    private static final class Op<T> implements RunnableFuture<T>, Comparable<Op<?>> {
+        private final Callable<T> callable;
+        private final TaskContext context = TaskContext.current();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private long sequence;
+        private volatile ScheduledFuture<?> expiry;
+        private T value;
+        private Throwable failure;
+
+        Op(Callable<T> callable) {
+            this.callable = callable;
+        }
+
+        @Override
+        public void run() {
+            if (result.isCancelled()) {
+                return;
+            }
+            try {
+                value = callable.call();
+            } catch (Throwable thrown) {
+                failure = thrown;
+            }
+        }
+
+        void runInGroup() {
+            context.run(this);
+        }
+
+        boolean failed() {
+            return failure != null;
+        }
+
+        void reset() {
+            value = null;
+            failure = null;
+        }
+
+        void publish() {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        }
+
+        void fail(Throwable thrown) {
+            result.completeExceptionally(thrown);
+        }
+
+        void cancelExpiry() {
+            ScheduledFuture<?> scheduledExpiry = expiry;
+            if (scheduledExpiry != null) {
+                scheduledExpiry.cancel(false);
+            }
+        }
+
+        boolean dropIfCancelled() {
+            if (result.isCancelled()) {
+                return true;
+            }
+            if (context.isCancelled()) {
+                result.cancel(false);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return result.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return result.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return result.isDone();
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            return result.get();
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            return result.get(timeout, unit);
+        }
+
+        @Override
+        public int compareTo(Op<?> other) {
+            int byPriority = context.getPriority().compareTo(other.context.getPriority());
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
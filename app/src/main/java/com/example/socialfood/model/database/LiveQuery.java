@@ -0,0 +1,297 @@
+package com.example.socialfood.model.database;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A query whose result is pushed to listeners again whenever one of the tables it reads from
+ * changes. Change detection uses Room's {@link InvalidationTracker}, so the query only runs
+ * after a write to one of its tables has been committed, never on a timer or on every screen
+ * visit.
+ *
+ * <p>
+ * Invalidations arriving while the query runs are coalesced into one more run. A result equal
+ * to the previous one is not delivered again, so a write to an unrelated row of a watched table
+ * costs a query but no UI update.
+ * </p>
+ *
+ * <p>
+ * State that is kept in memory before it reaches the tables, such as deferred likes, is watched
+ * through additional {@link ChangeSource}s.
+ * </p>
+ *
+ * <p>
+ * Adding and removing an observer of the tracker queries the database, so both happen on the
+ * query executor, as for Room's LiveData; subscribing and closing are safe on the main thread.
+ * </p>
+ *
+ * @param <T> The type of the query result
+ */
+public class LiveQuery<T> {
+    private static final String TAG = "LiveQuery";
+
+    /**
+     * Receives the results of a LiveQuery
+     *
+     * @param <T> The type of the query result
+     */
+    public interface Listener<T> {
+
+        /**
+         * Called with the first result and after every change of the result
+         *
+         * @param value The new query result
+         */
+        void onChanged(T value);
+    }
+
+    /** Delivers results on the Android main thread */
+    public static final Executor MAIN_THREAD = command -> MainHandler.INSTANCE.post(command);
+
+    private final InvalidationTracker tracker;
+    private final Executor queryExecutor;
+    private final Executor callbackExecutor;
+    private final String[] tables;
+    private final Callable<T> query;
+    private final ChangeSource[] sources;
+
+    /**
+     * Creates a LiveQuery. Nothing runs until {@link #observe(Listener)} is called.
+     *
+     * @param tracker The invalidation tracker of the database
+     * @param queryExecutor The executor running the query, usually the read executor
+     * @param callbackExecutor The executor calling the listener, usually {@link #MAIN_THREAD}
+     * @param tables The tables the query reads from
+     * @param query The query to run
+     */
+    public LiveQuery(InvalidationTracker tracker, Executor queryExecutor,
+            Executor callbackExecutor, String[] tables, Callable<T> query) {
+        this(tracker, queryExecutor, callbackExecutor, tables, query, new ChangeSource[0]);
+    }
+
+    /**
+     * Creates a LiveQuery that also runs again after changes of in-memory state
+     *
+     * @param tracker The invalidation tracker of the database
+     * @param queryExecutor The executor running the query, usually the read executor
+     * @param callbackExecutor The executor calling the listener, usually {@link #MAIN_THREAD}
+     * @param tables The tables the query reads from
+     * @param query The query to run
+     * @param sources The in-memory state the query reads besides the tables
+     */
+    public LiveQuery(InvalidationTracker tracker, Executor queryExecutor,
+            Executor callbackExecutor, String[] tables, Callable<T> query,
+            ChangeSource... sources) {
+        this.tracker = tracker;
+        this.queryExecutor = queryExecutor;
+        this.callbackExecutor = callbackExecutor;
+        this.tables = tables;
+        this.query = query;
+        this.sources = sources;
+    }
+
+    /**
+     * Runs the query once and again after every change of its tables, until the subscription
+     * is closed
+     *
+     * @param listener The listener receiving the results
+     * @return The subscription to close when the results are no longer needed
+     */
+    public Subscription observe(Listener<T> listener) {
+        Observation observation = new Observation(listener);
+        queryExecutor.execute(observation::register);
+        return observation;
+    }
+
+    /**
+     * Calls a callback after every change of the given tables, without running a query. Changes
+     * committed before the registration has run on the register executor are not reported.
+     *
+     * @param tracker The invalidation tracker of the database
+     * @param registerExecutor The executor adding and removing the observer, usually the read
+     * executor
+     * @param callbackExecutor The executor calling the callback
+     * @param onChange The callback
+     * @param tables The tables to watch
+     * @return The subscription to close when the notifications are no longer needed
+     */
+    public static Subscription observeTables(InvalidationTracker tracker,
+            Executor registerExecutor, Executor callbackExecutor, Runnable onChange,
+            String... tables) {
+        TableObserver observer = new TableObserver(tracker, registerExecutor, callbackExecutor,
+                onChange, tables);
+        registerExecutor.execute(observer::register);
+        return observer;
+    }
+
+    /**
+     * One listener's registration. At most one query runs at a time per observation; the
+     * running flag hands the last result from one run to the next. Registering and unregistering
+     * run on the query executor and are ordered by the observation's lock, so an observation
+     * closed before it was registered is never registered.
+     */
+    private final class Observation extends InvalidationTracker.Observer implements Subscription {
+        private final Listener<T> listener;
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final List<Subscription> sourceSubscriptions = new ArrayList<>();
+        private volatile boolean closed;
+        private boolean registered;
+        private boolean delivered;
+        private T last;
+
+        Observation(Listener<T> listener) {
+            super(tables);
+            this.listener = listener;
+        }
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> changedTables) {
+            refresh();
+        }
+
+        private void register() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                tracker.addObserver(this);
+                for (ChangeSource source : sources) {
+                    sourceSubscriptions.add(source.addChangeListener(this::refresh));
+                }
+                registered = true;
+            }
+            refresh();
+        }
+
+        private synchronized void unregister() {
+            if (registered) {
+                registered = false;
+                tracker.removeObserver(this);
+                for (Subscription subscription : sourceSubscriptions) {
+                    subscription.close();
+                }
+                sourceSubscriptions.clear();
+            }
+        }
+
+        void refresh() {
+            dirty.set(true);
+            if (!closed && running.compareAndSet(false, true)) {
+                queryExecutor.execute(this::run);
+            }
+        }
+
+        private void run() {
+            while (true) {
+                dirty.set(false);
+                if (!closed) {
+                    runQuery();
+                }
+                running.set(false);
+                if (closed || !dirty.get() || !running.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        private void runQuery() {
+            T value;
+            try {
+                value = query.call();
+            } catch (Exception e) {
+                Log.e(TAG, "Error running query on " + String.join(", ", tables), e);
+                return;
+            }
+            if (delivered && Objects.equals(value, last)) {
+                return;
+            }
+            delivered = true;
+            last = value;
+            callbackExecutor.execute(() -> {
+                if (!closed) {
+                    listener.onChanged(value);
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                queryExecutor.execute(this::unregister);
+            }
+        }
+    }
+
+    /**
+     * Registration of {@link #observeTables}, registered and unregistered like an
+     * {@link Observation}
+     */
+    private static final class TableObserver extends InvalidationTracker.Observer
+            implements Subscription {
+        private final InvalidationTracker tracker;
+        private final Executor registerExecutor;
+        private final Executor callbackExecutor;
+        private final Runnable onChange;
+        private volatile boolean closed;
+        private boolean registered;
+
+        TableObserver(InvalidationTracker tracker, Executor registerExecutor,
+                Executor callbackExecutor, Runnable onChange, String[] tables) {
+            super(tables);
+            this.tracker = tracker;
+            this.registerExecutor = registerExecutor;
+            this.callbackExecutor = callbackExecutor;
+            this.onChange = onChange;
+        }
+
+        private synchronized void register() {
+            if (!closed) {
+                tracker.addObserver(this);
+                registered = true;
+            }
+        }
+
+        private synchronized void unregister() {
+            if (registered) {
+                registered = false;
+                tracker.removeObserver(this);
+            }
+        }
+
+        @Override
+        public void onInvalidated(@NonNull Set<String> changedTables) {
+            callbackExecutor.execute(() -> {
+                if (!closed) {
+                    onChange.run();
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                registerExecutor.execute(this::unregister);
+            }
+        }
+    }
+
+    /** Created on first use, so that the class can be loaded off the main looper */
+    private static final class MainHandler {
+        static final Handler INSTANCE = new Handler(Looper.getMainLooper());
+    }
+}
@@ -0,0 +1,410 @@
+package com.example.socialfood.model.database;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import com.example.socialfood.model.entities.Ingredient;
+import com.example.socialfood.model.entities.PostLocation;
+import com.example.socialfood.model.handler.PostIdGenerator;
+
+/**
+ * Schema migrations for AppDatabase. Every migration keeps the existing data of the previous
+ * version. Versions older than the first migration listed here are still recreated from scratch.
+ */
+public final class Migrations {
+
+    private Migrations() {
+    }
+
+    /**
+     * Version 9 to 10: adds indices on the lookup and sort columns and a unique index on
+     * user.username. Duplicate usernames (left behind by repeated example data seeding) are made
+     * unique first so that the unique index can be created; no rows are deleted.
+     */
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            renameDuplicateUsernames(db);
+
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_user_username` "
+                    + "ON `user` (`username`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_post_timestamp_uid_postId` "
+                    + "ON `post` (`timestamp`, `uid`, `postId`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_comment_postId_commentId` "
+                    + "ON `comment` (`postId`, `commentId`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_like_table_postId` "
+                    + "ON `like_table` (`postId`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_follows_followedId` "
+                    + "ON `follows` (`followedId`)");
+        }
+    };
+
+    /**
+     * Version 10 to 11: adds post.likeCount and user.followingCount, installs the counter triggers
+     * and rebuilds all counters from the base tables, replacing the values previously maintained
+     * in Java.
+     */
+    public static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `post` ADD COLUMN `likeCount` INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `user` ADD COLUMN `followingCount` INTEGER NOT NULL DEFAULT 0");
+            CompositePostKey.createCounterTriggers(db);
+            CounterTriggers.create(db);
+            db.execSQL(CompositePostKey.RECONCILE_POSTS);
+            db.execSQL(CounterTriggers.RECONCILE_USERS);
+        }
+    };
+
+    /**
+     * Version 11 to 12: adds the full-text index post_fts, installs the triggers that keep it in
+     * sync and indexes all existing posts.
+     */
+    public static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `post_fts` USING FTS4("
+                    + "`description` TEXT, `recipe` TEXT, `ingredients` TEXT, tokenize=unicode61)");
+            CompositePostKey.createSearchIndex(db);
+        }
+    };
+
+    /**
+     * Version 12 to 13: adds the ingredient and post_ingredient tables and fills them by parsing
+     * the comma-separated ingredient list of every existing post.
+     */
+    public static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `ingredient` (`ingredientId` INTEGER "
+                    + "PRIMARY KEY AUTOINCREMENT NOT NULL, `name` TEXT NOT NULL)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_ingredient_name` "
+                    + "ON `ingredient` (`name`)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS `post_ingredient` (`ingredientId` INTEGER NOT "
+                    + "NULL, `uid` INTEGER NOT NULL, `postId` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`ingredientId`, `uid`, `postId`), "
+                    + "FOREIGN KEY(`ingredientId`) REFERENCES `ingredient`(`ingredientId`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE , "
+                    + "FOREIGN KEY(`uid`, `postId`) REFERENCES `post`(`uid`, `postId`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_post_ingredient_uid_postId` "
+                    + "ON `post_ingredient` (`uid`, `postId`)");
+            backfillIngredients(db);
+        }
+    };
+
+    /**
+     * Version 13 to 14: adds the spatial index post_location, installs the triggers that keep it
+     * in sync and indexes all existing posts.
+     */
+    public static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `post_location` (`uid` INTEGER NOT NULL, "
+                    + "`postId` INTEGER NOT NULL, `latitude` REAL NOT NULL, "
+                    + "`longitude` REAL NOT NULL, `latitudeCell` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`uid`, `postId`))");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_post_location_latitudeCell_longitude` "
+                    + "ON `post_location` (`latitudeCell`, `longitude`)");
+            CompositePostKey.createSpatialIndex(db);
+        }
+    };
+
+    /**
+     * Version 14 to 15: adds the persistent ID sequences for posts and comments, starting after
+     * the highest IDs in use, so new IDs no longer depend on scanning the author's posts or on the
+     * clock.
+     */
+    public static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS `id_sequence` (`name` TEXT NOT NULL, "
+                    + "`nextValue` INTEGER NOT NULL, PRIMARY KEY(`name`))");
+            db.execSQL("INSERT OR IGNORE INTO `id_sequence` (name, nextValue) "
+                    + "SELECT 'post', COALESCE(MAX(postId), 0) + 1 FROM `post`");
+            db.execSQL("INSERT OR IGNORE INTO `id_sequence` (name, nextValue) "
+                    + "SELECT 'comment', COALESCE(MAX(commentId), 0) + 1 FROM `comment`");
+        }
+    };
+
+    /**
+     * Version 15 to 16: replaces the per-user post IDs with globally unique, time-ordered 64-bit
+     * IDs (see {@link PostIdGenerator}) and makes postId the primary key of post. Existing posts
+     * get an ID derived from their timestamp. Likes, comments, ingredient links and both post
+     * indices are rebuilt to refer to a post by postId alone. The rows of like_table and comment
+     * are mapped through (userId, postId) and (uid, postId), which is what their foreign keys
+     * pointed at before.
+     */
+    public static final Migration MIGRATION_15_16 = new Migration(15, 16) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TEMP TABLE `post_id_map` (`uid` INTEGER NOT NULL, "
+                    + "`oldId` INTEGER NOT NULL, `newId` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`uid`, `oldId`))");
+            assignPostIds(db);
+
+            db.execSQL("CREATE TABLE `post_new` (`uid` INTEGER NOT NULL, `postId` INTEGER NOT "
+                    + "NULL, `imageUrl` TEXT NOT NULL, `description` TEXT, `timestamp` INTEGER "
+                    + "NOT NULL, `commentCount` INTEGER NOT NULL, `likeCount` INTEGER NOT NULL "
+                    + "DEFAULT 0, `recipe` TEXT, `ingredients` TEXT, `latitude` REAL NOT NULL, "
+                    + "`longitude` REAL NOT NULL, PRIMARY KEY(`postId`), "
+                    + "FOREIGN KEY(`uid`) REFERENCES `user`(`uid`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("INSERT INTO `post_new` (uid, postId, imageUrl, description, timestamp, "
+                    + "commentCount, likeCount, recipe, ingredients, latitude, longitude) "
+                    + "SELECT post.uid, map.newId, imageUrl, description, timestamp, "
+                    + "commentCount, likeCount, recipe, ingredients, latitude, longitude "
+                    + "FROM `post` INNER JOIN `post_id_map` AS map "
+                    + "ON map.uid = post.uid AND map.oldId = post.postId");
+
+            db.execSQL("CREATE TABLE `like_table_new` (`userId` INTEGER NOT NULL, `postId` "
+                    + "INTEGER NOT NULL, `timestamp` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`userId`, `postId`), "
+                    + "FOREIGN KEY(`userId`) REFERENCES `user`(`uid`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE , "
+                    + "FOREIGN KEY(`postId`) REFERENCES `post`(`postId`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("INSERT INTO `like_table_new` (userId, postId, timestamp) "
+                    + "SELECT userId, map.newId, timestamp FROM `like_table` "
+                    + "INNER JOIN `post_id_map` AS map "
+                    + "ON map.uid = like_table.userId AND map.oldId = like_table.postId");
+
+            db.execSQL("CREATE TABLE `comment_new` (`uid` INTEGER NOT NULL, `postId` INTEGER "
+                    + "NOT NULL, `commentId` INTEGER NOT NULL, `timestamp` INTEGER NOT NULL, "
+                    + "`content` TEXT NOT NULL, PRIMARY KEY(`uid`, `postId`, `commentId`), "
+                    + "FOREIGN KEY(`uid`) REFERENCES `user`(`uid`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE , "
+                    + "FOREIGN KEY(`postId`) REFERENCES `post`(`postId`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("INSERT INTO `comment_new` (uid, postId, commentId, timestamp, content) "
+                    + "SELECT comment.uid, map.newId, commentId, timestamp, content "
+                    + "FROM `comment` INNER JOIN `post_id_map` AS map "
+                    + "ON map.uid = comment.uid AND map.oldId = comment.postId");
+
+            db.execSQL("CREATE TABLE `post_ingredient_new` (`ingredientId` INTEGER NOT NULL, "
+                    + "`postId` INTEGER NOT NULL, PRIMARY KEY(`ingredientId`, `postId`), "
+                    + "FOREIGN KEY(`ingredientId`) REFERENCES `ingredient`(`ingredientId`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE , "
+                    + "FOREIGN KEY(`postId`) REFERENCES `post`(`postId`) "
+                    + "ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("INSERT INTO `post_ingredient_new` (ingredientId, postId) "
+                    + "SELECT ingredientId, map.newId FROM `post_ingredient` "
+                    + "INNER JOIN `post_id_map` AS map "
+                    + "ON map.uid = post_ingredient.uid AND map.oldId = post_ingredient.postId");
+
+            // Dropping the tables also drops the triggers defined on them
+            db.execSQL("DROP TABLE `like_table`");
+            db.execSQL("DROP TABLE `comment`");
+            db.execSQL("DROP TABLE `post_ingredient`");
+            db.execSQL("DROP TABLE `post_location`");
+            db.execSQL("DROP TABLE `post`");
+            db.execSQL("DROP TABLE `post_id_map`");
+            db.execSQL("ALTER TABLE `post_new` RENAME TO `post`");
+            db.execSQL("ALTER TABLE `like_table_new` RENAME TO `like_table`");
+            db.execSQL("ALTER TABLE `comment_new` RENAME TO `comment`");
+            db.execSQL("ALTER TABLE `post_ingredient_new` RENAME TO `post_ingredient`");
+            db.execSQL("CREATE TABLE `post_location` (`postId` INTEGER NOT NULL, "
+                    + "`latitude` REAL NOT NULL, `longitude` REAL NOT NULL, "
+                    + "`latitudeCell` INTEGER NOT NULL, PRIMARY KEY(`postId`))");
+
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_post_timestamp_postId` "
+                    + "ON `post` (`timestamp`, `postId`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_post_uid_timestamp` "
+                    + "ON `post` (`uid`, `timestamp`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_like_table_postId` "
+                    + "ON `like_table` (`postId`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_comment_postId_commentId` "
+                    + "ON `comment` (`postId`, `commentId`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_post_ingredient_postId` "
+                    + "ON `post_ingredient` (`postId`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_post_location_latitudeCell_longitude` "
+                    + "ON `post_location` (`latitudeCell`, `longitude`)");
+
+            CounterTriggers.create(db);
+            CounterTriggers.reconcile(db);
+            SearchIndex.create(db);
+            SearchIndex.rebuild(db);
+            SpatialIndex.create(db);
+            SpatialIndex.rebuild(db);
+            db.execSQL("DELETE FROM `id_sequence` WHERE name = 'post'");
+        }
+    };
+
+    /**
+     * Version 16 to 17: widens commentId to 64 bits, so the comment sequence no longer runs out
+     * after the timestamp-derived IDs of older comments. The column already has INTEGER affinity,
+     * which SQLite stores in up to 64 bits, so no row changes. The new version keeps builds that
+     * read commentId as an int from opening a database that may hold larger IDs.
+     */
+    public static final Migration MIGRATION_16_17 = new Migration(16, 17) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            // Nothing to rewrite, see above
+        }
+    };
+
+    /**
+     * All migrations in version order, for registration with the database builder
+     */
+    public static final Migration[] ALL = { MIGRATION_9_10, MIGRATION_10_11, MIGRATION_11_12,
+            MIGRATION_12_13, MIGRATION_13_14, MIGRATION_14_15, MIGRATION_15_16,
+            MIGRATION_16_17 };
+
+    /**
+     * Makes usernames unique by appending an underscore and the user ID to every account but the
+     * oldest one sharing a name. Repeats until no duplicates remain, in case a new name is taken.
+     *
+     * @param db The database to update
+     */
+    private static void renameDuplicateUsernames(SupportSQLiteDatabase db) {
+        String duplicateUsers = "SELECT uid FROM `user` WHERE username IS NOT NULL "
+                + "AND uid NOT IN (SELECT MIN(uid) FROM `user` GROUP BY username)";
+        while (true) {
+            try (Cursor cursor = db.query("SELECT COUNT(*) FROM (" + duplicateUsers + ")")) {
+                if (!cursor.moveToFirst() || cursor.getInt(0) == 0) {
+                    return;
+                }
+            }
+            db.execSQL("UPDATE `user` SET username = username || '_' || uid "
+                    + "WHERE uid IN (" + duplicateUsers + ")");
+        }
+    }
+
+    /**
+     * Parses the ingredient list of every post and links the post to its ingredients
+     *
+     * @param db The database to fill
+     */
+    private static void backfillIngredients(SupportSQLiteDatabase db) {
+        SupportSQLiteStatement insertIngredient = db.compileStatement(
+                "INSERT OR IGNORE INTO `ingredient` (name) VALUES (?)");
+        SupportSQLiteStatement link = db.compileStatement("INSERT OR IGNORE INTO "
+                + "`post_ingredient` (ingredientId, uid, postId) "
+                + "SELECT ingredientId, ?, ? FROM `ingredient` WHERE name = ?");
+        try (Cursor posts = db.query("SELECT uid, postId, ingredients FROM `post` "
+                + "WHERE ingredients IS NOT NULL AND ingredients != ''")) {
+            while (posts.moveToNext()) {
+                for (String name : Ingredient.parse(posts.getString(2))) {
+                    insertIngredient.bindString(1, name);
+                    insertIngredient.executeInsert();
+                    link.bindLong(1, posts.getInt(0));
+                    link.bindLong(2, posts.getInt(1));
+                    link.bindString(3, name);
+                    link.executeInsert();
+                }
+            }
+        }
+    }
+
+    /**
+     * Assigns a new post ID to every post, in order of creation, and records the mapping from
+     * (uid, old postId) to the new ID in post_id_map
+     *
+     * @param db The database to migrate
+     */
+    private static void assignPostIds(SupportSQLiteDatabase db) {
+        long[] timestamp = new long[1];
+        PostIdGenerator ids = new PostIdGenerator(0, () -> timestamp[0]);
+        SupportSQLiteStatement insert = db.compileStatement(
+                "INSERT INTO `post_id_map` (uid, oldId, newId) VALUES (?, ?, ?)");
+        try (Cursor posts = db.query("SELECT uid, postId, timestamp FROM `post` "
+                + "ORDER BY timestamp, uid, postId")) {
+            while (posts.moveToNext()) {
+                timestamp[0] = posts.getLong(2);
+                insert.bindLong(1, posts.getInt(0));
+                insert.bindLong(2, posts.getInt(1));
+                insert.bindLong(3, ids.nextId());
+                insert.executeInsert();
+            }
+        }
+    }
+
+    /**
+     * Trigger and index statements for the composite (uid, postId) post key used up to version
+     * 15. Migrations to those versions use these frozen statements, the current ones in
+     * {@link CounterTriggers}, {@link SearchIndex} and {@link SpatialIndex} refer to a post by
+     * postId alone.
+     */
+    private static final class CompositePostKey {
+
+        static final String RECONCILE_POSTS = "UPDATE post SET "
+                + "likeCount = (SELECT COUNT(*) FROM like_table "
+                + "WHERE like_table.userId = post.uid AND like_table.postId = post.postId), "
+                + "commentCount = (SELECT COUNT(*) FROM comment "
+                + "WHERE comment.uid = post.uid AND comment.postId = post.postId)";
+
+        private static final String CELL = "CAST(MAX(-90.0, MIN(90.0, latitude)) * "
+                + PostLocation.CELLS_PER_DEGREE + " + " + (90 * PostLocation.CELLS_PER_DEGREE)
+                + " AS INTEGER)";
+
+        private CompositePostKey() {
+        }
+
+        /**
+         * Creates the like and comment counter triggers. The follow and post count triggers did
+         * not depend on the post key and are created by {@link CounterTriggers#create}.
+         */
+        static void createCounterTriggers(SupportSQLiteDatabase db) {
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS `like_count_insert` AFTER INSERT ON "
+                    + "`like_table` BEGIN UPDATE post SET likeCount = likeCount + 1 "
+                    + "WHERE uid = NEW.userId AND postId = NEW.postId; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS `like_count_delete` AFTER DELETE ON "
+                    + "`like_table` BEGIN UPDATE post SET likeCount = MAX(likeCount - 1, 0) "
+                    + "WHERE uid = OLD.userId AND postId = OLD.postId; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS `comment_count_insert` AFTER INSERT ON "
+                    + "`comment` BEGIN UPDATE post SET commentCount = commentCount + 1 "
+                    + "WHERE uid = NEW.uid AND postId = NEW.postId; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS `comment_count_delete` AFTER DELETE ON "
+                    + "`comment` BEGIN UPDATE post SET commentCount = MAX(commentCount - 1, 0) "
+                    + "WHERE uid = OLD.uid AND postId = OLD.postId; END");
+        }
+
+        /**
+         * Creates the full-text index triggers with docid {@code (uid << 32) | postId} and
+         * indexes all posts
+         */
+        static void createSearchIndex(SupportSQLiteDatabase db) {
+            String newDocId = "((NEW.uid << 32) | NEW.postId)";
+            String oldDocId = "((OLD.uid << 32) | OLD.postId)";
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS `post_fts_insert` AFTER INSERT ON `post` "
+                    + "BEGIN INSERT OR REPLACE INTO post_fts (docid, description, recipe, "
+                    + "ingredients) VALUES (" + newDocId + ", NEW.description, NEW.recipe, "
+                    + "NEW.ingredients); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS `post_fts_update` AFTER UPDATE OF "
+                    + "description, recipe, ingredients ON `post` BEGIN UPDATE post_fts SET "
+                    + "description = NEW.description, recipe = NEW.recipe, "
+                    + "ingredients = NEW.ingredients WHERE docid = " + oldDocId + "; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS `post_fts_delete` AFTER DELETE ON `post` "
+                    + "BEGIN DELETE FROM post_fts WHERE docid = " + oldDocId + "; END");
+            db.execSQL("DELETE FROM post_fts");
+            db.execSQL("INSERT INTO post_fts (docid, description, recipe, ingredients) "
+                    + "SELECT (uid << 32) | postId, description, recipe, ingredients FROM post");
+        }
+
+        /**
+         * Creates the spatial index triggers keyed by (uid, postId) and indexes all posts
+         */
+        static void createSpatialIndex(SupportSQLiteDatabase db) {
+            String newCell = CELL.replace("latitude", "NEW.latitude");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS `post_location_insert` AFTER INSERT ON "
+                    + "`post` BEGIN INSERT OR REPLACE INTO post_location (uid, postId, latitude, "
+                    + "longitude, latitudeCell) VALUES (NEW.uid, NEW.postId, NEW.latitude, "
+                    + "NEW.longitude, " + newCell + "); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS `post_location_update` AFTER UPDATE OF "
+                    + "latitude, longitude ON `post` BEGIN UPDATE post_location SET "
+                    + "latitude = NEW.latitude, longitude = NEW.longitude, latitudeCell = "
+                    + newCell + " WHERE uid = OLD.uid AND postId = OLD.postId; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS `post_location_delete` AFTER DELETE ON "
+                    + "`post` BEGIN DELETE FROM post_location "
+                    + "WHERE uid = OLD.uid AND postId = OLD.postId; END");
+            db.execSQL("DELETE FROM post_location");
+            db.execSQL("INSERT INTO post_location (uid, postId, latitude, longitude, "
+                    + "latitudeCell) SELECT uid, postId, latitude, longitude, " + CELL
+                    + " FROM post");
+        }
+    }
+}
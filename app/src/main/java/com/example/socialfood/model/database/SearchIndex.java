@@ -0,0 +1,65 @@
+package com.example.socialfood.model.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * SQLite triggers that keep the full-text index post_fts in sync with the post table. The docid of
+ * every index entry is the postId of its post.
+ *
+ * <p>
+ * Only changes to description, recipe or ingredients touch the index, so the counter updates made
+ * by {@link CounterTriggers} on every like and comment do not re-index the post.
+ * </p>
+ */
+public final class SearchIndex {
+
+    private static final String[] CREATE_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS `post_fts_insert` AFTER INSERT ON `post` BEGIN "
+                    + "INSERT OR REPLACE INTO post_fts (docid, description, recipe, ingredients) "
+                    + "VALUES (NEW.postId, NEW.description, NEW.recipe, NEW.ingredients); END",
+            "CREATE TRIGGER IF NOT EXISTS `post_fts_update` "
+                    + "AFTER UPDATE OF description, recipe, ingredients ON `post` BEGIN "
+                    + "UPDATE post_fts SET description = NEW.description, recipe = NEW.recipe, "
+                    + "ingredients = NEW.ingredients WHERE docid = OLD.postId; END",
+            "CREATE TRIGGER IF NOT EXISTS `post_fts_delete` AFTER DELETE ON `post` BEGIN "
+                    + "DELETE FROM post_fts WHERE docid = OLD.postId; END"
+    };
+
+    /**
+     * Installs the triggers whenever the database is opened, which also covers fresh databases
+     * and databases rebuilt by a destructive migration
+     */
+    public static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            create(db);
+        }
+    };
+
+    private SearchIndex() {
+    }
+
+    /**
+     * Creates all index triggers that do not exist yet
+     *
+     * @param db The database to create the triggers in
+     */
+    public static void create(@NonNull SupportSQLiteDatabase db) {
+        for (String sql : CREATE_TRIGGERS) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Rebuilds the whole index from the post table
+     *
+     * @param db The database whose index is rebuilt
+     */
+    public static void rebuild(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM post_fts");
+        db.execSQL("INSERT INTO post_fts (docid, description, recipe, ingredients) "
+                + "SELECT postId, description, recipe, ingredients FROM post");
+    }
+}
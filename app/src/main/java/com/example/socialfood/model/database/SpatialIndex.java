@@ -0,0 +1,75 @@
+package com.example.socialfood.model.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.socialfood.model.entities.PostLocation;
+
+/**
+ * SQLite triggers that keep the spatial index post_location in sync with the post table. Only
+ * changes to latitude or longitude touch the index.
+ *
+ * <p>
+ * The latitude band is computed in SQL with the same expression as
+ * {@link PostLocation#latitudeCell(double)}. Latitudes are at least -90, so the argument of the
+ * cast is never negative and truncation equals rounding down.
+ * </p>
+ */
+public final class SpatialIndex {
+
+    private static final String CELL_NEW = "CAST(MAX(-90.0, MIN(90.0, NEW.latitude)) * "
+            + PostLocation.CELLS_PER_DEGREE + " + " + (90 * PostLocation.CELLS_PER_DEGREE)
+            + " AS INTEGER)";
+
+    private static final String[] CREATE_TRIGGERS = {
+            "CREATE TRIGGER IF NOT EXISTS `post_location_insert` AFTER INSERT ON `post` BEGIN "
+                    + "INSERT OR REPLACE INTO post_location (postId, latitude, longitude, "
+                    + "latitudeCell) VALUES (NEW.postId, NEW.latitude, NEW.longitude, "
+                    + CELL_NEW + "); END",
+            "CREATE TRIGGER IF NOT EXISTS `post_location_update` "
+                    + "AFTER UPDATE OF latitude, longitude ON `post` BEGIN "
+                    + "UPDATE post_location SET latitude = NEW.latitude, "
+                    + "longitude = NEW.longitude, latitudeCell = " + CELL_NEW
+                    + " WHERE postId = OLD.postId; END",
+            "CREATE TRIGGER IF NOT EXISTS `post_location_delete` AFTER DELETE ON `post` BEGIN "
+                    + "DELETE FROM post_location WHERE postId = OLD.postId; END"
+    };
+
+    /**
+     * Installs the triggers whenever the database is opened, which also covers fresh databases
+     * and databases rebuilt by a destructive migration
+     */
+    public static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+        @Override
+        public void onOpen(@NonNull SupportSQLiteDatabase db) {
+            create(db);
+        }
+    };
+
+    private SpatialIndex() {
+    }
+
+    /**
+     * Creates all index triggers that do not exist yet
+     *
+     * @param db The database to create the triggers in
+     */
+    public static void create(@NonNull SupportSQLiteDatabase db) {
+        for (String sql : CREATE_TRIGGERS) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Rebuilds the whole index from the post table
+     *
+     * @param db The database whose index is rebuilt
+     */
+    public static void rebuild(@NonNull SupportSQLiteDatabase db) {
+        db.execSQL("DELETE FROM post_location");
+        db.execSQL("INSERT INTO post_location (postId, latitude, longitude, latitudeCell) "
+                + "SELECT postId, latitude, longitude, "
+                + CELL_NEW.replace("NEW.", "") + " FROM post");
+    }
+}
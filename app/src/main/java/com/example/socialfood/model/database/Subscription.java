@@ -0,0 +1,14 @@
+package com.example.socialfood.model.database;
+
+/**
+ * A registration for change notifications, returned by {@link LiveQuery#observe}. Screens close
+ * their subscriptions when their views are destroyed.
+ */
+public interface Subscription {
+
+    /**
+     * Stops the notifications. Results already on their way to the listener are dropped. Calling
+     * close more than once has no effect.
+     */
+    void close();
+}
@@ -0,0 +1,163 @@
+package com.example.socialfood.model.database;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The priority, deadline and scope under which database work runs. Every thread has a current
+ * context, {@link #DEFAULT} unless set with {@link #call} or {@link #run}. A task submitted to a
+ * {@link DatabaseExecutors} pool takes the context of the submitting thread along, and the pool
+ * makes it the current context while the task runs, so a read submitted by an asynchronous call
+ * inherits the priority, deadline and scope of the screen that started the call.
+ *
+ * <p>
+ * A task submitted with {@code submit()} whose deadline passes or whose scope is cancelled before
+ * it starts is cancelled and never runs, and whoever waits for it gets a
+ * {@link java.util.concurrent.CancellationException} at the deadline rather than after the
+ * handler timeout. Handlers report that like any other database error. Tasks submitted with
+ * {@code execute()} cannot be cancelled from outside and always run; they check
+ * {@link #isCancelled()} themselves where it matters.
+ * </p>
+ *
+ * <p>
+ * Contexts are immutable.
+ * </p>
+ */
+public final class TaskContext {
+
+    /** Visible priority, no deadline and no scope; the context of work nobody marked */
+    public static final TaskContext DEFAULT = new TaskContext(TaskPriority.UI_VISIBLE,
+            Long.MAX_VALUE, null);
+
+    private static final ThreadLocal<TaskContext> CURRENT = new ThreadLocal<>();
+
+    private final TaskPriority priority;
+    private final long deadlineNanos;
+    private final TaskScope scope;
+
+    private TaskContext(TaskPriority priority, long deadlineNanos, TaskScope scope) {
+        this.priority = priority;
+        this.deadlineNanos = deadlineNanos;
+        this.scope = scope;
+    }
+
+    /**
+     * Creates a context without deadline and scope
+     *
+     * @param priority The priority class
+     * @return The context
+     */
+    public static TaskContext of(TaskPriority priority) {
+        return new TaskContext(priority, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Gets the context of the calling thread
+     *
+     * @return The current context, {@link #DEFAULT} if none was set
+     */
+    public static TaskContext current() {
+        TaskContext context = CURRENT.get();
+        return context != null ? context : DEFAULT;
+    }
+
+    /**
+     * Creates a copy of this context whose deadline lies the given time from now
+     *
+     * @param timeout The time the work may take, including waiting for a thread
+     * @param unit The unit of the timeout
+     * @return The new context
+     */
+    public TaskContext withTimeout(long timeout, TimeUnit unit) {
+        return new TaskContext(priority, System.nanoTime() + unit.toNanos(timeout), scope);
+    }
+
+    /**
+     * Creates a copy of this context belonging to the scope
+     *
+     * @param scope The scope cancelling the work, e.g. {@link TaskScope#of} a fragment's view
+     * @return The new context
+     */
+    public TaskContext withScope(TaskScope scope) {
+        return new TaskContext(priority, deadlineNanos, scope);
+    }
+
+    /**
+     * Runs a call with this context as the current context of the calling thread, restoring the
+     * previous one afterwards
+     *
+     * @param call The call, e.g. one of the asynchronous controller methods
+     * @param <T> The type of the result
+     * @return The result of the call
+     */
+    public <T> T call(Supplier<T> call) {
+        TaskContext previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Runs a task with this context as the current context of the calling thread, see
+     * {@link #call}
+     *
+     * @param task The task
+     */
+    public void run(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Gets the priority class
+     *
+     * @return The priority class
+     */
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Checks whether the context has a deadline
+     *
+     * @return true if a deadline was set with {@link #withTimeout}
+     */
+    public boolean hasDeadline() {
+        return deadlineNanos != Long.MAX_VALUE;
+    }
+
+    /**
+     * Gets the time left until the deadline
+     *
+     * @return The remaining nanoseconds, negative if the deadline has passed, Long.MAX_VALUE if
+     * there is no deadline
+     */
+    public long remainingNanos() {
+        return hasDeadline() ? deadlineNanos - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Checks whether the work of this context is no longer wanted
+     *
+     * @return true if the deadline has passed or the scope was cancelled
+     */
+    public boolean isCancelled() {
+        return (scope != null && scope.isCancelled()) || remainingNanos() <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskContext{priority=" + priority
+                + (hasDeadline() ? ", remainingMs=" + remainingNanos() / 1_000_000 : "")
+                + (scope != null ? ", cancelled=" + scope.isCancelled() : "") + "}";
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.socialfood.model.database;
+
+/**
+ * The priority class of database work. Waiting tasks of a higher class run before those of a
+ * lower class on every {@link DatabaseExecutors} pool; tasks of the same class run in the order
+ * they were submitted.
+ */
+public enum TaskPriority {
+
+    /** Work a visible screen is waiting for, the default */
+    UI_VISIBLE,
+
+    /** Work for content that is likely to be shown soon, such as the next page of a list */
+    PREFETCH,
+
+    /** Work no screen is waiting for, such as seeding example data or bulk imports */
+    BACKGROUND
+}
@@ -0,0 +1,77 @@
+package com.example.socialfood.model.database;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+/**
+ * A group of database tasks that is cancelled as a whole, usually because the screen that asked
+ * for them is gone. Tasks of a cancelled scope that are still waiting for a thread are dropped
+ * instead of run, see {@link TaskContext}. Tasks already running are not interrupted.
+ */
+public class TaskScope {
+    private final TaskScope parent;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a scope that is only cancelled by {@link #cancel()}
+     */
+    public TaskScope() {
+        this(null);
+    }
+
+    /**
+     * Creates a scope that is also cancelled with its parent, for example the load of one map
+     * viewport within the scope of the map's view
+     *
+     * @param parent The enclosing scope, may be null
+     */
+    public TaskScope(TaskScope parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Creates a scope that is cancelled when the lifecycle is destroyed, for example that of a
+     * fragment's view. Must be called on the main thread.
+     *
+     * @param owner The owner of the lifecycle, usually {@code getViewLifecycleOwner()}
+     * @return A scope cancelled at {@link Lifecycle.Event#ON_DESTROY}
+     */
+    public static TaskScope of(LifecycleOwner owner) {
+        TaskScope scope = new TaskScope();
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            scope.cancel();
+            return scope;
+        }
+        lifecycle.addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner source,
+                    @NonNull Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    source.getLifecycle().removeObserver(this);
+                    scope.cancel();
+                }
+            }
+        });
+        return scope;
+    }
+
+    /**
+     * Cancels the tasks of this scope that have not started yet. Calling cancel more than once
+     * has no effect.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether {@link #cancel()} was called on this scope or one of its parents
+     *
+     * @return true if the tasks of this scope are no longer needed
+     */
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+}
@@ -3,6 +3,7 @@ package com.example.socialfood.model.entities;
 import androidx.annotation.NonNull;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
+import androidx.room.Index;
 
 import java.util.Objects;
 
@@ -14,7 +15,7 @@ import java.util.Objects;
  * This entity has foreign key relationships to:
  * <ul>
  * <li>User entity through uid (with cascade delete)</li>
- * <li>Post entity through uid and postId (with cascade delete)</li>
+ * <li>Post entity through postId (with cascade delete)</li>
  * </ul>
  * </p>
  *
@@ -27,14 +28,19 @@ import java.util.Objects;
  * </ul>
  * </p>
  *
+ * <p>
+ * Indexed on (postId, commentId) so that the comments of a post are read in order without a scan
+ * or a sort.
+ * </p>
+ *
  * @see com.example.socialfood.model.entities.User
  * @see com.example.socialfood.model.entities.Post
  */
 @Entity(tableName = "comment", foreignKeys = {
         @ForeignKey(entity = User.class, parentColumns = "uid", childColumns = "uid", onDelete = ForeignKey.CASCADE),
-        @ForeignKey(entity = Post.class, parentColumns = { "uid", "postId" }, childColumns = {
-                "uid", "postId" }, onDelete = ForeignKey.CASCADE)
-}, primaryKeys = { "uid", "postId", "commentId" })
+        @ForeignKey(entity = Post.class, parentColumns = "postId", childColumns = "postId", onDelete = ForeignKey.CASCADE)
+}, primaryKeys = { "uid", "postId", "commentId" }, indices = {
+        @Index({ "postId", "commentId" }) })
 
 public class Comment {
 
@@ -42,10 +48,10 @@ public class Comment {
     private int uid;
 
     /** The ID of the post this comment belongs to */
-    private int postId;
+    private long postId;
 
-    /** The unique identifier for this comment within a post */
-    private int commentId;
+    /** The unique identifier for this comment, taken from the comment sequence */
+    private long commentId;
 
     /** Timestamp when the comment was created */
     private long timestamp;
@@ -81,7 +87,7 @@ public class Comment {
      * 
      * @return The post ID
      */
-    public int getPostId() {
+    public long getPostId() {
         return postId;
     }
 
@@ -91,7 +97,7 @@ public class Comment {
      * @param postId The post ID to set
      * @throws IllegalArgumentException if postId is not positive
      */
-    public void setPostId(int postId) {
+    public void setPostId(long postId) {
         if (postId <= 0) {
             throw new IllegalArgumentException("Post ID must be positive");
         }
@@ -103,7 +109,7 @@ public class Comment {
      * 
      * @return The comment ID
      */
-    public int getCommentId() {
+    public long getCommentId() {
         return commentId;
     }
 
@@ -113,7 +119,7 @@ public class Comment {
      * @param commentId The comment ID to set
      * @throws IllegalArgumentException if commentId is not positive
      */
-    public void setCommentId(int commentId) {
+    public void setCommentId(long commentId) {
         if (commentId <= 0) {
             throw new IllegalArgumentException("Comment ID must be positive");
         }
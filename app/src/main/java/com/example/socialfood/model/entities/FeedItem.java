@@ -0,0 +1,307 @@
+package com.example.socialfood.model.entities;
+
+import java.util.Objects;
+
+/**
+ * Read-only summary of a post as shown in lists and on the post header. This is not a table but a
+ * Room projection: a single query fills the post summary fields, the author's username, the like
+ * and comment counters and whether the viewing user has liked the post.
+ *
+ * <p>
+ * Recipe and ingredients are not part of the summary, load the full {@link Post} for those.
+ * </p>
+ *
+ * @see com.example.socialfood.model.dao.PostDao
+ */
+public class FeedItem {
+
+    /** The ID of the user who created the post */
+    private int uid;
+
+    /** The globally unique identifier of the post */
+    private long postId;
+
+    /** The URL or path to the post's image */
+    private String imageUrl;
+
+    /** The text description of the post */
+    private String description;
+
+    /** Timestamp when the post was created */
+    private long timestamp;
+
+    /** The latitude coordinate where the post was created */
+    private double latitude;
+
+    /** The longitude coordinate where the post was created */
+    private double longitude;
+
+    /** Username of the post creator */
+    private String username;
+
+    /** Number of likes on the post */
+    private int likeCount;
+
+    /** Number of comments on the post */
+    private int commentCount;
+
+    /** Whether the viewing user has liked the post */
+    private boolean likedByCurrentUser;
+
+    /**
+     * Gets the user ID of the post creator
+     *
+     * @return The user ID
+     */
+    public int getUid() {
+        return uid;
+    }
+
+    /**
+     * Sets the user ID of the post creator
+     *
+     * @param uid The user ID to set
+     */
+    public void setUid(int uid) {
+        this.uid = uid;
+    }
+
+    /**
+     * Gets the identifier of the post
+     *
+     * @return The post ID
+     */
+    public long getPostId() {
+        return postId;
+    }
+
+    /**
+     * Sets the identifier of the post
+     *
+     * @param postId The post ID to set
+     */
+    public void setPostId(long postId) {
+        this.postId = postId;
+    }
+
+    /**
+     * Gets the URL or path to the post's image
+     *
+     * @return The image URL/path
+     */
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    /**
+     * Sets the URL or path to the post's image
+     *
+     * @param imageUrl The image URL/path to set
+     */
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    /**
+     * Gets the text description of the post
+     *
+     * @return The post description
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Sets the text description of the post
+     *
+     * @param description The description to set
+     */
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Gets the timestamp when the post was created
+     *
+     * @return The timestamp in milliseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Sets the timestamp when the post was created
+     *
+     * @param timestamp The timestamp in milliseconds
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Gets the latitude coordinate
+     *
+     * @return The latitude value
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Sets the latitude coordinate
+     *
+     * @param latitude The latitude value to set
+     */
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    /**
+     * Gets the longitude coordinate
+     *
+     * @return The longitude value
+     */
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Sets the longitude coordinate
+     *
+     * @param longitude The longitude value to set
+     */
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    /**
+     * Gets the username of the post creator
+     *
+     * @return The username
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Sets the username of the post creator
+     *
+     * @param username The username to set
+     */
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    /**
+     * Gets the number of likes on the post
+     *
+     * @return The like count
+     */
+    public int getLikeCount() {
+        return likeCount;
+    }
+
+    /**
+     * Sets the number of likes on the post
+     *
+     * @param likeCount The like count to set
+     */
+    public void setLikeCount(int likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    /**
+     * Gets the number of comments on the post
+     *
+     * @return The comment count
+     */
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    /**
+     * Sets the number of comments on the post
+     *
+     * @param commentCount The comment count to set
+     */
+    public void setCommentCount(int commentCount) {
+        this.commentCount = commentCount;
+    }
+
+    /**
+     * Checks whether the viewing user has liked the post
+     *
+     * @return true if the post is liked by the viewing user
+     */
+    public boolean isLikedByCurrentUser() {
+        return likedByCurrentUser;
+    }
+
+    /**
+     * Sets whether the viewing user has liked the post
+     *
+     * @param likedByCurrentUser true if the post is liked by the viewing user
+     */
+    public void setLikedByCurrentUser(boolean likedByCurrentUser) {
+        this.likedByCurrentUser = likedByCurrentUser;
+    }
+
+    /**
+     * Returns a string representation of this FeedItem object
+     *
+     * @return A string containing all summary fields
+     */
+    @Override
+    public String toString() {
+        return "FeedItem{" +
+                "uid=" + uid +
+                ", postId=" + postId +
+                ", imageUrl='" + imageUrl + '\'' +
+                ", description='" + description + '\'' +
+                ", timestamp=" + timestamp +
+                ", latitude=" + latitude +
+                ", longitude=" + longitude +
+                ", username='" + username + '\'' +
+                ", likeCount=" + likeCount +
+                ", commentCount=" + commentCount +
+                ", likedByCurrentUser=" + likedByCurrentUser +
+                '}';
+    }
+
+    /**
+     * Compares this feed item with another object for equality
+     *
+     * @param o The object to compare with
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        FeedItem item = (FeedItem) o;
+        return uid == item.uid &&
+                postId == item.postId &&
+                timestamp == item.timestamp &&
+                Double.compare(item.latitude, latitude) == 0 &&
+                Double.compare(item.longitude, longitude) == 0 &&
+                likeCount == item.likeCount &&
+                commentCount == item.commentCount &&
+                likedByCurrentUser == item.likedByCurrentUser &&
+                Objects.equals(imageUrl, item.imageUrl) &&
+                Objects.equals(description, item.description) &&
+                Objects.equals(username, item.username);
+    }
+
+    /**
+     * Returns a hash code value for this feed item
+     *
+     * @return A hash code based on all summary fields
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(uid, postId, imageUrl, description, timestamp, latitude, longitude,
+                username, likeCount, commentCount, likedByCurrentUser);
+    }
+}
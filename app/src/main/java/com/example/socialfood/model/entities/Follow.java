@@ -3,6 +3,7 @@ package com.example.socialfood.model.entities;
 import androidx.annotation.NonNull;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
+import androidx.room.Index;
 
 import java.util.Objects;
 
@@ -26,12 +27,17 @@ import java.util.Objects;
  * </ul>
  * </p>
  *
+ * <p>
+ * Indexed on followedId so that follower lookups do not scan the whole table. Lookups by
+ * followerId are served by the primary key.
+ * </p>
+ *
  * @see com.example.socialfood.model.entities.User
  */
 @Entity(tableName = "follows", foreignKeys = {
         @ForeignKey(entity = User.class, parentColumns = "uid", childColumns = "followerId", onDelete = ForeignKey.CASCADE),
         @ForeignKey(entity = User.class, parentColumns = "uid", childColumns = "followedId", onDelete = ForeignKey.CASCADE)
-}, primaryKeys = { "followerId", "followedId" })
+}, primaryKeys = { "followerId", "followedId" }, indices = { @Index("followedId") })
 public class Follow {
 
     /** The ID of the user who is following */
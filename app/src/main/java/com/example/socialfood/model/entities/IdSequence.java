@@ -0,0 +1,96 @@
+package com.example.socialfood.model.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.PrimaryKey;
+
+/**
+ * Entity class representing a named, persistent ID sequence. Every row holds the next value that
+ * has not been handed out yet; allocators reserve whole blocks of IDs by advancing it.
+ *
+ * @see com.example.socialfood.model.dao.SequenceDao
+ * @see com.example.socialfood.model.handler.IdAllocator
+ */
+@Entity(tableName = "id_sequence")
+public class IdSequence {
+
+    /** Name of the sequence for comment IDs */
+    public static final String COMMENTS = "comment";
+
+    /** The name of the sequence */
+    @PrimaryKey
+    @NonNull
+    private String name = "";
+
+    /** The next value that has not been handed out yet */
+    private long nextValue;
+
+    /**
+     * Creates an empty sequence, used by Room
+     */
+    public IdSequence() {
+    }
+
+    /**
+     * Creates a sequence starting at the given value
+     *
+     * @param name      The name of the sequence
+     * @param nextValue The first value to hand out
+     */
+    @Ignore
+    public IdSequence(@NonNull String name, long nextValue) {
+        this.name = name;
+        this.nextValue = nextValue;
+    }
+
+    /**
+     * Gets the name of the sequence
+     *
+     * @return The name
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the name of the sequence
+     *
+     * @param name The name to set
+     */
+    public void setName(@NonNull String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the next value that has not been handed out yet
+     *
+     * @return The next value
+     */
+    public long getNextValue() {
+        return nextValue;
+    }
+
+    /**
+     * Sets the next value that has not been handed out yet
+     *
+     * @param nextValue The next value to set
+     */
+    public void setNextValue(long nextValue) {
+        this.nextValue = nextValue;
+    }
+
+    /**
+     * Returns a string representation of this IdSequence object
+     *
+     * @return A string containing the name and the next value
+     */
+    @Override
+    public String toString() {
+        return "IdSequence{" +
+                "name='" + name + '\'' +
+                ", nextValue=" + nextValue +
+                '}';
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.socialfood.model.entities;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Entity class representing an ingredient that can be used in posts. Ingredients are shared
+ * between posts and linked to them through {@link PostIngredient}.
+ *
+ * <p>
+ * The name is stored normalized (trimmed and lower case), so "Mehl" and " mehl" are the same
+ * ingredient. A unique index on name serves lookups by name.
+ * </p>
+ *
+ * @see PostIngredient
+ */
+@Entity(tableName = "ingredient", indices = { @Index(value = "name", unique = true) })
+public class Ingredient {
+
+    /** Unique identifier for the ingredient */
+    @PrimaryKey(autoGenerate = true)
+    private int ingredientId;
+
+    /** The normalized name of the ingredient */
+    @NonNull
+    private String name = "";
+
+    /**
+     * Creates an empty ingredient, used by Room
+     */
+    public Ingredient() {
+    }
+
+    /**
+     * Creates an ingredient with the given name
+     *
+     * @param name The name, will be normalized
+     */
+    @Ignore
+    public Ingredient(String name) {
+        setName(name);
+    }
+
+    /**
+     * Normalizes an ingredient name for storage and lookup
+     *
+     * @param name The name as entered
+     * @return The trimmed, lower case name, or an empty string for null
+     */
+    @NonNull
+    public static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Splits the comma-separated ingredient list of a post into normalized names. Empty entries
+     * and duplicates are dropped, the order of first occurrence is kept.
+     *
+     * @param ingredients The ingredient list as stored in {@link Post#getIngredients()}
+     * @return The normalized names, empty if there are none
+     */
+    @NonNull
+    public static List<String> parse(String ingredients) {
+        if (ingredients == null) {
+            return new ArrayList<>();
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String part : ingredients.split(",")) {
+            String name = normalize(part);
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Gets the ingredient's unique identifier
+     *
+     * @return The ingredient ID
+     */
+    public int getIngredientId() {
+        return ingredientId;
+    }
+
+    /**
+     * Sets the ingredient's unique identifier
+     *
+     * @param ingredientId The ingredient ID to set
+     */
+    public void setIngredientId(int ingredientId) {
+        this.ingredientId = ingredientId;
+    }
+
+    /**
+     * Gets the normalized name of the ingredient
+     *
+     * @return The name
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the name of the ingredient
+     *
+     * @param name The name to set, will be normalized
+     * @throws IllegalArgumentException if the name is null or blank
+     */
+    public void setName(String name) {
+        String normalized = normalize(name);
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("Ingredient name cannot be null or empty");
+        }
+        this.name = normalized;
+    }
+
+    /**
+     * Returns a string representation of this Ingredient object
+     *
+     * @return A string containing the ID and the name
+     */
+    @Override
+    public String toString() {
+        return "Ingredient{" +
+                "ingredientId=" + ingredientId +
+                ", name='" + name + '\'' +
+                '}';
+    }
+
+    /**
+     * Compares this ingredient with another object for equality
+     *
+     * @param o The object to compare with
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        Ingredient that = (Ingredient) o;
+        return ingredientId == that.ingredientId &&
+                name.equals(that.name);
+    }
+
+    /**
+     * Returns a hash code value for this ingredient
+     *
+     * @return A hash code based on the ID and the name
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(ingredientId, name);
+    }
+}
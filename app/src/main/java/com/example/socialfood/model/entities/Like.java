@@ -4,6 +4,7 @@ import java.util.Objects;
 
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
+import androidx.room.Index;
 
 /**
  * Entity class representing a like relationship between a user and a post. A like is uniquely
@@ -13,7 +14,7 @@ import androidx.room.ForeignKey;
  * This entity has foreign key relationships to:
  * <ul>
  * <li>User entity through userId (with cascade delete)</li>
- * <li>Post entity through uid and postId (with cascade delete)</li>
+ * <li>Post entity through postId (with cascade delete)</li>
  * </ul>
  * </p>
  *
@@ -25,21 +26,24 @@ import androidx.room.ForeignKey;
  * </ul>
  * </p>
  *
+ * <p>
+ * Indexed on postId so that like counts and like lists for a post do not scan the whole table.
+ * </p>
+ *
  * @see com.example.socialfood.model.entities.User
  * @see com.example.socialfood.model.entities.Post
  */
 @Entity(tableName = "like_table", foreignKeys = {
         @ForeignKey(entity = User.class, parentColumns = "uid", childColumns = "userId", onDelete = ForeignKey.CASCADE),
-        @ForeignKey(entity = Post.class, parentColumns = { "uid", "postId" }, childColumns = {
-                "userId", "postId" }, onDelete = ForeignKey.CASCADE)
-}, primaryKeys = { "userId", "postId" })
+        @ForeignKey(entity = Post.class, parentColumns = "postId", childColumns = "postId", onDelete = ForeignKey.CASCADE)
+}, primaryKeys = { "userId", "postId" }, indices = { @Index("postId") })
 public class Like {
 
     /** The ID of the user who created the like */
     private int userId;
 
     /** The ID of the post being liked */
-    private int postId;
+    private long postId;
 
     /** Timestamp when the like was created */
     private long timestamp;
@@ -71,7 +75,7 @@ public class Like {
      * 
      * @return The post ID
      */
-    public int getPostId() {
+    public long getPostId() {
         return postId;
     }
 
@@ -81,7 +85,7 @@ public class Like {
      * @param postId The post ID to set
      * @throws IllegalArgumentException if postId is not positive
      */
-    public void setPostId(int postId) {
+    public void setPostId(long postId) {
         if (postId <= 0) {
             throw new IllegalArgumentException("postId must be positive");
         }
@@ -1,15 +1,18 @@
 package com.example.socialfood.model.entities;
 
 import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
+import androidx.room.Index;
 
 import java.io.Serializable;
 import java.util.Objects;
 
 /**
  * Entity class representing a post in the social food application. A post is uniquely identified by
- * the combination of uid (user id) and postId.
+ * its postId, a globally unique, time-ordered 64-bit ID (see
+ * {@link com.example.socialfood.model.handler.PostIdGenerator}).
  *
  * <p>
  * This entity has foreign key relationships to:
@@ -19,11 +22,8 @@ import java.util.Objects;
  * </p>
  *
  * <p>
- * Primary key is composite of:
- * <ul>
- * <li>uid - ID of the post creator</li>
- * <li>postId - unique identifier within user's posts</li>
- * </ul>
+ * Primary key is postId, so likes, comments and every index over posts refer to a post by a single
+ * column and a lookup by postId is a single primary key probe.
  * </p>
  *
  * <p>
@@ -32,24 +32,37 @@ import java.util.Objects;
  * <li>imageUrl - URL/path to post image</li>
  * <li>timestamp - creation time</li>
  * <li>commentCount - number of comments</li>
+ * <li>likeCount - number of likes</li>
  * <li>latitude - location coordinate</li>
  * <li>longitude - location coordinate</li>
  * </ul>
  * </p>
  *
+ * <p>
+ * Indexed on (timestamp, postId) so that the newest-first feed is read straight from the index
+ * without sorting the table, and on (uid, timestamp) so that the posts of a user are read newest
+ * first without a scan.
+ * </p>
+ *
+ * <p>
+ * commentCount and likeCount are maintained by database triggers (see
+ * {@link com.example.socialfood.model.database.CounterTriggers}) and are never written by
+ * {@code PostDao.updatePost}.
+ * </p>
+ *
  * @see com.example.socialfood.model.entities.User
  * @see Comment
  * @see Like
  */
-@Entity(tableName = "post", foreignKeys = @ForeignKey(entity = User.class, parentColumns = "uid", childColumns = "uid", onDelete = ForeignKey.CASCADE), primaryKeys = {
-        "uid", "postId" })
+@Entity(tableName = "post", foreignKeys = @ForeignKey(entity = User.class, parentColumns = "uid", childColumns = "uid", onDelete = ForeignKey.CASCADE), primaryKeys = "postId", indices = {
+        @Index({ "timestamp", "postId" }), @Index({ "uid", "timestamp" }) })
 public class Post implements Serializable {
 
     /** The ID of the user who created the post */
     private int uid;
 
-    /** The unique identifier for this post */
-    private int postId;
+    /** The globally unique identifier for this post */
+    private long postId;
 
     /** The URL or path to the post's image */
     @NonNull
@@ -66,6 +79,11 @@ public class Post implements Serializable {
     @NonNull
     private int commentCount;
 
+    /** Number of likes on this post */
+    @NonNull
+    @ColumnInfo(defaultValue = "0")
+    private int likeCount;
+
     /** The recipe instructions for this food post */
     private String recipe;
 
@@ -107,7 +125,7 @@ public class Post implements Serializable {
      * 
      * @return The post ID
      */
-    public int getPostId() {
+    public long getPostId() {
         return postId;
     }
 
@@ -117,7 +135,7 @@ public class Post implements Serializable {
      * @param postId The post ID to set
      * @throws IllegalArgumentException if postId is not positive
      */
-    public void setPostId(int postId) {
+    public void setPostId(long postId) {
         if (postId <= 0) {
             throw new IllegalArgumentException("Post ID must be positive");
         }
@@ -211,6 +229,29 @@ public class Post implements Serializable {
         this.commentCount = commentCount;
     }
 
+    /**
+     * Gets the number of likes on this post
+     * 
+     * @return The like count
+     */
+    @NonNull
+    public int getLikeCount() {
+        return likeCount;
+    }
+
+    /**
+     * Sets the number of likes on this post
+     * 
+     * @param likeCount The like count to set
+     * @throws IllegalArgumentException if likeCount is negative
+     */
+    public void setLikeCount(@NonNull int likeCount) {
+        if (likeCount < 0) {
+            throw new IllegalArgumentException("Like count cannot be negative");
+        }
+        this.likeCount = likeCount;
+    }
+
     /**
      * Gets the recipe instructions
      * 
@@ -307,6 +348,7 @@ public class Post implements Serializable {
                 ", description='" + description + '\'' +
                 ", timestamp=" + timestamp +
                 ", commentCount=" + commentCount +
+                ", likeCount=" + likeCount +
                 ", recipe='" + recipe + '\'' +
                 ", ingredients='" + ingredients + '\'' +
                 ", latitude=" + latitude +
@@ -316,7 +358,8 @@ public class Post implements Serializable {
 
     /**
      * Compares this post with another object for equality. Two posts are considered equal if they
-     * have the same uid, postId, timestamp, commentCount, coordinates and content fields.
+     * have the same uid, postId, timestamp, commentCount, likeCount, coordinates and content
+     * fields.
      *
      * @param o The object to compare this post against
      * @return true if the given object represents a Post equivalent to this post
@@ -332,6 +375,7 @@ public class Post implements Serializable {
                 postId == post.postId &&
                 timestamp == post.timestamp &&
                 commentCount == post.commentCount &&
+                likeCount == post.likeCount &&
                 Double.compare(post.latitude, latitude) == 0 &&
                 Double.compare(post.longitude, longitude) == 0 &&
                 Objects.equals(imageUrl, post.imageUrl) &&
@@ -349,7 +393,7 @@ public class Post implements Serializable {
     @Override
     public int hashCode() {
         return Objects.hash(uid, postId, imageUrl, description, timestamp,
-                commentCount, recipe, ingredients, latitude, longitude);
+                commentCount, likeCount, recipe, ingredients, latitude, longitude);
     }
 
 }
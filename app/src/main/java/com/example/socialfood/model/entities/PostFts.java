@@ -0,0 +1,110 @@
+package com.example.socialfood.model.entities;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+/**
+ * Full-text index over the searchable text of posts. Mirrors description, recipe and ingredients
+ * of every {@link Post}, kept in sync by the triggers in
+ * {@link com.example.socialfood.model.database.SearchIndex}.
+ *
+ * <p>
+ * The docid (rowid) of an entry is the postId of its post, so an entry and its post are joined by
+ * a single primary key probe. Uses the unicode61 tokenizer so that umlauts are case folded.
+ * </p>
+ *
+ * @see Post
+ */
+@Fts4(tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "post_fts")
+public class PostFts {
+
+    /** The docid of the entry, equal to the postId of its post */
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private long rowid;
+
+    /** Copy of the post's description */
+    private String description;
+
+    /** Copy of the post's recipe */
+    private String recipe;
+
+    /** Copy of the post's ingredients */
+    private String ingredients;
+
+    /**
+     * Gets the docid of the entry
+     *
+     * @return The docid
+     */
+    public long getRowid() {
+        return rowid;
+    }
+
+    /**
+     * Sets the docid of the entry
+     *
+     * @param rowid The docid to set
+     */
+    public void setRowid(long rowid) {
+        this.rowid = rowid;
+    }
+
+    /**
+     * Gets the indexed description
+     *
+     * @return The description text
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Sets the indexed description
+     *
+     * @param description The description text to set
+     */
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Gets the indexed recipe
+     *
+     * @return The recipe text
+     */
+    public String getRecipe() {
+        return recipe;
+    }
+
+    /**
+     * Sets the indexed recipe
+     *
+     * @param recipe The recipe text to set
+     */
+    public void setRecipe(String recipe) {
+        this.recipe = recipe;
+    }
+
+    /**
+     * Gets the indexed ingredients
+     *
+     * @return The ingredients text
+     */
+    public String getIngredients() {
+        return ingredients;
+    }
+
+    /**
+     * Sets the indexed ingredients
+     *
+     * @param ingredients The ingredients text to set
+     */
+    public void setIngredients(String ingredients) {
+        this.ingredients = ingredients;
+    }
+}
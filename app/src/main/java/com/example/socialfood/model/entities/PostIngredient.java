@@ -0,0 +1,125 @@
+package com.example.socialfood.model.entities;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+import java.util.Objects;
+
+/**
+ * Entity class linking a post to one of its ingredients. Together the rows form an inverted index
+ * from ingredient to posts.
+ *
+ * <p>
+ * This entity has foreign key relationships to:
+ * <ul>
+ * <li>Ingredient entity through ingredientId (with cascade delete)</li>
+ * <li>Post entity through postId (with cascade delete)</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Primary key is composite of:
+ * <ul>
+ * <li>ingredientId - ID of the ingredient</li>
+ * <li>postId - ID of the post</li>
+ * </ul>
+ * Leading with ingredientId keeps the posting list of an ingredient in one contiguous range of
+ * the primary key, sorted by postId. The index on postId serves the ingredients of a single post.
+ * </p>
+ *
+ * <p>
+ * Rows are written by {@code PostDao} whenever a post is inserted or updated, never directly.
+ * </p>
+ *
+ * @see Ingredient
+ * @see Post
+ */
+@Entity(tableName = "post_ingredient", foreignKeys = {
+        @ForeignKey(entity = Ingredient.class, parentColumns = "ingredientId", childColumns = "ingredientId", onDelete = ForeignKey.CASCADE),
+        @ForeignKey(entity = Post.class, parentColumns = "postId", childColumns = "postId", onDelete = ForeignKey.CASCADE)
+}, primaryKeys = { "ingredientId", "postId" }, indices = { @Index("postId") })
+public class PostIngredient {
+
+    /** The ID of the ingredient */
+    private int ingredientId;
+
+    /** The ID of the post */
+    private long postId;
+
+    /**
+     * Gets the ID of the ingredient
+     *
+     * @return The ingredient ID
+     */
+    public int getIngredientId() {
+        return ingredientId;
+    }
+
+    /**
+     * Sets the ID of the ingredient
+     *
+     * @param ingredientId The ingredient ID to set
+     */
+    public void setIngredientId(int ingredientId) {
+        this.ingredientId = ingredientId;
+    }
+
+    /**
+     * Gets the ID of the post
+     *
+     * @return The post ID
+     */
+    public long getPostId() {
+        return postId;
+    }
+
+    /**
+     * Sets the ID of the post
+     *
+     * @param postId The post ID to set
+     */
+    public void setPostId(long postId) {
+        this.postId = postId;
+    }
+
+    /**
+     * Returns a string representation of this PostIngredient object
+     *
+     * @return A string containing the ingredient and post IDs
+     */
+    @Override
+    public String toString() {
+        return "PostIngredient{" +
+                "ingredientId=" + ingredientId +
+                ", postId=" + postId +
+                '}';
+    }
+
+    /**
+     * Compares this link with another object for equality
+     *
+     * @param o The object to compare with
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        PostIngredient that = (PostIngredient) o;
+        return ingredientId == that.ingredientId &&
+                postId == that.postId;
+    }
+
+    /**
+     * Returns a hash code value for this link
+     *
+     * @return A hash code based on the ingredient and post IDs
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(ingredientId, postId);
+    }
+}
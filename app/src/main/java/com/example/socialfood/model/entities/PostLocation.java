@@ -0,0 +1,167 @@
+package com.example.socialfood.model.entities;
+
+import androidx.room.Entity;
+import androidx.room.Index;
+
+import java.util.Objects;
+
+/**
+ * Spatial index over the location of posts. Mirrors latitude and longitude of every
+ * {@link Post}, kept in sync by the triggers in
+ * {@link com.example.socialfood.model.database.SpatialIndex}.
+ *
+ * <p>
+ * Every entry is assigned to a latitude band of {@code 1 / CELLS_PER_DEGREE} degrees. The index on
+ * (latitudeCell, longitude) turns a viewport query into one index range per band crossed by the
+ * viewport, so its cost grows with the visible area instead of the number of posts.
+ * </p>
+ *
+ * @see Post
+ */
+@Entity(tableName = "post_location", primaryKeys = "postId", indices = {
+        @Index({ "latitudeCell", "longitude" }) })
+public class PostLocation {
+
+    /** Number of latitude bands per degree, a band is about 11 km high */
+    public static final int CELLS_PER_DEGREE = 10;
+
+    /** The ID of the post */
+    private long postId;
+
+    /** Copy of the post's latitude */
+    private double latitude;
+
+    /** Copy of the post's longitude */
+    private double longitude;
+
+    /** The latitude band of the post, see {@link #latitudeCell(double)} */
+    private int latitudeCell;
+
+    /**
+     * Computes the latitude band of a latitude. Uses the same expression as the SQL triggers, so
+     * that Java and SQLite always agree on the band of a value.
+     *
+     * @param latitude The latitude, clamped to -90..90
+     * @return The band, from 0 at the south pole to 1800 at the north pole
+     */
+    public static int latitudeCell(double latitude) {
+        double clamped = Math.max(-90.0, Math.min(90.0, latitude));
+        return (int) (clamped * CELLS_PER_DEGREE + 90 * CELLS_PER_DEGREE);
+    }
+
+    /**
+     * Gets the ID of the post
+     *
+     * @return The post ID
+     */
+    public long getPostId() {
+        return postId;
+    }
+
+    /**
+     * Sets the ID of the post
+     *
+     * @param postId The post ID to set
+     */
+    public void setPostId(long postId) {
+        this.postId = postId;
+    }
+
+    /**
+     * Gets the latitude of the post
+     *
+     * @return The latitude value
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * Sets the latitude of the post
+     *
+     * @param latitude The latitude value to set
+     */
+    public void setLatitude(double latitude) {
+        this.latitude = latitude;
+    }
+
+    /**
+     * Gets the longitude of the post
+     *
+     * @return The longitude value
+     */
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Sets the longitude of the post
+     *
+     * @param longitude The longitude value to set
+     */
+    public void setLongitude(double longitude) {
+        this.longitude = longitude;
+    }
+
+    /**
+     * Gets the latitude band of the post
+     *
+     * @return The latitude band
+     */
+    public int getLatitudeCell() {
+        return latitudeCell;
+    }
+
+    /**
+     * Sets the latitude band of the post
+     *
+     * @param latitudeCell The latitude band to set
+     */
+    public void setLatitudeCell(int latitudeCell) {
+        this.latitudeCell = latitudeCell;
+    }
+
+    /**
+     * Returns a string representation of this PostLocation object
+     *
+     * @return A string containing all fields
+     */
+    @Override
+    public String toString() {
+        return "PostLocation{" +
+                "postId=" + postId +
+                ", latitude=" + latitude +
+                ", longitude=" + longitude +
+                ", latitudeCell=" + latitudeCell +
+                '}';
+    }
+
+    /**
+     * Compares this location with another object for equality
+     *
+     * @param o The object to compare with
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        PostLocation that = (PostLocation) o;
+        return postId == that.postId &&
+                Double.compare(that.latitude, latitude) == 0 &&
+                Double.compare(that.longitude, longitude) == 0 &&
+                latitudeCell == that.latitudeCell;
+    }
+
+    /**
+     * Returns a hash code value for this location
+     *
+     * @return A hash code based on all fields
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(postId, latitude, longitude, latitudeCell);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.socialfood.model.entities;
+
+import androidx.room.Embedded;
+import androidx.room.Ignore;
+
+import java.util.Objects;
+
+/**
+ * A post found by the full-text search, together with a highlighted excerpt of the matching text
+ * and its relevance score. This is not a table but a Room projection over post and post_fts.
+ *
+ * <p>
+ * Matched words in the snippet are enclosed in square brackets, omitted text is marked with an
+ * ellipsis.
+ * </p>
+ *
+ * @see com.example.socialfood.model.dao.PostDao#searchPosts(String, double, long, int)
+ */
+public class SearchResult {
+
+    /** The matching post */
+    @Embedded
+    private Post post;
+
+    /** Excerpt of the matching text with the matched words highlighted */
+    private String snippet;
+
+    /** The relevance score of the match, higher is more relevant */
+    @Ignore
+    private double score;
+
+    /**
+     * Gets the matching post
+     *
+     * @return The post
+     */
+    public Post getPost() {
+        return post;
+    }
+
+    /**
+     * Sets the matching post
+     *
+     * @param post The post to set
+     */
+    public void setPost(Post post) {
+        this.post = post;
+    }
+
+    /**
+     * Gets the excerpt of the matching text
+     *
+     * @return The snippet with highlighted matches
+     */
+    public String getSnippet() {
+        return snippet;
+    }
+
+    /**
+     * Sets the excerpt of the matching text
+     *
+     * @param snippet The snippet to set
+     */
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
+    }
+
+    /**
+     * Gets the relevance score of the match
+     *
+     * @return The score, higher is more relevant
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Sets the relevance score of the match
+     *
+     * @param score The score to set
+     */
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    /**
+     * Returns a string representation of this SearchResult object
+     *
+     * @return A string containing the post, the snippet and the score
+     */
+    @Override
+    public String toString() {
+        return "SearchResult{" +
+                "post=" + post +
+                ", snippet='" + snippet + '\'' +
+                ", score=" + score +
+                '}';
+    }
+
+    /**
+     * Compares this search result with another object for equality
+     *
+     * @param o The object to compare with
+     * @return true if the objects are equal, false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        SearchResult result = (SearchResult) o;
+        return Double.compare(result.score, score) == 0 &&
+                Objects.equals(post, result.post) &&
+                Objects.equals(snippet, result.snippet);
+    }
+
+    /**
+     * Returns a hash code value for this search result
+     *
+     * @return A hash code based on the post, the snippet and the score
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(post, snippet, score);
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.socialfood.model.entities;
 
 import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 import java.io.Serializable;
@@ -9,9 +11,12 @@ import java.util.Objects;
 
 /**
  * Entity class representing a user in the social food application. Contains user profile
- * information and statistics.
+ * information and statistics. Usernames are unique, enforced by a unique index that also serves
+ * login lookups. The followersCount, followingCount and postsCount statistics are maintained by
+ * database triggers (see {@link com.example.socialfood.model.database.CounterTriggers}) and are
+ * never written by {@code UserDao.updateUsers}.
  */
-@Entity(tableName = "user")
+@Entity(tableName = "user", indices = { @Index(value = "username", unique = true) })
 public class User implements Serializable {
     /** Unique identifier for the user, auto-generated */
 
@@ -37,6 +42,12 @@ public class User implements Serializable {
     @NonNull
     private int followersCount;
 
+    /** Number of users this user follows */
+
+    @NonNull
+    @ColumnInfo(defaultValue = "0")
+    private int followingCount;
+
     /** Number of posts created by this user */
 
     @NonNull
@@ -157,6 +168,29 @@ public class User implements Serializable {
         this.followersCount = followersCount;
     }
 
+    /**
+     * Gets the number of users this user follows
+     * 
+     * @return The following count
+     */
+    @NonNull
+    public int getFollowingCount() {
+        return followingCount;
+    }
+
+    /**
+     * Sets the number of users this user follows
+     * 
+     * @param followingCount The following count to set
+     * @throws IllegalArgumentException if followingCount is negative
+     */
+    public void setFollowingCount(@NonNull int followingCount) {
+        if (followingCount < 0) {
+            throw new IllegalArgumentException("Following count cannot be negative");
+        }
+        this.followingCount = followingCount;
+    }
+
     /**
      * Gets the number of posts
      * 
@@ -216,6 +250,7 @@ public class User implements Serializable {
                 ", profilImage='" + profilImage + '\'' +
                 ", bio='" + bio + '\'' +
                 ", followersCount=" + followersCount +
+                ", followingCount=" + followingCount +
                 ", postsCount=" + postsCount +
                 ", password='" + password + '\'' +
                 '}';
@@ -236,6 +271,7 @@ public class User implements Serializable {
         User user = (User) o;
         return uid == user.uid &&
                 followersCount == user.followersCount &&
+                followingCount == user.followingCount &&
                 postsCount == user.postsCount &&
                 Objects.equals(username, user.username) &&
                 Objects.equals(profilImage, user.profilImage) &&
@@ -251,7 +287,7 @@ public class User implements Serializable {
     @Override
     public int hashCode() {
         return Objects.hash(uid, username, profilImage, bio,
-                followersCount, postsCount, password);
+                followersCount, followingCount, postsCount, password);
     }
 
 }
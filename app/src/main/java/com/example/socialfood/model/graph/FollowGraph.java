@@ -0,0 +1,361 @@
+package com.example.socialfood.model.graph;
+
+import com.example.socialfood.model.cache.BudgetedCache;
+
+import java.util.Arrays;
+
+/**
+ * In-memory index of the follow relationships. For every user it keeps the IDs of the users they
+ * follow and the IDs of their followers as two sorted primitive arrays, so checking a single
+ * relationship is a binary search over the follower's list, O(log d), and listing IDs copies one
+ * array. A million relationships take about 8 MB plus two array headers per user, a small
+ * fraction of the boxed {@code Follow} entities the database returns.
+ *
+ * <p>
+ * Lists are indexed by user ID, which suits the dense IDs assigned by the user table. The graph
+ * is loaded once with {@link #load} and then kept up to date relationship by relationship. When
+ * memory runs low it is cleared and loaded again by the next lookup.
+ * </p>
+ *
+ * <p>
+ * All methods are synchronized; every operation is short enough that a single lock is not a
+ * bottleneck. The database must never be read under this lock: a loader reads the relationships
+ * while holding only the {@link #getLoadLock() load lock} and then swaps them in with
+ * {@link #load}. Every change increments a version, so a load that raced with a change is
+ * detected and repeated later.
+ * </p>
+ */
+public class FollowGraph implements BudgetedCache {
+
+    private final Object loadLock = new Object();
+    private Adjacency following = new Adjacency();
+    private Adjacency followers = new Adjacency();
+    private int edges;
+    private boolean loaded;
+    private long version;
+
+    /**
+     * Replaces the content of the graph and marks it as loaded
+     *
+     * @param followerIds The IDs of the following users
+     * @param followedIds The IDs of the followed users, at the same index as their follower
+     * @param count The number of relationships in the arrays, without duplicates
+     */
+    public void load(int[] followerIds, int[] followedIds, int count) {
+        load(getVersion(), followerIds, followedIds, count);
+    }
+
+    /**
+     * Replaces the content of the graph with relationships read from the database. The lists are
+     * built without holding the lock and swapped in at the end. The graph is only marked as
+     * loaded if it has not changed since the version was taken before reading; otherwise it
+     * still answers lookups, but the next loader reads the relationships again.
+     *
+     * @param version The version returned by {@link #getVersion} before the relationships were
+     *            read
+     * @param followerIds The IDs of the following users
+     * @param followedIds The IDs of the followed users, at the same index as their follower
+     * @param count The number of relationships in the arrays, without duplicates
+     * @return true if the graph is now loaded, false if it changed while the relationships were
+     *         read
+     */
+    public boolean load(long version, int[] followerIds, int[] followedIds, int count) {
+        Adjacency builtFollowing = new Adjacency();
+        Adjacency builtFollowers = new Adjacency();
+        builtFollowing.build(followerIds, followedIds, count);
+        builtFollowers.build(followedIds, followerIds, count);
+        synchronized (this) {
+            boolean current = this.version == version;
+            following = builtFollowing;
+            followers = builtFollowers;
+            edges = count;
+            loaded = current;
+            this.version++;
+            return current;
+        }
+    }
+
+    /**
+     * Gets the version of the graph, which changes with every relationship added or removed and
+     * every time the graph is cleared or loaded
+     *
+     * @return The current version
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the lock a loader holds while reading the relationships from the database, so that
+     * concurrent lookups wait for one load instead of each reading all relationships. It is not
+     * the lock of the graph itself, which must never be held while waiting for the database.
+     *
+     * @return The load lock of this graph
+     */
+    public Object getLoadLock() {
+        return loadLock;
+    }
+
+    /**
+     * Checks whether the graph has been loaded with all relationships
+     *
+     * @return true after {@link #load} has been called
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Removes all relationships and marks the graph as not loaded
+     */
+    public synchronized void clear() {
+        following.clear();
+        followers.clear();
+        edges = 0;
+        loaded = false;
+        version++;
+    }
+
+    /**
+     * Checks whether one user follows another
+     *
+     * @param followerId The ID of the following user
+     * @param followedId The ID of the followed user
+     * @return true if the relationship exists
+     */
+    public synchronized boolean contains(int followerId, int followedId) {
+        return following.contains(followerId, followedId);
+    }
+
+    /**
+     * Adds a relationship
+     *
+     * @param followerId The ID of the following user
+     * @param followedId The ID of the followed user
+     * @return true if it was added, false if it existed already or an ID is negative
+     */
+    public synchronized boolean add(int followerId, int followedId) {
+        version++;
+        if (followerId < 0 || followedId < 0 || !following.add(followerId, followedId)) {
+            return false;
+        }
+        followers.add(followedId, followerId);
+        edges++;
+        return true;
+    }
+
+    /**
+     * Removes a relationship
+     *
+     * @param followerId The ID of the following user
+     * @param followedId The ID of the followed user
+     * @return true if it was removed, false if it did not exist
+     */
+    public synchronized boolean remove(int followerId, int followedId) {
+        version++;
+        if (!following.remove(followerId, followedId)) {
+            return false;
+        }
+        followers.remove(followedId, followerId);
+        edges--;
+        return true;
+    }
+
+    /**
+     * Removes all relationships of a user, e.g. after the user was deleted
+     *
+     * @param userId The ID of the user
+     */
+    public synchronized void removeUser(int userId) {
+        for (int followedId : following.copy(userId)) {
+            remove(userId, followedId);
+        }
+        for (int followerId : followers.copy(userId)) {
+            remove(followerId, userId);
+        }
+    }
+
+    /**
+     * Gets the IDs of the users a user follows
+     *
+     * @param userId The ID of the user
+     * @return The IDs in ascending order, a new array
+     */
+    public synchronized int[] getFollowing(int userId) {
+        return following.copy(userId);
+    }
+
+    /**
+     * Gets the IDs of the followers of a user
+     *
+     * @param userId The ID of the user
+     * @return The IDs in ascending order, a new array
+     */
+    public synchronized int[] getFollowers(int userId) {
+        return followers.copy(userId);
+    }
+
+    /**
+     * Gets the number of users a user follows
+     *
+     * @param userId The ID of the user
+     * @return The number of followed users
+     */
+    public synchronized int getFollowingCount(int userId) {
+        return following.size(userId);
+    }
+
+    /**
+     * Gets the number of followers of a user
+     *
+     * @param userId The ID of the user
+     * @return The number of followers
+     */
+    public synchronized int getFollowerCount(int userId) {
+        return followers.size(userId);
+    }
+
+    /**
+     * Gets the number of relationships
+     *
+     * @return The number of edges of the graph
+     */
+    public synchronized int size() {
+        return edges;
+    }
+
+    @Override
+    public synchronized long getEstimatedBytes() {
+        return following.memoryBytes() + followers.memoryBytes();
+    }
+
+    @Override
+    public synchronized void trimTo(long targetBytes) {
+        if (targetBytes < getEstimatedBytes()) {
+            clear();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FollowGraph{edges=" + edges + ", loaded=" + loaded + ", bytes="
+                + getEstimatedBytes() + "}";
+    }
+
+    /**
+     * One direction of the graph: a sorted, growable list of neighbour IDs per user ID
+     */
+    private static final class Adjacency {
+        private static final int[] EMPTY = new int[0];
+
+        /** Approximate size of an array header and the reference to it */
+        private static final int ARRAY_OVERHEAD_BYTES = 20;
+
+        private int[][] lists = new int[0][];
+        private int[] sizes = EMPTY;
+
+        /**
+         * Replaces all lists, sizing each one exactly
+         */
+        void build(int[] from, int[] to, int count) {
+            int users = 0;
+            for (int i = 0; i < count; i++) {
+                users = Math.max(users, from[i] + 1);
+            }
+            sizes = new int[users];
+            for (int i = 0; i < count; i++) {
+                sizes[from[i]]++;
+            }
+            lists = new int[users][];
+            for (int user = 0; user < users; user++) {
+                lists[user] = sizes[user] > 0 ? new int[sizes[user]] : EMPTY;
+            }
+            int[] filled = new int[users];
+            for (int i = 0; i < count; i++) {
+                lists[from[i]][filled[from[i]]++] = to[i];
+            }
+            for (int[] list : lists) {
+                Arrays.sort(list);
+            }
+        }
+
+        void clear() {
+            lists = new int[0][];
+            sizes = EMPTY;
+        }
+
+        boolean contains(int user, int neighbour) {
+            return indexOf(user, neighbour) >= 0;
+        }
+
+        boolean add(int user, int neighbour) {
+            int index = indexOf(user, neighbour);
+            if (index >= 0) {
+                return false;
+            }
+            ensureUser(user);
+            int[] list = lists[user];
+            int size = sizes[user];
+            int insertAt = -index - 1;
+            if (size == list.length) {
+                list = Arrays.copyOf(list, Math.max(4, size + (size >> 1)));
+                lists[user] = list;
+            }
+            System.arraycopy(list, insertAt, list, insertAt + 1, size - insertAt);
+            list[insertAt] = neighbour;
+            sizes[user] = size + 1;
+            return true;
+        }
+
+        boolean remove(int user, int neighbour) {
+            int index = indexOf(user, neighbour);
+            if (index < 0) {
+                return false;
+            }
+            int[] list = lists[user];
+            System.arraycopy(list, index + 1, list, index, sizes[user] - index - 1);
+            sizes[user]--;
+            return true;
+        }
+
+        int[] copy(int user) {
+            return user >= 0 && user < sizes.length ? Arrays.copyOf(lists[user], sizes[user])
+                    : EMPTY;
+        }
+
+        int size(int user) {
+            return user >= 0 && user < sizes.length ? sizes[user] : 0;
+        }
+
+        long memoryBytes() {
+            long bytes = (long) lists.length * ARRAY_OVERHEAD_BYTES + (long) sizes.length * 4;
+            for (int[] list : lists) {
+                bytes += (long) list.length * 4;
+            }
+            return bytes;
+        }
+
+        /**
+         * Finds a neighbour in the list of a user
+         *
+         * @return The index of the neighbour, or (-(insertion point) - 1) if it is not listed
+         */
+        private int indexOf(int user, int neighbour) {
+            if (user < 0 || user >= sizes.length) {
+                return -1;
+            }
+            return Arrays.binarySearch(lists[user], 0, sizes[user], neighbour);
+        }
+
+        private void ensureUser(int user) {
+            if (user < sizes.length) {
+                return;
+            }
+            int users = Math.max(user + 1, sizes.length + (sizes.length >> 1));
+            int oldUsers = sizes.length;
+            lists = Arrays.copyOf(lists, users);
+            sizes = Arrays.copyOf(sizes, users);
+            Arrays.fill(lists, oldUsers, users, EMPTY);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.socialfood.model.handler;
+
+import com.example.socialfood.model.database.TaskContext;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking handler and controller methods for their asynchronous variants. The method runs
+ * on a caller thread, which may wait for the database, and the returned future completes on the
+ * callback executor, usually the main thread. Callbacks attached with {@code thenAccept} and
+ * similar therefore run on the main thread and may touch views.
+ *
+ * <p>
+ * The blocking methods report database errors through their return value, so a future only
+ * completes exceptionally if the method threw or the caller pool rejected the call.
+ * </p>
+ *
+ * <p>
+ * Calls run under the {@link TaskContext} current when they were started. A call whose scope was
+ * cancelled or whose deadline passed before it reached a caller thread does not run; its future
+ * is cancelled on the callback executor, so {@code thenAccept} callbacks of a destroyed screen
+ * are skipped.
+ * </p>
+ */
+public final class Async {
+
+    private Async() {
+    }
+
+    /**
+     * Runs a blocking call on the caller executor
+     *
+     * @param callerExecutor The executor running the call, never a database executor the call
+     * waits for
+     * @param callbackExecutor The executor completing the returned future
+     * @param call The blocking call
+     * @param <T> The type of the result
+     * @return A future completed on the callback executor with the result of the call
+     */
+    public static <T> CompletableFuture<T> call(Executor callerExecutor, Executor callbackExecutor,
+            Supplier<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        TaskContext context = TaskContext.current();
+        try {
+            callerExecutor.execute(() -> context.run(() -> {
+                if (context.isCancelled()) {
+                    callbackExecutor.execute(() -> result.cancel(false));
+                    return;
+                }
+                T value;
+                try {
+                    value = call.get();
+                } catch (Throwable e) {
+                    // Errors complete the future too, otherwise its callbacks would never run
+                    callbackExecutor.execute(() -> result.completeExceptionally(e));
+                    return;
+                }
+                callbackExecutor.execute(() -> result.complete(value));
+            }));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Runs a blocking call without a result on the caller executor
+     *
+     * @param callerExecutor The executor running the call
+     * @param callbackExecutor The executor completing the returned future
+     * @param call The blocking call
+     * @return A future completed on the callback executor once the call has returned
+     */
+    public static CompletableFuture<Void> run(Executor callerExecutor, Executor callbackExecutor,
+            Runnable call) {
+        return call(callerExecutor, callbackExecutor, () -> {
+            call.run();
+            return null;
+        });
+    }
+}
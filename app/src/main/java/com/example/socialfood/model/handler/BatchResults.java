@@ -0,0 +1,60 @@
+package com.example.socialfood.model.handler;
+
+import java.util.List;
+
+/**
+ * Helpers for turning the outcome of a batched DAO call into per-item results, as returned by the
+ * batch methods of {@link EntityHandlerInterface}.
+ */
+final class BatchResults {
+
+    private BatchResults() {
+    }
+
+    /**
+     * Converts the row IDs returned by a batched insert into per-item results
+     *
+     * @param rowIds The row IDs, -1 for every row that was not inserted
+     * @param size The number of items in the batch
+     * @return For each item, whether it was inserted
+     */
+    static boolean[] fromRowIds(List<Long> rowIds, int size) {
+        boolean[] results = new boolean[size];
+        if (rowIds == null) {
+            return results;
+        }
+        for (int i = 0; i < size && i < rowIds.size(); i++) {
+            Long rowId = rowIds.get(i);
+            results[i] = rowId != null && rowId != -1;
+        }
+        return results;
+    }
+
+    /**
+     * Checks a batch before it is submitted
+     *
+     * @param entities The entities of the batch
+     * @return true if the batch is non-empty and contains no null entries, false otherwise
+     */
+    static boolean isValid(List<?> entities) {
+        if (entities == null || entities.isEmpty()) {
+            return false;
+        }
+        for (Object entity : entities) {
+            if (entity == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the results of a batch in which no item succeeded
+     *
+     * @param entities The entities of the batch, may be null
+     * @return An all-false result array with one entry per entity
+     */
+    static boolean[] failed(List<?> entities) {
+        return new boolean[entities != null ? entities.size() : 0];
+    }
+}
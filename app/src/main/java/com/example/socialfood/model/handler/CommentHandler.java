@@ -3,15 +3,20 @@ package com.example.socialfood.model.handler;
 import android.content.Context;
 import android.util.Log;
 
+import androidx.room.InvalidationTracker;
+
 import com.example.socialfood.model.dao.CommentDao;
 import com.example.socialfood.model.database.DatabaseClient;
+import com.example.socialfood.model.database.LiveQuery;
+import com.example.socialfood.model.database.Subscription;
 import com.example.socialfood.model.entities.Comment;
+import com.example.socialfood.model.metrics.MetricsRegistry;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -21,9 +26,16 @@ import java.util.concurrent.TimeUnit;
  */
 public class CommentHandler implements EntityHandlerInterface<Comment> {
     private final CommentDao commentDao;
-    private final ExecutorService executorService;
+    private final ExecutorService readExecutor;
+    private final ExecutorService writeExecutor;
+    private final ExecutorService callerExecutor;
+    private final MetricsRegistry metrics;
+    private final InvalidationTracker invalidationTracker;
+    private final SingleFlight singleFlight;
+    private final IdAllocator commentIds;
     private static final String TAG = "CommentHandler";
     private static final int TIMEOUT_SECONDS = 5;
+    private static final int BATCH_TIMEOUT_SECONDS = 30;
 
     /**
      * Constructs a new CommentHandler
@@ -31,13 +43,23 @@ public class CommentHandler implements EntityHandlerInterface<Comment> {
      * @param context The application context
      */
     public CommentHandler(Context context) {
-        this.commentDao = DatabaseClient.getInstance(context).getDatabase().commentDao();
-        this.executorService = Executors.newSingleThreadExecutor();
+        this(DatabaseClient.getInstance(context));
     }
 
     public CommentHandler(DatabaseClient databaseClient) {
         this.commentDao = databaseClient.getDatabase().commentDao();
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.readExecutor = databaseClient.getReadExecutor();
+        this.writeExecutor = databaseClient.getWriteExecutor();
+        this.callerExecutor = databaseClient.getCallerExecutor();
+        this.metrics = databaseClient.getMetrics();
+        this.invalidationTracker = databaseClient.getDatabase().getInvalidationTracker();
+        this.singleFlight = databaseClient.getSingleFlight();
+        this.commentIds = databaseClient.getCommentIdAllocator();
+    }
+
+    @Override
+    public Executor getCallerExecutor() {
+        return callerExecutor;
     }
 
     /**
@@ -54,7 +76,8 @@ public class CommentHandler implements EntityHandlerInterface<Comment> {
             return false;
         }
         try {
-            Future<?> future = executorService.submit(() -> commentDao.insertComment(entity));
+            Future<?> future = metrics.submit(writeExecutor, "CommentDao.insertComment",
+                    () -> commentDao.insertComment(entity));
             future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             return true;
         } catch (Exception e) {
@@ -63,6 +86,23 @@ public class CommentHandler implements EntityHandlerInterface<Comment> {
         }
     }
 
+    /**
+     * Hands out a new unique comment ID. IDs come from a persistent sequence in blocks of
+     * {@link IdAllocator#DEFAULT_BLOCK_SIZE}, shared by all handlers of the database, so most
+     * calls do not touch the database. The sequence starts after the highest existing comment ID;
+     * IDs are 64-bit, so the timestamp-derived IDs of older comments leave ample room.
+     *
+     * @return The new comment ID, -1 on error
+     */
+    public long nextCommentId() {
+        try {
+            return commentIds.nextId();
+        } catch (Exception e) {
+            Log.e(TAG, "Error generating comment ID", e);
+            return -1;
+        }
+    }
+
     /**
      * Retrieves all comments from the database
      *
@@ -71,7 +111,8 @@ public class CommentHandler implements EntityHandlerInterface<Comment> {
     @Override
     public List<Comment> getAll() {
         try {
-            Future<List<Comment>> future = executorService.submit(() -> commentDao.getAll());
+            Future<List<Comment>> future = metrics.submit(readExecutor, "CommentDao.getAll",
+                    () -> commentDao.getAll());
             return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             Log.e(TAG, "Error getting all comments", e);
@@ -93,7 +134,8 @@ public class CommentHandler implements EntityHandlerInterface<Comment> {
             return false;
         }
         try {
-            Future<?> future = executorService.submit(() -> commentDao.updateComment(entity));
+            Future<?> future = metrics.submit(writeExecutor, "CommentDao.updateComment",
+                    () -> commentDao.updateComment(entity));
             future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             return true;
         } catch (Exception e) {
@@ -116,7 +158,8 @@ public class CommentHandler implements EntityHandlerInterface<Comment> {
             return false;
         }
         try {
-            Future<?> future = executorService.submit(() -> commentDao.deleteComment(entity));
+            Future<?> future = metrics.submit(writeExecutor, "CommentDao.deleteComment",
+                    () -> commentDao.deleteComment(entity));
             future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             return true;
         } catch (Exception e) {
@@ -134,14 +177,14 @@ public class CommentHandler implements EntityHandlerInterface<Comment> {
      * @return The Comment if found, null otherwise
      * @throws IllegalArgumentException if any ID is not positive
      */
-    public Comment getCommentById(int uid, int postId, int commentId) {
+    public Comment getCommentById(int uid, long postId, long commentId) {
         if (uid <= 0 || postId <= 0 || commentId <= 0) {
             Log.e(TAG, "Invalid ID parameters");
             return null;
         }
         try {
-            Future<Comment> future = executorService
-                    .submit(() -> commentDao.getCommentById(uid, postId, commentId));
+            Future<Comment> future = metrics.submit(readExecutor, "CommentDao.getCommentById",
+                    () -> commentDao.getCommentById(uid, postId, commentId));
             return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             Log.e(TAG, "Error getting comment by id", e);
@@ -150,23 +193,24 @@ public class CommentHandler implements EntityHandlerInterface<Comment> {
     }
 
     /**
-     * Retrieves all comments for a specific post
+     * Retrieves all comments for a specific post. Concurrent calls for the same post share one
+     * query and the returned list, which must not be modified.
      *
      * @param postId The ID of the post
      * @return List of comments, empty list if none found or on error
      * @throws IllegalArgumentException if postId is not positive
      */
-    public List<Comment> getCommentsByPostId(int postId) {
+    public List<Comment> getCommentsByPostId(long postId) {
         if (postId <= 0) {
             Log.e(TAG, "Invalid post ID");
             return new ArrayList<>();
         }
         try {
-            Future<List<Comment>> future = executorService
-                    .submit(() -> {
-                        List<Comment> comments = commentDao.getCommentsByPostId(postId);
-                        return comments;
-                    });
+            Future<List<Comment>> future = metrics.watch("CommentDao.getCommentsByPostId",
+                    singleFlight.submit(readExecutor,
+                            SingleFlight.key("getCommentsByPostId", postId),
+                            metrics.timed("CommentDao.getCommentsByPostId",
+                                    () -> commentDao.getCommentsByPostId(postId))));
             return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             Log.e(TAG, "Error getting comments for post", e);
@@ -174,4 +218,85 @@ public class CommentHandler implements EntityHandlerInterface<Comment> {
         }
     }
 
+    /**
+     * Observes the comments of a post. The listener is called on the main thread with the
+     * current comments and again whenever a comment is written.
+     *
+     * @param postId The ID of the post
+     * @param listener The listener receiving the comments
+     * @return The subscription to close when the comments are no longer shown
+     */
+    public Subscription observeCommentsByPostId(long postId,
+            LiveQuery.Listener<List<Comment>> listener) {
+        return new LiveQuery<>(invalidationTracker, readExecutor, LiveQuery.MAIN_THREAD,
+                new String[] { "comment" }, () -> commentDao.getCommentsByPostId(postId))
+                .observe(listener);
+    }
+
+    /**
+     * Inserts several comments in a single transaction
+     * 
+     * @param entities The Comment entities to insert
+     * @return For each entity, whether it was inserted
+     */
+    @Override
+    public boolean[] insertAll(List<Comment> entities) {
+        if (!BatchResults.isValid(entities)) {
+            Log.e(TAG, "Cannot insert empty batch or batch with null comments");
+            return BatchResults.failed(entities);
+        }
+        try {
+            Future<List<Long>> future = metrics.submit(writeExecutor, "CommentDao.insertComments",
+                    () -> commentDao.insertComments(entities));
+            return BatchResults.fromRowIds(future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                    entities.size());
+        } catch (Exception e) {
+            Log.e(TAG, "Error inserting batch of " + entities.size() + " comments", e);
+            return BatchResults.failed(entities);
+        }
+    }
+
+    /**
+     * Updates several comments in a single transaction
+     * 
+     * @param entities The Comment entities to update
+     * @return For each entity, whether a stored row was updated
+     */
+    @Override
+    public boolean[] updateAll(List<Comment> entities) {
+        if (!BatchResults.isValid(entities)) {
+            Log.e(TAG, "Cannot update empty batch or batch with null comments");
+            return BatchResults.failed(entities);
+        }
+        try {
+            Future<boolean[]> future = metrics.submit(writeExecutor, "CommentDao.updateComments",
+                    () -> commentDao.updateComments(entities));
+            return future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating batch of " + entities.size() + " comments", e);
+            return BatchResults.failed(entities);
+        }
+    }
+
+    /**
+     * Deletes several comments in a single transaction
+     * 
+     * @param entities The Comment entities to delete
+     * @return For each entity, whether a stored row was deleted
+     */
+    @Override
+    public boolean[] deleteAll(List<Comment> entities) {
+        if (!BatchResults.isValid(entities)) {
+            Log.e(TAG, "Cannot delete empty batch or batch with null comments");
+            return BatchResults.failed(entities);
+        }
+        try {
+            Future<boolean[]> future = metrics.submit(writeExecutor, "CommentDao.deleteComments",
+                    () -> commentDao.deleteComments(entities));
+            return future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Log.e(TAG, "Error deleting batch of " + entities.size() + " comments", e);
+            return BatchResults.failed(entities);
+        }
+    }
 }
@@ -1,10 +1,21 @@
 package com.example.socialfood.model.handler;
 
+import com.example.socialfood.model.database.LiveQuery;
+
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Interface for data access operations on entities. Provides basic CRUD operations that all entity
- * handlers must implement.
+ * handlers must implement. The batch variants write all entities in a single transaction, so a
+ * batch costs one commit instead of one per entity.
+ * 
+ * <p>
+ * The blocking methods wait for the database and must not be called on the main thread. Every
+ * one has an asynchronous variant that runs it on the caller executor and completes its future
+ * on the main thread.
+ * </p>
  * 
  * @param <T> The type of entity being handled
  */
@@ -42,4 +53,117 @@ public interface EntityHandlerInterface<T> {
      * @return true if deletion was successful, false otherwise
      */
     boolean delete(T entity);
+
+    /**
+     * Inserts several entities in a single transaction
+     * 
+     * @param entities The entities to insert
+     * @return For each entity, whether it was inserted. All false if the batch is invalid or the
+     * transaction failed
+     */
+    boolean[] insertAll(List<T> entities);
+
+    /**
+     * Updates several entities in a single transaction
+     * 
+     * @param entities The entities to update
+     * @return For each entity, whether a stored row was updated. All false if the batch is invalid
+     * or the transaction failed
+     */
+    boolean[] updateAll(List<T> entities);
+
+    /**
+     * Deletes several entities in a single transaction
+     * 
+     * @param entities The entities to delete
+     * @return For each entity, whether a stored row was deleted. All false if the batch is invalid
+     * or the transaction failed
+     */
+    boolean[] deleteAll(List<T> entities);
+
+    /**
+     * Gets the executor the asynchronous variants run the blocking methods on. It must not be
+     * one of the database executors, as the blocking methods wait for those.
+     * 
+     * @return The caller executor
+     */
+    Executor getCallerExecutor();
+
+    /**
+     * Gets the executor completing the futures of the asynchronous variants
+     * 
+     * @return The main thread
+     */
+    default Executor getCallbackExecutor() {
+        return LiveQuery.MAIN_THREAD;
+    }
+
+    /**
+     * Inserts a new entity without blocking the caller, see {@link #insert(Object)}
+     * 
+     * @param entity The entity to insert
+     * @return A future completed on the main thread with whether the entity was inserted
+     */
+    default CompletableFuture<Boolean> insertAsync(T entity) {
+        return Async.call(getCallerExecutor(), getCallbackExecutor(), () -> insert(entity));
+    }
+
+    /**
+     * Retrieves all entities without blocking the caller, see {@link #getAll()}
+     * 
+     * @return A future completed on the main thread with all entities
+     */
+    default CompletableFuture<List<T>> getAllAsync() {
+        return Async.call(getCallerExecutor(), getCallbackExecutor(), this::getAll);
+    }
+
+    /**
+     * Updates an entity without blocking the caller, see {@link #update(Object)}
+     * 
+     * @param entity The entity to update
+     * @return A future completed on the main thread with whether the entity was updated
+     */
+    default CompletableFuture<Boolean> updateAsync(T entity) {
+        return Async.call(getCallerExecutor(), getCallbackExecutor(), () -> update(entity));
+    }
+
+    /**
+     * Deletes an entity without blocking the caller, see {@link #delete(Object)}
+     * 
+     * @param entity The entity to delete
+     * @return A future completed on the main thread with whether the entity was deleted
+     */
+    default CompletableFuture<Boolean> deleteAsync(T entity) {
+        return Async.call(getCallerExecutor(), getCallbackExecutor(), () -> delete(entity));
+    }
+
+    /**
+     * Inserts several entities without blocking the caller, see {@link #insertAll(List)}
+     * 
+     * @param entities The entities to insert
+     * @return A future completed on the main thread with the result per entity
+     */
+    default CompletableFuture<boolean[]> insertAllAsync(List<T> entities) {
+        return Async.call(getCallerExecutor(), getCallbackExecutor(), () -> insertAll(entities));
+    }
+
+    /**
+     * Updates several entities without blocking the caller, see {@link #updateAll(List)}
+     * 
+     * @param entities The entities to update
+     * @return A future completed on the main thread with the result per entity
+     */
+    default CompletableFuture<boolean[]> updateAllAsync(List<T> entities) {
+        return Async.call(getCallerExecutor(), getCallbackExecutor(), () -> updateAll(entities));
+    }
+
+    /**
+     * Deletes several entities without blocking the caller, see {@link #deleteAll(List)}
+     * 
+     * @param entities The entities to delete
+     * @return A future completed on the main thread with the result per entity
+     */
+    default CompletableFuture<boolean[]> deleteAllAsync(List<T> entities) {
+        return Async.call(getCallerExecutor(), getCallbackExecutor(), () -> deleteAll(entities));
+    }
 }
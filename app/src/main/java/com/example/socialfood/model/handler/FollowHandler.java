@@ -6,23 +6,41 @@ import android.util.Log;
 import com.example.socialfood.model.dao.FollowDao;
 import com.example.socialfood.model.database.DatabaseClient;
 import com.example.socialfood.model.entities.Follow;
+import com.example.socialfood.model.graph.FollowGraph;
+import com.example.socialfood.model.metrics.MetricsRegistry;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Handler class for Follow entities. Manages database operations for follow relationships.
  * Implements EntityHandlerInterface for standard CRUD operations.
+ *
+ * <p>
+ * Follow checks and ID lists are answered from the database's in-memory {@link FollowGraph}. The
+ * first of them loads all relationships; afterwards the graph is kept up to date by the write
+ * methods of this handler and by {@link UserHandler} when users are deleted. Each change is
+ * applied as soon as its write has committed, also if the caller stopped waiting for it.
+ * </p>
  */
 public class FollowHandler implements EntityHandlerInterface<Follow> {
     private final FollowDao followDAO;
-    private final ExecutorService executorService;
+    private final ExecutorService readExecutor;
+    private final ExecutorService writeExecutor;
+    private final ExecutorService callerExecutor;
+    private final MetricsRegistry metrics;
+    private final FollowGraph followGraph;
     private static final String TAG = "FollowHandler";
     private static final int TIMEOUT_SECONDS = 5;
+    private static final int BATCH_TIMEOUT_SECONDS = 30;
+
+    /** Number of relationships read per query while loading the follow graph */
+    private static final int GRAPH_PAGE_SIZE = 10_000;
 
     /**
      * Constructs a new FollowHandler
@@ -30,13 +48,21 @@ public class FollowHandler implements EntityHandlerInterface<Follow> {
      * @param context The application context
      */
     public FollowHandler(Context context) {
-        this.followDAO = DatabaseClient.getInstance(context).getDatabase().followDao();
-        this.executorService = Executors.newSingleThreadExecutor();
+        this(DatabaseClient.getInstance(context));
     }
 
     public FollowHandler(DatabaseClient databaseClient) {
         this.followDAO = databaseClient.getDatabase().followDao();
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.readExecutor = databaseClient.getReadExecutor();
+        this.writeExecutor = databaseClient.getWriteExecutor();
+        this.callerExecutor = databaseClient.getCallerExecutor();
+        this.metrics = databaseClient.getMetrics();
+        this.followGraph = databaseClient.getFollowGraph();
+    }
+
+    @Override
+    public Executor getCallerExecutor() {
+        return callerExecutor;
     }
 
     /**
@@ -51,10 +77,9 @@ public class FollowHandler implements EntityHandlerInterface<Follow> {
             return false;
         }
         try {
-            Future<Void> future = executorService.submit(() -> {
-                followDAO.insert(entity);
-                return null;
-            });
+            Future<?> future = Writes.submit(metrics, writeExecutor, "FollowDao.insert",
+                    () -> followDAO.insert(entity),
+                    () -> followGraph.add(entity.getFollowerId(), entity.getFollowedId()));
             future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             return true;
         } catch (Exception e) {
@@ -72,7 +97,8 @@ public class FollowHandler implements EntityHandlerInterface<Follow> {
     @Override
     public List<Follow> getAll() {
         try {
-            Future<List<Follow>> future = executorService.submit(() -> followDAO.getAll());
+            Future<List<Follow>> future = metrics.submit(readExecutor, "FollowDao.getAll",
+                    () -> followDAO.getAll());
             return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             Log.e(TAG, "Error getting all follow relationships", e);
@@ -107,7 +133,9 @@ public class FollowHandler implements EntityHandlerInterface<Follow> {
             return false;
         }
         try {
-            Future<?> future = executorService.submit(() -> followDAO.delete(entity));
+            Future<?> future = Writes.submit(metrics, writeExecutor, "FollowDao.delete",
+                    () -> followDAO.delete(entity),
+                    () -> followGraph.remove(entity.getFollowerId(), entity.getFollowedId()));
             future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             return true;
         } catch (Exception e) {
@@ -130,14 +158,15 @@ public class FollowHandler implements EntityHandlerInterface<Follow> {
             return false;
         }
         try {
-            Future<Boolean> future = executorService.submit(() -> {
-                Follow follow = followDAO.getFollow(followerId, followedId);
-                if (follow != null) {
-                    followDAO.delete(follow);
-                    return true;
-                }
-                return false;
-            });
+            Future<Boolean> future = Writes.submit(metrics, writeExecutor,
+                    "FollowDao.getFollow+delete", () -> {
+                        Follow follow = followDAO.getFollow(followerId, followedId);
+                        if (follow != null) {
+                            followDAO.delete(follow);
+                            return true;
+                        }
+                        return false;
+                    }, deleted -> followGraph.remove(followerId, followedId));
             return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             Log.e(TAG, "Error deleting follow relationship", e);
@@ -146,7 +175,8 @@ public class FollowHandler implements EntityHandlerInterface<Follow> {
     }
 
     /**
-     * Checks if a follow relationship exists
+     * Checks if a follow relationship exists. Answered from the follow graph without querying the
+     * database once the graph is loaded.
      * 
      * @param followerId ID of potential follower
      * @param followedId ID of potentially followed user
@@ -158,15 +188,105 @@ public class FollowHandler implements EntityHandlerInterface<Follow> {
             return false;
         }
         try {
-            Future<Boolean> future = executorService
-                    .submit(() -> followDAO.isFollowing(followerId, followedId));
-            return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            loadGraph();
+            return followGraph.contains(followerId, followedId);
         } catch (Exception e) {
             Log.e(TAG, "Error checking follow status", e);
             return false;
         }
     }
 
+    /**
+     * Gets the IDs of all users that a specific user is following, for callers that need no
+     * timestamps. Answered from the follow graph.
+     * 
+     * @param userId The ID of the user
+     * @return The IDs in ascending order, an empty array on error
+     */
+    public int[] getFollowingIds(int userId) {
+        if (userId <= 0) {
+            Log.e(TAG, "Invalid user ID");
+            return new int[0];
+        }
+        try {
+            loadGraph();
+            return followGraph.getFollowing(userId);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting following IDs", e);
+            return new int[0];
+        }
+    }
+
+    /**
+     * Gets the IDs of all followers of a specific user, for callers that need no timestamps.
+     * Answered from the follow graph.
+     * 
+     * @param userId The ID of the user
+     * @return The IDs in ascending order, an empty array on error
+     */
+    public int[] getFollowerIds(int userId) {
+        if (userId <= 0) {
+            Log.e(TAG, "Invalid user ID");
+            return new int[0];
+        }
+        try {
+            loadGraph();
+            return followGraph.getFollowers(userId);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting follower IDs", e);
+            return new int[0];
+        }
+    }
+
+    /**
+     * Loads all follow relationships into the graph unless it is loaded already. The pages are
+     * read on a reader thread under the graph's load lock only; the graph itself stays available
+     * to other lookups and to the cache budget until the new lists are swapped in. A graph changed
+     * by a write during the read still answers this lookup and is read again by the next one.
+     *
+     * @throws Exception if the relationships could not be read
+     */
+    private void loadGraph() throws Exception {
+        if (followGraph.isLoaded()) {
+            return;
+        }
+        Future<Integer> future = metrics.submit(readExecutor, "FollowDao.getFollowPage", () -> {
+            synchronized (followGraph.getLoadLock()) {
+                if (followGraph.isLoaded()) {
+                    return 0;
+                }
+                long version = followGraph.getVersion();
+                int[] followerIds = new int[GRAPH_PAGE_SIZE];
+                int[] followedIds = new int[GRAPH_PAGE_SIZE];
+                int count = 0;
+                List<Follow> page;
+                do {
+                    page = count == 0 ? followDAO.getFollowPage(0, 0, GRAPH_PAGE_SIZE)
+                            : followDAO.getFollowPage(followerIds[count - 1],
+                                    followedIds[count - 1], GRAPH_PAGE_SIZE);
+                    if (count + page.size() > followerIds.length) {
+                        int capacity = Math.max(count + page.size(), count * 2);
+                        followerIds = Arrays.copyOf(followerIds, capacity);
+                        followedIds = Arrays.copyOf(followedIds, capacity);
+                    }
+                    for (Follow follow : page) {
+                        followerIds[count] = follow.getFollowerId();
+                        followedIds[count] = follow.getFollowedId();
+                        count++;
+                    }
+                } while (page.size() == GRAPH_PAGE_SIZE);
+                if (followGraph.load(version, followerIds, followedIds, count)) {
+                    Log.d(TAG, "Loaded " + count + " follow relationships into the graph");
+                } else {
+                    Log.d(TAG, "Follows changed while loading the graph, reloading with the "
+                            + "next lookup");
+                }
+                return count;
+            }
+        });
+        future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
     /**
      * Gets all users that a specific user is following
      * 
@@ -179,8 +299,8 @@ public class FollowHandler implements EntityHandlerInterface<Follow> {
             return new ArrayList<>();
         }
         try {
-            Future<List<Follow>> future = executorService
-                    .submit(() -> followDAO.getFollowingByUser(userId));
+            Future<List<Follow>> future = metrics.submit(readExecutor,
+                    "FollowDao.getFollowingByUser", () -> followDAO.getFollowingByUser(userId));
             return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             Log.e(TAG, "Error getting following list", e);
@@ -200,12 +320,88 @@ public class FollowHandler implements EntityHandlerInterface<Follow> {
             return new ArrayList<>();
         }
         try {
-            Future<List<Follow>> future = executorService
-                    .submit(() -> followDAO.getFollowersByUser(userId));
+            Future<List<Follow>> future = metrics.submit(readExecutor,
+                    "FollowDao.getFollowersByUser", () -> followDAO.getFollowersByUser(userId));
             return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             Log.e(TAG, "Error getting followers list", e);
             return new ArrayList<>();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Inserts several follow relationships in a single transaction
+     * 
+     * @param entities The Follow entities to insert
+     * @return For each entity, whether it was inserted
+     */
+    @Override
+    public boolean[] insertAll(List<Follow> entities) {
+        if (!BatchResults.isValid(entities)) {
+            Log.e(TAG, "Cannot insert empty batch or batch with null follow relationships");
+            return BatchResults.failed(entities);
+        }
+        try {
+            Future<List<Long>> future = Writes.submit(metrics, writeExecutor,
+                    "FollowDao.insertFollows", () -> followDAO.insertFollows(entities),
+                    rowIds -> {
+                        boolean[] inserted = BatchResults.fromRowIds(rowIds, entities.size());
+                        for (int i = 0; i < inserted.length; i++) {
+                            if (inserted[i]) {
+                                followGraph.add(entities.get(i).getFollowerId(),
+                                        entities.get(i).getFollowedId());
+                            }
+                        }
+                    });
+            return BatchResults.fromRowIds(future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                    entities.size());
+        } catch (Exception e) {
+            Log.e(TAG, "Error inserting batch of " + entities.size() + " follow relationships", e);
+            return BatchResults.failed(entities);
+        }
+    }
+
+    /**
+     * Updates several follow relationships. Not supported, follow relationships are only
+     * inserted or deleted.
+     * 
+     * @param entities The Follow entities to update
+     * @return An all-false result array
+     */
+    @Override
+    public boolean[] updateAll(List<Follow> entities) {
+        Log.w(TAG, "Update operation not supported for follow relationships "
+                + "- use insertAll/deleteAll instead");
+        return BatchResults.failed(entities);
+    }
+
+    /**
+     * Deletes several follow relationships in a single transaction
+     * 
+     * @param entities The Follow entities to delete
+     * @return For each entity, whether a stored row was deleted
+     */
+    @Override
+    public boolean[] deleteAll(List<Follow> entities) {
+        if (!BatchResults.isValid(entities)) {
+            Log.e(TAG, "Cannot delete empty batch or batch with null follow relationships");
+            return BatchResults.failed(entities);
+        }
+        try {
+            Future<boolean[]> future = Writes.submit(metrics, writeExecutor,
+                    "FollowDao.deleteFollows", () -> followDAO.deleteFollows(entities),
+                    deleted -> {
+                        for (int i = 0; i < deleted.length; i++) {
+                            if (deleted[i]) {
+                                followGraph.remove(entities.get(i).getFollowerId(),
+                                        entities.get(i).getFollowedId());
+                            }
+                        }
+                    });
+            return future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Log.e(TAG, "Error deleting batch of " + entities.size() + " follow relationships", e);
+            return BatchResults.failed(entities);
+        }
+    }
+}
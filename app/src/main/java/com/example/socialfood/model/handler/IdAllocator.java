@@ -0,0 +1,109 @@
+package com.example.socialfood.model.handler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out unique, increasing IDs from blocks reserved in a persistent sequence. IDs of the
+ * current block are served from memory with a single atomic increment, so generating an ID costs
+ * O(1) and does not touch the database; only every {@code blockSize}-th call reserves the next
+ * block.
+ *
+ * <p>
+ * IDs of a block that are not used before the app stops are lost, so the IDs are unique and
+ * increasing but may have gaps. IDs are never reused, because a block is written to the sequence
+ * before any of its IDs is handed out.
+ * </p>
+ */
+public class IdAllocator {
+
+    /** Default number of IDs reserved at once */
+    public static final int DEFAULT_BLOCK_SIZE = 32;
+
+    /**
+     * Source of blocks of IDs, usually a persistent sequence
+     */
+    @FunctionalInterface
+    public interface BlockSource {
+        /**
+         * Reserves a block of consecutive IDs that have never been handed out
+         *
+         * @param count The number of IDs to reserve
+         * @return The first ID of the block
+         * @throws Exception if the block could not be reserved
+         */
+        long reserve(int count) throws Exception;
+    }
+
+    /**
+     * A reserved range of IDs from next (inclusive) to end (exclusive)
+     */
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long first, long end) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+        }
+    }
+
+    private final BlockSource source;
+    private final int blockSize;
+    private volatile Block block = new Block(0, 0);
+
+    /**
+     * Creates an allocator reserving {@link #DEFAULT_BLOCK_SIZE} IDs at once
+     *
+     * @param source The source of the blocks
+     */
+    public IdAllocator(BlockSource source) {
+        this(source, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates an allocator
+     *
+     * @param source    The source of the blocks
+     * @param blockSize The number of IDs reserved at once
+     * @throws IllegalArgumentException if the block size is not positive
+     */
+    public IdAllocator(BlockSource source, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+        this.source = source;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Hands out the next ID. Safe to call from any thread.
+     *
+     * @return An ID that has never been handed out before
+     * @throws Exception if a new block was needed and could not be reserved
+     */
+    public long nextId() throws Exception {
+        while (true) {
+            Block current = block;
+            long id = current.next.getAndIncrement();
+            if (id < current.end) {
+                return id;
+            }
+            refill(current);
+        }
+    }
+
+    /**
+     * Replaces an exhausted block with a new one. Threads that find the same block exhausted wait
+     * here, only the first one reserves a new block.
+     *
+     * @param exhausted The block that was found exhausted
+     * @throws Exception if the block could not be reserved
+     */
+    private synchronized void refill(Block exhausted) throws Exception {
+        if (block != exhausted) {
+            return;
+        }
+        long first = source.reserve(blockSize);
+        block = new Block(first, first + blockSize);
+    }
+}
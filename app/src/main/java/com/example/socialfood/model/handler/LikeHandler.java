@@ -6,23 +6,37 @@ import android.util.Log;
 import com.example.socialfood.model.dao.LikeDao;
 import com.example.socialfood.model.database.DatabaseClient;
 import com.example.socialfood.model.entities.Like;
+import com.example.socialfood.model.metrics.MetricsRegistry;
+import com.example.socialfood.model.search.Postings;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Handler class for Like entities. Manages database operations for likes through LikeDao.
  * Implements EntityHandlerInterface for standard CRUD operations.
+ *
+ * <p>
+ * Likes toggled from the UI go through the database's {@link LikeWriteBehind}, which writes them
+ * in batches; like states and counts read here include the toggles not yet written. Likes
+ * inserted or deleted directly replace any pending toggle of the same user and post.
+ * </p>
  */
 public class LikeHandler implements EntityHandlerInterface<Like> {
     private final LikeDao likeDao;
-    private final ExecutorService executorService;
+    private final ExecutorService readExecutor;
+    private final ExecutorService writeExecutor;
+    private final ExecutorService callerExecutor;
+    private final MetricsRegistry metrics;
+    private final LikeWriteBehind likeWriteBehind;
     private static final String TAG = "LikeHandler";
     private static final int TIMEOUT_SECONDS = 5;
+    private static final int BATCH_TIMEOUT_SECONDS = 30;
 
     /**
      * Constructs a new LikeHandler
@@ -30,13 +44,21 @@ public class LikeHandler implements EntityHandlerInterface<Like> {
      * @param context The application context
      */
     public LikeHandler(Context context) {
-        this.likeDao = DatabaseClient.getInstance(context).getDatabase().likeDao();
-        this.executorService = Executors.newSingleThreadExecutor();
+        this(DatabaseClient.getInstance(context));
     }
 
     public LikeHandler(DatabaseClient databaseClient) {
         this.likeDao = databaseClient.getDatabase().likeDao();
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.readExecutor = databaseClient.getReadExecutor();
+        this.writeExecutor = databaseClient.getWriteExecutor();
+        this.callerExecutor = databaseClient.getCallerExecutor();
+        this.metrics = databaseClient.getMetrics();
+        this.likeWriteBehind = databaseClient.getLikeWriteBehind();
+    }
+
+    @Override
+    public Executor getCallerExecutor() {
+        return callerExecutor;
     }
 
     /**
@@ -53,7 +75,10 @@ public class LikeHandler implements EntityHandlerInterface<Like> {
             return false;
         }
         try {
-            Future<?> future = executorService.submit(() -> likeDao.insert(entity));
+            likeWriteBehind.discardPending(entity.getUserId(), entity.getPostId());
+            Future<?> future = Writes.submit(metrics, writeExecutor, "LikeDao.insert",
+                    () -> likeDao.insert(entity), () -> likeWriteBehind.recordWritten(
+                            entity.getUserId(), entity.getPostId(), true));
             future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             return true;
         } catch (Exception e) {
@@ -70,7 +95,8 @@ public class LikeHandler implements EntityHandlerInterface<Like> {
     @Override
     public List<Like> getAll() {
         try {
-            Future<List<Like>> future = executorService.submit(() -> likeDao.getAll());
+            Future<List<Like>> future = metrics.submit(readExecutor, "LikeDao.getAll",
+                    () -> likeDao.getAll());
             return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             Log.e(TAG, "Error getting all likes", e);
@@ -105,7 +131,10 @@ public class LikeHandler implements EntityHandlerInterface<Like> {
             return false;
         }
         try {
-            Future<?> future = executorService.submit(() -> likeDao.delete(entity));
+            likeWriteBehind.discardPending(entity.getUserId(), entity.getPostId());
+            Future<?> future = Writes.submit(metrics, writeExecutor, "LikeDao.delete",
+                    () -> likeDao.delete(entity), () -> likeWriteBehind.recordWritten(
+                            entity.getUserId(), entity.getPostId(), false));
             future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             return true;
         } catch (Exception e) {
@@ -116,33 +145,20 @@ public class LikeHandler implements EntityHandlerInterface<Like> {
 
     /**
      * Toggles a like for a post by a user. If the post is already liked by the user, the like is
-     * removed. Otherwise, a new like is created.
+     * removed. Otherwise, a new like is created. The toggle is recorded in memory and written
+     * later together with other toggles, repeated toggles of the same like cancel out.
      *
      * @param userId The ID of the user toggling the like
      * @param postId The ID of the post being liked/unliked
      * @return true if the post was liked, false if it was unliked or on error
      */
-    public boolean toggleLike(int userId, int postId) {
+    public boolean toggleLike(int userId, long postId) {
+        if (userId <= 0 || postId <= 0) {
+            Log.e(TAG, "Invalid user ID or post ID");
+            return false;
+        }
         try {
-            Future<Boolean> future = executorService.submit(() -> {
-                if (likeDao.isLikedByUser(userId, postId)) {
-                    Like like = new Like();
-                    like.setUserId(userId);
-                    like.setPostId(postId);
-                    likeDao.delete(like);
-                    Log.d(TAG, "Like removed for post " + postId + " by user " + userId);
-                    return false;
-                } else {
-                    Like like = new Like();
-                    like.setUserId(userId);
-                    like.setPostId(postId);
-                    like.setTimestamp(System.currentTimeMillis());
-                    likeDao.insert(like);
-                    Log.d(TAG, "Like added for post " + postId + " by user " + userId);
-                    return true;
-                }
-            });
-            return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return likeWriteBehind.toggle(userId, postId);
         } catch (Exception e) {
             Log.e(TAG, "Error toggling like for post " + postId, e);
             return false;
@@ -150,20 +166,30 @@ public class LikeHandler implements EntityHandlerInterface<Like> {
     }
 
     /**
-     * Checks if a post is liked by a specific user
+     * Checks if a post is liked by a specific user, including toggles not yet written. The
+     * logged-in user's likes are answered from memory once {@link #loadLikedPosts} has run.
      * 
      * @param userId The ID of the user
      * @param postId The ID of the post
      * @return true if the post is liked by the user, false otherwise or on error
      */
-    public boolean isLikedByUser(int userId, int postId) {
+    public boolean isLikedByUser(int userId, long postId) {
         if (userId <= 0 || postId <= 0) {
             Log.e(TAG, "Invalid user ID or post ID");
             return false;
         }
+        Boolean known = likeWriteBehind.getLikedPosts().isLiked(userId, postId);
+        if (known != null) {
+            return known;
+        }
         try {
-            Future<Boolean> future = executorService
-                    .submit(() -> likeDao.isLikedByUser(userId, postId));
+            Future<Boolean> future = metrics.submit(readExecutor, "LikeDao.isLikedByUser",
+                    () -> likeWriteBehind.read(
+                            () -> likeDao.isLikedByUser(userId, postId),
+                            liked -> {
+                                Boolean pending = likeWriteBehind.getPendingState(userId, postId);
+                                return pending != null ? pending : liked;
+                            }));
             return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             Log.e(TAG, "Error checking like status for post " + postId, e);
@@ -172,18 +198,54 @@ public class LikeHandler implements EntityHandlerInterface<Like> {
     }
 
     /**
-     * Gets the total number of likes for a post
+     * Loads the IDs of all posts liked by a user into memory, so that {@link #isLikedByUser}
+     * answers for that user without querying the database. Replaces the likes loaded for any
+     * other user. Called when a user logs in or the session is restored.
+     *
+     * @param userId The ID of the logged-in user
+     * @return true if the likes were loaded, false on error
+     */
+    public boolean loadLikedPosts(int userId) {
+        if (userId <= 0) {
+            Log.e(TAG, "Invalid user ID");
+            return false;
+        }
+        try {
+            Future<Integer> future = metrics.submit(readExecutor, "LikeDao.getLikedPostIds",
+                    () -> likeWriteBehind.loadLikedPosts(userId,
+                            () -> Postings.of(likeDao.getLikedPostIds(userId))));
+            future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading liked posts of user " + userId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Forgets the likes loaded by {@link #loadLikedPosts}, e.g. when the user logs out
+     */
+    public void clearLikedPosts() {
+        likeWriteBehind.getLikedPosts().clear();
+    }
+
+    /**
+     * Gets the total number of likes for a post, including toggles not yet written
      * 
      * @param postId The ID of the post
      * @return The number of likes for the post, 0 if post doesn't exist or on error
      */
-    public int getLikeCount(int postId) {
+    public int getLikeCount(long postId) {
         if (postId <= 0) {
             Log.e(TAG, "Invalid post ID");
             return 0;
         }
         try {
-            Future<Integer> future = executorService.submit(() -> likeDao.getLikeCount(postId));
+            Future<Integer> future = metrics.submit(readExecutor, "LikeDao.getLikeCount",
+                    () -> likeWriteBehind.read(
+                            () -> likeDao.getLikeCount(postId),
+                            count -> Math.max(0,
+                                    count + likeWriteBehind.getPendingCountDelta(postId))));
             return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             Log.e(TAG, "Error getting like count for post " + postId, e);
@@ -191,4 +253,134 @@ public class LikeHandler implements EntityHandlerInterface<Like> {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Inserts several likes in a single transaction
+     * 
+     * @param entities The Like entities to insert
+     * @return For each entity, whether it was inserted
+     */
+    @Override
+    public boolean[] insertAll(List<Like> entities) {
+        if (!BatchResults.isValid(entities)) {
+            Log.e(TAG, "Cannot insert empty batch or batch with null likes");
+            return BatchResults.failed(entities);
+        }
+        try {
+            discardPending(entities);
+            Future<List<Long>> future = Writes.submit(metrics, writeExecutor,
+                    "LikeDao.insertLikes", () -> likeDao.insertLikes(entities),
+                    rowIds -> recordLikedPosts(entities,
+                            BatchResults.fromRowIds(rowIds, entities.size()), true));
+            return BatchResults.fromRowIds(future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                    entities.size());
+        } catch (Exception e) {
+            Log.e(TAG, "Error inserting batch of " + entities.size() + " likes", e);
+            return BatchResults.failed(entities);
+        }
+    }
+
+    /**
+     * Updates several likes. Not supported, likes are only inserted or deleted.
+     * 
+     * @param entities The Like entities to update
+     * @return An all-false result array
+     */
+    @Override
+    public boolean[] updateAll(List<Like> entities) {
+        Log.w(TAG, "Update operation not supported for likes - use insertAll/deleteAll instead");
+        return BatchResults.failed(entities);
+    }
+
+    /**
+     * Deletes several likes in a single transaction
+     * 
+     * @param entities The Like entities to delete
+     * @return For each entity, whether a stored row was deleted
+     */
+    @Override
+    public boolean[] deleteAll(List<Like> entities) {
+        if (!BatchResults.isValid(entities)) {
+            Log.e(TAG, "Cannot delete empty batch or batch with null likes");
+            return BatchResults.failed(entities);
+        }
+        try {
+            discardPending(entities);
+            Future<boolean[]> future = Writes.submit(metrics, writeExecutor,
+                    "LikeDao.deleteLikes", () -> likeDao.deleteLikes(entities),
+                    deleted -> recordLikedPosts(entities, deleted, false));
+            return future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Log.e(TAG, "Error deleting batch of " + entities.size() + " likes", e);
+            return BatchResults.failed(entities);
+        }
+    }
+
+    /**
+     * Drops the pending toggles of the likes of a batch before the batch is written, see
+     * {@link LikeWriteBehind#discardPending}
+     *
+     * @param entities The likes of the batch
+     */
+    private void discardPending(List<Like> entities) {
+        for (Like like : entities) {
+            likeWriteBehind.discardPending(like.getUserId(), like.getPostId());
+        }
+    }
+
+    /**
+     * Records the likes written by a batch in the loaded liked post set once the batch has
+     * committed, see {@link LikeWriteBehind#recordWritten}
+     *
+     * @param entities The likes of the batch
+     * @param written For each like, whether it was written
+     * @param liked true if the likes were inserted, false if they were deleted
+     */
+    private void recordLikedPosts(List<Like> entities, boolean[] written, boolean liked) {
+        for (int i = 0; i < written.length; i++) {
+            if (written[i]) {
+                likeWriteBehind.recordWritten(entities.get(i).getUserId(),
+                        entities.get(i).getPostId(), liked);
+            }
+        }
+    }
+
+    /**
+     * Stores the toggles of a {@link LikeWriteBehind} in the like table. Runs the queries on the
+     * calling thread: reads on the thread toggling the like, writes on the writer thread.
+     */
+    public static final class TableStore implements LikeWriteBehind.Store {
+        private final LikeDao likeDao;
+
+        /**
+         * Creates the store
+         *
+         * @param likeDao The DAO of the like table
+         */
+        public TableStore(LikeDao likeDao) {
+            this.likeDao = likeDao;
+        }
+
+        @Override
+        public boolean isLiked(int userId, long postId) {
+            return likeDao.isLikedByUser(userId, postId);
+        }
+
+        @Override
+        public void apply(List<LikeWriteBehind.Change> changes) {
+            List<Like> liked = new ArrayList<>();
+            List<Like> unliked = new ArrayList<>();
+            for (LikeWriteBehind.Change change : changes) {
+                Like like = new Like();
+                like.setUserId(change.getUserId());
+                like.setPostId(change.getPostId());
+                like.setTimestamp(change.getTimestamp());
+                if (change.isLiked()) {
+                    liked.add(like);
+                } else {
+                    unliked.add(like);
+                }
+            }
+            likeDao.applyLikes(liked, unliked);
+        }
+    }
+}
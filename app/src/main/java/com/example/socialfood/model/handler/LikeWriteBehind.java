@@ -0,0 +1,622 @@
+package com.example.socialfood.model.handler;
+
+import android.util.Log;
+
+import com.example.socialfood.model.database.ChangeSource;
+import com.example.socialfood.model.database.GroupCommitWriter;
+import com.example.socialfood.model.database.Subscription;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps like toggles in memory and writes them to the database in batches. Toggles on the same
+ * user and post collapse into their net effect: an even number of taps writes nothing, an odd
+ * number writes a single insert or delete. Like states and counts are answered from the database
+ * plus the pending toggles, so callers see a toggle immediately.
+ *
+ * <p>
+ * Pending toggles are flushed as one write of the database's {@link GroupCommitWriter}
+ * {@link #DEFAULT_FLUSH_DELAY_MS} after the first of them, or as soon as
+ * {@link #DEFAULT_MAX_PENDING} are waiting. At most one flush is queued or running at any time,
+ * so rapid tapping never queues more than one transaction. A flush that fails keeps its toggles
+ * and is retried after the same delay, but at least {@link #RETRY_DELAY_MS}.
+ * </p>
+ *
+ * <p>
+ * A flush copies the pending toggles under the monitor of this object and queues them without
+ * holding it, so toggles are never blocked by the database. As it shares the writer of the
+ * handlers, a flush commits after every like inserted or deleted before it was queued and before
+ * every later one. Once committed, a toggle is dropped only if it still matches what was
+ * written; a user who tapped again meanwhile keeps a pending toggle against the new stored
+ * state. {@link #read} waits for a queued flush to commit, so no read sees both the flushed likes
+ * and their pending toggles.
+ * </p>
+ *
+ * <p>
+ * Toggles not yet flushed are lost if the process dies, so the app flushes when it goes to the
+ * background and before the database is closed. Likes written directly to the table must be
+ * announced through {@link #discardPending} and {@link #recordWritten}, so that an older toggle
+ * is not flushed over them.
+ * </p>
+ *
+ * <p>
+ * Once {@link #loadLikedPosts} has run for the logged-in user, every toggle also updates the
+ * {@link LikedPostSet} of that user, so their like states need no database read at all.
+ * </p>
+ */
+public class LikeWriteBehind implements ChangeSource {
+    private static final String TAG = "LikeWriteBehind";
+
+    /** Default time between the first pending toggle and the flush */
+    public static final long DEFAULT_FLUSH_DELAY_MS = 300;
+
+    /** Default number of pending toggles that triggers an immediate flush */
+    public static final int DEFAULT_MAX_PENDING = 64;
+
+    /** Minimum time before a failed flush is retried */
+    public static final long RETRY_DELAY_MS = 1000;
+
+    /** Number of times {@link #read} repeats a read that overlapped a flush */
+    private static final int MAX_READ_ATTEMPTS = 3;
+
+    /**
+     * The stored likes, usually the like table
+     */
+    public interface Store {
+        /**
+         * Checks whether a like is stored
+         *
+         * @param userId The ID of the user
+         * @param postId The ID of the post
+         * @return true if the like is stored
+         * @throws Exception if the like could not be read
+         */
+        boolean isLiked(int userId, long postId) throws Exception;
+
+        /**
+         * Stores several changes in a single transaction. Likes of posts or users that no longer
+         * exist are skipped.
+         *
+         * @param changes The changes, at most one per user and post
+         * @throws Exception if the changes could not be stored, then none of them is
+         */
+        void apply(List<Change> changes) throws Exception;
+    }
+
+    /**
+     * Queues the writes of the flushes, so that they commit in order with the other writes of the
+     * database
+     */
+    public interface Writer {
+        /**
+         * Queues a write
+         *
+         * @param write The write; it only touches the database and may run more than once
+         * @return A future completed once the write has committed or failed; actions chained to
+         * it must not block
+         * @throws RejectedExecutionException if no more writes are accepted
+         */
+        CompletableFuture<Void> write(Callable<Void> write);
+    }
+
+    /**
+     * The net effect of the toggles of one user on one post
+     */
+    public static final class Change {
+        private final int userId;
+        private final long postId;
+        private final boolean liked;
+        private final long timestamp;
+
+        Change(int userId, long postId, boolean liked, long timestamp) {
+            this.userId = userId;
+            this.postId = postId;
+            this.liked = liked;
+            this.timestamp = timestamp;
+        }
+
+        /** @return The ID of the user */
+        public int getUserId() {
+            return userId;
+        }
+
+        /** @return The ID of the post */
+        public long getPostId() {
+            return postId;
+        }
+
+        /** @return true if the like is to be inserted, false if it is to be deleted */
+        public boolean isLiked() {
+            return liked;
+        }
+
+        /** @return The time of the last toggle, used as timestamp of an inserted like */
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+
+    private static final class Key {
+        private final int userId;
+        private final long postId;
+
+        Key(int userId, long postId) {
+            this.userId = userId;
+            this.postId = postId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return userId == key.userId && postId == key.postId;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * userId + Long.hashCode(postId);
+        }
+    }
+
+    private static final class Entry {
+        private boolean stored;
+        private boolean liked;
+        private long timestamp;
+
+        Entry(boolean stored) {
+            this.stored = stored;
+            this.liked = stored;
+        }
+
+        int countDelta() {
+            return (liked ? 1 : 0) - (stored ? 1 : 0);
+        }
+    }
+
+    /**
+     * A pending toggle as copied by a flush
+     */
+    private static final class Flushed {
+        private final Key key;
+        private final Entry entry;
+        private final boolean liked;
+
+        Flushed(Key key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+            this.liked = entry.liked;
+        }
+    }
+
+    private final Store store;
+    private final Writer writer;
+    private final ScheduledExecutorService timer;
+    private final long flushDelayMillis;
+    private final int maxPending;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final LikedPostSet likedPosts = new LikedPostSet();
+
+    private final Map<Key, Entry> pending = new LinkedHashMap<>();
+    private final Map<Long, Integer> countDeltas = new HashMap<>();
+    private boolean flushQueued;
+    private boolean flushAgain;
+    private boolean flushing;
+    private long flushStarts;
+    private ScheduledFuture<?> flushTimer;
+
+    private long toggles;
+    private long flushes;
+    private long written;
+    private long failedFlushes;
+
+    /**
+     * Creates a write-behind buffer with the default delay and size limit
+     *
+     * @param store The stored likes
+     * @param writer Queues the flushes, usually {@link GroupCommitWriter#write} of the database
+     * @param timer The timer delaying the flushes
+     */
+    public LikeWriteBehind(Store store, Writer writer, ScheduledExecutorService timer) {
+        this(store, writer, timer, DEFAULT_FLUSH_DELAY_MS, DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * Creates a write-behind buffer
+     *
+     * @param store The stored likes
+     * @param writer Queues the flushes, usually {@link GroupCommitWriter#write} of the database
+     * @param timer The timer delaying the flushes
+     * @param flushDelayMillis The time between the first pending toggle and the flush
+     * @param maxPending The number of pending toggles that triggers an immediate flush
+     * @throws IllegalArgumentException if the delay is negative or the limit not positive
+     */
+    public LikeWriteBehind(Store store, Writer writer, ScheduledExecutorService timer,
+            long flushDelayMillis, int maxPending) {
+        if (flushDelayMillis < 0 || maxPending <= 0) {
+            throw new IllegalArgumentException(
+                    "Delay must not be negative and limit must be positive");
+        }
+        this.store = store;
+        this.writer = writer;
+        this.timer = timer;
+        this.flushDelayMillis = flushDelayMillis;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Toggles a like. Only the first toggle of a user on a post since the last flush reads the
+     * database, unless the user's likes are loaded; later toggles are answered from memory. Must
+     * not be called on the writer thread.
+     *
+     * @param userId The ID of the user
+     * @param postId The ID of the post
+     * @return true if the post is now liked, false if it is now unliked
+     * @throws Exception if the stored like state could not be read
+     */
+    public boolean toggle(int userId, long postId) throws Exception {
+        Key key = new Key(userId, postId);
+        boolean liked;
+        boolean flushNow;
+        while (true) {
+            long flushesBefore;
+            boolean known;
+            Boolean loaded;
+            synchronized (this) {
+                flushesBefore = flushes;
+                known = pending.containsKey(key);
+                loaded = known ? null : likedPosts.isLiked(userId, postId);
+            }
+            boolean stored = !known && (loaded != null ? loaded : store.isLiked(userId, postId));
+            synchronized (this) {
+                Entry entry = pending.get(key);
+                if (entry == null && (known || flushes != flushesBefore)) {
+                    // A flush committed since the stored state was read, read it again
+                    continue;
+                }
+                if (entry == null) {
+                    entry = new Entry(stored);
+                    pending.put(key, entry);
+                }
+                int deltaBefore = entry.countDelta();
+                entry.liked = !entry.liked;
+                entry.timestamp = System.currentTimeMillis();
+                addCountDelta(postId, entry.countDelta() - deltaBefore);
+                toggles++;
+                liked = entry.liked;
+                likedPosts.set(userId, postId, liked);
+                flushNow = pending.size() >= maxPending;
+            }
+            break;
+        }
+        requestFlush(flushNow ? 0 : flushDelayMillis);
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+        return liked;
+    }
+
+    /**
+     * Gets the pending like state of a user on a post
+     *
+     * @param userId The ID of the user
+     * @param postId The ID of the post
+     * @return The like state after the pending toggles, null if there are none
+     */
+    public synchronized Boolean getPendingState(int userId, long postId) {
+        Entry entry = pending.get(new Key(userId, postId));
+        return entry != null ? entry.liked : null;
+    }
+
+    /**
+     * Gets the change of a post's like count by the pending toggles of all users
+     *
+     * @param postId The ID of the post
+     * @return The number of pending likes minus the number of pending unlikes
+     */
+    public synchronized int getPendingCountDelta(long postId) {
+        Integer delta = countDeltas.get(postId);
+        return delta != null ? delta : 0;
+    }
+
+    /**
+     * Reads from the database and applies the pending toggles to the result. The read waits for a
+     * queued flush to finish. If a flush started while the database was read, the read may or
+     * may not include the flushed likes, so it is repeated. Must not be called on the writer
+     * thread.
+     *
+     * @param query The database read
+     * @param overlay Applies the pending toggles, see {@link #getPendingState} and
+     * {@link #getPendingCountDelta}; runs while no flush commits
+     * @param <T> The type of the result
+     * @return The result of the read with the pending toggles applied
+     * @throws Exception if the read failed
+     */
+    public <T> T read(Callable<T> query, UnaryOperator<T> overlay) throws Exception {
+        for (int attempt = 1;; attempt++) {
+            long startsBefore;
+            synchronized (this) {
+                while (flushing) {
+                    wait();
+                }
+                startsBefore = flushStarts;
+            }
+            T value = query.call();
+            synchronized (this) {
+                if (flushStarts == startsBefore || attempt >= MAX_READ_ATTEMPTS) {
+                    return overlay.apply(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the likes of a user into {@link #getLikedPosts()}, replacing those of any other user,
+     * and applies the user's pending toggles. Toggles made meanwhile are not lost: the set is
+     * installed while no toggle changes and every later toggle updates it.
+     *
+     * @param userId The ID of the user
+     * @param query Reads the IDs of the posts liked by the user in ascending order
+     * @return The number of posts the user liked according to the database
+     * @throws Exception if the likes could not be read
+     */
+    public int loadLikedPosts(int userId, Callable<long[]> query) throws Exception {
+        return read(query, postIds -> {
+            likedPosts.load(userId, postIds);
+            for (Map.Entry<Key, Entry> e : pending.entrySet()) {
+                if (e.getKey().userId == userId) {
+                    likedPosts.set(userId, e.getKey().postId, e.getValue().liked);
+                }
+            }
+            return postIds;
+        }).length;
+    }
+
+    /**
+     * Gets the likes of the logged-in user, including the pending toggles. Empty until
+     * {@link #loadLikedPosts} has run.
+     *
+     * @return The liked post set
+     */
+    public LikedPostSet getLikedPosts() {
+        return likedPosts;
+    }
+
+    /**
+     * Writes the pending toggles now, without waiting for the delay. If a flush is running, the
+     * toggles made meanwhile are written right after it.
+     */
+    public void flush() {
+        requestFlush(0);
+    }
+
+    /**
+     * Drops the pending toggle of a user on a post before its like is written directly to the
+     * table, so that the toggle is not flushed over the direct write. A flush that already copied
+     * the toggle was queued before the direct write and commits before it.
+     *
+     * @param userId The ID of the user
+     * @param postId The ID of the post
+     */
+    public synchronized void discardPending(int userId, long postId) {
+        Entry entry = pending.remove(new Key(userId, postId));
+        if (entry != null) {
+            addCountDelta(postId, -entry.countDelta());
+        }
+    }
+
+    /**
+     * Records a like written directly to the table in {@link #getLikedPosts()}, unless the user
+     * toggled it again since {@link #discardPending}; the pending toggle then decides the state.
+     *
+     * @param userId The ID of the user
+     * @param postId The ID of the post
+     * @param liked true if the like was inserted, false if it was deleted
+     */
+    public synchronized void recordWritten(int userId, long postId, boolean liked) {
+        if (!pending.containsKey(new Key(userId, postId))) {
+            likedPosts.set(userId, postId, liked);
+        }
+    }
+
+    @Override
+    public Subscription addChangeListener(Runnable listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    /**
+     * Gets the number of toggles since the buffer was created
+     *
+     * @return The number of toggles
+     */
+    public synchronized long getToggleCount() {
+        return toggles;
+    }
+
+    /**
+     * Gets the number of likes written by flushes. Together with {@link #getToggleCount()} it
+     * shows how many toggles never reached the database.
+     *
+     * @return The number of inserted or deleted likes
+     */
+    public synchronized long getWrittenCount() {
+        return written;
+    }
+
+    /**
+     * Gets the number of successful flushes
+     *
+     * @return The number of committed transactions
+     */
+    public synchronized long getFlushCount() {
+        return flushes;
+    }
+
+    /**
+     * Gets the number of toggles waiting for a flush
+     *
+     * @return The number of users and posts toggled since the last flush
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return TAG + "{toggles=" + toggles + ", written=" + written + ", flushes=" + flushes
+                + ", failedFlushes=" + failedFlushes + ", pending=" + pending.size() + "}";
+    }
+
+    private void addCountDelta(long postId, int change) {
+        if (change != 0) {
+            countDeltas.merge(postId, change, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    /**
+     * Queues a flush with the database writer, unless one is already queued or running. A flush
+     * requested without delay replaces a delayed one, or follows the running one at once.
+     *
+     * @param delayMillis The time to wait before the flush is queued, 0 to queue it now
+     */
+    private void requestFlush(long delayMillis) {
+        List<Flushed> flushed;
+        List<Change> changes;
+        synchronized (this) {
+            if (flushQueued) {
+                flushAgain |= delayMillis == 0;
+                return;
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            if (delayMillis != 0) {
+                scheduleFlush(delayMillis);
+                return;
+            }
+            if (flushTimer != null) {
+                flushTimer.cancel(false);
+                flushTimer = null;
+            }
+            flushed = new ArrayList<>(pending.size());
+            changes = new ArrayList<>(pending.size());
+            for (Map.Entry<Key, Entry> e : pending.entrySet()) {
+                Entry entry = e.getValue();
+                flushed.add(new Flushed(e.getKey(), entry));
+                if (entry.liked != entry.stored) {
+                    changes.add(new Change(e.getKey().userId, e.getKey().postId, entry.liked,
+                            entry.timestamp));
+                }
+            }
+            flushQueued = true;
+            if (!changes.isEmpty()) {
+                flushing = true;
+                flushStarts++;
+            }
+        }
+        if (changes.isEmpty()) {
+            // Every toggle was undone, nothing to write
+            finishFlush(flushed, 0, true);
+            return;
+        }
+        try {
+            writer.write(() -> {
+                store.apply(changes);
+                return null;
+            }).whenComplete((ignored, failure) -> {
+                if (failure != null) {
+                    Log.e(TAG, "Error flushing " + changes.size() + " likes", failure);
+                }
+                finishFlush(flushed, changes.size(), failure == null);
+            });
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Cannot flush " + changes.size() + " pending likes", e);
+            synchronized (this) {
+                flushQueued = false;
+                flushing = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Requests a flush after a delay, unless one is already scheduled
+     *
+     * @param delayMillis The delay
+     */
+    private void scheduleFlush(long delayMillis) {
+        if (flushTimer != null) {
+            return;
+        }
+        try {
+            flushTimer = timer.schedule(() -> {
+                synchronized (this) {
+                    flushTimer = null;
+                }
+                requestFlush(0);
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Cannot schedule flush of pending likes", e);
+        }
+    }
+
+    /**
+     * Ends a flush. After a commit, the copied toggles become the stored state; a toggle is
+     * dropped if it still matches it and kept otherwise, as the user tapped again while the flush
+     * ran. Toggles dropped by {@link #discardPending} meanwhile are left alone. Queues the next
+     * flush if toggles remain.
+     *
+     * @param flushed The toggles copied by the flush
+     * @param changed The number of likes the flush wrote
+     * @param committed true if the flush committed, false if it failed and wrote nothing
+     */
+    private void finishFlush(List<Flushed> flushed, int changed, boolean committed) {
+        long delay;
+        synchronized (this) {
+            if (committed) {
+                for (Flushed f : flushed) {
+                    Entry entry = pending.get(f.key);
+                    if (entry != f.entry) {
+                        continue;
+                    }
+                    int deltaBefore = entry.countDelta();
+                    entry.stored = f.liked;
+                    addCountDelta(f.key.postId, entry.countDelta() - deltaBefore);
+                    if (entry.liked == entry.stored) {
+                        pending.remove(f.key);
+                    }
+                }
+                if (changed > 0) {
+                    flushes++;
+                    written += changed;
+                }
+                delay = flushAgain || pending.size() >= maxPending ? 0 : flushDelayMillis;
+            } else {
+                failedFlushes++;
+                delay = Math.max(flushDelayMillis, RETRY_DELAY_MS);
+            }
+            flushQueued = false;
+            flushAgain = false;
+            flushing = false;
+            notifyAll();
+        }
+        requestFlush(delay);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.socialfood.model.handler;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A fixed-size slice of a larger result together with the cursor for the next slice. The cursor
+ * is opaque to callers and is only meant to be passed back to the method that produced it.
+ *
+ * @param <T> The type of the items in the page
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    /**
+     * Creates a new page
+     *
+     * @param items The items of this page
+     * @param nextCursor The cursor for the following page, null if this is the last page
+     */
+    public Page(List<T> items, String nextCursor) {
+        this.items = items != null ? items : Collections.emptyList();
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Creates an empty last page
+     *
+     * @param <T> The type of the items in the page
+     * @return A page without items and without a next cursor
+     */
+    public static <T> Page<T> empty() {
+        return new Page<>(Collections.emptyList(), null);
+    }
+
+    /**
+     * Gets the items of this page
+     *
+     * @return The items, never null
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the cursor for the next page
+     *
+     * @return The continuation cursor, null if there are no more items
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Checks whether another page can be requested
+     *
+     * @return true if a next cursor is available, false otherwise
+     */
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.socialfood.model.handler;
+
+import com.example.socialfood.model.entities.FeedItem;
+import com.example.socialfood.model.entities.Post;
+
+/**
+ * Keyset position in the newest-first post feed. A cursor is the (timestamp, postId) pair of the
+ * last post of a page, encoded as a compact string that callers treat as opaque.
+ */
+final class PostCursor {
+    private static final char SEPARATOR = '.';
+    private static final int RADIX = 36;
+
+    final long timestamp;
+    final long postId;
+
+    PostCursor(long timestamp, long postId) {
+        this.timestamp = timestamp;
+        this.postId = postId;
+    }
+
+    /**
+     * Creates the cursor pointing after the given post
+     *
+     * @param post The last post of a page
+     * @return The cursor for the page following the post
+     */
+    static PostCursor after(Post post) {
+        return new PostCursor(post.getTimestamp(), post.getPostId());
+    }
+
+    /**
+     * Creates the cursor pointing after the given feed item
+     *
+     * @param item The last feed item of a page
+     * @return The cursor for the page following the item
+     */
+    static PostCursor after(FeedItem item) {
+        return new PostCursor(item.getTimestamp(), item.getPostId());
+    }
+
+    /**
+     * Encodes this cursor into its string form
+     *
+     * @return The opaque cursor string
+     */
+    String encode() {
+        return Long.toString(timestamp, RADIX) + SEPARATOR + Long.toString(postId, RADIX);
+    }
+
+    /**
+     * Decodes a cursor string produced by {@link #encode()}
+     *
+     * @param cursor The cursor string
+     * @return The decoded cursor, null if the string is null or malformed
+     */
+    static PostCursor decode(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        int separator = cursor.indexOf(SEPARATOR);
+        if (separator <= 0 || separator == cursor.length() - 1
+                || cursor.indexOf(SEPARATOR, separator + 1) >= 0) {
+            return null;
+        }
+        try {
+            return new PostCursor(
+                    Long.parseLong(cursor.substring(0, separator), RADIX),
+                    Long.parseLong(cursor.substring(separator + 1), RADIX));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -3,16 +3,31 @@ package com.example.socialfood.model.handler;
 import android.content.Context;
 import android.util.Log;
 
+import androidx.room.InvalidationTracker;
+
+import com.example.socialfood.model.dao.IngredientDao;
 import com.example.socialfood.model.dao.PostDao;
 import com.example.socialfood.model.database.DatabaseClient;
+import com.example.socialfood.model.database.LiveQuery;
+import com.example.socialfood.model.database.Subscription;
+import com.example.socialfood.model.entities.FeedItem;
+import com.example.socialfood.model.entities.Ingredient;
 import com.example.socialfood.model.entities.Post;
+import com.example.socialfood.model.entities.PostLocation;
+import com.example.socialfood.model.entities.SearchResult;
 import com.example.socialfood.model.entities.User;
 import com.example.socialfood.model.dao.LikeDao;
+import com.example.socialfood.model.metrics.MetricsRegistry;
+import com.example.socialfood.model.search.IngredientFilter;
+import com.example.socialfood.model.search.SearchQuery;
+import com.example.socialfood.model.spatial.Neighbors;
+import com.example.socialfood.model.spatial.PostGrid;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -23,9 +38,32 @@ import java.util.concurrent.TimeUnit;
 public class PostHandler implements EntityHandlerInterface<Post> {
     private final PostDao postDao;
     private final LikeDao likeDao;
-    private final ExecutorService executorService;
+    private final IngredientDao ingredientDao;
+    private final PostGrid postGrid;
+    private final ExecutorService readExecutor;
+    private final ExecutorService writeExecutor;
+    private final ExecutorService callerExecutor;
+    private final MetricsRegistry metrics;
+    private final InvalidationTracker invalidationTracker;
+    private final PostIdGenerator postIdGenerator;
+    private final LikeWriteBehind likeWriteBehind;
+    private final SingleFlight singleFlight;
+    private volatile boolean postIdsSeeded;
     private static final String TAG = "PostHandler";
     private static final int TIMEOUT_SECONDS = 5;
+    private static final int BATCH_TIMEOUT_SECONDS = 30;
+
+    /** Number of posts per feed page */
+    public static final int PAGE_SIZE = 50;
+
+    /** Maximum number of search results per page */
+    public static final int MAX_SEARCH_LIMIT = 100;
+
+    /** Maximum number of posts returned by a nearest-post query */
+    public static final int MAX_NEAREST = 100;
+
+    /** Maximum number of posts whose summaries are read by ID in one query */
+    public static final int MAX_FEED_ITEMS_BY_ID = 900;
 
     /**
      * Constructs a new PostHandler
@@ -33,15 +71,27 @@ public class PostHandler implements EntityHandlerInterface<Post> {
      * @param context The application context
      */
     public PostHandler(Context context) {
-        this.postDao = DatabaseClient.getInstance(context).getDatabase().postDao();
-        this.executorService = Executors.newSingleThreadExecutor();
-        this.likeDao = DatabaseClient.getInstance(context).getDatabase().likeDao();
+        this(DatabaseClient.getInstance(context));
     }
 
     public PostHandler(DatabaseClient databaseClient) {
         this.postDao = databaseClient.getDatabase().postDao();
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.readExecutor = databaseClient.getReadExecutor();
+        this.writeExecutor = databaseClient.getWriteExecutor();
+        this.callerExecutor = databaseClient.getCallerExecutor();
+        this.metrics = databaseClient.getMetrics();
+        this.invalidationTracker = databaseClient.getDatabase().getInvalidationTracker();
+        this.postIdGenerator = databaseClient.getPostIdGenerator();
+        this.likeWriteBehind = databaseClient.getLikeWriteBehind();
+        this.singleFlight = databaseClient.getSingleFlight();
         this.likeDao = databaseClient.getDatabase().likeDao();
+        this.ingredientDao = databaseClient.getDatabase().ingredientDao();
+        this.postGrid = databaseClient.getPostGrid();
+    }
+
+    @Override
+    public Executor getCallerExecutor() {
+        return callerExecutor;
     }
 
     /**
@@ -58,7 +108,8 @@ public class PostHandler implements EntityHandlerInterface<Post> {
             return false;
         }
         try {
-            Future<?> future = executorService.submit(() -> postDao.insertPost((Post) entity));
+            Future<?> future = Writes.submit(metrics, writeExecutor, "PostDao.insertPost",
+                    () -> postDao.insertPost(entity), () -> putInGrid(entity));
             future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             Log.d(TAG, "Successfully inserted post: " + entity.getPostId());
 
@@ -69,6 +120,41 @@ public class PostHandler implements EntityHandlerInterface<Post> {
         }
     }
 
+    /**
+     * Hands out a new globally unique, time-ordered post ID from the {@link PostIdGenerator} of
+     * the database. The first call advances the generator past the highest stored post ID, later
+     * calls do not touch the database.
+     *
+     * @return The new post ID, -1 on error
+     */
+    public long nextPostId() {
+        try {
+            if (!postIdsSeeded) {
+                seedPostIds();
+            }
+            return postIdGenerator.nextId();
+        } catch (Exception e) {
+            Log.e(TAG, "Error generating post ID", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Advances the post ID generator past the highest stored post ID, so that a clock set back
+     * while the app was not running cannot produce a stored ID again
+     *
+     * @throws Exception if the highest post ID could not be read in time
+     */
+    private synchronized void seedPostIds() throws Exception {
+        if (postIdsSeeded) {
+            return;
+        }
+        Future<Long> future = metrics.submit(readExecutor, "PostDao.getMaxPostId",
+                () -> postDao.getMaxPostId());
+        postIdGenerator.advancePast(future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        postIdsSeeded = true;
+    }
+
     /**
      * Retrieves all posts from the database
      * 
@@ -77,7 +163,8 @@ public class PostHandler implements EntityHandlerInterface<Post> {
     @Override
     public List<Post> getAll() {
         try {
-            Future<List<Post>> future = executorService.submit(() -> postDao.getAllPosts());
+            Future<List<Post>> future = metrics.submit(readExecutor, "PostDao.getAllPosts",
+                    () -> postDao.getAllPosts());
 
             List<Post> posts = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             Log.d(TAG, "Retrieved " + (posts != null ? posts.size() : 0) + " posts");
@@ -102,7 +189,12 @@ public class PostHandler implements EntityHandlerInterface<Post> {
             return false;
         }
         try {
-            Future<?> future = executorService.submit(() -> postDao.updatePost((Post) entity));
+            Future<?> future = Writes.submit(metrics, writeExecutor, "PostDao.updatePostRow",
+                    () -> postDao.updatePostRow(entity), updated -> {
+                        if (updated > 0) {
+                            putInGrid(entity);
+                        }
+                    });
             future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             Log.d(TAG, "Successfully updated post: " + entity.getPostId());
 
@@ -127,7 +219,9 @@ public class PostHandler implements EntityHandlerInterface<Post> {
             return false;
         }
         try {
-            Future<?> future = executorService.submit(() -> postDao.deletePost(entity));
+            Future<?> future = Writes.submit(metrics, writeExecutor, "PostDao.deletePost",
+                    () -> postDao.deletePost(entity), () -> removeFromGrid(postGrid,
+                            Collections.singletonList(entity.getPostId())));
             future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             Log.d(TAG, "Successfully deleted post: " + entity.getPostId());
             return true;
@@ -138,19 +232,22 @@ public class PostHandler implements EntityHandlerInterface<Post> {
     }
 
     /**
-     * Retrieves a specific post by its composite key (uid and postId)
+     * Retrieves a specific post by its ID. Concurrent calls for the same post share one query and
+     * the returned post, which must not be modified.
      * 
-     * @param uid The user ID who created the post
-     * @param postId The unique identifier of the post
+     * @param postId The globally unique identifier of the post
      * @return The Post entity if found, null otherwise
      */
-    public Post getPostById(int uid, int postId) {
-        if (uid <= 0 || postId <= 0) {
-            Log.e(TAG, "Invalid user ID or post ID");
+    public Post getPostById(long postId) {
+        if (postId <= 0) {
+            Log.e(TAG, "Invalid post ID");
             return null;
         }
         try {
-            Future<Post> future = executorService.submit(() -> postDao.getPostById(uid, postId));
+            Future<Post> future = metrics.watch("PostDao.getPostById",
+                    singleFlight.submit(readExecutor, SingleFlight.key("getPostById", postId),
+                            metrics.timed("PostDao.getPostById",
+                                    () -> postDao.getPostById(postId))));
             Post post = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             Log.d(TAG, "Retrieved post: " + (post != null ? post.getPostId() : "not found"));
             return post;
@@ -161,7 +258,8 @@ public class PostHandler implements EntityHandlerInterface<Post> {
     }
 
     /**
-     * Retrieves all posts for a specific user
+     * Retrieves all posts for a specific user. Concurrent calls for the same user share one query
+     * and the returned list, which must not be modified.
      * 
      * @param uid The user ID to get posts for
      * @return List of posts by the user, empty list if none found or on error
@@ -172,7 +270,10 @@ public class PostHandler implements EntityHandlerInterface<Post> {
             return Collections.emptyList();
         }
         try {
-            Future<List<Post>> future = executorService.submit(() -> postDao.getPostByUser(uid));
+            Future<List<Post>> future = metrics.watch("PostDao.getPostByUser",
+                    singleFlight.submit(readExecutor, SingleFlight.key("getPostByUser", uid),
+                            metrics.timed("PostDao.getPostByUser",
+                                    () -> postDao.getPostByUser(uid))));
             List<Post> posts = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             Log.d(TAG,
                     "Retrieved " + (posts != null ? posts.size() : 0) + " posts for user " + uid);
@@ -184,7 +285,32 @@ public class PostHandler implements EntityHandlerInterface<Post> {
     }
 
     /**
-     * Checks if a post is liked by a specific user
+     * Observes the posts of a user. The listener is called on the main thread with the current
+     * posts and again whenever a post is written.
+     * 
+     * @param uid The user ID
+     * @param listener The listener receiving the posts
+     * @return The subscription to close when the posts are no longer shown
+     */
+    public Subscription observePostsByUser(int uid, LiveQuery.Listener<List<Post>> listener) {
+        return new LiveQuery<>(invalidationTracker, readExecutor, LiveQuery.MAIN_THREAD,
+                new String[] { "post" }, () -> postDao.getPostByUser(uid)).observe(listener);
+    }
+
+    /**
+     * Calls a callback on the main thread whenever any post is inserted, updated or deleted, for
+     * screens that reload a window of posts themselves
+     * 
+     * @param onChange The callback
+     * @return The subscription to close when the posts are no longer shown
+     */
+    public Subscription observePostChanges(Runnable onChange) {
+        return LiveQuery.observeTables(invalidationTracker, readExecutor, LiveQuery.MAIN_THREAD,
+                onChange, "post");
+    }
+
+    /**
+     * Checks if a post is liked by a specific user, including likes not yet written
      * 
      * @param post The Post entity to check
      * @param user The User entity to check
@@ -195,9 +321,19 @@ public class PostHandler implements EntityHandlerInterface<Post> {
             Log.e(TAG, "Cannot check like status for null post or user");
             return false;
         }
+        Boolean known = likeWriteBehind.getLikedPosts().isLiked(user.getUid(), post.getPostId());
+        if (known != null) {
+            return known;
+        }
         try {
-            Future<Boolean> future = executorService
-                    .submit(() -> likeDao.isLikedByUser(user.getUid(), post.getPostId()));
+            Future<Boolean> future = metrics.submit(readExecutor, "LikeDao.isLikedByUser",
+                    () -> likeWriteBehind.read(
+                            () -> likeDao.isLikedByUser(user.getUid(), post.getPostId()),
+                            liked -> {
+                                Boolean pending = likeWriteBehind.getPendingState(user.getUid(),
+                                        post.getPostId());
+                                return pending != null ? pending : liked;
+                            }));
             return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
         } catch (Exception e) {
             Log.e(TAG, "Error checking if post is liked by user", e);
@@ -205,6 +341,49 @@ public class PostHandler implements EntityHandlerInterface<Post> {
         }
     }
 
+    /**
+     * Gets the like count of a post. Reads the trigger-maintained counter column instead of
+     * counting the likes and adds the likes not yet written.
+     * 
+     * @param postId The ID of the post
+     * @return The number of likes for the post, 0 if post doesn't exist or on error
+     */
+    public int getLikeCount(long postId) {
+        if (postId <= 0) {
+            Log.e(TAG, "Invalid post ID");
+            return 0;
+        }
+        try {
+            Future<Integer> future = metrics.submit(readExecutor, "PostDao.getLikeCount",
+                    () -> likeWriteBehind.read(
+                            () -> postDao.getLikeCount(postId),
+                            count -> Math.max(0,
+                                    count + likeWriteBehind.getPendingCountDelta(postId))));
+            return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting like count for post " + postId, e);
+            return 0;
+        }
+    }
+
+    /**
+     * Rebuilds the like and comment counters of every post from the base tables
+     * 
+     * @return true if the counters were rebuilt, false on error
+     */
+    public boolean reconcileCounters() {
+        try {
+            Future<Integer> future = metrics.submit(writeExecutor, "PostDao.reconcileCounters",
+                    () -> postDao.reconcileCounters());
+            int posts = future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            Log.d(TAG, "Reconciled counters of " + posts + " posts");
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error reconciling post counters", e);
+            return false;
+        }
+    }
+
     /**
      * Retrieves all posts from the database with additional information This method might include
      * more data than the basic getAll() method
@@ -213,7 +392,8 @@ public class PostHandler implements EntityHandlerInterface<Post> {
      */
     public List<Post> getAllPosts() {
         try {
-            Future<List<Post>> future = executorService.submit(() -> postDao.getAllPosts());
+            Future<List<Post>> future = metrics.submit(readExecutor, "PostDao.getAllPosts",
+                    () -> postDao.getAllPosts());
             List<Post> posts = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             Log.d(TAG, "Retrieved " + (posts != null ? posts.size() : 0) + " posts");
             return posts != null ? posts : Collections.emptyList();
@@ -223,4 +403,542 @@ public class PostHandler implements EntityHandlerInterface<Post> {
         }
     }
 
+    /**
+     * Retrieves one page of the feed, newest first. Only {@link #PAGE_SIZE} posts are read per call
+     * regardless of how many posts exist.
+     * 
+     * @param cursor The cursor returned with the previous page, null for the first page
+     * @return The requested page, an empty page if the cursor is invalid or on error
+     */
+    public Page<Post> getPostsPage(String cursor) {
+        PostCursor position = PostCursor.decode(cursor);
+        if (cursor != null && position == null) {
+            Log.e(TAG, "Invalid feed cursor: " + cursor);
+            return Page.empty();
+        }
+        try {
+            // One extra row tells whether another page exists
+            Future<List<Post>> future = metrics.submit(readExecutor, "PostDao.getPostsPage",
+                    () -> position == null
+                            ? postDao.getPostsPage(PAGE_SIZE + 1)
+                            : postDao.getPostsPageAfter(position.timestamp, position.postId,
+                                    PAGE_SIZE + 1));
+            List<Post> posts = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (posts == null) {
+                return Page.empty();
+            }
+            if (posts.size() <= PAGE_SIZE) {
+                return new Page<>(posts, null);
+            }
+            List<Post> items = new ArrayList<>(posts.subList(0, PAGE_SIZE));
+            return new Page<>(items, PostCursor.after(items.get(PAGE_SIZE - 1)).encode());
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting posts page", e);
+            return Page.empty();
+        }
+    }
+
+    /**
+     * Retrieves the summary of a single post, including author, counters and liked flag, in one
+     * query. Like count and flag include the likes not yet written.
+     * 
+     * @param postId The ID of the post
+     * @param viewerId The ID of the viewing user
+     * @return The post summary if found, null otherwise or on error
+     */
+    public FeedItem getFeedItem(long postId, int viewerId) {
+        if (postId <= 0) {
+            Log.e(TAG, "Invalid post ID");
+            return null;
+        }
+        try {
+            Future<FeedItem> future = metrics.submit(readExecutor, "PostDao.getFeedItem",
+                    () -> likeWriteBehind.read(
+                            () -> postDao.getFeedItem(postId, viewerId),
+                            item -> withPendingLikes(item, viewerId)));
+            return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting feed item for post " + postId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Observes the summary of a post. Counters live in the post and user rows and the liked state
+     * in like_table, so the listener is called again after any of them changes, and after every
+     * like toggle that is not yet written.
+     * 
+     * @param postId The ID of the post
+     * @param viewerId The ID of the viewing user
+     * @param listener The listener receiving the summary, null if not found
+     * @return The subscription to close when the post is no longer shown
+     */
+    public Subscription observeFeedItem(long postId, int viewerId,
+            LiveQuery.Listener<FeedItem> listener) {
+        return new LiveQuery<>(invalidationTracker, readExecutor, LiveQuery.MAIN_THREAD,
+                new String[] { "post", "user", "like_table" },
+                () -> likeWriteBehind.read(() -> postDao.getFeedItem(postId, viewerId),
+                        item -> withPendingLikes(item, viewerId)),
+                likeWriteBehind).observe(listener);
+    }
+
+    /**
+     * Retrieves the summaries of all posts of a user, newest first
+     * 
+     * @param uid The ID of the post creator
+     * @param viewerId The ID of the viewing user
+     * @return List of post summaries, empty list if none found or on error
+     */
+    public List<FeedItem> getFeedItemsByUser(int uid, int viewerId) {
+        if (uid <= 0) {
+            Log.e(TAG, "Invalid user ID");
+            return Collections.emptyList();
+        }
+        try {
+            Future<List<FeedItem>> future = metrics.submit(readExecutor,
+                    "PostDao.getFeedItemsByUser", () -> likeWriteBehind.read(
+                            () -> postDao.getFeedItemsByUser(uid, viewerId),
+                            items -> withPendingLikes(items, viewerId)));
+            List<FeedItem> items = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return items != null ? items : Collections.emptyList();
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting feed items of user " + uid, e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Retrieves one page of post summaries, newest first. Uses the same cursors and page size as
+     * {@link #getPostsPage(String)}, every page is a single query.
+     * 
+     * @param cursor The cursor returned with the previous page, null for the first page
+     * @param viewerId The ID of the viewing user
+     * @return The requested page, an empty page if the cursor is invalid or on error
+     */
+    public Page<FeedItem> getFeedPage(String cursor, int viewerId) {
+        PostCursor position = PostCursor.decode(cursor);
+        if (cursor != null && position == null) {
+            Log.e(TAG, "Invalid feed cursor: " + cursor);
+            return Page.empty();
+        }
+        try {
+            Future<List<FeedItem>> future = metrics.submit(readExecutor, "PostDao.getFeedPage",
+                    () -> likeWriteBehind.read(
+                            () -> position == null
+                                    ? postDao.getFeedPage(viewerId, PAGE_SIZE + 1)
+                                    : postDao.getFeedPageAfter(position.timestamp, position.postId,
+                                            viewerId, PAGE_SIZE + 1),
+                            items -> withPendingLikes(items, viewerId)));
+            List<FeedItem> rows = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (rows == null) {
+                return Page.empty();
+            }
+            if (rows.size() <= PAGE_SIZE) {
+                return new Page<>(rows, null);
+            }
+            List<FeedItem> items = new ArrayList<>(rows.subList(0, PAGE_SIZE));
+            return new Page<>(items, PostCursor.after(items.get(PAGE_SIZE - 1)).encode());
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting feed page", e);
+            return Page.empty();
+        }
+    }
+
+    /**
+     * Retrieves the summaries of the given posts in a single query
+     * 
+     * @param postIds The IDs of the posts, at most {@link #MAX_FEED_ITEMS_BY_ID}
+     * @param viewerId The ID of the viewing user
+     * @return The summaries of the posts that exist in no particular order, an empty list on
+     *         error
+     */
+    public List<FeedItem> getFeedItemsByIds(List<Long> postIds, int viewerId) {
+        if (postIds == null || postIds.size() > MAX_FEED_ITEMS_BY_ID) {
+            Log.e(TAG, "Invalid post IDs");
+            return Collections.emptyList();
+        }
+        if (postIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            Future<List<FeedItem>> future = metrics.submit(readExecutor,
+                    "PostDao.getFeedItemsByIds", () -> likeWriteBehind.read(
+                            () -> postDao.getFeedItemsByIds(postIds, viewerId),
+                            items -> withPendingLikes(items, viewerId)));
+            List<FeedItem> items = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return items != null ? items : Collections.emptyList();
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting feed items by ID", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Applies the like toggles not yet written to a post summary
+     * 
+     * @param item The summary as read from the database, may be null
+     * @param viewerId The ID of the viewing user
+     * @return The same summary, updated
+     */
+    private FeedItem withPendingLikes(FeedItem item, int viewerId) {
+        if (item != null) {
+            Boolean liked = likeWriteBehind.getPendingState(viewerId, item.getPostId());
+            if (liked != null) {
+                item.setLikedByCurrentUser(liked);
+            }
+            item.setLikeCount(Math.max(0,
+                    item.getLikeCount() + likeWriteBehind.getPendingCountDelta(item.getPostId())));
+        }
+        return item;
+    }
+
+    /**
+     * Applies the like toggles not yet written to several post summaries
+     * 
+     * @param items The summaries as read from the database, may be null
+     * @param viewerId The ID of the viewing user
+     * @return The same summaries, updated
+     */
+    private List<FeedItem> withPendingLikes(List<FeedItem> items, int viewerId) {
+        if (items != null) {
+            for (FeedItem item : items) {
+                withPendingLikes(item, viewerId);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Searches description, recipe and ingredients of all posts. Every word of the query is matched
+     * as a prefix and all words must occur; results are ordered by relevance.
+     * 
+     * @param query The text typed by the user
+     * @param limit The maximum number of results, clamped to 1..{@link #MAX_SEARCH_LIMIT}
+     * @param cursor The cursor returned with the previous page, or null for the first page
+     * @return One page of results, empty if the query contains no searchable word or on error
+     */
+    public Page<SearchResult> searchPosts(String query, int limit, String cursor) {
+        String match = SearchQuery.toMatchExpression(query);
+        if (match == null) {
+            return Page.empty();
+        }
+        SearchCursor position = SearchCursor.decode(cursor);
+        if (cursor != null && position == null) {
+            Log.e(TAG, "Invalid search cursor: " + cursor);
+            return Page.empty();
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        try {
+            Future<List<SearchResult>> future = metrics.submit(readExecutor, "PostDao.searchPosts",
+                    () -> position == null
+                            ? postDao.searchPosts(match, pageSize + 1)
+                            : postDao.searchPosts(match, position.score, position.postId,
+                                    pageSize + 1));
+            List<SearchResult> rows = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (rows == null) {
+                return Page.empty();
+            }
+            if (rows.size() <= pageSize) {
+                return new Page<>(rows, null);
+            }
+            return new Page<>(new ArrayList<>(rows.subList(0, pageSize)),
+                    SearchCursor.after(rows.get(pageSize - 1)).encode());
+        } catch (Exception e) {
+            Log.e(TAG, "Error searching posts", e);
+            return Page.empty();
+        }
+    }
+
+    /**
+     * Retrieves the posts located inside a map viewport
+     * 
+     * @param minLat The southern edge of the viewport
+     * @param maxLat The northern edge of the viewport
+     * @param minLon The western edge, greater than maxLon if the viewport crosses the
+     *            antimeridian
+     * @param maxLon The eastern edge of the viewport
+     * @param limit The maximum number of posts
+     * @return Up to limit posts inside the viewport, or an empty list on error
+     */
+    public List<Post> getPostsInBounds(double minLat, double maxLat, double minLon, double maxLon,
+            int limit) {
+        if (limit <= 0 || Double.isNaN(minLat) || Double.isNaN(maxLat) || Double.isNaN(minLon)
+                || Double.isNaN(maxLon)) {
+            Log.e(TAG, "Invalid viewport bounds");
+            return Collections.emptyList();
+        }
+        try {
+            Future<List<Post>> future = metrics.submit(readExecutor, "PostDao.getPostsInBounds",
+                    () -> postDao.getPostsInBounds(minLat, maxLat, minLon, maxLon, limit));
+            List<Post> posts = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return posts != null ? posts : Collections.emptyList();
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting posts in bounds", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Retrieves the posts nearest to a point, for example the user's position. The first call
+     * loads all post locations into the in-memory {@link PostGrid}; afterwards every write is
+     * applied to the grid as soon as it has committed and queries do not scan the database.
+     * 
+     * @param latitude The latitude of the point in degrees
+     * @param longitude The longitude of the point in degrees
+     * @param count The maximum number of posts, at most {@link #MAX_NEAREST}
+     * @return Up to count posts, nearest first, or an empty list on error
+     */
+    public List<Post> getNearestPosts(double latitude, double longitude, int count) {
+        if (count <= 0 || Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            Log.e(TAG, "Invalid nearest-post query");
+            return Collections.emptyList();
+        }
+        int limit = Math.min(count, MAX_NEAREST);
+        try {
+            Future<List<Post>> future = metrics.submit(readExecutor, "PostGrid.nearest", () -> {
+                loadGrid();
+                Neighbors neighbors = postGrid.nearest(latitude, longitude, limit);
+                long[] postIds = new long[neighbors.size()];
+                for (int i = 0; i < postIds.length; i++) {
+                    postIds[i] = neighbors.postId(i);
+                }
+                return postDao.getPostsByIds(postIds);
+            });
+            List<Post> posts = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return posts != null ? posts : Collections.emptyList();
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting nearest posts", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Loads all post locations into the grid unless it is loaded already. The locations are read
+     * under the grid's load lock only; the grid itself stays available to other queries and to
+     * the cache budget until the new content is swapped in. A grid changed by a write during the
+     * read still answers this query and is read again by the next one.
+     */
+    private void loadGrid() {
+        synchronized (postGrid.getLoadLock()) {
+            if (postGrid.isLoaded()) {
+                return;
+            }
+            long version = postGrid.getVersion();
+            List<PostLocation> locations = postDao.getAllPostLocations();
+            int count = locations.size();
+            long[] postIds = new long[count];
+            double[] latitudes = new double[count];
+            double[] longitudes = new double[count];
+            for (int i = 0; i < count; i++) {
+                PostLocation location = locations.get(i);
+                postIds[i] = location.getPostId();
+                latitudes[i] = location.getLatitude();
+                longitudes[i] = location.getLongitude();
+            }
+            if (postGrid.load(version, postIds, latitudes, longitudes, count)) {
+                Log.d(TAG, "Loaded " + count + " post locations into the grid");
+            } else {
+                Log.d(TAG, "Posts changed while loading the grid, reloading with the next query");
+            }
+        }
+    }
+
+    private void putInGrid(Post post) {
+        applyToGrid(postGrid, () -> postGrid.put(post.getPostId(), post.getLatitude(),
+                post.getLongitude()));
+    }
+
+    private void putInGrid(List<Post> posts, boolean[] written) {
+        applyToGrid(postGrid, () -> {
+            for (int i = 0; i < written.length; i++) {
+                if (written[i]) {
+                    Post post = posts.get(i);
+                    postGrid.put(post.getPostId(), post.getLatitude(), post.getLongitude());
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes deleted posts from the grid, also the posts deleted by the cascade of a deleted
+     * user
+     *
+     * @param postGrid The grid of the database
+     * @param postIds The IDs of the deleted posts
+     */
+    static void removeFromGrid(PostGrid postGrid, List<Long> postIds) {
+        applyToGrid(postGrid, () -> {
+            for (long postId : postIds) {
+                postGrid.remove(postId);
+            }
+        });
+    }
+
+    /**
+     * Applies a committed write to the grid. Should that fail, the grid is cleared instead and
+     * loaded again by the next query, so it never answers from a state the database does not
+     * have.
+     */
+    private static void applyToGrid(PostGrid postGrid, Runnable change) {
+        try {
+            change.run();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error updating the post grid, clearing it", e);
+            postGrid.clear();
+        }
+    }
+
+    /**
+     * Retrieves one page of the posts matching an ingredient filter, {@link #PAGE_SIZE} posts per
+     * page, newest first.
+     * 
+     * @param filter The ingredients to require, allow or exclude
+     * @param cursor The cursor returned with the previous page, or null for the first page
+     * @return One page of matching posts, empty if the filter has no positive ingredient or on
+     *         error
+     */
+    public Page<Post> getPostsByIngredients(IngredientFilter filter, String cursor) {
+        if (filter == null || !filter.isValid()) {
+            Log.e(TAG, "Cannot filter posts without required or alternative ingredients");
+            return Page.empty();
+        }
+        long before;
+        try {
+            before = cursor == null ? Long.MAX_VALUE : Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            Log.e(TAG, "Invalid ingredient cursor: " + cursor);
+            return Page.empty();
+        }
+        try {
+            Future<List<Post>> future = metrics.submit(readExecutor,
+                    "IngredientDao.getPostsByIngredients",
+                    () -> ingredientDao.getPostsByIngredients(filter, before, PAGE_SIZE + 1));
+            List<Post> posts = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (posts == null) {
+                return Page.empty();
+            }
+            if (posts.size() <= PAGE_SIZE) {
+                return new Page<>(posts, null);
+            }
+            List<Post> items = new ArrayList<>(posts.subList(0, PAGE_SIZE));
+            return new Page<>(items, Long.toString(items.get(PAGE_SIZE - 1).getPostId()));
+        } catch (Exception e) {
+            Log.e(TAG, "Error filtering posts by " + filter, e);
+            return Page.empty();
+        }
+    }
+
+    /**
+     * Retrieves the ingredients of a post
+     * 
+     * @param postId The post ID
+     * @return The ingredients ordered by name, or an empty list if none found or on error
+     */
+    public List<Ingredient> getIngredientsForPost(long postId) {
+        try {
+            Future<List<Ingredient>> future = metrics.submit(readExecutor,
+                    "IngredientDao.getIngredientsForPost",
+                    () -> ingredientDao.getIngredientsForPost(postId));
+            List<Ingredient> ingredients = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return ingredients != null ? ingredients : Collections.emptyList();
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting ingredients for post", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Retrieves all ingredients used by any post
+     * 
+     * @return The ingredients ordered by name, or an empty list if none found or on error
+     */
+    public List<Ingredient> getAllIngredients() {
+        try {
+            Future<List<Ingredient>> future = metrics.submit(readExecutor,
+                    "IngredientDao.getAllIngredients", ingredientDao::getAllIngredients);
+            List<Ingredient> ingredients = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return ingredients != null ? ingredients : Collections.emptyList();
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting ingredients", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Inserts several posts in a single transaction
+     * 
+     * @param entities The Post entities to insert
+     * @return For each entity, whether it was inserted
+     */
+    @Override
+    public boolean[] insertAll(List<Post> entities) {
+        if (!BatchResults.isValid(entities)) {
+            Log.e(TAG, "Cannot insert empty batch or batch with null posts");
+            return BatchResults.failed(entities);
+        }
+        try {
+            Future<List<Long>> future = Writes.submit(metrics, writeExecutor,
+                    "PostDao.insertPosts", () -> postDao.insertPosts(entities),
+                    rowIds -> putInGrid(entities,
+                            BatchResults.fromRowIds(rowIds, entities.size())));
+            return BatchResults.fromRowIds(future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                    entities.size());
+        } catch (Exception e) {
+            Log.e(TAG, "Error inserting batch of " + entities.size() + " posts", e);
+            return BatchResults.failed(entities);
+        }
+    }
+
+    /**
+     * Updates several posts in a single transaction
+     * 
+     * @param entities The Post entities to update
+     * @return For each entity, whether a stored row was updated
+     */
+    @Override
+    public boolean[] updateAll(List<Post> entities) {
+        if (!BatchResults.isValid(entities)) {
+            Log.e(TAG, "Cannot update empty batch or batch with null posts");
+            return BatchResults.failed(entities);
+        }
+        try {
+            Future<boolean[]> future = Writes.submit(metrics, writeExecutor,
+                    "PostDao.updatePosts", () -> postDao.updatePosts(entities),
+                    results -> putInGrid(entities, results));
+            return future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating batch of " + entities.size() + " posts", e);
+            return BatchResults.failed(entities);
+        }
+    }
+
+    /**
+     * Deletes several posts in a single transaction
+     * 
+     * @param entities The Post entities to delete
+     * @return For each entity, whether a stored row was deleted
+     */
+    @Override
+    public boolean[] deleteAll(List<Post> entities) {
+        if (!BatchResults.isValid(entities)) {
+            Log.e(TAG, "Cannot delete empty batch or batch with null posts");
+            return BatchResults.failed(entities);
+        }
+        try {
+            Future<boolean[]> future = Writes.submit(metrics, writeExecutor,
+                    "PostDao.deletePosts", () -> postDao.deletePosts(entities), results -> {
+                        List<Long> postIds = new ArrayList<>();
+                        for (int i = 0; i < results.length; i++) {
+                            if (results[i]) {
+                                postIds.add(entities.get(i).getPostId());
+                            }
+                        }
+                        removeFromGrid(postGrid, postIds);
+                    });
+            return future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            Log.e(TAG, "Error deleting batch of " + entities.size() + " posts", e);
+            return BatchResults.failed(entities);
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package com.example.socialfood.model.handler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates globally unique, time-ordered 64-bit post IDs in the style of Snowflake IDs. An ID is
+ * laid out as
+ *
+ * <pre>
+ * 0 | 41 bits milliseconds since {@link #EPOCH_MILLIS} | 10 bits node | 12 bits sequence
+ * </pre>
+ *
+ * so IDs are positive, sort by creation time and up to 4096 IDs can be generated per millisecond
+ * and node. Generation is lock-free: the last ID is kept in an {@link AtomicLong} and advanced with
+ * compare-and-set.
+ *
+ * <p>
+ * If the sequence of a millisecond is used up, or the clock goes backwards, the next ID borrows
+ * the following millisecond, so IDs keep increasing. After a restart the generator must be
+ * advanced past the highest stored ID ({@link #advancePast(long)}) to survive a clock that was
+ * set back while the app was not running.
+ * </p>
+ */
+public class PostIdGenerator {
+
+    /** Start of the ID clock, 2024-01-01T00:00:00Z */
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L;
+
+    /** Largest node number that fits into an ID */
+    public static final int MAX_NODE = 1023;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + NODE_BITS;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeBits;
+    private final LongSupplier clock;
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * Creates a generator reading the system clock
+     *
+     * @param node The number of the node generating IDs, 0 to {@link #MAX_NODE}
+     * @throws IllegalArgumentException if the node is out of range
+     */
+    public PostIdGenerator(int node) {
+        this(node, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a generator reading the given clock, used to assign IDs to existing posts from their
+     * creation time
+     *
+     * @param node  The number of the node generating IDs, 0 to {@link #MAX_NODE}
+     * @param clock The clock in milliseconds since 1970
+     * @throws IllegalArgumentException if the node is out of range
+     */
+    public PostIdGenerator(int node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node must be between 0 and " + MAX_NODE);
+        }
+        this.nodeBits = (long) node << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    /**
+     * Generates the next ID. Safe to call from any thread.
+     *
+     * @return An ID greater than every ID generated or passed to {@link #advancePast(long)} before
+     */
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long candidate = (Math.max(0, clock.getAsLong() - EPOCH_MILLIS) << TIMESTAMP_SHIFT)
+                    | nodeBits;
+            long next;
+            if (candidate > previous) {
+                next = candidate;
+            } else if ((previous & SEQUENCE_MASK) != SEQUENCE_MASK) {
+                next = previous + 1;
+            } else {
+                next = (((previous >>> TIMESTAMP_SHIFT) + 1) << TIMESTAMP_SHIFT) | nodeBits;
+            }
+            if (last.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Makes sure that all following IDs are greater than the given one, for example the highest
+     * ID already stored
+     *
+     * @param id The ID to move past
+     */
+    public void advancePast(long id) {
+        long floor = ((id >>> TIMESTAMP_SHIFT) << TIMESTAMP_SHIFT) | nodeBits | SEQUENCE_MASK;
+        last.accumulateAndGet(floor, Math::max);
+    }
+
+    /**
+     * Extracts the creation time of an ID
+     *
+     * @param id The ID
+     * @return The time the ID was generated, in milliseconds since 1970
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.socialfood.model.handler;
+
+import com.example.socialfood.model.entities.SearchResult;
+
+/**
+ * Keyset position in the ranked search results. A cursor is the (score, postId) pair of the last
+ * result of a page, encoded as a compact string that callers treat as opaque. The score is kept
+ * bit for bit, so the next page starts exactly after that result.
+ */
+final class SearchCursor {
+    private static final char SEPARATOR = '.';
+    private static final int RADIX = 36;
+
+    final double score;
+    final long postId;
+
+    SearchCursor(double score, long postId) {
+        this.score = score;
+        this.postId = postId;
+    }
+
+    /**
+     * Creates the cursor pointing after the given result
+     *
+     * @param result The last result of a page
+     * @return The cursor for the page following the result
+     */
+    static SearchCursor after(SearchResult result) {
+        return new SearchCursor(result.getScore(), result.getPost().getPostId());
+    }
+
+    /**
+     * Encodes this cursor into its string form
+     *
+     * @return The opaque cursor string
+     */
+    String encode() {
+        return Long.toString(Double.doubleToLongBits(score), RADIX) + SEPARATOR
+                + Long.toString(postId, RADIX);
+    }
+
+    /**
+     * Decodes a cursor string produced by {@link #encode()}
+     *
+     * @param cursor The cursor string
+     * @return The decoded cursor, null if the string is null or malformed
+     */
+    static SearchCursor decode(String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        int separator = cursor.indexOf(SEPARATOR);
+        if (separator <= 0 || separator == cursor.length() - 1
+                || cursor.indexOf(SEPARATOR, separator + 1) >= 0) {
+            return null;
+        }
+        try {
+            double score = Double.longBitsToDouble(
+                    Long.parseLong(cursor.substring(0, separator), RADIX));
+            if (Double.isNaN(score) || Double.isInfinite(score) || score < 0) {
+                return null;
+            }
+            return new SearchCursor(score, Long.parseLong(cursor.substring(separator + 1), RADIX));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
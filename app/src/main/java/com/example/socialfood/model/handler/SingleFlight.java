@@ -0,0 +1,141 @@
+package com.example.socialfood.model.handler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets concurrent identical reads share one database query. A read whose key, the query name and
+ * its arguments, equals that of a read still running waits for the running one and receives the
+ * same result instead of querying again. Bursts such as a list binding many rows of the same
+ * author then cost a single query.
+ *
+ * <p>
+ * A read only joins a running one if no write has started since the running one started and none
+ * was running then, see
+ * {@link com.example.socialfood.model.database.DatabaseExecutors#writeSequence()}. A caller
+ * therefore always sees its own writes, exactly as without sharing.
+ * </p>
+ *
+ * <p>
+ * Callers sharing a read receive the same object, so results of shared reads must be treated as
+ * read-only.
+ * </p>
+ */
+public class SingleFlight {
+
+    /**
+     * A running read and the write sequence it started at
+     */
+    private static final class Flight {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final long writeSequence;
+
+        Flight(long writeSequence) {
+            this.writeSequence = writeSequence;
+        }
+    }
+
+    private final LongSupplier writeSequence;
+    private final ConcurrentHashMap<Object, Flight> running = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong shared = new AtomicLong();
+
+    /**
+     * Creates a single-flight layer
+     *
+     * @param writeSequence The counter that is odd while a write runs and increases with every
+     * write, usually that of
+     * {@link com.example.socialfood.model.database.DatabaseExecutors#writeSequence()}
+     */
+    public SingleFlight(LongSupplier writeSequence) {
+        this.writeSequence = writeSequence;
+    }
+
+    /**
+     * Builds the key of a read
+     *
+     * @param query The name of the query, e.g. the DAO method
+     * @param args The arguments of the query
+     * @return A key equal to that of every read of the same query with equal arguments
+     */
+    public static Object key(String query, Object... args) {
+        List<Object> key = new ArrayList<>(args.length + 1);
+        key.add(query);
+        key.addAll(Arrays.asList(args));
+        return key;
+    }
+
+    /**
+     * Runs a read on the executor, or joins an identical one that is still running
+     *
+     * @param executor The executor running the query, usually the read executor
+     * @param key The key of the read, see {@link #key}
+     * @param query The query
+     * @param <T> The type of the result
+     * @return The result of the query; fails if the query failed or the executor rejected it
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Future<T> submit(Executor executor, Object key, Callable<T> query) {
+        long sequence = writeSequence.getAsLong();
+        Flight flight = new Flight(sequence);
+        if ((sequence & 1) == 0) {
+            Flight current = running.compute(key,
+                    (k, existing) -> existing != null && existing.writeSequence == sequence
+                            ? existing
+                            : flight);
+            if (current != flight) {
+                shared.incrementAndGet();
+                return (Future<T>) (Future<?>) current.result;
+            }
+        }
+        executed.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    Object value = query.call();
+                    running.remove(key, flight);
+                    flight.result.complete(value);
+                } catch (Throwable e) {
+                    running.remove(key, flight);
+                    flight.result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.remove(key, flight);
+            flight.result.completeExceptionally(e);
+        }
+        return (Future<T>) (Future<?>) flight.result;
+    }
+
+    /**
+     * Gets the number of reads that ran a query
+     *
+     * @return The number of executed queries
+     */
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    /**
+     * Gets the number of reads that joined a running query, i.e. the number of queries saved
+     *
+     * @return The number of shared reads
+     */
+    public long getSharedCount() {
+        return shared.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SingleFlight{executed=" + executed.get() + ", shared=" + shared.get() + "}";
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.socialfood.model.handler;
+
+import com.example.socialfood.model.cache.BudgetedCache;
+import com.example.socialfood.model.entities.User;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded cache of users keyed by ID and by username, evicting the least recently used user
+ * once {@code capacity} users are held. Lets {@link UserHandler} answer the repeated author
+ * lookups of lists and detail screens from memory instead of the database.
+ *
+ * <p>
+ * The cache never holds a user longer than the row is unchanged: {@link UserHandler} writes its
+ * updates and deletes through, and every other change of the user table, including the counters
+ * kept by triggers, calls {@link #invalidateAll()}. A read that overlapped such a change must not
+ * fill the cache with what it read, so readers take a {@link #generation()} before querying and
+ * pass it to {@link #put(User, long)}, which ignores users read before the last invalidation.
+ * </p>
+ *
+ * <p>
+ * Users are shared by all callers and must not be modified. Users that do not exist are not
+ * cached, so a user inserted later is found at once.
+ * </p>
+ *
+ * <p>
+ * Under memory pressure the {@link com.example.socialfood.model.cache.CacheBudgetManager} trims
+ * the least recently used users, estimating {@link #ESTIMATED_USER_BYTES} per user.
+ * </p>
+ */
+public class UserCache implements BudgetedCache {
+
+    /** Default number of users held */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /** Estimated heap held per cached user: the entity, its strings and the map entries */
+    public static final int ESTIMATED_USER_BYTES = 512;
+
+    private final int capacity;
+    private final LinkedHashMap<Integer, User> byUid;
+    private final Map<String, Integer> uidByUsername = new HashMap<>();
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache
+     *
+     * @param capacity The number of users held
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public UserCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.byUid = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true);
+    }
+
+    /**
+     * Gets a user by ID
+     *
+     * @param uid The user ID
+     * @return The cached user, null on a miss
+     */
+    public synchronized User getById(int uid) {
+        User user = byUid.get(uid);
+        if (user != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return user;
+    }
+
+    /**
+     * Gets a user by username
+     *
+     * @param username The username
+     * @return The cached user, null on a miss
+     */
+    public synchronized User getByUsername(String username) {
+        Integer uid = uidByUsername.get(username);
+        User user = uid != null ? byUid.get(uid) : null;
+        if (user != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return user;
+    }
+
+    /**
+     * Gets the generation to pass to {@link #put(User, long)} for a read starting now
+     *
+     * @return The number of invalidations so far
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Caches a user read from the database, unless the cache was invalidated since the read
+     * started
+     *
+     * @param user The user read, ignored if null
+     * @param readGeneration The {@link #generation()} taken before the read
+     */
+    public synchronized void put(User user, long readGeneration) {
+        if (user != null && readGeneration == generation) {
+            store(user);
+        }
+    }
+
+    /**
+     * Caches a user just written to the database
+     *
+     * @param user The user as stored
+     */
+    public synchronized void put(User user) {
+        store(user);
+    }
+
+    /**
+     * Removes a user, e.g. after it was deleted
+     *
+     * @param uid The user ID
+     */
+    public synchronized void remove(int uid) {
+        User removed = byUid.remove(uid);
+        if (removed != null) {
+            uidByUsername.remove(removed.getUsername(), uid);
+        }
+    }
+
+    /**
+     * Removes all users and makes reads running meanwhile skip the cache
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        byUid.clear();
+        uidByUsername.clear();
+    }
+
+    private void store(User user) {
+        remove(user.getUid());
+        byUid.put(user.getUid(), user);
+        uidByUsername.put(user.getUsername(), user.getUid());
+        evictTo(capacity);
+    }
+
+    private void evictTo(int maxUsers) {
+        while (byUid.size() > maxUsers) {
+            Map.Entry<Integer, User> eldest = byUid.entrySet().iterator().next();
+            remove(eldest.getKey());
+            evictions++;
+        }
+    }
+
+    @Override
+    public synchronized long getEstimatedBytes() {
+        return (long) byUid.size() * ESTIMATED_USER_BYTES;
+    }
+
+    @Override
+    public synchronized void trimTo(long targetBytes) {
+        evictTo((int) Math.min(capacity, targetBytes / ESTIMATED_USER_BYTES));
+    }
+
+    /**
+     * Gets the number of users held
+     *
+     * @return The size of the cache
+     */
+    public synchronized int size() {
+        return byUid.size();
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache
+     *
+     * @return The number of hits
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that had to query the database
+     *
+     * @return The number of misses
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of users removed to make room for others
+     *
+     * @return The number of evictions
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "UserCache{size=" + byUid.size() + ", capacity=" + capacity + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + ", invalidations="
+                + generation + "}";
+    }
+}
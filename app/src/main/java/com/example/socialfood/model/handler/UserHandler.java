@@ -3,26 +3,48 @@ package com.example.socialfood.model.handler;
 import android.content.Context;
 import android.util.Log;
 
+import androidx.room.InvalidationTracker;
+
+import com.example.socialfood.model.dao.PostDao;
 import com.example.socialfood.model.dao.UserDao;
 import com.example.socialfood.model.database.DatabaseClient;
+import com.example.socialfood.model.database.LiveQuery;
+import com.example.socialfood.model.database.Subscription;
 import com.example.socialfood.model.entities.User;
+import com.example.socialfood.model.graph.FollowGraph;
+import com.example.socialfood.model.metrics.MetricsRegistry;
+import com.example.socialfood.model.spatial.PostGrid;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Handler class for User entities. Manages database operations for users through UserDao.
- * Implements EntityHandlerInterface for standard CRUD operations.
+ * Implements EntityHandlerInterface for standard CRUD operations. Users looked up by ID or
+ * username are kept in the {@link UserCache} of the database. Deleting a user also removes their
+ * follow relationships and posts, deleted by the database's cascade, from the
+ * {@link FollowGraph} and the {@link PostGrid}.
  */
 public class UserHandler implements EntityHandlerInterface<User> {
     private final UserDao userDao;
-    private final ExecutorService executorService;
+    private final PostDao postDao;
+    private final ExecutorService readExecutor;
+    private final ExecutorService writeExecutor;
+    private final ExecutorService callerExecutor;
+    private final MetricsRegistry metrics;
+    private final InvalidationTracker invalidationTracker;
+    private final SingleFlight singleFlight;
+    private final UserCache userCache;
+    private final FollowGraph followGraph;
+    private final PostGrid postGrid;
     private static final String TAG = "UserHandler";
     private static final int TIMEOUT_SECONDS = 5;
+    private static final int BATCH_TIMEOUT_SECONDS = 30;
 
     /**
      * Constructs a new UserHandler
@@ -30,13 +52,26 @@ public class UserHandler implements EntityHandlerInterface<User> {
      * @param context The application context
      */
     public UserHandler(Context context) {
-        this.userDao = DatabaseClient.getInstance(context).getDatabase().userDao();
-        this.executorService = Executors.newSingleThreadExecutor();
+        this(DatabaseClient.getInstance(context));
     }
 
     public UserHandler(DatabaseClient databaseClient) {
         this.userDao = databaseClient.getDatabase().userDao();
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.postDao = databaseClient.getDatabase().postDao();
+        this.readExecutor = databaseClient.getReadExecutor();
+        this.writeExecutor = databaseClient.getWriteExecutor();
+        this.callerExecutor = databaseClient.getCallerExecutor();
+        this.metrics = databaseClient.getMetrics();
+        this.invalidationTracker = databaseClient.getDatabase().getInvalidationTracker();
+        this.singleFlight = databaseClient.getSingleFlight();
+        this.userCache = databaseClient.getUserCache();
+        this.followGraph = databaseClient.getFollowGraph();
+        this.postGrid = databaseClient.getPostGrid();
+    }
+
+    @Override
+    public Executor getCallerExecutor() {
+        return callerExecutor;
     }
 
     /**
@@ -54,7 +89,8 @@ public class UserHandler implements EntityHandlerInterface<User> {
         }
         Log.d(TAG, "Inserting user: " + entity.getUsername());
         try {
-            Future<?> future = executorService.submit(() -> userDao.insertUser(entity));
+            Future<?> future = metrics.submit(writeExecutor, "UserDao.insertUser",
+                    () -> userDao.insertUser(entity));
             future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             Log.d(TAG, "Successfully inserted user: " + entity.getUsername());
             return true;
@@ -72,7 +108,8 @@ public class UserHandler implements EntityHandlerInterface<User> {
     @Override
     public List<User> getAll() {
         try {
-            Future<List<User>> future = executorService.submit(() -> userDao.getAll());
+            Future<List<User>> future = metrics.submit(readExecutor, "UserDao.getAll",
+                    () -> userDao.getAll());
             List<User> users = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
             Log.d(TAG, "Retrieved " + (users != null ? users.size() : 0) + " users");
             return users != null ? users : Collections.emptyList();
@@ -83,7 +120,8 @@ public class UserHandler implements EntityHandlerInterface<User> {
     }
 
     /**
-     * Updates an existing user in the database
+     * Updates an existing user in the database and removes it from the cache, as the update does
+     * not tell whether a stored row matched
      * 
      * @param entity The User entity to update
      * @return true if update was successful, false otherwise
@@ -96,8 +134,10 @@ public class UserHandler implements EntityHandlerInterface<User> {
             return false;
         }
         try {
-            Future<?> future = executorService.submit(() -> userDao.updateUsers(entity));
+            Future<?> future = metrics.submit(writeExecutor, "UserDao.updateUsers",
+                    () -> userDao.updateUsers(entity));
             future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            userCache.remove(entity.getUid());
             Log.d(TAG, "Successfully updated user: " + entity.getUsername());
             return true;
         } catch (Exception e) {
@@ -120,8 +160,16 @@ public class UserHandler implements EntityHandlerInterface<User> {
             return false;
         }
         try {
-            Future<?> future = executorService.submit(() -> userDao.deleteUser(entity));
+            Future<?> future = Writes.submit(metrics, writeExecutor, "UserDao.deleteUser", () -> {
+                List<Long> postIds = postDao.getPostIdsByUser(entity.getUid());
+                userDao.deleteUser(entity);
+                return postIds;
+            }, postIds -> {
+                PostHandler.removeFromGrid(postGrid, postIds);
+                followGraph.removeUser(entity.getUid());
+            });
             future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            userCache.remove(entity.getUid());
             Log.d(TAG, "Successfully deleted user: " + entity.getUsername());
             return true;
         } catch (Exception e) {
@@ -131,7 +179,8 @@ public class UserHandler implements EntityHandlerInterface<User> {
     }
 
     /**
-     * Retrieves a user by their username
+     * Retrieves a user by their username, from the cache if it holds the user. Concurrent calls
+     * for the same username share one query and the returned user, which must not be modified.
      * 
      * @param username The username to search for
      * @return The User if found, null otherwise
@@ -142,9 +191,19 @@ public class UserHandler implements EntityHandlerInterface<User> {
             Log.e(TAG, "Invalid username");
             return null;
         }
+        User cached = userCache.getByUsername(username);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            Future<User> future = executorService.submit(() -> userDao.getUserByUsername(username));
+            long generation = userCache.generation();
+            Future<User> future = metrics.watch("UserDao.getUserByUsername",
+                    singleFlight.submit(readExecutor,
+                            SingleFlight.key("getUserByUsername", username),
+                            metrics.timed("UserDao.getUserByUsername",
+                                    () -> userDao.getUserByUsername(username))));
             User user = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            userCache.put(user, generation);
             Log.d(TAG, "Retrieved user: " + (user != null ? user.getUsername() : "not found"));
             return user;
         } catch (Exception e) {
@@ -154,7 +213,8 @@ public class UserHandler implements EntityHandlerInterface<User> {
     }
 
     /**
-     * Retrieves a user by their ID
+     * Retrieves a user by their ID, from the cache if it holds the user. Concurrent calls for the
+     * same ID share one query and the returned user, which must not be modified.
      * 
      * @param uid The user ID to search for
      * @return The User if found, null otherwise
@@ -165,9 +225,18 @@ public class UserHandler implements EntityHandlerInterface<User> {
             Log.e(TAG, "Invalid user ID");
             return null;
         }
+        User cached = userCache.getById(uid);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            Future<User> future = executorService.submit(() -> userDao.getUserbyId(uid));
+            long generation = userCache.generation();
+            Future<User> future = metrics.watch("UserDao.getUserbyId",
+                    singleFlight.submit(readExecutor, SingleFlight.key("getUserById", uid),
+                            metrics.timed("UserDao.getUserbyId",
+                                    () -> userDao.getUserbyId(uid))));
             User user = future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            userCache.put(user, generation);
             Log.d(TAG, "Retrieved user: " + (user != null ? user.getUsername() : "not found"));
             return user;
         } catch (Exception e) {
@@ -175,4 +244,134 @@ public class UserHandler implements EntityHandlerInterface<User> {
             return null;
         }
     }
+
+    /**
+     * Observes a user. The listener is called on the main thread with the current user and again
+     * whenever the row changes, including its counters maintained by triggers.
+     * 
+     * @param uid The user ID
+     * @param listener The listener receiving the user, null if not found
+     * @return The subscription to close when the user is no longer shown
+     */
+    public Subscription observeUserById(int uid, LiveQuery.Listener<User> listener) {
+        return new LiveQuery<>(invalidationTracker, readExecutor, LiveQuery.MAIN_THREAD,
+                new String[] { "user" }, () -> userDao.getUserbyId(uid)).observe(listener);
+    }
+
+    /**
+     * Rebuilds the follower, following and post counters of every user from the base tables
+     * 
+     * @return true if the counters were rebuilt, false on error
+     */
+    public boolean reconcileCounters() {
+        try {
+            Future<Integer> future = metrics.submit(writeExecutor, "UserDao.reconcileCounters",
+                    () -> userDao.reconcileCounters());
+            int users = future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            userCache.invalidateAll();
+            Log.d(TAG, "Reconciled counters of " + users + " users");
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error reconciling user counters", e);
+            return false;
+        }
+    }
+
+    /**
+     * Inserts several users in a single transaction
+     * 
+     * @param entities The User entities to insert
+     * @return For each entity, whether it was inserted
+     */
+    @Override
+    public boolean[] insertAll(List<User> entities) {
+        if (!BatchResults.isValid(entities)) {
+            Log.e(TAG, "Cannot insert empty batch or batch with null users");
+            return BatchResults.failed(entities);
+        }
+        try {
+            Future<List<Long>> future = metrics.submit(writeExecutor, "UserDao.insertUsers",
+                    () -> userDao.insertUsers(entities));
+            return BatchResults.fromRowIds(future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS),
+                    entities.size());
+        } catch (Exception e) {
+            Log.e(TAG, "Error inserting batch of " + entities.size() + " users", e);
+            return BatchResults.failed(entities);
+        }
+    }
+
+    /**
+     * Updates several users in a single transaction. The updated users are evicted from the cache
+     * like by {@link #update(User)}, since the passed entities may hold outdated counters; the next
+     * lookup reads them again.
+     * 
+     * @param entities The User entities to update
+     * @return For each entity, whether a stored row was updated
+     */
+    @Override
+    public boolean[] updateAll(List<User> entities) {
+        if (!BatchResults.isValid(entities)) {
+            Log.e(TAG, "Cannot update empty batch or batch with null users");
+            return BatchResults.failed(entities);
+        }
+        try {
+            Future<boolean[]> future = metrics.submit(writeExecutor, "UserDao.updateUsers",
+                    () -> userDao.updateUsers(entities));
+            boolean[] results = future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            for (int i = 0; i < results.length; i++) {
+                if (results[i]) {
+                    userCache.remove(entities.get(i).getUid());
+                }
+            }
+            return results;
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating batch of " + entities.size() + " users", e);
+            return BatchResults.failed(entities);
+        }
+    }
+
+    /**
+     * Deletes several users in a single transaction
+     * 
+     * @param entities The User entities to delete
+     * @return For each entity, whether a stored row was deleted
+     */
+    @Override
+    public boolean[] deleteAll(List<User> entities) {
+        if (!BatchResults.isValid(entities)) {
+            Log.e(TAG, "Cannot delete empty batch or batch with null users");
+            return BatchResults.failed(entities);
+        }
+        try {
+            List<List<Long>> postIds = new ArrayList<>();
+            Future<boolean[]> future = Writes.submit(metrics, writeExecutor,
+                    "UserDao.deleteUsers", () -> {
+                        // The write may run again after a rollback
+                        postIds.clear();
+                        for (User user : entities) {
+                            postIds.add(postDao.getPostIdsByUser(user.getUid()));
+                        }
+                        return userDao.deleteUsers(entities);
+                    }, results -> {
+                        List<Long> deleted = new ArrayList<>();
+                        for (int i = 0; i < results.length; i++) {
+                            if (results[i]) {
+                                deleted.addAll(postIds.get(i));
+                                followGraph.removeUser(entities.get(i).getUid());
+                            }
+                        }
+                        PostHandler.removeFromGrid(postGrid, deleted);
+                    });
+            boolean[] results = future.get(BATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            for (int i = 0; i < results.length; i++) {
+                if (results[i]) {
+                    userCache.remove(entities.get(i).getUid());
+                }
+            }
+            return results;
+        } catch (Exception e) {
+            Log.e(TAG, "Error deleting batch of " + entities.size() + " users", e);
+            return BatchResults.failed(entities);
+        }
+    }
 }
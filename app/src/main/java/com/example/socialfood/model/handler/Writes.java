@@ -0,0 +1,78 @@
+package com.example.socialfood.model.handler;
+
+import com.example.socialfood.model.database.GroupCommitWriter;
+import com.example.socialfood.model.metrics.MetricsRegistry;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Submits writes whose effect on an in-memory structure, such as the post grid or the follow
+ * graph, must follow the database. The effect is applied when the write itself completes, not
+ * when the caller stops waiting for it, so a write that outlives the caller's timeout and
+ * commits later is still applied, and a write that fails is not.
+ *
+ * <p>
+ * On a {@link GroupCommitWriter} the effect runs on the writer thread right after the group of
+ * the write has committed; on any other executor it runs in the task right after the write. It
+ * must therefore be short and must not wait for the database. The returned future completes only
+ * after the effect has been applied, so a caller that got the result also sees the effect.
+ * </p>
+ */
+final class Writes {
+
+    private Writes() {
+    }
+
+    /**
+     * Submits a recorded write, see {@link MetricsRegistry#submit}, and applies its effect once
+     * it has completed successfully
+     *
+     * @param metrics The metrics recording the write
+     * @param writeExecutor The write executor of the database
+     * @param name The name of the DAO method the write calls
+     * @param write The write
+     * @param onWritten The effect of the write, given its result
+     * @param <T> The type of the result
+     * @return The future of the write, completed after its effect was applied
+     */
+    static <T> Future<T> submit(MetricsRegistry metrics, ExecutorService writeExecutor,
+            String name, Callable<T> write, Consumer<? super T> onWritten) {
+        Callable<T> timed = metrics.timed(name, write);
+        if (writeExecutor instanceof GroupCommitWriter) {
+            CompletableFuture<T> written = ((GroupCommitWriter) writeExecutor).write(timed)
+                    .thenApply(result -> {
+                        onWritten.accept(result);
+                        return result;
+                    });
+            return metrics.watch(name, written);
+        }
+        return metrics.watch(name, writeExecutor.submit(() -> {
+            T result = timed.call();
+            onWritten.accept(result);
+            return result;
+        }));
+    }
+
+    /**
+     * Submits a recorded write without a result, such as a DAO method returning void, and applies
+     * its effect once it has completed successfully
+     *
+     * @param metrics The metrics recording the write
+     * @param writeExecutor The write executor of the database
+     * @param name The name of the DAO method the write calls
+     * @param write The write
+     * @param onWritten The effect of the write
+     * @return The future of the write, completed with null after its effect was applied
+     */
+    static Future<?> submit(MetricsRegistry metrics, ExecutorService writeExecutor, String name,
+            Runnable write, Runnable onWritten) {
+        return submit(metrics, writeExecutor, name, () -> {
+            write.run();
+            return null;
+        }, ignored -> onWritten.run());
+    }
+}
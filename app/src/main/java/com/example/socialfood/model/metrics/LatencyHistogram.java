@@ -0,0 +1,179 @@
+package com.example.socialfood.model.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in microseconds with log-linear buckets, in the style of HdrHistogram.
+ * Every power of two range is split into {@link #SUB_BUCKETS} equal buckets, so a recorded value
+ * is off by at most 1/{@value #SUB_BUCKETS} of itself, from one microsecond up to
+ * {@link #MAX_TRACKABLE_MICROS}. Larger values land in the last bucket.
+ *
+ * <p>
+ * {@link #record(long)} only increments preallocated counters and never allocates or locks, so it
+ * can run on every database call. It is thread safe; a {@link #snapshot()} taken while values are
+ * recorded may miss the values recorded meanwhile but is never torn.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /** Number of buckets per power of two */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 26;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    /** Largest latency kept apart from others, about 134 seconds */
+    public static final long MAX_TRACKABLE_MICROS = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records a latency
+     *
+     * @param nanos The latency in nanoseconds, negative values count as 0
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        long max = maxMicros.get();
+        while (micros > max && !maxMicros.compareAndSet(max, micros)) {
+            max = maxMicros.get();
+        }
+    }
+
+    /**
+     * Gets the number of recorded latencies
+     *
+     * @return The count
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Forgets all recorded latencies
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+
+    /**
+     * Copies the recorded latencies
+     *
+     * @return The snapshot
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long copied = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            copied += copy[i];
+        }
+        // Only the buckets are summed, so percentiles always agree with the count
+        return new Snapshot(copy, copied, totalMicros.get(), maxMicros.get());
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * The latencies recorded by a histogram at one point in time
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalMicros;
+        private final long maxMicros;
+
+        Snapshot(long[] counts, long count, long totalMicros, long maxMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.totalMicros = totalMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        /** @return The number of recorded latencies */
+        public long getCount() {
+            return count;
+        }
+
+        /** @return The summed latency in microseconds */
+        public long getTotalMicros() {
+            return totalMicros;
+        }
+
+        /** @return The longest latency in microseconds */
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        /** @return The mean latency in microseconds, 0 if nothing was recorded */
+        public double getMeanMicros() {
+            return count == 0 ? 0 : (double) totalMicros / count;
+        }
+
+        /**
+         * Gets the latency that the given share of the recorded latencies did not exceed
+         *
+         * @param percentile The share in percent, e.g. 99 for the 99th percentile
+         * @return The highest latency of the bucket holding the percentile in microseconds,
+         * never above the maximum, 0 if nothing was recorded
+         */
+        public long getPercentileMicros(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * Math.min(percentile, 100) / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    long highest = i + 1 < counts.length ? lowestValueOf(i + 1) - 1 : maxMicros;
+                    return Math.min(highest, maxMicros);
+                }
+            }
+            return maxMicros;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "{count=%d, meanMs=%.2f, p50Ms=%.2f, p90Ms=%.2f, p99Ms=%.2f, maxMs=%.2f}",
+                    count, getMeanMicros() / 1e3, getPercentileMicros(50) / 1e3,
+                    getPercentileMicros(90) / 1e3, getPercentileMicros(99) / 1e3,
+                    maxMicros / 1e3);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.socialfood.model.metrics;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency and counters of one database method, recorded by {@link MetricsRegistry}
+ */
+public final class MethodMetrics {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong exceptions = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+
+    MethodMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a call that returned
+     *
+     * @param nanos The time the call ran in nanoseconds
+     * @param result The result of the call, counted as rows
+     */
+    void recordSuccess(long nanos, Object result) {
+        latency.record(nanos);
+        rows.addAndGet(rowsOf(result));
+    }
+
+    /**
+     * Records a call that threw
+     *
+     * @param nanos The time the call ran in nanoseconds
+     */
+    void recordException(long nanos) {
+        latency.record(nanos);
+        exceptions.incrementAndGet();
+    }
+
+    /**
+     * Records a caller that stopped waiting for the call
+     */
+    void recordTimeout() {
+        timeouts.incrementAndGet();
+    }
+
+    void reset() {
+        latency.reset();
+        exceptions.set(0);
+        timeouts.set(0);
+        rows.set(0);
+    }
+
+    /**
+     * Counts the rows of a result: the size of a collection or array, 1 for any other value and 0
+     * for null
+     */
+    private static long rowsOf(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?>) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Object[]) {
+            return ((Object[]) result).length;
+        }
+        if (result instanceof long[]) {
+            return ((long[]) result).length;
+        }
+        if (result instanceof int[]) {
+            return ((int[]) result).length;
+        }
+        if (result instanceof boolean[]) {
+            return ((boolean[]) result).length;
+        }
+        return 1;
+    }
+
+    /**
+     * Gets the name of the method
+     *
+     * @return The name, e.g. "PostDao.getFeedPage"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Copies the latency and counters
+     *
+     * @return The snapshot
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(name, latency.snapshot(), exceptions.get(), timeouts.get(),
+                rows.get());
+    }
+
+    /**
+     * The latency and counters of one method at one point in time
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final LatencyHistogram.Snapshot latency;
+        private final long exceptions;
+        private final long timeouts;
+        private final long rows;
+
+        Snapshot(String name, LatencyHistogram.Snapshot latency, long exceptions, long timeouts,
+                long rows) {
+            this.name = name;
+            this.latency = latency;
+            this.exceptions = exceptions;
+            this.timeouts = timeouts;
+            this.rows = rows;
+        }
+
+        /** @return The name of the method */
+        public String getName() {
+            return name;
+        }
+
+        /** @return The latencies of all calls that ran, whether they returned or threw */
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+
+        /** @return The number of calls that ran */
+        public long getCalls() {
+            return latency.getCount();
+        }
+
+        /** @return The number of calls that threw */
+        public long getExceptions() {
+            return exceptions;
+        }
+
+        /** @return The number of times a caller stopped waiting before the call finished */
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        /** @return The number of rows returned by all calls */
+        public long getRows() {
+            return rows;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{calls=" + getCalls() + ", exceptions=" + exceptions + ", timeouts="
+                    + timeouts + ", rows=" + rows + ", latency=" + latency + "}";
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.socialfood.model.metrics;
+
+import android.util.Log;
+
+import com.example.socialfood.model.database.DatabaseExecutors;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Collects the latency, exceptions, timeouts and returned rows of every database method the
+ * handlers call, together with the queue depths of the {@link DatabaseExecutors}. Handlers submit
+ * their database work through {@link #submit(ExecutorService, String, Callable)}, naming it after
+ * the DAO method it calls, e.g. "PostDao.getFeedPage".
+ *
+ * <p>
+ * The latency of a call is the time it ran on a database thread; the time it waited in the queue
+ * is kept per priority class by the executors. Recording only updates counters created with the
+ * first call of a method. A {@link #snapshot()} can be logged, shown on a debug screen or written
+ * to a file with {@link #dump(File)}.
+ * </p>
+ */
+public class MetricsRegistry {
+    private static final String TAG = "MetricsRegistry";
+
+    private final ConcurrentHashMap<String, MethodMetrics> methods = new ConcurrentHashMap<>();
+    private final DatabaseExecutors executors;
+    private volatile long sinceMillis = System.currentTimeMillis();
+
+    /**
+     * Creates a registry without executor statistics
+     */
+    public MetricsRegistry() {
+        this(null);
+    }
+
+    /**
+     * Creates a registry
+     *
+     * @param executors The executors whose statistics snapshots include, may be null
+     */
+    public MetricsRegistry(DatabaseExecutors executors) {
+        this.executors = executors;
+    }
+
+    /**
+     * Gets the metrics of a method, creating them on first use
+     *
+     * @param name The name of the method
+     * @return The metrics of the method
+     */
+    public MethodMetrics method(String name) {
+        MethodMetrics metrics = methods.get(name);
+        return metrics != null ? metrics : methods.computeIfAbsent(name, MethodMetrics::new);
+    }
+
+    /**
+     * Wraps a call so that running it records its latency, rows or exception
+     *
+     * @param name The name of the method the call runs
+     * @param call The call
+     * @param <T> The type of the result
+     * @return The recording call
+     */
+    public <T> Callable<T> timed(String name, Callable<T> call) {
+        MethodMetrics metrics = method(name);
+        return () -> {
+            long start = System.nanoTime();
+            T result;
+            try {
+                result = call.call();
+            } catch (Exception | Error e) {
+                metrics.recordException(System.nanoTime() - start);
+                throw e;
+            }
+            metrics.recordSuccess(System.nanoTime() - start, result);
+            return result;
+        };
+    }
+
+    /**
+     * Wraps a future so that a caller giving up waiting for it counts as a timeout
+     *
+     * @param name The name of the method the future computes
+     * @param future The future
+     * @param <T> The type of the result
+     * @return The watching future
+     */
+    public <T> Future<T> watch(String name, Future<T> future) {
+        return new WatchedFuture<>(future, method(name));
+    }
+
+    /**
+     * Submits a recorded call to an executor, see {@link #timed(String, Callable)} and
+     * {@link #watch(String, Future)}
+     *
+     * @param executor The executor running the call
+     * @param name The name of the method the call runs
+     * @param call The call
+     * @param <T> The type of the result
+     * @return The future of the call
+     */
+    public <T> Future<T> submit(ExecutorService executor, String name, Callable<T> call) {
+        return watch(name, executor.submit(timed(name, call)));
+    }
+
+    /**
+     * Submits a recorded call without a result, such as a DAO method returning void, see
+     * {@link #submit(ExecutorService, String, Callable)}
+     *
+     * @param executor The executor running the call
+     * @param name The name of the method the call runs
+     * @param call The call
+     * @return The future of the call, completing with null
+     */
+    public Future<?> submit(ExecutorService executor, String name, Runnable call) {
+        return submit(executor, name, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Copies the metrics of all methods and the executor statistics
+     *
+     * @return The snapshot, methods ordered by their summed latency, slowest first
+     */
+    public Snapshot snapshot() {
+        List<MethodMetrics.Snapshot> methodSnapshots = new ArrayList<>(methods.size());
+        for (MethodMetrics metrics : methods.values()) {
+            methodSnapshots.add(metrics.snapshot());
+        }
+        methodSnapshots.sort(Comparator.comparingLong(
+                (MethodMetrics.Snapshot method) -> method.getLatency().getTotalMicros())
+                .reversed());
+        List<DatabaseExecutors.Stats> executorStats = executors == null
+                ? Collections.emptyList()
+                : Arrays.asList(executors.readStats(), executors.writeStats(),
+                        executors.callStats());
+        return new Snapshot(sinceMillis, System.currentTimeMillis(), methodSnapshots,
+                executorStats);
+    }
+
+    /**
+     * Writes a snapshot to a file, replacing its content
+     *
+     * @param file The file, e.g. in the app's files directory
+     * @return true if the snapshot was written, false otherwise
+     */
+    public boolean dump(File file) {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8)) {
+            writer.write(snapshot().toString());
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing metrics to " + file, e);
+            return false;
+        }
+    }
+
+    /**
+     * Forgets the recorded metrics of all methods, e.g. before measuring one screen
+     */
+    public void reset() {
+        for (MethodMetrics metrics : methods.values()) {
+            metrics.reset();
+        }
+        sinceMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * The metrics of all methods and executors at one point in time
+     */
+    public static final class Snapshot {
+        private final long sinceMillis;
+        private final long takenMillis;
+        private final List<MethodMetrics.Snapshot> methods;
+        private final List<DatabaseExecutors.Stats> executors;
+
+        Snapshot(long sinceMillis, long takenMillis, List<MethodMetrics.Snapshot> methods,
+                List<DatabaseExecutors.Stats> executors) {
+            this.sinceMillis = sinceMillis;
+            this.takenMillis = takenMillis;
+            this.methods = Collections.unmodifiableList(methods);
+            this.executors = executors;
+        }
+
+        /** @return The time the recording started or was last reset, in epoch milliseconds */
+        public long getSinceMillis() {
+            return sinceMillis;
+        }
+
+        /** @return The time of the snapshot in epoch milliseconds */
+        public long getTakenMillis() {
+            return takenMillis;
+        }
+
+        /** @return The metrics of every method called, slowest first */
+        public List<MethodMetrics.Snapshot> getMethods() {
+            return methods;
+        }
+
+        /** @return The statistics of the read, write and caller executors, if known */
+        public List<DatabaseExecutors.Stats> getExecutors() {
+            return executors;
+        }
+
+        /**
+         * Gets the metrics of a method
+         *
+         * @param name The name of the method
+         * @return The metrics, null if the method was not called
+         */
+        public MethodMetrics.Snapshot getMethod(String name) {
+            for (MethodMetrics.Snapshot method : methods) {
+                if (method.getName().equals(name)) {
+                    return method;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Formats the snapshot as a report with one line per method and executor
+         */
+        @Override
+        public String toString() {
+            StringBuilder report = new StringBuilder("Database metrics over ")
+                    .append((takenMillis - sinceMillis) / 1000).append("s\n");
+            for (MethodMetrics.Snapshot method : methods) {
+                report.append(method).append('\n');
+            }
+            for (DatabaseExecutors.Stats stats : executors) {
+                report.append(stats).append('\n');
+            }
+            return report.toString();
+        }
+    }
+
+    /**
+     * Future counting the callers that stop waiting for it
+     */
+    private static final class WatchedFuture<T> implements Future<T> {
+        private final Future<T> future;
+        private final MethodMetrics metrics;
+
+        WatchedFuture(Future<T> future, MethodMetrics metrics) {
+            this.future = future;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return future.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return future.isDone();
+        }
+
+        @Override
+        public T get() throws InterruptedException, ExecutionException {
+            return future.get();
+        }
+
+        @Override
+        public T get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            try {
+                return future.get(timeout, unit);
+            } catch (TimeoutException e) {
+                metrics.recordTimeout();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.socialfood.model.search;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Okapi BM25 relevance ranking computed from FTS4 {@code matchinfo(..., 'pcnalx')} blobs. FTS4 has
+ * no built-in ranking function, so the score is built here as an SQL expression over the
+ * matchinfo of each row, see {@link #scoredMatchesSql}, and SQLite orders the matches by it.
+ *
+ * <p>
+ * The blob holds 32-bit unsigned integers in native byte order: phrase count p, column count c,
+ * row count n, the average token count of each column, the token count of each column in the
+ * matching row and, per phrase and column, the hits in this row, the hits in all rows and the
+ * number of rows with a hit.
+ * </p>
+ */
+public final class Bm25 {
+
+    /** Term frequency saturation */
+    static final double K1 = 1.2;
+
+    /** Length normalization */
+    static final double B = 0.75;
+
+    /** Lower bound for the inverse document frequency of terms found in most rows */
+    static final double MIN_IDF = 0.01;
+
+    /** Column weights in post_fts column order: description, recipe, ingredients */
+    public static final double[] POST_WEIGHTS = { 2.0, 1.0, 1.5 };
+
+    private Bm25() {
+    }
+
+    /**
+     * Scores a single match in Java. The search ranks with {@link #scoredMatchesSql}, which
+     * computes the same score inside SQLite.
+     *
+     * @param matchinfo The matchinfo blob in 'pcnalx' format
+     * @param weights The weight of each column, missing columns weigh 1
+     * @return The BM25 score, 0 for a malformed blob
+     */
+    public static double score(byte[] matchinfo, double[] weights) {
+        if (matchinfo == null || matchinfo.length < 12) {
+            return 0;
+        }
+        IntBuffer ints = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phrases = ints.get(0);
+        int columns = ints.get(1);
+        if (phrases <= 0 || columns <= 0
+                || ints.limit() < 3 + 2 * columns + 3 * phrases * columns) {
+            return 0;
+        }
+        double rows = ints.get(2) & 0xFFFFFFFFL;
+        int averages = 3;
+        int lengths = averages + columns;
+        int hits = lengths + columns;
+
+        double score = 0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns; column++) {
+                int base = hits + 3 * (phrase * columns + column);
+                double tf = ints.get(base) & 0xFFFFFFFFL;
+                if (tf == 0) {
+                    continue;
+                }
+                double df = ints.get(base + 2) & 0xFFFFFFFFL;
+                double idf = Math.max(Math.log((rows - df + 0.5) / (df + 0.5)), MIN_IDF);
+                double average = ints.get(averages + column) & 0xFFFFFFFFL;
+                double length = ints.get(lengths + column) & 0xFFFFFFFFL;
+                double norm = average > 0 ? length / average : 1;
+                double weight = weights != null && column < weights.length ? weights[column] : 1;
+                score += weight * idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * norm));
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Builds the SQL query that scores every match of a query inside SQLite, so that the ranking
+     * can be ordered and limited by the database. The statistics that are equal for all matches,
+     * row count, average lengths and document frequencies, are read once and become constants;
+     * only hits and lengths are taken from each matching row. The score equals {@link #score} of
+     * the row.
+     *
+     * <p>
+     * SQLite has no function reading integers from a blob, so the row's matchinfo is read as hex
+     * text and every integer is decoded from its digits, in the byte order of this process, which
+     * is the order SQLite writes them in. Each subquery ends with {@code LIMIT -1}, which keeps
+     * SQLite from merging it into the query using it and decoding the same value many times.
+     * </p>
+     *
+     * @param statistics The matchinfo blob of any match of the query in 'pcnax' format
+     * @param weights The weight of each column, missing columns weigh 1
+     * @param matchesSql The SQL query, without LIMIT, selecting docid and, as {@code h}, the
+     * {@code hex(matchinfo(..., 'ly'))} of every match
+     * @return The SQL query selecting docid and score of every match, null for a malformed blob
+     */
+    public static String scoredMatchesSql(byte[] statistics, double[] weights,
+            String matchesSql) {
+        if (statistics == null || statistics.length < 12) {
+            return null;
+        }
+        IntBuffer ints = ByteBuffer.wrap(statistics).order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+        int phrases = ints.get(0);
+        int columns = ints.get(1);
+        if (phrases <= 0 || columns <= 0 || ints.limit() < 3 + columns + 3 * phrases * columns) {
+            return null;
+        }
+        double rows = ints.get(2) & 0xFFFFFFFFL;
+        int averages = 3;
+        int hits = averages + columns;
+
+        StringBuilder values = new StringBuilder("docid");
+        StringBuilder score = new StringBuilder();
+        boolean[] lengthUsed = new boolean[columns];
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns; column++) {
+                double df = ints.get(hits + 3 * (phrase * columns + column) + 2) & 0xFFFFFFFFL;
+                if (df == 0) {
+                    // No row has a hit in this column
+                    continue;
+                }
+                double idf = Math.max(Math.log((rows - df + 0.5) / (df + 0.5)), MIN_IDF);
+                double average = ints.get(averages + column) & 0xFFFFFFFFL;
+                double weight = weights != null && column < weights.length ? weights[column] : 1;
+                String tf = "t" + phrase + "_" + column;
+                values.append(", ").append(uint(columns + phrase * columns + column))
+                        .append(" AS ").append(tf);
+                if (score.length() > 0) {
+                    score.append(" + ");
+                }
+                score.append(weight * idf * (K1 + 1)).append(" * ").append(tf).append(" / (")
+                        .append(tf).append(" + ");
+                if (average > 0) {
+                    lengthUsed[column] = true;
+                    score.append(K1 * (1 - B)).append(" + ").append(K1 * B / average)
+                            .append(" * l").append(column);
+                } else {
+                    score.append(K1);
+                }
+                score.append(')');
+            }
+        }
+        for (int column = 0; column < columns; column++) {
+            if (lengthUsed[column]) {
+                values.append(", ").append(uint(column)).append(" AS l").append(column);
+            }
+        }
+        return "SELECT docid, " + (score.length() > 0 ? score : "0.0") + " AS score FROM (SELECT "
+                + values + " FROM (" + matchesSql + " LIMIT -1) LIMIT -1) LIMIT -1";
+    }
+
+    /**
+     * Builds the SQL expression decoding one unsigned 32-bit integer of the hex text {@code h}.
+     * Hits and lengths rarely exceed 255, so a value whose upper bytes are zero only decodes its
+     * lowest byte.
+     *
+     * @param index The index of the integer in the blob
+     * @return The SQL expression of the integer
+     */
+    static String uint(int index) {
+        boolean littleEndian = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+        int start = 1 + 8 * index;
+        StringBuilder all = new StringBuilder();
+        long factor = 1;
+        for (int b = 0; b < 4; b++) {
+            if (b > 0) {
+                all.append(" + ").append(factor).append(" * ");
+            }
+            all.append(hexByte(start + 2 * (littleEndian ? b : 3 - b)));
+            factor *= 256;
+        }
+        return "CASE WHEN substr(h, " + (littleEndian ? start + 2 : start) + ", 6) = '000000' "
+                + "THEN " + hexByte(littleEndian ? start : start + 6) + " ELSE " + all + " END";
+    }
+
+    private static String hexByte(int position) {
+        return "(16 * " + hexDigit(position) + " + " + hexDigit(position + 1) + ")";
+    }
+
+    private static String hexDigit(int position) {
+        return "(instr('0123456789ABCDEF', substr(h, " + position + ", 1)) - 1)";
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.socialfood.model.search;
+
+import com.example.socialfood.model.entities.Ingredient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A filter on the ingredients of posts. A post matches if it contains all ingredients of
+ * {@code allOf}, at least one of {@code anyOf} (if any are given) and none of {@code noneOf}.
+ * Names are normalized like {@link Ingredient#normalize(String)}.
+ *
+ * <p>
+ * Example: {@code new IngredientFilter(List.of("Mehl"), List.of("Hefe", "Backpulver"),
+ * List.of("Zucker"))} finds posts with flour and yeast or baking powder, but without sugar.
+ * </p>
+ */
+public final class IngredientFilter {
+    private final List<String> allOf;
+    private final List<String> anyOf;
+    private final List<String> noneOf;
+
+    /**
+     * Creates a new filter. Null collections count as empty.
+     *
+     * @param allOf Ingredients that must all be present
+     * @param anyOf Ingredients of which at least one must be present, ignored if empty
+     * @param noneOf Ingredients that must not be present
+     */
+    public IngredientFilter(Collection<String> allOf, Collection<String> anyOf,
+            Collection<String> noneOf) {
+        this.allOf = normalize(allOf);
+        this.anyOf = normalize(anyOf);
+        this.noneOf = normalize(noneOf);
+    }
+
+    /**
+     * Creates a filter for posts containing all of the given ingredients
+     *
+     * @param names The required ingredients
+     * @return The filter
+     */
+    public static IngredientFilter allOf(Collection<String> names) {
+        return new IngredientFilter(names, null, null);
+    }
+
+    /**
+     * Creates a filter for posts containing at least one of the given ingredients
+     *
+     * @param names The alternative ingredients
+     * @return The filter
+     */
+    public static IngredientFilter anyOf(Collection<String> names) {
+        return new IngredientFilter(null, names, null);
+    }
+
+    /**
+     * Gets the ingredients that must all be present
+     *
+     * @return The normalized names
+     */
+    public List<String> getAllOf() {
+        return allOf;
+    }
+
+    /**
+     * Gets the ingredients of which at least one must be present
+     *
+     * @return The normalized names
+     */
+    public List<String> getAnyOf() {
+        return anyOf;
+    }
+
+    /**
+     * Gets the ingredients that must not be present
+     *
+     * @return The normalized names
+     */
+    public List<String> getNoneOf() {
+        return noneOf;
+    }
+
+    /**
+     * Checks whether the filter can match anything. A filter needs at least one ingredient in
+     * allOf or anyOf, a filter with only excluded ingredients would have to scan every post.
+     *
+     * @return true if allOf or anyOf is not empty
+     */
+    public boolean isValid() {
+        return !allOf.isEmpty() || !anyOf.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "IngredientFilter{" +
+                "allOf=" + allOf +
+                ", anyOf=" + anyOf +
+                ", noneOf=" + noneOf +
+                '}';
+    }
+
+    private static List<String> normalize(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String name : names) {
+            String value = Ingredient.normalize(name);
+            if (!value.isEmpty()) {
+                normalized.add(value);
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(normalized));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.socialfood.model.search;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Set operations on posting lists: strictly ascending arrays of post IDs. All operations return
+ * new arrays and never modify their input.
+ */
+public final class Postings {
+
+    /** An empty posting list */
+    public static final long[] EMPTY = new long[0];
+
+    private Postings() {
+    }
+
+    /**
+     * Converts a sorted list of post IDs as returned by a DAO into a posting list
+     *
+     * @param postIds The post IDs in ascending order
+     * @return The posting list
+     */
+    public static long[] of(List<Long> postIds) {
+        if (postIds == null || postIds.isEmpty()) {
+            return EMPTY;
+        }
+        long[] postings = new long[postIds.size()];
+        for (int i = 0; i < postings.length; i++) {
+            postings[i] = postIds.get(i);
+        }
+        return postings;
+    }
+
+    /**
+     * Intersects two posting lists. Every entry of the shorter list is searched in the longer one
+     * by galloping, so the cost is O(m log(n / m)) rather than O(m + n) for lists of very
+     * different length.
+     *
+     * @param a The first posting list
+     * @param b The second posting list
+     * @return The post IDs contained in both lists
+     */
+    public static long[] intersect(long[] a, long[] b) {
+        long[] small = a.length <= b.length ? a : b;
+        long[] large = small == a ? b : a;
+        long[] result = new long[small.length];
+        int count = 0;
+        int from = 0;
+        for (long postId : small) {
+            int bound = 1;
+            while (from + bound < large.length && large[from + bound] < postId) {
+                bound <<= 1;
+            }
+            int index = Arrays.binarySearch(large, from + (bound >> 1),
+                    Math.min(from + bound + 1, large.length), postId);
+            if (index >= 0) {
+                result[count++] = postId;
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+            if (from >= large.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Merges two posting lists
+     *
+     * @param a The first posting list
+     * @param b The second posting list
+     * @return The post IDs contained in either list
+     */
+    public static long[] union(long[] a, long[] b) {
+        long[] result = new long[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[count++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            result[count++] = a[i++];
+        }
+        while (j < b.length) {
+            result[count++] = b[j++];
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Removes the post IDs of one posting list from another
+     *
+     * @param a The posting list to remove from
+     * @param b The post IDs to remove
+     * @return The post IDs contained in a but not in b
+     */
+    public static long[] difference(long[] a, long[] b) {
+        long[] result = new long[a.length];
+        int j = 0;
+        int count = 0;
+        for (long postId : a) {
+            while (j < b.length && b[j] < postId) {
+                j++;
+            }
+            if (j >= b.length || b[j] != postId) {
+                result[count++] = postId;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.socialfood.model.search;
+
+/**
+ * One ranked full-text match as read from post_fts: the docid of the matching entry and its
+ * relevance score, computed inside SQLite by the query of {@link Bm25#scoredMatchesSql}.
+ */
+public class SearchMatch {
+
+    /** The docid of the matching index entry */
+    private long docid;
+
+    /** The relevance score */
+    private double score;
+
+    /**
+     * Gets the docid of the matching index entry
+     *
+     * @return The docid
+     */
+    public long getDocid() {
+        return docid;
+    }
+
+    /**
+     * Sets the docid of the matching index entry
+     *
+     * @param docid The docid to set
+     */
+    public void setDocid(long docid) {
+        this.docid = docid;
+    }
+
+    /**
+     * Gets the relevance score
+     *
+     * @return The score, higher is more relevant
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Sets the relevance score
+     *
+     * @param score The score to set
+     */
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.socialfood.model.search;
+
+import java.util.Locale;
+
+/**
+ * Turns free text typed by a user into an FTS4 MATCH expression. Every word becomes a prefix term
+ * and all terms must match. FTS syntax in the input (quotes, operators, column filters) is not
+ * interpreted, so any input produces a valid expression.
+ */
+public final class SearchQuery {
+
+    /** Maximum number of words taken from the input */
+    public static final int MAX_TERMS = 8;
+
+    private SearchQuery() {
+    }
+
+    /**
+     * Builds the MATCH expression for the given input
+     *
+     * @param input The text typed by the user
+     * @return The MATCH expression, e.g. {@code "pizz* teig*"}, or null if the input contains no
+     *         searchable word
+     */
+    public static String toMatchExpression(String input) {
+        if (input == null) {
+            return null;
+        }
+        StringBuilder expression = new StringBuilder();
+        int terms = 0;
+        for (String word : input.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (expression.length() > 0) {
+                expression.append(' ');
+            }
+            // Lower case keeps words like "or" and "not" from being read as operators
+            expression.append(word.toLowerCase(Locale.ROOT)).append('*');
+            if (++terms == MAX_TERMS) {
+                break;
+            }
+        }
+        return terms > 0 ? expression.toString() : null;
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.socialfood.model.snapshot;
+
+import android.util.Log;
+
+import com.example.socialfood.model.entities.FeedItem;
+import com.example.socialfood.model.entities.Post;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The posts last shown on the map together with the viewport they were shown in, kept in one
+ * compact binary file so the next launch can draw them before the database is even opened.
+ *
+ * <p>
+ * The file is written when the app goes to the background and read at start-up with a single
+ * memory-mapped read; decoding a few hundred posts takes well under a millisecond and needs no
+ * database, no Room and no query. The snapshot is only a first picture: the map reloads the posts
+ * in view from the database right after and replaces it.
+ * </p>
+ *
+ * <p>
+ * Layout, big-endian: a header of magic, version, the time of writing, the map center, the zoom
+ * level and the number of items, followed by the items. Every item holds its fixed-size fields
+ * first (post ID, author ID, timestamp, coordinates, counters, liked flag) and then author name,
+ * description and image URL as length-prefixed UTF-8, a length of -1 standing for null. A file
+ * with another magic or version is ignored. Files are replaced by renaming a completely written
+ * temporary file, so a process killed while writing leaves the previous snapshot intact.
+ * </p>
+ */
+public final class FeedSnapshot {
+    private static final String TAG = "FeedSnapshot";
+
+    /** "SFSN" */
+    private static final int MAGIC = 0x5346534E;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 3 * 8 + 4;
+    private static final int ITEM_FIXED_BYTES = 8 + 4 + 8 + 2 * 8 + 2 * 4 + 1;
+
+    /** Largest file that is read, anything bigger is not a snapshot written by this class */
+    private static final long MAX_FILE_BYTES = 16 * 1024 * 1024;
+
+    private final long savedAt;
+    private final double centerLatitude;
+    private final double centerLongitude;
+    private final double zoom;
+    private final List<FeedItem> items;
+
+    /**
+     * Creates a snapshot
+     *
+     * @param savedAt The time the posts were shown in milliseconds since the epoch
+     * @param centerLatitude The latitude of the map center
+     * @param centerLongitude The longitude of the map center
+     * @param zoom The zoom level of the map
+     * @param items The summaries of the posts shown
+     */
+    public FeedSnapshot(long savedAt, double centerLatitude, double centerLongitude, double zoom,
+            List<FeedItem> items) {
+        this.savedAt = savedAt;
+        this.centerLatitude = centerLatitude;
+        this.centerLongitude = centerLongitude;
+        this.zoom = zoom;
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+    }
+
+    /** @return The time the posts were shown in milliseconds since the epoch */
+    public long getSavedAt() {
+        return savedAt;
+    }
+
+    /** @return The latitude of the map center */
+    public double getCenterLatitude() {
+        return centerLatitude;
+    }
+
+    /** @return The longitude of the map center */
+    public double getCenterLongitude() {
+        return centerLongitude;
+    }
+
+    /** @return The zoom level of the map */
+    public double getZoom() {
+        return zoom;
+    }
+
+    /** @return The summaries of the posts shown */
+    public List<FeedItem> getItems() {
+        return items;
+    }
+
+    /**
+     * Converts the items to posts, carrying the fields a map marker needs. Recipe and ingredients
+     * are not part of the snapshot and stay empty.
+     *
+     * @return One post per item, without items a post rejects as invalid
+     */
+    public List<Post> toPosts() {
+        List<Post> posts = new ArrayList<>(items.size());
+        for (FeedItem item : items) {
+            try {
+                Post post = new Post();
+                post.setPostId(item.getPostId());
+                post.setUid(item.getUid());
+                if (item.getImageUrl() != null && !item.getImageUrl().trim().isEmpty()) {
+                    post.setImageUrl(item.getImageUrl());
+                }
+                post.setDescription(item.getDescription());
+                post.setTimestamp(item.getTimestamp());
+                post.setLatitude(item.getLatitude());
+                post.setLongitude(item.getLongitude());
+                post.setLikeCount(item.getLikeCount());
+                post.setCommentCount(item.getCommentCount());
+                posts.add(post);
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "Skipping invalid snapshot item " + item.getPostId(), e);
+            }
+        }
+        return posts;
+    }
+
+    /**
+     * Encodes the snapshot
+     *
+     * @return The content of a snapshot file
+     */
+    ByteBuffer encode() {
+        List<byte[]> strings = new ArrayList<>(items.size() * 3);
+        int size = HEADER_BYTES;
+        for (FeedItem item : items) {
+            size += ITEM_FIXED_BYTES;
+            for (String value : new String[] { item.getUsername(), item.getDescription(),
+                    item.getImageUrl() }) {
+                byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+                strings.add(bytes);
+                size += 4 + (bytes != null ? bytes.length : 0);
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(savedAt).putDouble(centerLatitude)
+                .putDouble(centerLongitude).putDouble(zoom).putInt(items.size());
+        int string = 0;
+        for (FeedItem item : items) {
+            buffer.putLong(item.getPostId()).putInt(item.getUid()).putLong(item.getTimestamp())
+                    .putDouble(item.getLatitude()).putDouble(item.getLongitude())
+                    .putInt(item.getLikeCount()).putInt(item.getCommentCount())
+                    .put((byte) (item.isLikedByCurrentUser() ? 1 : 0));
+            for (int i = 0; i < 3; i++) {
+                putString(buffer, strings.get(string++));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Decodes a snapshot
+     *
+     * @param buffer The content of a snapshot file
+     * @return The snapshot, null if the content is not a snapshot of the current version
+     * @throws BufferUnderflowException if the content is truncated
+     */
+    static FeedSnapshot decode(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC
+                || buffer.getInt() != VERSION) {
+            return null;
+        }
+        long savedAt = buffer.getLong();
+        double centerLatitude = buffer.getDouble();
+        double centerLongitude = buffer.getDouble();
+        double zoom = buffer.getDouble();
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / ITEM_FIXED_BYTES) {
+            return null;
+        }
+        List<FeedItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            FeedItem item = new FeedItem();
+            item.setPostId(buffer.getLong());
+            item.setUid(buffer.getInt());
+            item.setTimestamp(buffer.getLong());
+            item.setLatitude(buffer.getDouble());
+            item.setLongitude(buffer.getDouble());
+            item.setLikeCount(buffer.getInt());
+            item.setCommentCount(buffer.getInt());
+            item.setLikedByCurrentUser(buffer.get() != 0);
+            item.setUsername(getString(buffer));
+            item.setDescription(getString(buffer));
+            item.setImageUrl(getString(buffer));
+            items.add(item);
+        }
+        return new FeedSnapshot(savedAt, centerLatitude, centerLongitude, zoom, items);
+    }
+
+    /**
+     * Writes the snapshot to a file, replacing the previous one
+     *
+     * @param file The snapshot file
+     * @return true if the file was written, false on error
+     */
+    public boolean write(File file) {
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(temp)) {
+            FileChannel channel = output.getChannel();
+            ByteBuffer buffer = encode();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            Log.e(TAG, "Error writing feed snapshot", e);
+            temp.delete();
+            return false;
+        }
+        if (!temp.renameTo(file)) {
+            Log.e(TAG, "Cannot replace feed snapshot " + file);
+            temp.delete();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads a snapshot with a single memory-mapped read
+     *
+     * @param file The snapshot file
+     * @return The snapshot, null if there is none or it cannot be read
+     */
+    public static FeedSnapshot read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            FileChannel channel = input.getChannel();
+            long size = channel.size();
+            if (size > MAX_FILE_BYTES) {
+                Log.e(TAG, "Feed snapshot too large: " + size + " bytes");
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            FeedSnapshot snapshot = decode(buffer);
+            if (snapshot == null) {
+                Log.e(TAG, "Ignoring feed snapshot of another format");
+            }
+            return snapshot;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            Log.e(TAG, "Error reading feed snapshot", e);
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FeedSnapshot{savedAt=" + savedAt + ", center=" + centerLatitude + ","
+                + centerLongitude + ", zoom=" + zoom + ", items=" + items.size() + "}";
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.socialfood.model.spatial;
+
+/**
+ * The result of a nearest-neighbour query on a {@link PostGrid}: post IDs and their distances
+ * from the query point, nearest first.
+ */
+public final class Neighbors {
+    private final long[] postIds;
+    private final double[] distances;
+
+    Neighbors(long[] postIds, double[] distances) {
+        this.postIds = postIds;
+        this.distances = distances;
+    }
+
+    /**
+     * Gets the number of posts found
+     *
+     * @return The number of neighbours, at most the requested count
+     */
+    public int size() {
+        return postIds.length;
+    }
+
+    /**
+     * Gets the post ID of a neighbour
+     *
+     * @param index The rank of the neighbour, 0 is the nearest
+     * @return The post ID
+     */
+    public long postId(int index) {
+        return postIds[index];
+    }
+
+    /**
+     * Gets the distance of a neighbour from the query point
+     *
+     * @param index The rank of the neighbour, 0 is the nearest
+     * @return The great-circle distance in meters
+     */
+    public double distanceMeters(int index) {
+        return distances[index];
+    }
+}
@@ -0,0 +1,579 @@
+package com.example.socialfood.model.spatial;
+
+import com.example.socialfood.model.cache.BudgetedCache;
+
+import java.util.Arrays;
+
+/**
+ * In-memory uniform grid over post locations for nearest-neighbour queries. The world is divided
+ * into cells of {@code cellDegrees} by {@code cellDegrees}; every cell holds a doubly linked list
+ * of the posts inside it. All data lives in primitive arrays indexed by slot, so a million posts
+ * cost about 60 MB less than the equivalent boxed objects and no garbage is produced per query.
+ *
+ * <p>
+ * Posts can be added, moved and removed one by one at any time. A query visits rings of cells
+ * around the query point and stops as soon as no unvisited cell can hold a post nearer than the
+ * current k-th nearest one, so the work depends on the local density rather than the total
+ * number of posts. Distances are great-circle (haversine) distances.
+ * </p>
+ *
+ * <p>
+ * All methods are synchronized; queries are short enough that a single lock is not a bottleneck.
+ * The database must never be read under this lock: a loader reads the locations while holding
+ * only the {@link #getLoadLock() load lock} and then swaps them in with {@link #load}. Every change
+ * increments a version, so a load that raced with a change is detected and repeated later.
+ * </p>
+ *
+ * <p>
+ * When memory runs low the grid frees its slots and is loaded again by the next query; the cell
+ * table, whose size depends only on the cell size, is kept.
+ * </p>
+ */
+public class PostGrid implements BudgetedCache {
+
+    /** Mean earth radius in meters */
+    public static final double EARTH_RADIUS_METERS = 6_371_000.0;
+
+    /** Default cell size, about 55 km at the equator */
+    public static final double DEFAULT_CELL_DEGREES = 0.5;
+
+    private static final int INITIAL_CAPACITY = 1_024;
+    private static final int NONE = -1;
+
+    /** Bytes per slot: the post ID, three doubles and three ints */
+    private static final int SLOT_BYTES = 8 + 3 * 8 + 3 * 4;
+
+    private final double cellDegrees;
+    private final double cellRadians;
+    private final int rows;
+    private final int cols;
+    private final Object loadLock = new Object();
+
+    private int[] cellHead;
+
+    private long[] keys;
+    private double[] latRad;
+    private double[] lonRad;
+    private double[] cosLat;
+    private int[] cellOf;
+    private int[] next;
+    private int[] prev;
+    private int used;
+    private int freeHead = NONE;
+    private int size;
+    private boolean loaded;
+    private long version;
+
+    private LongIntMap slots = new LongIntMap();
+
+    /**
+     * Creates an empty grid with the default cell size
+     */
+    public PostGrid() {
+        this(DEFAULT_CELL_DEGREES);
+    }
+
+    /**
+     * Creates an empty grid
+     *
+     * @param cellDegrees The edge length of a cell in degrees, must divide into 180 reasonably
+     * @throws IllegalArgumentException if cellDegrees is not between 0.01 and 90
+     */
+    public PostGrid(double cellDegrees) {
+        if (!(cellDegrees >= 0.01 && cellDegrees <= 90)) {
+            throw new IllegalArgumentException("cellDegrees must be between 0.01 and 90");
+        }
+        this.cellDegrees = cellDegrees;
+        this.cellRadians = Math.toRadians(cellDegrees);
+        this.rows = (int) Math.ceil(180.0 / cellDegrees);
+        this.cols = (int) Math.ceil(360.0 / cellDegrees);
+        this.cellHead = new int[rows * cols];
+        Arrays.fill(cellHead, NONE);
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Computes the great-circle distance between two points
+     *
+     * @param lat1 Latitude of the first point in degrees
+     * @param lon1 Longitude of the first point in degrees
+     * @param lat2 Latitude of the second point in degrees
+     * @param lon2 Longitude of the second point in degrees
+     * @return The distance in meters
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        return toMeters(haversine(phi1, Math.toRadians(lon1), Math.cos(phi1), phi2,
+                Math.toRadians(lon2), Math.cos(phi2)));
+    }
+
+    /**
+     * Replaces the content of the grid and marks it as loaded
+     *
+     * @param postIds The post IDs
+     * @param latitudes The latitudes in degrees
+     * @param longitudes The longitudes in degrees
+     * @param count The number of posts in the arrays
+     */
+    public void load(long[] postIds, double[] latitudes, double[] longitudes, int count) {
+        load(getVersion(), postIds, latitudes, longitudes, count);
+    }
+
+    /**
+     * Replaces the content of the grid with posts read from the database. The new grid is built
+     * without holding the lock and swapped in at the end. It is only marked as loaded if the grid
+     * has not changed since the version was taken before reading; otherwise it still answers
+     * queries, but the next loader reads the posts again.
+     *
+     * @param version The version returned by {@link #getVersion} before the posts were read
+     * @param postIds The post IDs
+     * @param latitudes The latitudes in degrees
+     * @param longitudes The longitudes in degrees
+     * @param count The number of posts in the arrays
+     * @return true if the grid is now loaded, false if it changed while the posts were read
+     */
+    public boolean load(long version, long[] postIds, double[] latitudes, double[] longitudes,
+            int count) {
+        PostGrid built = new PostGrid(cellDegrees);
+        built.allocate(Math.max(count, INITIAL_CAPACITY));
+        for (int i = 0; i < count; i++) {
+            built.put(postIds[i], latitudes[i], longitudes[i]);
+        }
+        synchronized (this) {
+            boolean current = this.version == version;
+            cellHead = built.cellHead;
+            keys = built.keys;
+            latRad = built.latRad;
+            lonRad = built.lonRad;
+            cosLat = built.cosLat;
+            cellOf = built.cellOf;
+            next = built.next;
+            prev = built.prev;
+            used = built.used;
+            freeHead = built.freeHead;
+            size = built.size;
+            slots = built.slots;
+            loaded = current;
+            this.version++;
+            return current;
+        }
+    }
+
+    /**
+     * Gets the version of the grid, which changes with every post added, moved or removed and
+     * every time the grid is cleared or loaded
+     *
+     * @return The current version
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the lock a loader holds while reading the posts from the database, so that concurrent
+     * queries wait for one load instead of each reading all posts. It is not the lock of the grid
+     * itself, which must never be held while waiting for the database.
+     *
+     * @return The load lock of this grid
+     */
+    public Object getLoadLock() {
+        return loadLock;
+    }
+
+    /**
+     * Checks whether the grid has been loaded with the full set of posts
+     *
+     * @return true after {@link #load} has been called
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Removes all posts and marks the grid as not loaded
+     */
+    public synchronized void clear() {
+        Arrays.fill(cellHead, NONE);
+        slots.clear();
+        used = 0;
+        size = 0;
+        freeHead = NONE;
+        loaded = false;
+        version++;
+    }
+
+    /**
+     * Adds a post or moves it to a new location if it is already in the grid
+     *
+     * @param postId The post ID
+     * @param latitude The latitude in degrees
+     * @param longitude The longitude in degrees
+     */
+    public synchronized void put(long postId, double latitude, double longitude) {
+        version++;
+        int slot = slots.get(postId);
+        if (slot == NONE) {
+            slot = newSlot();
+            keys[slot] = postId;
+            slots.put(postId, slot);
+            size++;
+        } else {
+            unlink(slot);
+        }
+        double lat = clampLatitude(latitude);
+        latRad[slot] = Math.toRadians(lat);
+        lonRad[slot] = Math.toRadians(longitude);
+        cosLat[slot] = Math.cos(latRad[slot]);
+
+        int cell = row(lat) * cols + col(longitude);
+        cellOf[slot] = cell;
+        prev[slot] = NONE;
+        next[slot] = cellHead[cell];
+        if (cellHead[cell] != NONE) {
+            prev[cellHead[cell]] = slot;
+        }
+        cellHead[cell] = slot;
+    }
+
+    /**
+     * Removes a post from the grid. Unknown posts are ignored.
+     *
+     * @param postId The post ID
+     * @return true if the post was in the grid
+     */
+    public synchronized boolean remove(long postId) {
+        version++;
+        int slot = slots.remove(postId);
+        if (slot == NONE) {
+            return false;
+        }
+        unlink(slot);
+        next[slot] = freeHead;
+        freeHead = slot;
+        size--;
+        return true;
+    }
+
+    @Override
+    public synchronized long getEstimatedBytes() {
+        return (long) keys.length * SLOT_BYTES + (long) cellHead.length * 4
+                + slots.memoryBytes();
+    }
+
+    /**
+     * Removes all posts and shrinks the slots back to their initial capacity, unless the target
+     * leaves room for the grid as it is
+     */
+    @Override
+    public synchronized void trimTo(long targetBytes) {
+        if (targetBytes >= getEstimatedBytes() || (!loaded && keys.length == INITIAL_CAPACITY)) {
+            return;
+        }
+        clear();
+        keys = null;
+        latRad = null;
+        lonRad = null;
+        cosLat = null;
+        cellOf = null;
+        next = null;
+        prev = null;
+        allocate(INITIAL_CAPACITY);
+        slots.release();
+    }
+
+    /**
+     * Gets the number of posts in the grid
+     *
+     * @return The number of posts
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Finds the posts nearest to a point
+     *
+     * @param latitude The latitude of the query point in degrees
+     * @param longitude The longitude of the query point in degrees
+     * @param count The maximum number of posts to return
+     * @return Up to count posts, nearest first
+     */
+    public synchronized Neighbors nearest(double latitude, double longitude, int count) {
+        int k = Math.min(count, size);
+        if (k <= 0) {
+            return new Neighbors(new long[0], new double[0]);
+        }
+        double qLat = Math.toRadians(clampLatitude(latitude));
+        double qLon = Math.toRadians(longitude);
+        double qCos = Math.cos(qLat);
+        int qRow = row(latitude);
+        int qCol = col(longitude);
+
+        // Max-heap of the k nearest so far, ordered by haversine value
+        double[] heapValue = new double[k];
+        int[] heapSlot = new int[k];
+        int found = 0;
+
+        int minDx = -(cols / 2);
+        int maxDx = (cols - 1) / 2;
+        int maxRing = Math.max(rows, cols / 2 + 1);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int dy = -ring; dy <= ring; dy++) {
+                int row = qRow + dy;
+                if (row < 0 || row >= rows) {
+                    continue;
+                }
+                boolean edgeRow = dy == -ring || dy == ring;
+                int fromDx = Math.max(-ring, minDx);
+                int toDx = Math.min(ring, maxDx);
+                int step = edgeRow ? 1 : Math.max(1, toDx - fromDx);
+                for (int dx = fromDx; dx <= toDx; dx += step) {
+                    if (!edgeRow && dx != -ring && dx != ring) {
+                        continue;
+                    }
+                    int cell = row * cols + Math.floorMod(qCol + dx, cols);
+                    for (int slot = cellHead[cell]; slot != NONE; slot = next[slot]) {
+                        double value = haversine(qLat, qLon, qCos, latRad[slot], lonRad[slot],
+                                cosLat[slot]);
+                        if (found < k) {
+                            heapValue[found] = value;
+                            heapSlot[found] = slot;
+                            siftUp(heapValue, heapSlot, found++);
+                        } else if (value < heapValue[0]) {
+                            heapValue[0] = value;
+                            heapSlot[0] = slot;
+                            siftDown(heapValue, heapSlot, k);
+                        }
+                    }
+                }
+            }
+            if (found == k && heapValue[0] <= lowerBound(qLat, ring)) {
+                break;
+            }
+        }
+
+        long[] resultKeys = new long[found];
+        double[] resultDistances = new double[found];
+        for (int i = found - 1; i >= 0; i--) {
+            resultKeys[i] = keys[heapSlot[0]];
+            resultDistances[i] = toMeters(heapValue[0]);
+            heapValue[0] = heapValue[i];
+            heapSlot[0] = heapSlot[i];
+            siftDown(heapValue, heapSlot, i);
+        }
+        return new Neighbors(resultKeys, resultDistances);
+    }
+
+    /**
+     * Lower bound of the haversine value of any post outside the first ring + 1 rings. Such a
+     * post is at least ring cells away in latitude, or it lies within the rows already visited
+     * and is at least ring cells away in longitude; the longitude case is the smaller bound.
+     */
+    private double lowerBound(double qLat, int ring) {
+        double gap = Math.min(Math.PI, ring * cellRadians);
+        double maxLat = Math.min(Math.PI / 2, Math.abs(qLat) + (ring + 1) * cellRadians);
+        double sinHalfGap = Math.sin(gap / 2);
+        double cos = Math.cos(maxLat);
+        return sinHalfGap * sinHalfGap * cos * cos;
+    }
+
+    private void unlink(int slot) {
+        int cell = cellOf[slot];
+        if (prev[slot] != NONE) {
+            next[prev[slot]] = next[slot];
+        } else {
+            cellHead[cell] = next[slot];
+        }
+        if (next[slot] != NONE) {
+            prev[next[slot]] = prev[slot];
+        }
+    }
+
+    private int newSlot() {
+        if (freeHead != NONE) {
+            int slot = freeHead;
+            freeHead = next[slot];
+            return slot;
+        }
+        if (used == keys.length) {
+            allocate(keys.length * 2);
+        }
+        return used++;
+    }
+
+    private void allocate(int capacity) {
+        keys = keys == null ? new long[capacity] : Arrays.copyOf(keys, capacity);
+        latRad = latRad == null ? new double[capacity] : Arrays.copyOf(latRad, capacity);
+        lonRad = lonRad == null ? new double[capacity] : Arrays.copyOf(lonRad, capacity);
+        cosLat = cosLat == null ? new double[capacity] : Arrays.copyOf(cosLat, capacity);
+        cellOf = cellOf == null ? new int[capacity] : Arrays.copyOf(cellOf, capacity);
+        next = next == null ? new int[capacity] : Arrays.copyOf(next, capacity);
+        prev = prev == null ? new int[capacity] : Arrays.copyOf(prev, capacity);
+    }
+
+    private int row(double latitude) {
+        int row = (int) ((clampLatitude(latitude) + 90.0) / cellDegrees);
+        return Math.min(row, rows - 1);
+    }
+
+    private int col(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180.0) / cellDegrees), cols);
+    }
+
+    private static double clampLatitude(double latitude) {
+        return Math.max(-90.0, Math.min(90.0, latitude));
+    }
+
+    private static double haversine(double lat1, double lon1, double cos1, double lat2,
+            double lon2, double cos2) {
+        double sinLat = Math.sin((lat2 - lat1) / 2);
+        double sinLon = Math.sin((lon2 - lon1) / 2);
+        return sinLat * sinLat + cos1 * cos2 * sinLon * sinLon;
+    }
+
+    private static double toMeters(double haversine) {
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(Math.min(1.0, haversine)));
+    }
+
+    private static void siftUp(double[] values, int[] slots, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (values[parent] >= values[index]) {
+                return;
+            }
+            swap(values, slots, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(double[] values, int[] slots, int size) {
+        int index = 0;
+        while (true) {
+            int largest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && values[left] > values[largest]) {
+                largest = left;
+            }
+            if (right < size && values[right] > values[largest]) {
+                largest = right;
+            }
+            if (largest == index) {
+                return;
+            }
+            swap(values, slots, index, largest);
+            index = largest;
+        }
+    }
+
+    private static void swap(double[] values, int[] slots, int a, int b) {
+        double value = values[a];
+        values[a] = values[b];
+        values[b] = value;
+        int slot = slots[a];
+        slots[a] = slots[b];
+        slots[b] = slot;
+    }
+
+    /**
+     * Open addressing hash map from post ID to slot with linear probing and backward shift
+     * deletion, so that lookups never box and deletions leave no tombstones
+     */
+    private static final class LongIntMap {
+        private long[] tableKeys = new long[INITIAL_CAPACITY * 2];
+        private int[] tableValues = new int[INITIAL_CAPACITY * 2];
+        private boolean[] occupied = new boolean[INITIAL_CAPACITY * 2];
+        private int count;
+
+        int get(long key) {
+            int mask = tableKeys.length - 1;
+            for (int i = index(key, mask); occupied[i]; i = (i + 1) & mask) {
+                if (tableKeys[i] == key) {
+                    return tableValues[i];
+                }
+            }
+            return NONE;
+        }
+
+        void put(long key, int value) {
+            if ((count + 1) * 2 > tableKeys.length) {
+                resize(tableKeys.length * 2);
+            }
+            int mask = tableKeys.length - 1;
+            int i = index(key, mask);
+            while (occupied[i]) {
+                if (tableKeys[i] == key) {
+                    tableValues[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            occupied[i] = true;
+            tableKeys[i] = key;
+            tableValues[i] = value;
+            count++;
+        }
+
+        int remove(long key) {
+            int mask = tableKeys.length - 1;
+            int i = index(key, mask);
+            while (occupied[i] && tableKeys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (!occupied[i]) {
+                return NONE;
+            }
+            int value = tableValues[i];
+            // Shift following entries of the probe sequence back into the gap
+            int gap = i;
+            for (int j = (gap + 1) & mask; occupied[j]; j = (j + 1) & mask) {
+                int home = index(tableKeys[j], mask);
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    tableKeys[gap] = tableKeys[j];
+                    tableValues[gap] = tableValues[j];
+                    gap = j;
+                }
+            }
+            occupied[gap] = false;
+            count--;
+            return value;
+        }
+
+        void clear() {
+            Arrays.fill(occupied, false);
+            count = 0;
+        }
+
+        void release() {
+            tableKeys = new long[INITIAL_CAPACITY * 2];
+            tableValues = new int[INITIAL_CAPACITY * 2];
+            occupied = new boolean[INITIAL_CAPACITY * 2];
+            count = 0;
+        }
+
+        long memoryBytes() {
+            return (long) tableKeys.length * (8 + 4 + 1);
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = tableKeys;
+            int[] oldValues = tableValues;
+            boolean[] oldOccupied = occupied;
+            tableKeys = new long[capacity];
+            tableValues = new int[capacity];
+            occupied = new boolean[capacity];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldOccupied[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int index(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+}
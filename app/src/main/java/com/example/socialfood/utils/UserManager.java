@@ -2,21 +2,47 @@ package com.example.socialfood.utils;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Looper;
+import android.util.Log;
 
+import com.example.socialfood.model.database.TaskContext;
+import com.example.socialfood.model.database.TaskPriority;
+import com.example.socialfood.model.handler.LikeHandler;
 import com.example.socialfood.model.handler.UserHandler;
 import com.example.socialfood.model.entities.User;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Singleton class responsible for managing user sessions and authentication.
  * Handles user login, logout, and persistent user data storage.
+ *
+ * <p>
+ * The user saved by the last session is restored on a caller thread, so that creating the
+ * manager on the main thread does not read the database. Until the restore finishes,
+ * {@link #isLoggedIn()} and {@link #getCurrentUserId()} already answer from the saved ID, while
+ * {@link #getCurrentUser()} returns null on the main thread and waits for the restore elsewhere.
+ * </p>
+ *
+ * <p>
+ * When a user logs in or is restored, the IDs of all posts they liked are loaded into memory in
+ * the background, so that their like states are answered without querying the database.
+ * </p>
  */
 public class UserManager {
     private static UserManager instance;
-    private User currentUser;
+    private volatile User currentUser;
+    private volatile int currentUserId = -1;
+    private final CountDownLatch restored = new CountDownLatch(1);
     private SharedPreferences sharedPreferences;
     private static final String PREFS_NAME = "UserPrefs";
     private static final String KEY_USER_ID = "userId";
+    private static final String TAG = "UserManager";
+    private static final int RESTORE_TIMEOUT_SECONDS = 5;
     private UserHandler userHandler;
+    private LikeHandler likeHandler;
 
     /**
      * Sets the singleton instance. Used primarily for testing.
@@ -36,6 +62,7 @@ public class UserManager {
     private UserManager(Context context) {
         sharedPreferences = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         userHandler = new UserHandler(context);
+        likeHandler = new LikeHandler(context);
         loadSavedUser();
     }
 
@@ -62,14 +89,57 @@ public class UserManager {
         this.userHandler = userHandler;
     }
 
+    /**
+     * Sets the like handler for dependency injection in tests
+     *
+     * @param likeHandler The handler loading the likes of the logged-in user
+     */
+    public void setLikeHandler(LikeHandler likeHandler) {
+        this.likeHandler = likeHandler;
+    }
+
     /**
      * Loads the previously saved user from SharedPreferences.
-     * If a user ID is found, loads the corresponding user from the database.
+     * If a user ID is found, loads the corresponding user from the database on a caller thread.
+     * A saved user that no longer exists is logged out.
      */
     void loadSavedUser() {
         int savedUserId = sharedPreferences.getInt(KEY_USER_ID, -1);
-        if (savedUserId != -1) {
-            currentUser = userHandler.getUserById(savedUserId);
+        if (savedUserId == -1) {
+            restored.countDown();
+            return;
+        }
+        currentUserId = savedUserId;
+        try {
+            userHandler.getCallerExecutor().execute(() -> {
+                try {
+                    restoreUser(savedUserId, userHandler.getUserById(savedUserId));
+                } finally {
+                    restored.countDown();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Cannot restore user " + savedUserId, e);
+            restored.countDown();
+        }
+    }
+
+    /**
+     * Sets the restored user, unless another user logged in or out in the meantime
+     *
+     * @param savedUserId The ID the user was restored for
+     * @param user The restored user, null if it no longer exists
+     */
+    private synchronized void restoreUser(int savedUserId, User user) {
+        if (currentUserId != savedUserId || currentUser != null) {
+            return;
+        }
+        if (user != null) {
+            currentUser = user;
+            loadLikedPosts(savedUserId);
+        } else {
+            Log.w(TAG, "Saved user " + savedUserId + " no longer exists");
+            logoutUser();
         }
     }
 
@@ -78,18 +148,36 @@ public class UserManager {
      *
      * @param user The user to log in
      */
-    public void loginUser(User user) {
+    public synchronized void loginUser(User user) {
         this.currentUser = user;
+        this.currentUserId = user.getUid();
         sharedPreferences.edit().putInt(KEY_USER_ID, user.getUid()).apply();
+        loadLikedPosts(user.getUid());
     }
 
     /**
      * Logs out the current user.
      * Clears the current user and removes the saved user ID from SharedPreferences.
      */
-    public void logoutUser() {
+    public synchronized void logoutUser() {
         this.currentUser = null;
+        this.currentUserId = -1;
         sharedPreferences.edit().remove(KEY_USER_ID).apply();
+        likeHandler.clearLikedPosts();
+    }
+
+    /**
+     * Loads the likes of a user on a caller thread, behind work a visible screen is waiting for
+     *
+     * @param userId The ID of the user
+     */
+    private void loadLikedPosts(int userId) {
+        try {
+            TaskContext.of(TaskPriority.PREFETCH).run(() -> likeHandler.getCallerExecutor()
+                    .execute(() -> likeHandler.loadLikedPosts(userId)));
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, "Cannot load liked posts of user " + userId, e);
+        }
     }
 
     /**
@@ -98,16 +186,27 @@ public class UserManager {
      * @return true if a user is logged in, false otherwise
      */
     public boolean isLoggedIn() {
-        return currentUser != null;
+        return currentUserId != -1;
     }
 
     /**
-     * Gets the currently logged in user.
+     * Gets the currently logged in user. Off the main thread, waits for the restore of the saved
+     * user if it has not finished yet.
      *
-     * @return The current User entity, or null if no user is logged in
+     * @return The current User entity, or null if no user is logged in or, on the main thread,
+     * the saved user is still being restored
      */
     public User getCurrentUser() {
-        return currentUser;
+        User user = currentUser;
+        if (user == null && currentUserId != -1 && Looper.myLooper() != Looper.getMainLooper()) {
+            try {
+                restored.await(RESTORE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            user = currentUser;
+        }
+        return user;
     }
 
     /**
@@ -116,6 +215,6 @@ public class UserManager {
      * @return The current user's ID, or -1 if no user is logged in
      */
     public int getCurrentUserId() {
-        return currentUser != null ? currentUser.getUid() : -1;
+        return currentUserId;
     }
 }
@@ -0,0 +1,184 @@
+package com.example.socialfood.model.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import android.content.ComponentCallbacks2;
+
+import com.example.socialfood.model.database.Subscription;
+
+import org.junit.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link CacheBudgetManager}
+ */
+public class CacheBudgetManagerTest {
+
+    /**
+     * Cache of a given size that shrinks to any target, or only to nothing
+     */
+    private static final class FakeCache implements BudgetedCache {
+        private final boolean partial;
+        private long bytes;
+
+        FakeCache(long bytes, boolean partial) {
+            this.bytes = bytes;
+            this.partial = partial;
+        }
+
+        @Override
+        public long getEstimatedBytes() {
+            return bytes;
+        }
+
+        @Override
+        public void trimTo(long targetBytes) {
+            if (targetBytes < bytes) {
+                bytes = partial ? targetBytes : 0;
+            }
+        }
+    }
+
+    /**
+     * Tests that only the lowest priority caches needed to fit the budget are trimmed
+     */
+    @Test
+    public void testTrimsLowestPriorityFirst() {
+        CacheBudgetManager manager = new CacheBudgetManager(100);
+        FakeCache index = new FakeCache(40, false);
+        FakeCache rows = new FakeCache(50, true);
+        FakeCache images = new FakeCache(60, true);
+        manager.register("index", CachePriority.HIGH, index);
+        manager.register("rows", CachePriority.NORMAL, rows);
+        manager.register("images", CachePriority.LOW, images);
+
+        assertEquals(100, manager.check());
+
+        assertEquals(10, images.bytes);
+        assertEquals(50, rows.bytes);
+        assertEquals(40, index.bytes);
+        CacheBudgetManager.Snapshot snapshot = manager.snapshot();
+        assertEquals(150, snapshot.getPeakBytes());
+        assertEquals(100, snapshot.getTotalBytes());
+        assertEquals(1, snapshot.getOverBudgetChecks());
+        assertEquals(1, snapshot.getTrims());
+        assertEquals(50, snapshot.getEvictedBytes());
+        assertEquals(1, snapshot.getCache("images").getTrims());
+    }
+
+    /**
+     * Tests that a cache within the budget is left alone
+     */
+    @Test
+    public void testKeepsCachesWithinBudget() {
+        CacheBudgetManager manager = new CacheBudgetManager(100);
+        FakeCache cache = new FakeCache(80, true);
+        manager.register("cache", CachePriority.LOW, cache);
+
+        assertEquals(80, manager.check());
+
+        assertEquals(80, cache.bytes);
+        assertEquals(0, manager.snapshot().getTrims());
+    }
+
+    /**
+     * Tests that severe memory pressure empties every cache, higher priority ones included
+     */
+    @Test
+    public void testCompleteTrimEmptiesAllCaches() {
+        CacheBudgetManager manager = new CacheBudgetManager(1000);
+        FakeCache index = new FakeCache(300, false);
+        FakeCache rows = new FakeCache(200, true);
+        manager.register("index", CachePriority.HIGH, index);
+        manager.register("rows", CachePriority.NORMAL, rows);
+
+        assertEquals(0, manager.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE));
+
+        assertEquals(0, index.bytes);
+        assertEquals(0, rows.bytes);
+        assertEquals(ComponentCallbacks2.TRIM_MEMORY_COMPLETE,
+                manager.snapshot().getLastTrimLevel());
+    }
+
+    /**
+     * Tests the share of the budget kept at each memory pressure level
+     */
+    @Test
+    public void testTargetForLevels() {
+        assertEquals(800, CacheBudgetManager.targetFor(0, 800));
+        assertEquals(600, CacheBudgetManager.targetFor(
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE, 800));
+        assertEquals(200, CacheBudgetManager.targetFor(
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW, 800));
+        assertEquals(0, CacheBudgetManager.targetFor(
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL, 800));
+        assertEquals(400, CacheBudgetManager.targetFor(
+                ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN, 800));
+        assertEquals(400, CacheBudgetManager.targetFor(
+                ComponentCallbacks2.TRIM_MEMORY_BACKGROUND, 800));
+        assertEquals(200, CacheBudgetManager.targetFor(
+                ComponentCallbacks2.TRIM_MEMORY_MODERATE, 800));
+        assertEquals(0, CacheBudgetManager.targetFor(
+                ComponentCallbacks2.TRIM_MEMORY_COMPLETE, 800));
+    }
+
+    /**
+     * Tests that a closed registration is no longer counted or trimmed
+     */
+    @Test
+    public void testClosedRegistrationIsIgnored() {
+        CacheBudgetManager manager = new CacheBudgetManager(10);
+        FakeCache cache = new FakeCache(50, true);
+        Subscription registration = manager.register("cache", CachePriority.LOW, cache);
+
+        registration.close();
+
+        assertEquals(0, manager.check());
+        assertEquals(50, cache.bytes);
+    }
+
+    /**
+     * Tests that memory pressure is handled on the timer of the periodic checks once they run
+     */
+    @Test
+    public void testDispatchTrimMemoryRunsOnTimer() throws Exception {
+        CacheBudgetManager manager = new CacheBudgetManager(100);
+        FakeCache cache = new FakeCache(80, true);
+        manager.register("cache", CachePriority.LOW, cache);
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        try {
+            Subscription checks = manager.startChecks(timer, TimeUnit.HOURS.toMillis(1));
+            Thread caller = Thread.currentThread();
+            Thread[] trimmedOn = new Thread[1];
+            manager.register("probe", CachePriority.LOW, new BudgetedCache() {
+                @Override
+                public long getEstimatedBytes() {
+                    trimmedOn[0] = Thread.currentThread();
+                    return 0;
+                }
+
+                @Override
+                public void trimTo(long targetBytes) {
+                }
+            });
+
+            assertEquals(0, (long) manager.dispatchTrimMemory(
+                    ComponentCallbacks2.TRIM_MEMORY_COMPLETE).get(5, TimeUnit.SECONDS));
+            assertEquals(0, cache.bytes);
+            assertNotSame(caller, trimmedOn[0]);
+
+            checks.close();
+            cache.bytes = 80;
+            assertEquals(0, (long) manager.dispatchTrimMemory(
+                    ComponentCallbacks2.TRIM_MEMORY_COMPLETE).get());
+            assertSame(caller, trimmedOn[0]);
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.socialfood.model.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests for {@link DatabaseExecutors}
+ */
+public class DatabaseExecutorsTest {
+
+    /**
+     * Tests that reads and writes run on their named threads
+     */
+    @Test
+    public void testThreadNames() throws Exception {
+        DatabaseExecutors executors = new DatabaseExecutors();
+
+        String reader = executors.reads().submit(() -> Thread.currentThread().getName()).get();
+        String writer = executors.writes().submit(() -> Thread.currentThread().getName()).get();
+
+        assertTrue(reader, reader.startsWith("db-read-"));
+        assertTrue(writer, writer.equals("db-write-1"));
+        assertTrue(executors.shutdown(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that a task is rejected once the queue is full and that the rejection is counted
+     */
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        DatabaseExecutors executors = new DatabaseExecutors(1, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executors.writes().submit(() -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        started.await();
+        Future<?> queued = executors.writes().submit(() -> { });
+
+        try {
+            executors.writes().submit(() -> { });
+            fail("Third write should be rejected");
+        } catch (RejectedExecutionException e) {
+            // Expected, the writer is busy and one write is queued
+        }
+
+        DatabaseExecutors.Stats stats = executors.writeStats();
+        assertEquals(3, stats.getSubmitted());
+        assertEquals(1, stats.getRejected());
+        assertEquals(1, stats.getQueued());
+        assertEquals(1, stats.getPeakQueued());
+        assertEquals(1, stats.getActive());
+
+        release.countDown();
+        queued.get(1, TimeUnit.SECONDS);
+        assertTrue(executors.shutdown(1, TimeUnit.SECONDS));
+        assertEquals(2, executors.writeStats().getCompleted());
+        assertEquals(0, executors.writeStats().getQueued());
+    }
+
+    /**
+     * Tests that tasks ending with an exception are counted as failed
+     */
+    @Test
+    public void testCountsFailures() throws Exception {
+        DatabaseExecutors executors = new DatabaseExecutors();
+        Future<?> failing = executors.reads().submit(() -> {
+            throw new IllegalStateException("Read failed");
+        });
+        executors.reads().submit(() -> { }).get();
+        try {
+            failing.get();
+            fail("Read should fail");
+        } catch (Exception e) {
+            // Expected
+        }
+
+        assertTrue(executors.shutdown(1, TimeUnit.SECONDS));
+        DatabaseExecutors.Stats stats = executors.readStats();
+        assertEquals(2, stats.getSubmitted());
+        assertEquals(2, stats.getCompleted());
+        assertEquals(1, stats.getFailed());
+        assertEquals(0, stats.getRejected());
+    }
+
+    /**
+     * Tests that shutdown runs the queued writes and rejects new ones
+     */
+    @Test
+    public void testShutdownDrainsQueuedWrites() throws Exception {
+        DatabaseExecutors executors = new DatabaseExecutors();
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int write = i;
+            executors.writes().submit(() -> {
+                Thread.sleep(10);
+                written.add(write);
+                return null;
+            });
+        }
+
+        assertTrue(executors.shutdown(5, TimeUnit.SECONDS));
+        assertTrue(executors.isShutdown());
+        assertEquals(5, written.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, (int) written.get(i));
+        }
+        try {
+            executors.writes().submit(() -> { });
+            fail("Write after shutdown should be rejected");
+        } catch (RejectedExecutionException e) {
+            // Expected
+        }
+        assertEquals(1, executors.writeStats().getRejected());
+    }
+
+    /**
+     * Tests that shutdown gives up and interrupts tasks that do not finish in time
+     */
+    @Test
+    public void testShutdownTimesOut() throws Exception {
+        DatabaseExecutors executors = new DatabaseExecutors();
+        CountDownLatch never = new CountDownLatch(1);
+        executors.writes().submit(() -> {
+            never.await();
+            return null;
+        });
+
+        assertFalse(executors.shutdown(50, TimeUnit.MILLISECONDS));
+        assertTrue(executors.writes().awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that calls run on their named threads and keep the executors busy until they finish
+     */
+    @Test
+    public void testCallsAndIdle() throws Exception {
+        DatabaseExecutors executors = new DatabaseExecutors();
+        assertTrue(executors.isIdle());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        Future<String> call = executors.calls().submit(() -> {
+            started.countDown();
+            release.await();
+            return Thread.currentThread().getName();
+        });
+        started.await();
+
+        assertFalse(executors.isIdle());
+        release.countDown();
+        String caller = call.get(1, TimeUnit.SECONDS);
+        assertTrue(caller, caller.startsWith("db-call-"));
+        assertTrue(executors.shutdown(1, TimeUnit.SECONDS));
+        assertTrue(executors.isIdle());
+        assertEquals(1, executors.callStats().getCompleted());
+    }
+
+    /**
+     * Tests that non-positive sizes are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyQueue() {
+        new DatabaseExecutors(1, 0, 1);
+    }
+
+    /**
+     * Tests that the write sequence is odd exactly while a write runs
+     */
+    @Test
+    public void testWriteSequence() throws Exception {
+        DatabaseExecutors executors = new DatabaseExecutors();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        assertEquals(0, executors.writeSequence());
+
+        executors.writes().submit(() -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        started.await();
+        assertEquals(1, executors.writeSequence());
+        executors.reads().submit(() -> { }).get();
+        assertEquals(1, executors.writeSequence());
+
+        release.countDown();
+        assertTrue(executors.shutdown(1, TimeUnit.SECONDS));
+        assertEquals(2, executors.writeSequence());
+    }
+
+    /**
+     * Tests that waiting tasks run by priority class and in submission order within a class
+     */
+    @Test
+    public void testRunsByPriority() throws Exception {
+        DatabaseExecutors executors = new DatabaseExecutors(1, 16, 16);
+        CountDownLatch release = blockReader(executors);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        TaskContext.of(TaskPriority.BACKGROUND).run(() -> {
+            executors.reads().submit(() -> order.add("background 1"));
+            executors.reads().submit(() -> order.add("background 2"));
+        });
+        TaskContext.of(TaskPriority.PREFETCH).run(() -> executors.reads()
+                .submit(() -> order.add("prefetch")));
+        executors.reads().submit(() -> order.add("visible"));
+        release.countDown();
+        assertTrue(executors.shutdown(1, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList("visible", "prefetch", "background 1", "background 2"), order);
+        DatabaseExecutors.Stats stats = executors.readStats();
+        assertEquals(2, stats.getQueueWait(TaskPriority.UI_VISIBLE).getCount());
+        assertEquals(1, stats.getQueueWait(TaskPriority.PREFETCH).getCount());
+        assertEquals(2, stats.getQueueWait(TaskPriority.BACKGROUND).getCount());
+        assertTrue(stats.getQueueWait(TaskPriority.BACKGROUND).getMaxNanos() > 0);
+    }
+
+    /**
+     * Tests that a task runs under the context of the thread that submitted it
+     */
+    @Test
+    public void testTaskInheritsContext() throws Exception {
+        DatabaseExecutors executors = new DatabaseExecutors();
+
+        TaskPriority priority = TaskContext.of(TaskPriority.BACKGROUND).call(() -> {
+            try {
+                return executors.calls()
+                        .submit(() -> executors.reads()
+                                .submit(() -> TaskContext.current().getPriority()).get())
+                        .get();
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+
+        assertEquals(TaskPriority.BACKGROUND, priority);
+        assertEquals(TaskPriority.UI_VISIBLE, TaskContext.current().getPriority());
+        assertTrue(executors.shutdown(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that a waiting task of a cancelled scope is dropped, while tasks submitted with
+     * execute() still run
+     */
+    @Test
+    public void testDropsTasksOfCancelledScope() throws Exception {
+        DatabaseExecutors executors = new DatabaseExecutors(1, 16, 16);
+        CountDownLatch release = blockReader(executors);
+        TaskScope scope = new TaskScope();
+        AtomicBoolean submittedRan = new AtomicBoolean();
+        AtomicBoolean executedRan = new AtomicBoolean();
+
+        Future<?> submitted = TaskContext.DEFAULT.withScope(new TaskScope(scope))
+                .call(() -> executors.reads().submit(() -> submittedRan.set(true)));
+        TaskContext.DEFAULT.withScope(scope)
+                .run(() -> executors.reads().execute(() -> executedRan.set(true)));
+        scope.cancel();
+        release.countDown();
+        assertTrue(executors.shutdown(1, TimeUnit.SECONDS));
+
+        assertTrue(submitted.isCancelled());
+        assertFalse(submittedRan.get());
+        assertTrue(executedRan.get());
+        assertEquals(1, executors.readStats().getDropped());
+        assertEquals(0, executors.readStats().getFailed());
+    }
+
+    /**
+     * Tests that a task still waiting at its deadline is cancelled at the deadline, without
+     * waiting for a thread
+     */
+    @Test
+    public void testCancelsTaskAtDeadline() throws Exception {
+        DatabaseExecutors executors = new DatabaseExecutors(1, 16, 16);
+        CountDownLatch release = blockReader(executors);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        Future<?> late = TaskContext.DEFAULT.withTimeout(20, TimeUnit.MILLISECONDS)
+                .call(() -> executors.reads().submit(() -> ran.set(true)));
+        try {
+            late.get(1, TimeUnit.SECONDS);
+            fail("Task should be cancelled at its deadline");
+        } catch (CancellationException e) {
+            // Expected, the reader is still blocked
+        }
+        release.countDown();
+        assertTrue(executors.shutdown(1, TimeUnit.SECONDS));
+
+        assertFalse(ran.get());
+        assertEquals(1, executors.readStats().getDropped());
+    }
+
+    /**
+     * Blocks the only reader thread until the returned latch is released
+     */
+    private static CountDownLatch blockReader(DatabaseExecutors executors)
+            throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        executors.reads().submit(() -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        started.await();
+        return release;
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.socialfood.model.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link GroupCommitWriter}
+ */
+public class GroupCommitWriterTest {
+
+    /** Long enough that the window never closes during a test */
+    private static final long NEVER_MS = 60_000;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * In-memory table with unique rows. Inserts inside a transaction only become visible when it
+     * commits and are discarded when it rolls back.
+     */
+    private static final class FakeTable implements GroupCommitWriter.Transactions {
+        private final List<String> rows = new ArrayList<>();
+        private List<String> transaction;
+        private int commits;
+        private int rollbacks;
+
+        @Override
+        public synchronized void runInTransaction(Runnable body) {
+            transaction = new ArrayList<>(rows);
+            try {
+                body.run();
+                rows.clear();
+                rows.addAll(transaction);
+                commits++;
+            } catch (RuntimeException e) {
+                rollbacks++;
+                throw e;
+            } finally {
+                transaction = null;
+            }
+        }
+
+        synchronized String insert(String row) {
+            List<String> target = transaction != null ? transaction : rows;
+            if (target.contains(row)) {
+                throw new IllegalStateException("Duplicate " + row);
+            }
+            target.add(row);
+            return row;
+        }
+
+        synchronized List<String> rows() {
+            return new ArrayList<>(rows);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        writer.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    /**
+     * Tests that writes submitted within the window commit in one transaction and that every
+     * caller gets its own result
+     */
+    @Test
+    public void testGroupsWritesOfWindow() throws Exception {
+        FakeTable table = new FakeTable();
+        GroupCommitWriter groupCommit = new GroupCommitWriter(writer, timer, table, 50, 32);
+
+        Future<String> first = groupCommit.submit(() -> table.insert("a"));
+        Future<String> second = groupCommit.submit(() -> table.insert("b"));
+        Future<String> third = groupCommit.submit(() -> table.insert("c"));
+
+        assertEquals("a", first.get(1, TimeUnit.SECONDS));
+        assertEquals("b", second.get(1, TimeUnit.SECONDS));
+        assertEquals("c", third.get(1, TimeUnit.SECONDS));
+        assertEquals(1, table.commits);
+        assertEquals(Arrays.asList("a", "b", "c"), table.rows());
+        assertEquals(1, groupCommit.getGroupCount());
+        assertEquals(3, groupCommit.getWriteCount());
+        assertEquals(3, groupCommit.getLargestGroup());
+    }
+
+    /**
+     * Tests that a full group commits at once, without waiting for the window
+     */
+    @Test
+    public void testCommitsFullGroupAtOnce() throws Exception {
+        FakeTable table = new FakeTable();
+        GroupCommitWriter groupCommit = new GroupCommitWriter(writer, timer, table, NEVER_MS, 2);
+
+        Future<String> first = groupCommit.submit(() -> table.insert("a"));
+        Future<String> second = groupCommit.submit(() -> table.insert("b"));
+
+        assertEquals("a", first.get(1, TimeUnit.SECONDS));
+        assertEquals("b", second.get(1, TimeUnit.SECONDS));
+        assertEquals(1, table.commits);
+    }
+
+    /**
+     * Tests that a failing write rolls its group back and that the other writes then succeed on
+     * their own
+     */
+    @Test
+    public void testFailedWriteDoesNotFailGroup() throws Exception {
+        FakeTable table = new FakeTable();
+        table.rows.add("b");
+        GroupCommitWriter groupCommit = new GroupCommitWriter(writer, timer, table, NEVER_MS, 3);
+
+        Future<String> first = groupCommit.submit(() -> table.insert("a"));
+        Future<String> duplicate = groupCommit.submit(() -> table.insert("b"));
+        Future<String> third = groupCommit.submit(() -> table.insert("c"));
+
+        assertEquals("a", first.get(1, TimeUnit.SECONDS));
+        assertEquals("c", third.get(1, TimeUnit.SECONDS));
+        try {
+            duplicate.get(1, TimeUnit.SECONDS);
+            fail("Duplicate insert should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(1, table.rollbacks);
+        assertEquals(1, groupCommit.getRolledBackCount());
+        assertEquals(Arrays.asList("b", "a", "c"), table.rows());
+    }
+
+    /**
+     * Tests that a future does not complete before its group has committed
+     */
+    @Test
+    public void testCompletesAfterCommit() throws Exception {
+        FakeTable table = new FakeTable();
+        GroupCommitWriter groupCommit = new GroupCommitWriter(writer, timer, table, NEVER_MS, 32);
+
+        Future<String> first = groupCommit.submit(() -> table.insert("a"));
+        Future<String> second = groupCommit.submit(() -> table.insert("b"));
+        Thread.sleep(20);
+        assertFalse(first.isDone());
+
+        groupCommit.flush();
+        assertEquals("a", first.get(1, TimeUnit.SECONDS));
+        assertEquals("b", second.get(1, TimeUnit.SECONDS));
+        assertEquals(1, table.commits);
+    }
+
+    /**
+     * Tests that a write queued through {@link GroupCommitWriter#write} joins the group of the
+     * writes submitted before it and that actions chained to it see the committed group
+     */
+    @Test
+    public void testWriteChainsAfterCommit() throws Exception {
+        FakeTable table = new FakeTable();
+        GroupCommitWriter groupCommit = new GroupCommitWriter(writer, timer, table, NEVER_MS, 32);
+
+        Future<String> first = groupCommit.submit(() -> table.insert("a"));
+        CompletableFuture<List<String>> committed = groupCommit.write(() -> table.insert("b"))
+                .thenApply(row -> table.rows());
+        groupCommit.flush();
+
+        assertEquals(Arrays.asList("a", "b"), committed.get(1, TimeUnit.SECONDS));
+        assertEquals("a", first.get(1, TimeUnit.SECONDS));
+        assertEquals(1, table.commits);
+    }
+
+    /**
+     * Tests that a single write runs without an extra transaction
+     */
+    @Test
+    public void testSingleWriteRunsAlone() throws Exception {
+        FakeTable table = new FakeTable();
+        GroupCommitWriter groupCommit = new GroupCommitWriter(writer, timer, table, 0, 32);
+
+        assertEquals("a", groupCommit.submit(() -> table.insert("a")).get(1, TimeUnit.SECONDS));
+
+        assertEquals(0, table.commits);
+        assertEquals(Arrays.asList("a"), table.rows());
+    }
+
+    /**
+     * Tests that a write of a cancelled scope is dropped
+     */
+    @Test
+    public void testDropsWriteOfCancelledScope() throws Exception {
+        FakeTable table = new FakeTable();
+        GroupCommitWriter groupCommit = new GroupCommitWriter(writer, timer, table, NEVER_MS, 32);
+        TaskScope scope = new TaskScope();
+
+        Future<String> dropped = TaskContext.DEFAULT.withScope(scope)
+                .call(() -> groupCommit.submit(() -> table.insert("a")));
+        Future<String> kept = groupCommit.submit(() -> table.insert("b"));
+        scope.cancel();
+        groupCommit.flush();
+
+        assertEquals("b", kept.get(1, TimeUnit.SECONDS));
+        assertTrue(dropped.isCancelled());
+        assertEquals(Arrays.asList("b"), table.rows());
+    }
+
+    /**
+     * Tests that waiting writes commit by priority class and in submission order within a class
+     */
+    @Test
+    public void testCommitsVisibleWritesFirst() throws Exception {
+        FakeTable table = new FakeTable();
+        GroupCommitWriter groupCommit = new GroupCommitWriter(writer, timer, table, NEVER_MS, 32);
+        TaskContext background = TaskContext.of(TaskPriority.BACKGROUND);
+
+        background.call(() -> groupCommit.submit(() -> table.insert("a")));
+        background.call(() -> groupCommit.submit(() -> table.insert("b")));
+        Future<String> visible = groupCommit.submit(() -> table.insert("c"));
+        groupCommit.flush();
+
+        assertEquals("c", visible.get(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("c", "a", "b"), table.rows());
+    }
+
+    /**
+     * Tests that a visible write is not held back by the commit of a background write that is
+     * already waiting for the writer thread behind other visible work
+     */
+    @Test
+    public void testVisibleWriteOvertakesBackgroundCommit() throws Exception {
+        DatabaseExecutors executors = new DatabaseExecutors();
+        FakeTable table = new FakeTable();
+        GroupCommitWriter groupCommit = new GroupCommitWriter(executors.writes(),
+                executors.timer(), table, 0, 32);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch release = new CountDownLatch(1);
+
+        executors.writes().execute(() -> {
+            try {
+                release.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        TaskContext.of(TaskPriority.BACKGROUND)
+                .call(() -> groupCommit.submit(() -> order.add(table.insert("a"))));
+        Future<?> visible = groupCommit.submit(() -> order.add(table.insert("b")));
+        executors.writes().execute(() -> order.add("other"));
+        release.countDown();
+
+        visible.get(1, TimeUnit.SECONDS);
+        assertTrue(executors.shutdown(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("b", "a", "other"), order);
+    }
+
+    /**
+     * Tests that a write whose deadline passes while it waits is dropped without waiting for its
+     * group
+     */
+    @Test
+    public void testDropsWriteAtDeadline() throws Exception {
+        FakeTable table = new FakeTable();
+        GroupCommitWriter groupCommit = new GroupCommitWriter(writer, timer, table, NEVER_MS, 32);
+
+        Future<String> expired = TaskContext.DEFAULT.withTimeout(20, TimeUnit.MILLISECONDS)
+                .call(() -> groupCommit.submit(() -> table.insert("a")));
+        Future<String> kept = groupCommit.submit(() -> table.insert("b"));
+        try {
+            expired.get(1, TimeUnit.SECONDS);
+            fail("Write should be dropped at its deadline");
+        } catch (CancellationException e) {
+            assertEquals(1, groupCommit.getDroppedCount());
+        }
+        groupCommit.flush();
+
+        assertEquals("b", kept.get(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("b"), table.rows());
+    }
+
+    /**
+     * Tests that writes are rejected once the writer is shut down
+     */
+    @Test(expected = RejectedExecutionException.class)
+    public void testRejectsAfterShutdown() {
+        FakeTable table = new FakeTable();
+        GroupCommitWriter groupCommit = new GroupCommitWriter(writer, timer, table);
+        groupCommit.shutdown();
+
+        groupCommit.submit(() -> table.insert("a"));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.socialfood.model.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Test class for the Ingredient entity. Tests name normalization and parsing of ingredient lists.
+ */
+public class IngredientTest {
+
+    /**
+     * Tests that names are trimmed and lower case.
+     */
+    @Test
+    public void testNormalize() {
+        assertEquals("mehl", Ingredient.normalize("  Mehl "));
+        assertEquals("", Ingredient.normalize(null));
+        assertEquals("mehl", new Ingredient(" MEHL").getName());
+    }
+
+    /**
+     * Tests that a blank name is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetBlankName() {
+        new Ingredient().setName("  ");
+    }
+
+    /**
+     * Tests parsing the comma-separated list stored on a post.
+     */
+    @Test
+    public void testParse() {
+        assertEquals(Arrays.asList("mehl", "zucker", "eier"),
+                Ingredient.parse("Mehl, Zucker, Eier, mehl"));
+        assertEquals(Arrays.asList("salz"), Ingredient.parse(" , Salz,,"));
+        assertTrue(Ingredient.parse(null).isEmpty());
+        assertTrue(Ingredient.parse("").isEmpty());
+    }
+}
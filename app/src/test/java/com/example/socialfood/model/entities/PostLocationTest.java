@@ -0,0 +1,46 @@
+package com.example.socialfood.model.entities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test class for the PostLocation entity. Tests the assignment of latitudes to latitude bands.
+ */
+public class PostLocationTest {
+
+    /**
+     * Tests the bands at the poles, the equator and in between.
+     */
+    @Test
+    public void testLatitudeCell() {
+        assertEquals(0, PostLocation.latitudeCell(-90.0));
+        assertEquals(900, PostLocation.latitudeCell(0.0));
+        assertEquals(1800, PostLocation.latitudeCell(90.0));
+        assertEquals(1381, PostLocation.latitudeCell(48.137));
+        assertEquals(561, PostLocation.latitudeCell(-33.87));
+    }
+
+    /**
+     * Tests that out-of-range latitudes are clamped.
+     */
+    @Test
+    public void testLatitudeCellClamped() {
+        assertEquals(0, PostLocation.latitudeCell(-120.0));
+        assertEquals(1800, PostLocation.latitudeCell(95.0));
+    }
+
+    /**
+     * Tests that bands never decrease with the latitude.
+     */
+    @Test
+    public void testLatitudeCellMonotonic() {
+        int previous = PostLocation.latitudeCell(-90.0);
+        for (double latitude = -90.0; latitude <= 90.0; latitude += 0.013) {
+            int cell = PostLocation.latitudeCell(latitude);
+            assertTrue(cell >= previous);
+            previous = cell;
+        }
+    }
+}
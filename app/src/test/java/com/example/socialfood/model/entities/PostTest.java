@@ -125,6 +125,23 @@ public class PostTest {
         post.setCommentCount(-1);
     }
 
+    /**
+     * Tests setting and getting the like count.
+     */
+    @Test
+    public void testLikeCount() {
+        post.setLikeCount(7);
+        assertEquals(7, post.getLikeCount());
+    }
+
+    /**
+     * Tests validation of negative like count.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLikeCount() {
+        post.setLikeCount(-1);
+    }
+
     /**
      * Tests setting and getting the recipe.
      */
@@ -231,7 +248,8 @@ public class PostTest {
         Post post = createTestPost(1, 1);
         String expected = "Post{uid=1, postId=1, imageUrl='default.png', description='Test post', "
                 +
-                "timestamp=" + post.getTimestamp() + ", commentCount=0, recipe='Test recipe', " +
+                "timestamp=" + post.getTimestamp() + ", commentCount=0, likeCount=0, " +
+                "recipe='Test recipe', " +
                 "ingredients='Test ingredients', latitude=0.0, longitude=0.0}";
         assertEquals(expected, post.toString());
     }
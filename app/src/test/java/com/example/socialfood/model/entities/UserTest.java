@@ -115,6 +115,23 @@ public class UserTest {
         user.setFollowersCount(-1);
     }
 
+    /**
+     * Tests setting and getting the following count.
+     */
+    @Test
+    public void testFollowingCount() {
+        user.setFollowingCount(3);
+        assertEquals(3, user.getFollowingCount());
+    }
+
+    /**
+     * Tests validation of negative following count.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFollowingCount() {
+        user.setFollowingCount(-1);
+    }
+
     /**
      * Tests setting and getting the posts count.
      */
@@ -194,7 +211,8 @@ public class UserTest {
     public void testToString() {
         User user = createTestUser(1);
         String expected = "User{uid=1, username='testuser', profilImage='default.png', " +
-                "bio='Test bio', followersCount=0, postsCount=0, password='password'}";
+                "bio='Test bio', followersCount=0, followingCount=0, postsCount=0, " +
+                "password='password'}";
         assertEquals(expected, user.toString());
     }
 
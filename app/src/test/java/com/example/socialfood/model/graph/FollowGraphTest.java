@@ -0,0 +1,113 @@
+package com.example.socialfood.model.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Tests for {@link FollowGraph}
+ */
+public class FollowGraphTest {
+
+    /**
+     * Tests that a loaded graph lists both directions sorted
+     */
+    @Test
+    public void testLoadListsBothDirections() {
+        FollowGraph graph = new FollowGraph();
+        graph.load(new int[] {1, 3, 1, 2}, new int[] {3, 1, 2, 3}, 4);
+
+        assertTrue(graph.isLoaded());
+        assertEquals(4, graph.size());
+        assertArrayEquals(new int[] {2, 3}, graph.getFollowing(1));
+        assertArrayEquals(new int[] {1, 2}, graph.getFollowers(3));
+        assertTrue(graph.contains(3, 1));
+        assertFalse(graph.contains(2, 1));
+        assertArrayEquals(new int[0], graph.getFollowing(99));
+    }
+
+    /**
+     * Tests that adds and removes match a set of relationships
+     */
+    @Test
+    public void testUpdatesMatchReference() {
+        FollowGraph graph = new FollowGraph();
+        graph.load(new int[0], new int[0], 0);
+        boolean[][] reference = new boolean[50][50];
+        Random random = new Random(7);
+
+        for (int i = 0; i < 5000; i++) {
+            int follower = 1 + random.nextInt(49);
+            int followed = 1 + random.nextInt(49);
+            if (random.nextBoolean()) {
+                assertEquals(!reference[follower][followed], graph.add(follower, followed));
+                reference[follower][followed] = true;
+            } else {
+                assertEquals(reference[follower][followed], graph.remove(follower, followed));
+                reference[follower][followed] = false;
+            }
+        }
+
+        int edges = 0;
+        for (int follower = 0; follower < 50; follower++) {
+            for (int followed = 0; followed < 50; followed++) {
+                assertEquals(reference[follower][followed], graph.contains(follower, followed));
+                edges += reference[follower][followed] ? 1 : 0;
+            }
+        }
+        assertEquals(edges, graph.size());
+    }
+
+    /**
+     * Tests that removing a user drops the relationships in both directions
+     */
+    @Test
+    public void testRemoveUser() {
+        FollowGraph graph = new FollowGraph();
+        graph.load(new int[] {1, 2, 2, 3}, new int[] {2, 1, 3, 2}, 4);
+
+        graph.removeUser(2);
+
+        assertEquals(0, graph.size());
+        assertEquals(0, graph.getFollowingCount(1));
+        assertEquals(0, graph.getFollowerCount(3));
+    }
+
+    /**
+     * Tests that clear empties the graph and marks it as not loaded
+     */
+    @Test
+    public void testClear() {
+        FollowGraph graph = new FollowGraph();
+        graph.load(new int[] {1}, new int[] {2}, 1);
+
+        graph.clear();
+
+        assertFalse(graph.isLoaded());
+        assertFalse(graph.contains(1, 2));
+        assertEquals(0, graph.getEstimatedBytes());
+    }
+
+    /**
+     * Tests that a load racing with a change is swapped in but not marked as loaded
+     */
+    @Test
+    public void testLoadAfterChangeIsNotMarkedLoaded() {
+        FollowGraph graph = new FollowGraph();
+        long version = graph.getVersion();
+        graph.add(3, 4);
+
+        assertFalse(graph.load(version, new int[] {1}, new int[] {2}, 1));
+        assertFalse(graph.isLoaded());
+        assertTrue(graph.contains(1, 2));
+
+        assertTrue(graph.load(graph.getVersion(), new int[] {1, 3}, new int[] {2, 4}, 2));
+        assertTrue(graph.isLoaded());
+        assertTrue(graph.contains(3, 4));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.socialfood.model.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.socialfood.model.database.TaskContext;
+import com.example.socialfood.model.database.TaskScope;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for {@link Async}
+ */
+public class AsyncTest {
+
+    /**
+     * Tests that the call runs on the caller executor and the future completes on the callback
+     * executor
+     */
+    @Test
+    public void testRunsOnCallerAndCompletesOnCallback() throws Exception {
+        ExecutorService caller = Executors.newSingleThreadExecutor(r -> new Thread(r, "caller"));
+        ExecutorService callback =
+                Executors.newSingleThreadExecutor(r -> new Thread(r, "callback"));
+        AtomicReference<String> callThread = new AtomicReference<>();
+        AtomicReference<String> callbackThread = new AtomicReference<>();
+
+        CompletableFuture<Integer> result = Async.call(caller, callback, () -> {
+            callThread.set(Thread.currentThread().getName());
+            return 42;
+        });
+        result.thenAccept(value -> callbackThread.set(Thread.currentThread().getName()))
+                .get(1, TimeUnit.SECONDS);
+
+        assertEquals(42, (int) result.get());
+        assertEquals("caller", callThread.get());
+        assertEquals("callback", callbackThread.get());
+        caller.shutdown();
+        callback.shutdown();
+    }
+
+    /**
+     * Tests that an exception thrown by the call completes the future exceptionally
+     */
+    @Test
+    public void testPropagatesException() throws Exception {
+        Executor direct = Runnable::run;
+        CompletableFuture<Object> result = Async.call(direct, direct, () -> {
+            throw new IllegalStateException("Call failed");
+        });
+
+        assertTrue(result.isCompletedExceptionally());
+        try {
+            result.get();
+            fail("Future should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    /**
+     * Tests that an error thrown by the call completes the future exceptionally instead of
+     * leaving it incomplete
+     */
+    @Test
+    public void testPropagatesError() throws Exception {
+        Executor direct = Runnable::run;
+        CompletableFuture<Object> result = Async.call(direct, direct, () -> {
+            throw new StackOverflowError();
+        });
+
+        assertTrue(result.isCompletedExceptionally());
+        try {
+            result.get();
+            fail("Future should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof StackOverflowError);
+        }
+    }
+
+    /**
+     * Tests that a call rejected by the caller executor completes the future exceptionally
+     * instead of throwing to the caller
+     */
+    @Test
+    public void testRejectedCall() throws Exception {
+        Executor rejecting = command -> {
+            throw new RejectedExecutionException("Full");
+        };
+        CompletableFuture<Void> result = Async.run(rejecting, Runnable::run, () -> { });
+
+        assertTrue(result.isCompletedExceptionally());
+        try {
+            result.get();
+            fail("Future should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    /**
+     * Tests that a call without a result completes with null once it has run
+     */
+    @Test
+    public void testRun() throws Exception {
+        boolean[] ran = {false};
+        CompletableFuture<Void> result = Async.run(Runnable::run, Runnable::run,
+                () -> ran[0] = true);
+
+        assertTrue(ran[0]);
+        assertFalse(result.isCompletedExceptionally());
+        assertNull(result.get());
+    }
+
+    /**
+     * Tests that a call whose scope was cancelled before it started does not run and that its
+     * future is cancelled
+     */
+    @Test
+    public void testSkipsCallOfCancelledScope() throws Exception {
+        List<Runnable> queued = new ArrayList<>();
+        TaskScope scope = new TaskScope();
+        AtomicBoolean ran = new AtomicBoolean();
+
+        CompletableFuture<Boolean> result = TaskContext.DEFAULT.withScope(scope)
+                .call(() -> Async.call(queued::add, Runnable::run, () -> ran.getAndSet(true)));
+        scope.cancel();
+        queued.forEach(Runnable::run);
+
+        assertTrue(result.isCancelled());
+        assertFalse(ran.get());
+    }
+}
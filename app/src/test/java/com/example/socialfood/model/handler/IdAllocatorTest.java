@@ -0,0 +1,112 @@
+package com.example.socialfood.model.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for {@link IdAllocator}
+ */
+public class IdAllocatorTest {
+
+    /**
+     * Tests that IDs are consecutive within a block and continue with the next reserved block
+     */
+    @Test
+    public void testServesBlocksInOrder() throws Exception {
+        long[] starts = { 1, 50 };
+        AtomicInteger reserved = new AtomicInteger();
+        IdAllocator allocator = new IdAllocator(count -> starts[reserved.getAndIncrement()], 3);
+
+        assertEquals(1, allocator.nextId());
+        assertEquals(2, allocator.nextId());
+        assertEquals(3, allocator.nextId());
+        assertEquals(1, reserved.get());
+        assertEquals(50, allocator.nextId());
+        assertEquals(2, reserved.get());
+    }
+
+    /**
+     * Tests that a failed reservation is reported and retried on the next call
+     */
+    @Test
+    public void testRetriesAfterFailedReservation() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        IdAllocator allocator = new IdAllocator(count -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new IllegalStateException("Database unavailable");
+            }
+            return 10;
+        }, 4);
+
+        try {
+            allocator.nextId();
+            fail("Expected the failed reservation to be reported");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        assertEquals(10, allocator.nextId());
+    }
+
+    /**
+     * Tests that concurrent callers never get the same ID and that no block is reserved twice
+     */
+    @Test
+    public void testConcurrentIdsAreUnique() throws Exception {
+        AtomicLong sequence = new AtomicLong(1);
+        AtomicInteger reservations = new AtomicInteger();
+        IdAllocator allocator = new IdAllocator(count -> {
+            reservations.incrementAndGet();
+            return sequence.getAndAdd(count);
+        }, 16);
+        int threads = 8;
+        int perThread = 10_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Callable<long[]> task = () -> {
+                long[] ids = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = allocator.nextId();
+                }
+                return ids;
+            };
+            futures.add(executor.submit(task));
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Future<long[]> future : futures) {
+            long previous = 0;
+            for (long id : future.get()) {
+                assertTrue("IDs of one thread must increase", id > previous);
+                assertTrue("Duplicate ID " + id, ids.add(id));
+                previous = id;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread, ids.size());
+        assertEquals(threads * perThread / 16, reservations.get());
+    }
+
+    /**
+     * Tests that a non-positive block size is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidBlockSize() {
+        new IdAllocator(count -> 1, 0);
+    }
+}
@@ -0,0 +1,385 @@
+package com.example.socialfood.model.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.socialfood.model.database.GroupCommitWriter;
+import com.example.socialfood.model.database.Subscription;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link LikeWriteBehind}
+ */
+public class LikeWriteBehindTest {
+
+    /** Long enough that no delayed flush runs during a test */
+    private static final long NEVER_MS = 60_000;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    /** Commits every flush at once on the calling thread */
+    private static final LikeWriteBehind.Writer DIRECT = write -> {
+        CompletableFuture<Void> committed = new CompletableFuture<>();
+        try {
+            committed.complete(write.call());
+        } catch (Exception e) {
+            committed.completeExceptionally(e);
+        }
+        return committed;
+    };
+
+    /**
+     * In-memory like table counting its reads and transactions
+     */
+    private static final class FakeStore implements LikeWriteBehind.Store {
+        private final Set<String> likes = new HashSet<>();
+        private final List<List<LikeWriteBehind.Change>> transactions = new ArrayList<>();
+        private int reads;
+        private final CountDownLatch applied = new CountDownLatch(1);
+        private Runnable beforeCommit = () -> { };
+
+        @Override
+        public synchronized boolean isLiked(int userId, long postId) {
+            reads++;
+            return likes.contains(userId + ":" + postId);
+        }
+
+        @Override
+        public synchronized void apply(List<LikeWriteBehind.Change> changes) {
+            beforeCommit.run();
+            transactions.add(changes);
+            for (LikeWriteBehind.Change change : changes) {
+                String key = change.getUserId() + ":" + change.getPostId();
+                if (change.isLiked()) {
+                    likes.add(key);
+                } else {
+                    likes.remove(key);
+                }
+            }
+            applied.countDown();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Tests that repeated toggles read the database once and are written as one change
+     */
+    @Test
+    public void testTogglesCoalesce() throws Exception {
+        FakeStore store = new FakeStore();
+        LikeWriteBehind likes = new LikeWriteBehind(store, DIRECT, timer, NEVER_MS, 64);
+
+        assertTrue(likes.toggle(1, 10));
+        assertFalse(likes.toggle(1, 10));
+        assertTrue(likes.toggle(1, 10));
+
+        assertEquals(1, store.reads);
+        assertEquals(Boolean.TRUE, likes.getPendingState(1, 10));
+        assertEquals(1, likes.getPendingCountDelta(10));
+        assertEquals(0, store.transactions.size());
+
+        likes.flush();
+
+        assertEquals(1, store.transactions.size());
+        assertEquals(1, store.transactions.get(0).size());
+        assertTrue(store.transactions.get(0).get(0).isLiked());
+        assertTrue(store.likes.contains("1:10"));
+        assertNull(likes.getPendingState(1, 10));
+        assertEquals(0, likes.getPendingCountDelta(10));
+        assertEquals(3, likes.getToggleCount());
+        assertEquals(1, likes.getWrittenCount());
+        assertEquals(1, likes.getFlushCount());
+    }
+
+    /**
+     * Tests that an even number of toggles writes nothing
+     */
+    @Test
+    public void testEvenTogglesWriteNothing() throws Exception {
+        FakeStore store = new FakeStore();
+        store.likes.add("1:10");
+        LikeWriteBehind likes = new LikeWriteBehind(store, DIRECT, timer, NEVER_MS, 64);
+
+        assertFalse(likes.toggle(1, 10));
+        assertEquals(-1, likes.getPendingCountDelta(10));
+        assertTrue(likes.toggle(1, 10));
+        likes.flush();
+
+        assertEquals(0, likes.getPendingCount());
+        assertEquals(0, likes.getPendingCountDelta(10));
+        assertEquals(0, store.transactions.size());
+        assertTrue(store.likes.contains("1:10"));
+    }
+
+    /**
+     * Tests that the pending count deltas of several users add up
+     */
+    @Test
+    public void testCountDeltaOfSeveralUsers() throws Exception {
+        FakeStore store = new FakeStore();
+        store.likes.add("3:10");
+        LikeWriteBehind likes = new LikeWriteBehind(store, DIRECT, timer, NEVER_MS, 64);
+
+        likes.toggle(1, 10);
+        likes.toggle(2, 10);
+        likes.toggle(3, 10);
+        likes.toggle(1, 20);
+
+        assertEquals(1, likes.getPendingCountDelta(10));
+        assertEquals(1, likes.getPendingCountDelta(20));
+        assertEquals(0, likes.getPendingCountDelta(30));
+    }
+
+    /**
+     * Tests that reaching the limit flushes at once, in a single transaction
+     */
+    @Test
+    public void testFlushesWhenLimitReached() throws Exception {
+        FakeStore store = new FakeStore();
+        LikeWriteBehind likes = new LikeWriteBehind(store, DIRECT, timer, NEVER_MS, 3);
+
+        likes.toggle(1, 10);
+        likes.toggle(1, 20);
+        assertEquals(0, store.transactions.size());
+        likes.toggle(1, 30);
+
+        assertEquals(1, store.transactions.size());
+        assertEquals(3, store.transactions.get(0).size());
+        assertEquals(0, likes.getPendingCount());
+    }
+
+    /**
+     * Tests that pending toggles are flushed after the delay, in one transaction
+     */
+    @Test
+    public void testFlushesAfterDelay() throws Exception {
+        FakeStore store = new FakeStore();
+        LikeWriteBehind likes = new LikeWriteBehind(store, DIRECT, timer, 20, 64);
+
+        for (int i = 0; i < 10; i++) {
+            likes.toggle(1, 10);
+        }
+        likes.toggle(1, 20);
+
+        assertTrue(store.applied.await(1, TimeUnit.SECONDS));
+        assertEquals(1, store.transactions.size());
+        assertEquals(1, store.transactions.get(0).size());
+        assertEquals(20, store.transactions.get(0).get(0).getPostId());
+    }
+
+    /**
+     * Tests that reads include the pending toggles
+     */
+    @Test
+    public void testReadAppliesPendingToggles() throws Exception {
+        FakeStore store = new FakeStore();
+        store.likes.add("1:10");
+        LikeWriteBehind likes = new LikeWriteBehind(store, DIRECT, timer, NEVER_MS, 64);
+        likes.toggle(1, 10);
+
+        boolean liked = likes.read(() -> store.isLiked(1, 10), stored -> {
+            Boolean pending = likes.getPendingState(1, 10);
+            return pending != null ? pending : stored;
+        });
+        int count = likes.read(() -> 5, stored -> stored + likes.getPendingCountDelta(10));
+
+        assertFalse(liked);
+        assertEquals(4, count);
+    }
+
+    /**
+     * Tests that a read overlapping a flush is repeated, so that the flushed toggle is not counted
+     * twice
+     */
+    @Test
+    public void testReadRepeatedAfterFlush() throws Exception {
+        FakeStore store = new FakeStore();
+        LikeWriteBehind likes = new LikeWriteBehind(store, DIRECT, timer, NEVER_MS, 64);
+        likes.toggle(1, 10);
+        AtomicInteger queries = new AtomicInteger();
+
+        int count = likes.read(() -> {
+            if (queries.incrementAndGet() == 1) {
+                likes.flush();
+            }
+            return store.likes.size();
+        }, stored -> stored + likes.getPendingCountDelta(10));
+
+        assertEquals(2, queries.get());
+        assertEquals(1, count);
+    }
+
+    /**
+     * Tests that a toggle made while a flush commits is not blocked by it and stays pending
+     * against the newly stored state
+     */
+    @Test
+    public void testToggleDuringFlushStaysPending() throws Exception {
+        FakeStore store = new FakeStore();
+        LikeWriteBehind likes = new LikeWriteBehind(store, DIRECT, timer, NEVER_MS, 64);
+        likes.toggle(1, 10);
+        likes.toggle(1, 20);
+        store.beforeCommit = () -> {
+            store.beforeCommit = () -> { };
+            try {
+                assertFalse(likes.toggle(1, 10));
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        };
+
+        likes.flush();
+
+        assertTrue(store.likes.contains("1:10"));
+        assertEquals(1, likes.getPendingCount());
+        assertEquals(Boolean.FALSE, likes.getPendingState(1, 10));
+        assertEquals(-1, likes.getPendingCountDelta(10));
+        assertNull(likes.getPendingState(1, 20));
+        assertEquals(0, likes.getPendingCountDelta(20));
+
+        likes.flush();
+
+        assertEquals(2, store.transactions.size());
+        assertFalse(store.transactions.get(1).get(0).isLiked());
+        assertFalse(store.likes.contains("1:10"));
+        assertEquals(0, likes.getPendingCount());
+        assertEquals(0, likes.getPendingCountDelta(10));
+    }
+
+    /**
+     * Tests that a like written directly replaces the pending toggle, which is then never flushed
+     * over it, and that a later toggle keeps deciding the loaded like state
+     */
+    @Test
+    public void testDirectWriteReplacesPendingToggle() throws Exception {
+        FakeStore store = new FakeStore();
+        LikeWriteBehind likes = new LikeWriteBehind(store, DIRECT, timer, NEVER_MS, 64);
+        likes.loadLikedPosts(1, () -> new long[0]);
+        likes.toggle(1, 10);
+
+        likes.discardPending(1, 10);
+        store.likes.remove("1:10");
+        likes.recordWritten(1, 10, false);
+
+        assertNull(likes.getPendingState(1, 10));
+        assertEquals(0, likes.getPendingCountDelta(10));
+        assertEquals(Boolean.FALSE, likes.getLikedPosts().isLiked(1, 10));
+
+        likes.discardPending(1, 20);
+        assertTrue(likes.toggle(1, 20));
+        likes.recordWritten(1, 20, false);
+        likes.flush();
+
+        assertEquals(Boolean.TRUE, likes.getLikedPosts().isLiked(1, 20));
+        assertEquals(1, store.transactions.size());
+        assertEquals(20, store.transactions.get(0).get(0).getPostId());
+        assertFalse(store.likes.contains("1:10"));
+    }
+
+    /**
+     * Tests that a flush queued through the group commit writer commits in order with the writes
+     * submitted around it, and that its toggles are cleared once it has committed
+     */
+    @Test
+    public void testFlushKeepsWriteOrder() throws Exception {
+        FakeStore store = new FakeStore();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        store.beforeCommit = () -> order.add("flush");
+        ExecutorService writerThread = Executors.newSingleThreadExecutor();
+        try {
+            GroupCommitWriter groupCommit = new GroupCommitWriter(writerThread, timer,
+                    Runnable::run, NEVER_MS, 32);
+            LikeWriteBehind likes = new LikeWriteBehind(store, groupCommit::write, timer,
+                    NEVER_MS, 64);
+            likes.toggle(1, 10);
+
+            groupCommit.submit(() -> order.add("before"));
+            likes.flush();
+            Future<Boolean> after = groupCommit.submit(() -> order.add("after"));
+            groupCommit.flush();
+
+            assertTrue(after.get(1, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList("before", "flush", "after"), order);
+            assertEquals(0, likes.getPendingCount());
+            assertEquals(1, likes.getFlushCount());
+        } finally {
+            writerThread.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that loaded likes include the pending toggles and that later toggles neither read the
+     * database nor leave the loaded likes behind
+     */
+    @Test
+    public void testLoadedLikesFollowToggles() throws Exception {
+        FakeStore store = new FakeStore();
+        store.likes.add("1:10");
+        LikeWriteBehind likes = new LikeWriteBehind(store, DIRECT, timer, NEVER_MS, 64);
+        likes.toggle(1, 10);
+        likes.toggle(2, 20);
+
+        assertEquals(2, likes.loadLikedPosts(1, () -> new long[] {10, 30}));
+        LikedPostSet likedPosts = likes.getLikedPosts();
+        assertEquals(Boolean.FALSE, likedPosts.isLiked(1, 10));
+        assertEquals(Boolean.TRUE, likedPosts.isLiked(1, 30));
+        assertNull(likedPosts.isLiked(2, 20));
+
+        assertFalse(likes.toggle(1, 30));
+        assertTrue(likes.toggle(1, 40));
+
+        assertEquals(2, store.reads);
+        assertEquals(Boolean.FALSE, likedPosts.isLiked(1, 30));
+        assertEquals(Boolean.TRUE, likedPosts.isLiked(1, 40));
+        assertEquals(1, likedPosts.size());
+    }
+
+    /**
+     * Tests that listeners are called after every toggle until their subscription is closed
+     */
+    @Test
+    public void testChangeListener() throws Exception {
+        LikeWriteBehind likes = new LikeWriteBehind(new FakeStore(), DIRECT, timer,
+                NEVER_MS, 64);
+        AtomicInteger changes = new AtomicInteger();
+        Subscription subscription = likes.addChangeListener(changes::incrementAndGet);
+
+        likes.toggle(1, 10);
+        likes.toggle(1, 10);
+        subscription.close();
+        likes.toggle(1, 10);
+
+        assertEquals(2, changes.get());
+    }
+
+    /**
+     * Tests that a negative delay is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNegativeDelay() {
+        new LikeWriteBehind(new FakeStore(), DIRECT, timer, -1, 64);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.socialfood.model.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link LikedPostSet}
+ */
+public class LikedPostSetTest {
+
+    /**
+     * Tests that likes and unlikes keep the set sorted, growing it beyond its loaded size
+     */
+    @Test
+    public void testSetKeepsPostsSorted() {
+        LikedPostSet likedPosts = new LikedPostSet();
+        likedPosts.load(1, new long[] {20});
+
+        for (long postId = 1; postId <= 100; postId += 3) {
+            likedPosts.set(1, postId, true);
+        }
+        likedPosts.set(1, 20, false);
+        likedPosts.set(1, 4, false);
+        likedPosts.set(1, 7, true);
+
+        assertEquals(33, likedPosts.size());
+        for (long postId = 1; postId <= 100; postId++) {
+            boolean expected = postId % 3 == 1 && postId != 4;
+            assertEquals("Post " + postId, expected, likedPosts.isLiked(1, postId));
+        }
+    }
+
+    /**
+     * Tests that the set answers only for the user it was loaded for
+     */
+    @Test
+    public void testAnswersOnlyForLoadedUser() {
+        LikedPostSet likedPosts = new LikedPostSet();
+        assertNull(likedPosts.isLiked(1, 10));
+
+        likedPosts.load(1, new long[] {10});
+        likedPosts.set(2, 20, true);
+
+        assertTrue(likedPosts.isLoadedFor(1));
+        assertNull(likedPosts.isLiked(2, 20));
+        assertEquals(1, likedPosts.size());
+
+        likedPosts.clear();
+
+        assertFalse(likedPosts.isLoadedFor(1));
+        assertNull(likedPosts.isLiked(1, 10));
+        assertEquals(LikedPostSet.NO_USER, likedPosts.getUserId());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.socialfood.model.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Test class for PostCursor. Tests encoding, decoding and rejection of malformed cursors.
+ */
+public class PostCursorTest {
+
+    /**
+     * Tests that a decoded cursor holds the values it was encoded from.
+     */
+    @Test
+    public void testRoundTrip() {
+        PostCursor cursor = new PostCursor(1_700_000_000_000L, 1_234_567_890_123_456L);
+        PostCursor decoded = PostCursor.decode(cursor.encode());
+        assertEquals(1_700_000_000_000L, decoded.timestamp);
+        assertEquals(1_234_567_890_123_456L, decoded.postId);
+    }
+
+    /**
+     * Tests that a null cursor decodes to null.
+     */
+    @Test
+    public void testDecodeNull() {
+        assertNull(PostCursor.decode(null));
+    }
+
+    /**
+     * Tests that malformed cursors are rejected.
+     */
+    @Test
+    public void testDecodeMalformed() {
+        assertNull(PostCursor.decode(""));
+        assertNull(PostCursor.decode("abc"));
+        assertNull(PostCursor.decode("1."));
+        assertNull(PostCursor.decode(".2"));
+        assertNull(PostCursor.decode("1.2.3"));
+        assertNull(PostCursor.decode("1.!"));
+    }
+}
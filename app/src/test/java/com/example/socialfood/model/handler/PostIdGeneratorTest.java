@@ -0,0 +1,116 @@
+package com.example.socialfood.model.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests for {@link PostIdGenerator}
+ */
+public class PostIdGeneratorTest {
+
+    private static final long NOW = 1_750_000_000_000L;
+
+    /**
+     * Tests that an ID carries the time it was generated at
+     */
+    @Test
+    public void testIdIsTimeOrdered() {
+        long[] time = { NOW };
+        PostIdGenerator generator = new PostIdGenerator(3, () -> time[0]);
+
+        long first = generator.nextId();
+        time[0] += 1000;
+        long second = generator.nextId();
+
+        assertTrue(first > 0);
+        assertTrue(second > first);
+        assertEquals(NOW, PostIdGenerator.timestampOf(first));
+        assertEquals(NOW + 1000, PostIdGenerator.timestampOf(second));
+    }
+
+    /**
+     * Tests that IDs keep increasing when the sequence of a millisecond is used up and when the
+     * clock goes backwards
+     */
+    @Test
+    public void testIdsIncreaseWithoutClockProgress() {
+        long[] time = { NOW };
+        PostIdGenerator generator = new PostIdGenerator(0, () -> time[0]);
+
+        long previous = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        assertTrue(PostIdGenerator.timestampOf(previous) > NOW);
+
+        time[0] = NOW - 60_000;
+        assertTrue(generator.nextId() > previous);
+    }
+
+    /**
+     * Tests that an advanced generator only returns IDs after the given one, as after a restart
+     * with a clock that was set back
+     */
+    @Test
+    public void testAdvancePast() {
+        long[] time = { NOW };
+        PostIdGenerator generator = new PostIdGenerator(1, () -> time[0]);
+        long stored = generator.nextId();
+
+        PostIdGenerator restarted = new PostIdGenerator(1, () -> NOW - 1000);
+        restarted.advancePast(stored);
+
+        assertTrue(restarted.nextId() > stored);
+    }
+
+    /**
+     * Tests that concurrent callers never get the same ID
+     */
+    @Test
+    public void testConcurrentIdsAreUnique() throws Exception {
+        PostIdGenerator generator = new PostIdGenerator(7);
+        int threads = 8;
+        int perThread = 20_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                long[] ids = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+        Set<Long> ids = new HashSet<>();
+        for (Future<long[]> future : futures) {
+            for (long id : future.get()) {
+                assertTrue("Duplicate ID " + id, ids.add(id));
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    /**
+     * Tests that node numbers outside the ID layout are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidNode() {
+        new PostIdGenerator(PostIdGenerator.MAX_NODE + 1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.socialfood.model.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Test class for SearchCursor. Tests encoding, decoding and rejection of malformed cursors.
+ */
+public class SearchCursorTest {
+
+    /**
+     * Tests that a decoded cursor holds exactly the score and post it was encoded from.
+     */
+    @Test
+    public void testRoundTrip() {
+        SearchCursor cursor = new SearchCursor(2.718281828459045, 1_234_567_890_123_456L);
+        SearchCursor decoded = SearchCursor.decode(cursor.encode());
+        assertEquals(Double.doubleToLongBits(2.718281828459045),
+                Double.doubleToLongBits(decoded.score));
+        assertEquals(1_234_567_890_123_456L, decoded.postId);
+    }
+
+    /**
+     * Tests that a null cursor decodes to null.
+     */
+    @Test
+    public void testDecodeNull() {
+        assertNull(SearchCursor.decode(null));
+    }
+
+    /**
+     * Tests that malformed cursors and scores no search produces are rejected.
+     */
+    @Test
+    public void testDecodeMalformed() {
+        assertNull(SearchCursor.decode(""));
+        assertNull(SearchCursor.decode("abc"));
+        assertNull(SearchCursor.decode("1."));
+        assertNull(SearchCursor.decode(".2"));
+        assertNull(SearchCursor.decode("1.2.3"));
+        assertNull(SearchCursor.decode(new SearchCursor(Double.NaN, 1).encode()));
+        assertNull(SearchCursor.decode(new SearchCursor(-1, 1).encode()));
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.socialfood.model.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for {@link SingleFlight}
+ */
+public class SingleFlightTest {
+
+    private final ExecutorService reads = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        reads.shutdownNow();
+    }
+
+    /**
+     * Tests that identical reads issued while the first one runs share its query and result
+     */
+    @Test
+    public void testSharesRunningRead() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(() -> 0);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger queries = new AtomicInteger();
+        Object result = new Object();
+
+        Future<Object> first = singleFlight.submit(reads, SingleFlight.key("get", 1), () -> {
+            queries.incrementAndGet();
+            release.await();
+            return result;
+        });
+        Future<Object> second = singleFlight.submit(reads, SingleFlight.key("get", 1),
+                () -> {
+                    fail("Second read should join the first");
+                    return null;
+                });
+        release.countDown();
+
+        assertSame(result, first.get(1, TimeUnit.SECONDS));
+        assertSame(result, second.get(1, TimeUnit.SECONDS));
+        assertEquals(1, queries.get());
+        assertEquals(1, singleFlight.getExecutedCount());
+        assertEquals(1, singleFlight.getSharedCount());
+    }
+
+    /**
+     * Tests that reads of other arguments and reads after the first one completed run their own
+     * query
+     */
+    @Test
+    public void testDifferentOrLaterReadsRunAgain() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(() -> 0);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Integer> first = singleFlight.submit(reads, SingleFlight.key("get", 1), () -> {
+            release.await();
+            return 1;
+        });
+        Future<Integer> other = singleFlight.submit(reads, SingleFlight.key("get", 2), () -> 2);
+        assertEquals(Integer.valueOf(2), other.get(1, TimeUnit.SECONDS));
+        release.countDown();
+        assertEquals(Integer.valueOf(1), first.get(1, TimeUnit.SECONDS));
+        Future<Integer> later = singleFlight.submit(reads, SingleFlight.key("get", 1), () -> 3);
+
+        assertEquals(Integer.valueOf(3), later.get(1, TimeUnit.SECONDS));
+        assertEquals(3, singleFlight.getExecutedCount());
+        assertEquals(0, singleFlight.getSharedCount());
+    }
+
+    /**
+     * Tests that a read does not join one that started before a write or while a write ran, so
+     * that a caller always sees its own writes
+     */
+    @Test
+    public void testDoesNotJoinAcrossWrites() throws Exception {
+        AtomicLong writeSequence = new AtomicLong(1);
+        SingleFlight singleFlight = new SingleFlight(writeSequence::get);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Integer> duringWrite = singleFlight.submit(reads, SingleFlight.key("get", 1),
+                () -> {
+                    release.await();
+                    return 1;
+                });
+        writeSequence.set(2);
+        Future<Integer> afterWrite = singleFlight.submit(reads, SingleFlight.key("get", 1),
+                () -> {
+                    release.await();
+                    return 2;
+                });
+        writeSequence.set(4);
+        Future<Integer> afterNextWrite = singleFlight.submit(reads, SingleFlight.key("get", 1),
+                () -> 3);
+        release.countDown();
+
+        assertEquals(Integer.valueOf(1), duringWrite.get(1, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(2), afterWrite.get(1, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(3), afterNextWrite.get(1, TimeUnit.SECONDS));
+        assertEquals(0, singleFlight.getSharedCount());
+    }
+
+    /**
+     * Tests that a failed query fails every caller sharing it and is not shared afterwards
+     */
+    @Test
+    public void testSharesFailure() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(() -> 0);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Integer> first = singleFlight.submit(reads, SingleFlight.key("get", 1), () -> {
+            release.await();
+            throw new IllegalStateException("failed");
+        });
+        Future<Integer> second = singleFlight.submit(reads, SingleFlight.key("get", 1), () -> 2);
+        release.countDown();
+
+        for (Future<Integer> future : Arrays.asList(first, second)) {
+            try {
+                future.get(1, TimeUnit.SECONDS);
+                fail("Read should fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+        }
+        Future<Integer> retry = singleFlight.submit(reads, SingleFlight.key("get", 1), () -> 3);
+        assertEquals(Integer.valueOf(3), retry.get(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that a rejected read fails instead of blocking the reads that would join it
+     */
+    @Test
+    public void testRejectedRead() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(() -> 0);
+        reads.shutdown();
+
+        Future<Integer> rejected = singleFlight.submit(reads, SingleFlight.key("get", 1), () -> 1);
+        try {
+            rejected.get(1, TimeUnit.SECONDS);
+            fail("Read should be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        Future<Integer> next = singleFlight.submit(Runnable::run, SingleFlight.key("get", 1),
+                () -> 2);
+        assertEquals(Integer.valueOf(2), next.get(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that keys are equal exactly for the same query and arguments
+     */
+    @Test
+    public void testKey() {
+        assertEquals(SingleFlight.key("get", 1, "a"), SingleFlight.key("get", 1, "a"));
+        assertNotEquals(SingleFlight.key("get", 1), SingleFlight.key("get", 2));
+        assertNotEquals(SingleFlight.key("get", 1), SingleFlight.key("find", 1));
+        assertNotEquals(SingleFlight.key("get", 1), SingleFlight.key("get", 1L));
+    }
+}
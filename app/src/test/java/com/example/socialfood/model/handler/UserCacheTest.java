@@ -0,0 +1,103 @@
+package com.example.socialfood.model.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.example.socialfood.model.entities.User;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link UserCache}
+ */
+public class UserCacheTest {
+
+    /**
+     * Tests that a cached user is found by ID and by username
+     */
+    @Test
+    public void testFindsUserByIdAndUsername() {
+        UserCache cache = new UserCache(4);
+        User user = createUser(1, "anna");
+        cache.put(user, cache.generation());
+
+        assertSame(user, cache.getById(1));
+        assertSame(user, cache.getByUsername("anna"));
+        assertNull(cache.getById(2));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     * Tests that the least recently used user is evicted once the cache is full
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        UserCache cache = new UserCache(2);
+        cache.put(createUser(1, "anna"));
+        cache.put(createUser(2, "ben"));
+        cache.getById(1);
+
+        cache.put(createUser(3, "carl"));
+
+        assertNull(cache.getById(2));
+        assertNull(cache.getByUsername("ben"));
+        assertEquals("anna", cache.getById(1).getUsername());
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    /**
+     * Tests that a renamed user is no longer found by its old username
+     */
+    @Test
+    public void testReplacesRenamedUser() {
+        UserCache cache = new UserCache(4);
+        cache.put(createUser(1, "anna"));
+
+        cache.put(createUser(1, "anna2"));
+
+        assertNull(cache.getByUsername("anna"));
+        assertEquals(1, cache.getByUsername("anna2").getUid());
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Tests that a user read before an invalidation is not cached
+     */
+    @Test
+    public void testIgnoresReadOverlappingInvalidation() {
+        UserCache cache = new UserCache(4);
+        long generation = cache.generation();
+        cache.put(createUser(1, "anna"));
+
+        cache.invalidateAll();
+        cache.put(createUser(2, "ben"), generation);
+
+        assertNull(cache.getById(1));
+        assertNull(cache.getById(2));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Tests that removing a user does not drop another user now holding its username
+     */
+    @Test
+    public void testRemoveKeepsNewOwnerOfUsername() {
+        UserCache cache = new UserCache(4);
+        cache.put(createUser(1, "anna"));
+        cache.put(createUser(2, "anna"));
+
+        cache.remove(1);
+
+        assertEquals(2, cache.getByUsername("anna").getUid());
+    }
+
+    private static User createUser(int uid, String username) {
+        User user = new User();
+        user.setUid(uid);
+        user.setUsername(username);
+        return user;
+    }
+}
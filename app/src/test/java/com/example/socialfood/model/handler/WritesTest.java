@@ -0,0 +1,96 @@
+package com.example.socialfood.model.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.socialfood.model.database.GroupCommitWriter;
+import com.example.socialfood.model.metrics.MetricsRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tests for {@link Writes}
+ */
+public class WritesTest {
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final List<String> applied = Collections.synchronizedList(new ArrayList<>());
+
+    @After
+    public void tearDown() {
+        writer.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    /**
+     * Tests that the effect of a write is applied when the write commits, even after its caller
+     * stopped waiting for it
+     */
+    @Test
+    public void testAppliesEffectOfWriteThatOutlivesCaller() throws Exception {
+        GroupCommitWriter groupCommit = new GroupCommitWriter(writer, timer, Runnable::run);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> future = Writes.submit(metrics, groupCommit, "PostDao.insertPost", () -> {
+            release.await(1, TimeUnit.SECONDS);
+            return "a";
+        }, applied::add);
+        try {
+            future.get(10, TimeUnit.MILLISECONDS);
+            fail("Write should still be running");
+        } catch (TimeoutException e) {
+            release.countDown();
+        }
+
+        groupCommit.submit(() -> null).get(1, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("a"), applied);
+    }
+
+    /**
+     * Tests that a caller that got the result of a write also sees its effect
+     */
+    @Test
+    public void testCompletesAfterEffect() throws Exception {
+        GroupCommitWriter groupCommit = new GroupCommitWriter(writer, timer, Runnable::run);
+
+        Writes.submit(metrics, groupCommit, "PostDao.deletePost", () -> {
+        }, () -> applied.add("deleted")).get(1, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList("deleted"), applied);
+    }
+
+    /**
+     * Tests that a failed write has no effect, also on an executor without group commit
+     */
+    @Test
+    public void testSkipsEffectOfFailedWrite() throws Exception {
+        Future<String> future = Writes.submit(metrics, writer, "PostDao.insertPost", () -> {
+            throw new IllegalStateException("Constraint failed");
+        }, applied::add);
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("Write should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        assertTrue(applied.isEmpty());
+    }
+}
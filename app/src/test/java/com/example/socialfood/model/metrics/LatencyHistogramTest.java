@@ -0,0 +1,77 @@
+package com.example.socialfood.model.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link LatencyHistogram}
+ */
+public class LatencyHistogramTest {
+
+    /**
+     * Tests that every value maps to a bucket whose range holds it and that buckets are contiguous
+     */
+    @Test
+    public void testBucketsCoverValues() {
+        for (long micros = 0; micros < 1_000_000; micros += 7) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            assertTrue(LatencyHistogram.lowestValueOf(bucket) <= micros);
+            assertTrue(LatencyHistogram.lowestValueOf(bucket + 1) > micros);
+        }
+    }
+
+    /**
+     * Tests that percentiles are within the precision of a bucket
+     */
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1000, snapshot.getMaxMicros());
+        assertEquals(500.5, snapshot.getMeanMicros(), 0.001);
+        assertWithinBucket(500, snapshot.getPercentileMicros(50));
+        assertWithinBucket(990, snapshot.getPercentileMicros(99));
+        assertEquals(1000, snapshot.getPercentileMicros(100));
+    }
+
+    /**
+     * Tests that latencies beyond the trackable range count in the last bucket and the maximum
+     */
+    @Test
+    public void testRecordsLargeLatency() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long micros = LatencyHistogram.MAX_TRACKABLE_MICROS * 4;
+        histogram.record(micros * 1000);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.getCount());
+        assertEquals(micros, snapshot.getMaxMicros());
+        assertEquals(micros, snapshot.getPercentileMicros(50));
+    }
+
+    /**
+     * Tests that reset forgets all latencies
+     */
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5_000_000);
+        histogram.reset();
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getPercentileMicros(99));
+    }
+
+    private static void assertWithinBucket(long expected, long actual) {
+        assertTrue("Expected about " + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / LatencyHistogram.SUB_BUCKETS);
+    }
+}
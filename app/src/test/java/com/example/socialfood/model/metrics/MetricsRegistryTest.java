@@ -0,0 +1,134 @@
+package com.example.socialfood.model.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tests for {@link MetricsRegistry}
+ */
+public class MetricsRegistryTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Tests that calls, latency and returned rows are recorded per method
+     */
+    @Test
+    public void testRecordsCallsAndRows() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+
+        assertEquals(Arrays.asList(1, 2, 3),
+                metrics.submit(executor, "PostDao.getAllPosts", () -> {
+                    Thread.sleep(5);
+                    return Arrays.asList(1, 2, 3);
+                }).get(1, TimeUnit.SECONDS));
+        metrics.submit(executor, "PostDao.getAllPosts", () -> Arrays.asList(4))
+                .get(1, TimeUnit.SECONDS);
+        metrics.submit(executor, "PostDao.getPostById", () -> null).get(1, TimeUnit.SECONDS);
+
+        MetricsRegistry.Snapshot snapshot = metrics.snapshot();
+        MethodMetrics.Snapshot allPosts = snapshot.getMethod("PostDao.getAllPosts");
+        assertEquals(2, allPosts.getCalls());
+        assertEquals(4, allPosts.getRows());
+        assertTrue(allPosts.getLatency().getMaxMicros() >= 5000);
+        assertEquals(0, snapshot.getMethod("PostDao.getPostById").getRows());
+        assertEquals("PostDao.getAllPosts", snapshot.getMethods().get(0).getName());
+        assertNull(snapshot.getMethod("UserDao.getAll"));
+    }
+
+    /**
+     * Tests that a call without a result, such as a void DAO method, is recorded like the others
+     */
+    @Test
+    public void testRecordsCallWithoutResult() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        List<String> rows = new ArrayList<>();
+
+        assertNull(metrics.submit(executor, "PostDao.insertPost", () -> {
+            rows.add("post");
+        }).get(1, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList("post"), rows);
+        assertEquals(1, metrics.snapshot().getMethod("PostDao.insertPost").getCalls());
+    }
+
+    /**
+     * Tests that a call that throws counts as an exception and still reaches its caller
+     */
+    @Test
+    public void testRecordsException() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+
+        Future<List<Integer>> future = metrics.submit(executor, "UserDao.insertUser", () -> {
+            throw new IllegalStateException("Constraint failed");
+        });
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("Call should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+
+        MethodMetrics.Snapshot insert = metrics.snapshot().getMethod("UserDao.insertUser");
+        assertEquals(1, insert.getCalls());
+        assertEquals(1, insert.getExceptions());
+    }
+
+    /**
+     * Tests that a caller giving up waiting counts as a timeout
+     */
+    @Test
+    public void testRecordsTimeout() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Boolean> future = metrics.submit(executor, "LikeDao.getAll",
+                () -> release.await(1, TimeUnit.SECONDS));
+        try {
+            future.get(10, TimeUnit.MILLISECONDS);
+            fail("Call should time out");
+        } catch (TimeoutException e) {
+            release.countDown();
+        }
+        future.get(1, TimeUnit.SECONDS);
+
+        MethodMetrics.Snapshot getAll = metrics.snapshot().getMethod("LikeDao.getAll");
+        assertEquals(1, getAll.getTimeouts());
+        assertEquals(1, getAll.getCalls());
+    }
+
+    /**
+     * Tests that reset forgets the recorded calls
+     */
+    @Test
+    public void testReset() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        metrics.submit(executor, "FollowDao.getAll", () -> 1).get(1, TimeUnit.SECONDS);
+
+        metrics.reset();
+
+        assertEquals(0, metrics.snapshot().getMethod("FollowDao.getAll").getCalls());
+        assertTrue(metrics.snapshot().toString().contains("FollowDao.getAll{calls=0"));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.socialfood.model.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Test class for Bm25. Builds matchinfo blobs by hand for one phrase and three columns.
+ */
+public class Bm25Test {
+
+    private static final double[] EQUAL_WEIGHTS = { 1, 1, 1 };
+
+    /**
+     * Tests that more hits score higher than fewer hits.
+     */
+    @Test
+    public void testTermFrequency() {
+        double once = Bm25.score(matchinfo(100, 10, 1, 0, 5), EQUAL_WEIGHTS);
+        double twice = Bm25.score(matchinfo(100, 10, 2, 0, 5), EQUAL_WEIGHTS);
+        assertTrue(once > 0);
+        assertTrue(twice > once);
+    }
+
+    /**
+     * Tests that rare terms score higher than common terms.
+     */
+    @Test
+    public void testDocumentFrequency() {
+        double rare = Bm25.score(matchinfo(100, 10, 1, 0, 2), EQUAL_WEIGHTS);
+        double common = Bm25.score(matchinfo(100, 10, 1, 0, 60), EQUAL_WEIGHTS);
+        assertTrue(rare > common);
+        assertTrue("Common terms keep a positive score", common > 0);
+    }
+
+    /**
+     * Tests that a hit in a short field scores higher than in a long field.
+     */
+    @Test
+    public void testLengthNormalization() {
+        double shortField = Bm25.score(matchinfo(100, 5, 1, 0, 5), EQUAL_WEIGHTS);
+        double longField = Bm25.score(matchinfo(100, 40, 1, 0, 5), EQUAL_WEIGHTS);
+        assertTrue(shortField > longField);
+    }
+
+    /**
+     * Tests that column weights favour description hits.
+     */
+    @Test
+    public void testColumnWeights() {
+        double description = Bm25.score(matchinfo(100, 10, 1, 0, 5), Bm25.POST_WEIGHTS);
+        double recipe = Bm25.score(matchinfo(100, 10, 0, 1, 5), Bm25.POST_WEIGHTS);
+        assertTrue(description > recipe);
+    }
+
+    /**
+     * Tests that malformed blobs score zero.
+     */
+    @Test
+    public void testMalformed() {
+        assertEquals(0, Bm25.score(null, EQUAL_WEIGHTS), 0);
+        assertEquals(0, Bm25.score(new byte[8], EQUAL_WEIGHTS), 0);
+        assertEquals(0, Bm25.score(ints(1, 3, 100), EQUAL_WEIGHTS), 0);
+    }
+
+    /**
+     * Tests that the ranking query only decodes hits of columns some row has a hit in and the
+     * lengths those hits need.
+     */
+    @Test
+    public void testScoredMatchesSql() {
+        String sql = Bm25.scoredMatchesSql(ints(1, 3, 100, 10, 10, 0, 1, 5, 5, 0, 0, 0, 0, 0, 0),
+                EQUAL_WEIGHTS, "SELECT docid, h FROM matches");
+
+        assertTrue(sql.contains(" AS t0_0"));
+        assertTrue(sql.contains(" AS l0"));
+        assertFalse(sql.contains(" AS t0_1"));
+        assertFalse(sql.contains(" AS l1"));
+        assertTrue(sql.contains("FROM (SELECT docid, h FROM matches LIMIT -1)"));
+    }
+
+    /**
+     * Tests that a query without hits in any column scores every match zero.
+     */
+    @Test
+    public void testScoredMatchesSqlWithoutHits() {
+        String sql = Bm25.scoredMatchesSql(ints(1, 1, 100, 10, 0, 0, 0), EQUAL_WEIGHTS,
+                "SELECT docid, h FROM matches");
+        assertTrue(sql.startsWith("SELECT docid, 0.0 AS score"));
+    }
+
+    /**
+     * Tests that malformed statistics build no query.
+     */
+    @Test
+    public void testScoredMatchesSqlMalformed() {
+        assertNull(Bm25.scoredMatchesSql(null, EQUAL_WEIGHTS, "SELECT docid, h FROM matches"));
+        assertNull(Bm25.scoredMatchesSql(ints(1, 3, 100), EQUAL_WEIGHTS,
+                "SELECT docid, h FROM matches"));
+    }
+
+    /**
+     * Builds a 'pcnalx' blob for one phrase in three columns of equal average length 10. The
+     * matching row has the given length in every column, descriptionHits hits in the first and
+     * recipeHits hits in the second column; the phrase occurs in rowsWithHit rows.
+     */
+    private byte[] matchinfo(int rows, int length, int descriptionHits, int recipeHits,
+            int rowsWithHit) {
+        return ints(1, 3, rows,
+                10, 10, 10,
+                length, length, length,
+                descriptionHits, descriptionHits * rowsWithHit, rowsWithHit,
+                recipeHits, recipeHits * rowsWithHit, rowsWithHit,
+                0, 0, 0);
+    }
+
+    private byte[] ints(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ByteOrder.nativeOrder());
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+}
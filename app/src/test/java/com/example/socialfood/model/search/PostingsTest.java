@@ -0,0 +1,101 @@
+package com.example.socialfood.model.search;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Test class for Postings. Tests the set operations on sorted posting lists.
+ */
+public class PostingsTest {
+
+    /**
+     * Tests intersecting lists of similar and of very different length.
+     */
+    @Test
+    public void testIntersect() {
+        assertArrayEquals(new long[] { 3, 7 },
+                Postings.intersect(new long[] { 1, 3, 5, 7 }, new long[] { 2, 3, 7, 8 }));
+        assertArrayEquals(new long[] { 500, 999 },
+                Postings.intersect(new long[] { 500, 999, 1500 }, range(1000)));
+        assertArrayEquals(new long[0], Postings.intersect(new long[0], range(10)));
+        assertArrayEquals(new long[0], Postings.intersect(new long[] { 20 }, range(10)));
+    }
+
+    /**
+     * Tests merging lists with shared entries.
+     */
+    @Test
+    public void testUnion() {
+        assertArrayEquals(new long[] { 1, 2, 3, 5, 8 },
+                Postings.union(new long[] { 1, 3, 5 }, new long[] { 2, 3, 8 }));
+        assertArrayEquals(new long[] { 4 }, Postings.union(new long[0], new long[] { 4 }));
+    }
+
+    /**
+     * Tests removing the entries of one list from another.
+     */
+    @Test
+    public void testDifference() {
+        assertArrayEquals(new long[] { 1, 5 },
+                Postings.difference(new long[] { 1, 3, 5, 7 }, new long[] { 3, 4, 7, 9 }));
+        assertArrayEquals(new long[] { 1 }, Postings.difference(new long[] { 1 }, new long[0]));
+    }
+
+    /**
+     * Tests the operations against TreeSet on random lists.
+     */
+    @Test
+    public void testAgainstTreeSet() {
+        Random random = new Random(42);
+        for (int round = 0; round < 100; round++) {
+            TreeSet<Long> a = randomSet(random, random.nextInt(50));
+            TreeSet<Long> b = randomSet(random, random.nextInt(2000));
+
+            TreeSet<Long> and = new TreeSet<>(a);
+            and.retainAll(b);
+            TreeSet<Long> or = new TreeSet<>(a);
+            or.addAll(b);
+            TreeSet<Long> not = new TreeSet<>(a);
+            not.removeAll(b);
+
+            assertArrayEquals(toArray(and), Postings.intersect(toArray(a), toArray(b)));
+            assertArrayEquals(toArray(and), Postings.intersect(toArray(b), toArray(a)));
+            assertArrayEquals(toArray(or), Postings.union(toArray(a), toArray(b)));
+            assertArrayEquals(toArray(not), Postings.difference(toArray(a), toArray(b)));
+        }
+    }
+
+    /**
+     * Tests converting a DAO result into a posting list.
+     */
+    @Test
+    public void testOf() {
+        assertArrayEquals(new long[] { 1, 2 }, Postings.of(Arrays.asList(1L, 2L)));
+        assertArrayEquals(new long[0], Postings.of(null));
+    }
+
+    private long[] range(int size) {
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+
+    private TreeSet<Long> randomSet(Random random, int size) {
+        TreeSet<Long> set = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            set.add((long) random.nextInt(4000));
+        }
+        return set;
+    }
+
+    private long[] toArray(TreeSet<Long> set) {
+        return set.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.socialfood.model.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Test class for SearchQuery. Tests the conversion of user input into FTS4 MATCH expressions.
+ */
+public class SearchQueryTest {
+
+    /**
+     * Tests that every word becomes a lower case prefix term.
+     */
+    @Test
+    public void testPrefixTerms() {
+        assertEquals("pizza* teig*", SearchQuery.toMatchExpression("Pizza Teig"));
+        assertEquals("käse*", SearchQuery.toMatchExpression("Käse"));
+    }
+
+    /**
+     * Tests that FTS syntax in the input is not interpreted.
+     */
+    @Test
+    public void testSyntaxIsStripped() {
+        assertEquals("a* or* b*", SearchQuery.toMatchExpression("a OR b"));
+        assertEquals("recipe* nudeln*", SearchQuery.toMatchExpression("recipe:\"nudeln\" -*"));
+    }
+
+    /**
+     * Tests that input without words yields no expression.
+     */
+    @Test
+    public void testNoTerms() {
+        assertNull(SearchQuery.toMatchExpression(null));
+        assertNull(SearchQuery.toMatchExpression(""));
+        assertNull(SearchQuery.toMatchExpression(" *\"- "));
+    }
+
+    /**
+     * Tests that only the first words are used.
+     */
+    @Test
+    public void testTermLimit() {
+        String expression = SearchQuery.toMatchExpression("a b c d e f g h i j");
+        assertEquals(SearchQuery.MAX_TERMS, expression.split(" ").length);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.socialfood.model.snapshot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.socialfood.model.entities.FeedItem;
+import com.example.socialfood.model.entities.Post;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests for {@link FeedSnapshot}
+ */
+public class FeedSnapshotTest {
+
+    /**
+     * Tests that a written snapshot is read back with all fields
+     */
+    @Test
+    public void testWriteAndRead() throws IOException {
+        File file = File.createTempFile("snapshot", ".bin");
+        try {
+            FeedSnapshot written = new FeedSnapshot(1234L, 52.52, 13.405, 15.5, Arrays.asList(
+                    createItem(1L, "anna", "K\u00e4sesp\u00e4tzle \uD83E\uDDC0", "img/1.jpg"),
+                    createItem(2L, null, "", null)));
+
+            assertTrue(written.write(file));
+            FeedSnapshot read = FeedSnapshot.read(file);
+
+            assertEquals(1234L, read.getSavedAt());
+            assertEquals(52.52, read.getCenterLatitude(), 0);
+            assertEquals(13.405, read.getCenterLongitude(), 0);
+            assertEquals(15.5, read.getZoom(), 0);
+            assertEquals(written.getItems(), read.getItems());
+            assertFalse(new File(file.getPath() + ".tmp").exists());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that posts built from a snapshot carry the fields of a map marker
+     */
+    @Test
+    public void testToPosts() {
+        FeedSnapshot snapshot = new FeedSnapshot(0, 0, 0, 0,
+                Collections.singletonList(createItem(7L, "ben", "Ramen", null)));
+
+        List<Post> posts = snapshot.toPosts();
+
+        assertEquals(1, posts.size());
+        assertEquals(7L, posts.get(0).getPostId());
+        assertEquals("Ramen", posts.get(0).getDescription());
+        assertNull(posts.get(0).getImageUrl());
+        assertEquals(48.1, posts.get(0).getLatitude(), 0);
+    }
+
+    /**
+     * Tests that a missing file or content of another format is no snapshot
+     */
+    @Test
+    public void testIgnoresMissingAndForeignFiles() {
+        assertNull(FeedSnapshot.read(new File("does-not-exist.bin")));
+
+        ByteBuffer foreign = ByteBuffer.allocate(64);
+        foreign.putInt(0x12345678);
+        foreign.rewind();
+        assertNull(FeedSnapshot.decode(foreign));
+    }
+
+    private FeedItem createItem(long postId, String username, String description,
+            String imageUrl) {
+        FeedItem item = new FeedItem();
+        item.setPostId(postId);
+        item.setUid((int) postId * 10);
+        item.setUsername(username);
+        item.setDescription(description);
+        item.setImageUrl(imageUrl);
+        item.setTimestamp(1_700_000_000_000L + postId);
+        item.setLatitude(48.1);
+        item.setLongitude(11.6);
+        item.setLikeCount(3);
+        item.setCommentCount(1);
+        item.setLikedByCurrentUser(postId % 2 == 0);
+        return item;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.socialfood.model.spatial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.example.socialfood.model.entities.Post;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark for nearest-post queries. Places 1M posts in clusters around cities, as the output of
+ * {@link com.example.socialfood.model.dao.PostDao#getAllPosts()} would look like, and times the
+ * 20 nearest posts once through a {@link PostGrid} and once by sorting the whole list by
+ * haversine distance. Both must agree, and the grid must be faster. Only runs with
+ * {@code ./gradlew test -Dbenchmark=true}, since building the posts alone takes seconds.
+ */
+public class PostGridBenchmarkTest {
+    private static final int POSTS = 1_000_000;
+    private static final int USERS = 1_000;
+    private static final int NEAREST = 20;
+    private static final int GRID_QUERIES = 10_000;
+    private static final int SORT_QUERIES = 3;
+
+    private static final double[][] CITIES = {
+            { 48.137, 11.575 }, { 52.520, 13.405 }, { 53.551, 9.993 }, { 50.938, 6.960 },
+            { 50.110, 8.682 }, { 48.208, 16.373 }, { 47.377, 8.541 }, { 45.464, 9.190 },
+            { 48.857, 2.352 }, { 51.507, -0.128 }, { 40.417, -3.704 }, { 41.902, 12.496 } };
+
+    /**
+     * Times the grid against sorting all posts for the same query points
+     */
+    @Test
+    public void benchmarkNearestPosts() {
+        assumeTrue(Boolean.getBoolean("benchmark"));
+        Random random = new Random(7);
+        List<Post> posts = new ArrayList<>(POSTS);
+        for (int i = 0; i < POSTS; i++) {
+            double[] city = CITIES[random.nextInt(CITIES.length)];
+            Post post = new Post();
+            post.setUid(i % USERS + 1);
+            post.setPostId(i + 1);
+            post.setLatitude(city[0] + random.nextGaussian() * 0.3);
+            post.setLongitude(city[1] + random.nextGaussian() * 0.3);
+            posts.add(post);
+        }
+
+        long start = System.nanoTime();
+        PostGrid grid = new PostGrid();
+        for (Post post : posts) {
+            grid.put(post.getPostId(), post.getLatitude(), post.getLongitude());
+        }
+        long build = (System.nanoTime() - start) / 1_000_000;
+
+        double[][] queries = new double[GRID_QUERIES][];
+        for (int i = 0; i < GRID_QUERIES; i++) {
+            double[] city = CITIES[random.nextInt(CITIES.length)];
+            queries[i] = new double[] { city[0] + random.nextGaussian() * 0.5,
+                    city[1] + random.nextGaussian() * 0.5 };
+        }
+
+        for (double[] query : queries) {
+            grid.nearest(query[0], query[1], NEAREST);
+        }
+        start = System.nanoTime();
+        for (double[] query : queries) {
+            grid.nearest(query[0], query[1], NEAREST);
+        }
+        long gridMicros = (System.nanoTime() - start) / GRID_QUERIES / 1000;
+
+        start = System.nanoTime();
+        for (int i = 0; i < SORT_QUERIES; i++) {
+            double[] query = queries[i];
+            List<Post> sorted = sortByDistance(posts, query[0], query[1]);
+            Neighbors neighbors = grid.nearest(query[0], query[1], NEAREST);
+            for (int rank = 0; rank < NEAREST; rank++) {
+                Post post = sorted.get(rank);
+                assertEquals(PostGrid.distanceMeters(query[0], query[1], post.getLatitude(),
+                        post.getLongitude()), neighbors.distanceMeters(rank), 1e-3);
+            }
+        }
+        long sortMicros = (System.nanoTime() - start) / SORT_QUERIES / 1000;
+
+        assertTrue(POSTS + " posts, " + NEAREST + " nearest: grid " + gridMicros
+                + "us (built in " + build + "ms) vs sorting getAllPosts() " + sortMicros + "us",
+                gridMicros < sortMicros);
+    }
+
+    /**
+     * The approach without an index: compute every distance and sort the whole list
+     */
+    private List<Post> sortByDistance(List<Post> posts, double latitude, double longitude) {
+        double[] distances = new double[posts.size()];
+        Integer[] order = new Integer[posts.size()];
+        for (int i = 0; i < distances.length; i++) {
+            Post post = posts.get(i);
+            distances[i] = PostGrid.distanceMeters(latitude, longitude, post.getLatitude(),
+                    post.getLongitude());
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> distances[i]));
+        List<Post> sorted = new ArrayList<>(posts.size());
+        for (int i : order) {
+            sorted.add(posts.get(i));
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.socialfood.model.spatial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test class for PostGrid. Tests incremental updates and compares nearest-neighbour queries with
+ * a brute-force scan.
+ */
+public class PostGridTest {
+
+    /**
+     * Tests the haversine distance against a known distance.
+     */
+    @Test
+    public void testDistance() {
+        // Munich to Berlin, about 504 km
+        double distance = PostGrid.distanceMeters(48.137, 11.575, 52.520, 13.405);
+        assertEquals(504_000, distance, 2_000);
+        assertEquals(0, PostGrid.distanceMeters(10, 20, 10, 20), 1e-6);
+    }
+
+    /**
+     * Tests that the nearest posts come first with their full 64-bit IDs.
+     */
+    @Test
+    public void testNearest() {
+        PostGrid grid = new PostGrid();
+        grid.put(1, 52.520, 13.405);
+        grid.put(1L << 40, 48.137, 11.575);
+        grid.put(3, 48.208, 16.373);
+
+        Neighbors neighbors = grid.nearest(48.1, 11.6, 2);
+
+        assertEquals(2, neighbors.size());
+        assertEquals(1L << 40, neighbors.postId(0));
+        assertEquals(3, neighbors.postId(1));
+        assertTrue(neighbors.distanceMeters(0) < neighbors.distanceMeters(1));
+    }
+
+    /**
+     * Tests that moved posts are found at their new location and removed posts not at all.
+     */
+    @Test
+    public void testPutAndRemove() {
+        PostGrid grid = new PostGrid();
+        grid.put(1, 0, 0);
+        grid.put(2, 10, 10);
+        grid.put(1, 40, 40);
+
+        assertEquals(2, grid.size());
+        assertEquals(2, grid.nearest(0, 0, 1).postId(0));
+
+        assertTrue(grid.remove(2));
+        assertFalse(grid.remove(2));
+        assertEquals(1, grid.size());
+        assertEquals(1, grid.nearest(0, 0, 5).postId(0));
+        assertEquals(1, grid.nearest(0, 0, 5).size());
+    }
+
+    /**
+     * Tests that the search wraps around the antimeridian and reaches the poles.
+     */
+    @Test
+    public void testWrapAround() {
+        PostGrid grid = new PostGrid();
+        grid.put(1, 10, 179.9);
+        grid.put(2, 10, -170);
+        grid.put(3, 89.9, 0);
+
+        Neighbors neighbors = grid.nearest(10, -179.9, 3);
+
+        assertEquals(1, neighbors.postId(0));
+        assertEquals(2, neighbors.postId(1));
+        assertEquals(3, grid.nearest(89.9, 180, 1).postId(0));
+    }
+
+    /**
+     * Tests that loading replaces the content and that an empty grid returns nothing.
+     */
+    @Test
+    public void testLoadAndClear() {
+        PostGrid grid = new PostGrid();
+        assertFalse(grid.isLoaded());
+        assertEquals(0, grid.nearest(0, 0, 10).size());
+
+        grid.put(9, 0, 0);
+        grid.load(new long[] { 1, 2 }, new double[] { 1, 2 }, new double[] { 1, 2 }, 2);
+
+        assertTrue(grid.isLoaded());
+        assertEquals(2, grid.size());
+        assertEquals(1, grid.nearest(0, 0, 1).postId(0));
+
+        grid.clear();
+        assertFalse(grid.isLoaded());
+        assertEquals(0, grid.size());
+    }
+
+    /**
+     * Tests that a load racing with a change is swapped in but not marked as loaded
+     */
+    @Test
+    public void testLoadAfterChangeIsNotMarkedLoaded() {
+        PostGrid grid = new PostGrid();
+        long version = grid.getVersion();
+        grid.put(9, 0, 0);
+
+        assertFalse(grid.load(version, new long[] { 1 }, new double[] { 1 }, new double[] { 1 },
+                1));
+        assertFalse(grid.isLoaded());
+        assertEquals(1, grid.nearest(0, 0, 5).size());
+        assertEquals(1, grid.nearest(0, 0, 5).postId(0));
+
+        assertTrue(grid.load(grid.getVersion(), new long[] { 1, 9 }, new double[] { 1, 0 },
+                new double[] { 1, 0 }, 2));
+        assertTrue(grid.isLoaded());
+        assertEquals(9, grid.nearest(0, 0, 1).postId(0));
+    }
+
+    /**
+     * Tests random queries against sorting all distances, with posts removed, moved and added
+     * again in between.
+     */
+    @Test
+    public void testAgainstBruteForce() {
+        Random random = new Random(42);
+        int count = 20_000;
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        boolean[] removed = new boolean[count];
+        PostGrid grid = new PostGrid(1.0);
+        for (int i = 0; i < count; i++) {
+            latitudes[i] = random.nextDouble() * 180 - 90;
+            longitudes[i] = random.nextDouble() * 360 - 180;
+            grid.put(i, latitudes[i], longitudes[i]);
+        }
+        for (int i = 0; i < count; i += 5) {
+            grid.remove(i);
+            removed[i] = true;
+        }
+        for (int i = 1; i < count; i += 7) {
+            latitudes[i] = random.nextDouble() * 2 + 47;
+            grid.put(i, latitudes[i], longitudes[i]);
+            removed[i] = false;
+        }
+
+        for (int query = 0; query < 100; query++) {
+            double latitude = random.nextDouble() * 180 - 90;
+            double longitude = random.nextDouble() * 360 - 180;
+            int k = 1 + random.nextInt(40);
+
+            double[] expected = new double[count];
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                if (!removed[i]) {
+                    expected[size++] = PostGrid.distanceMeters(latitude, longitude, latitudes[i],
+                            longitudes[i]);
+                }
+            }
+            expected = Arrays.copyOf(expected, size);
+            Arrays.sort(expected);
+
+            Neighbors neighbors = grid.nearest(latitude, longitude, k);
+            assertEquals(k, neighbors.size());
+            for (int i = 0; i < k; i++) {
+                assertEquals(expected[i], neighbors.distanceMeters(i), 1e-3);
+            }
+        }
+    }
+}